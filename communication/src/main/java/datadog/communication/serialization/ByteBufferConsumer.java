@@ -1,8 +1,30 @@
 package datadog.communication.serialization;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
 public interface ByteBufferConsumer {
 
   void accept(int messageCount, ByteBuffer buffer);
+
+  /**
+   * Accepts messages spread over several buffers, consumers which can write the buffers out
+   * without joining them should override this.
+   */
+  default void accept(int messageCount, List<ByteBuffer> buffers) {
+    if (buffers.size() == 1) {
+      accept(messageCount, buffers.get(0));
+      return;
+    }
+    int size = 0;
+    for (ByteBuffer buffer : buffers) {
+      size += buffer.remaining();
+    }
+    ByteBuffer joined = ByteBuffer.allocate(size);
+    for (ByteBuffer buffer : buffers) {
+      joined.put(buffer.duplicate());
+    }
+    joined.flip();
+    accept(messageCount, joined);
+  }
 }
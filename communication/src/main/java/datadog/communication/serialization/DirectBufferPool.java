@@ -0,0 +1,75 @@
+package datadog.communication.serialization;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of fixed size direct buffers, shared by {@link PooledFlushingBuffer}s so that payloads are
+ * encoded off-heap and the memory held by serialization is proportional to the payloads in flight
+ * rather than to the maximum payload size.
+ */
+public final class DirectBufferPool {
+
+  public static final int DEFAULT_SEGMENT_SIZE = 64 << 10;
+
+  private final int segmentSize;
+  private final ArrayBlockingQueue<ByteBuffer> pooled;
+
+  private final AtomicInteger inUse = new AtomicInteger();
+  private final AtomicLong allocated = new AtomicLong();
+  private final AtomicLong reused = new AtomicLong();
+
+  /**
+   * @param segmentSize the size of each buffer in bytes
+   * @param maxPooled the maximum number of released buffers retained for reuse, buffers released
+   *     above this are left to be garbage collected
+   */
+  public DirectBufferPool(int segmentSize, int maxPooled) {
+    this.segmentSize = segmentSize;
+    this.pooled = new ArrayBlockingQueue<>(Math.max(maxPooled, 1));
+  }
+
+  public ByteBuffer acquire() {
+    ByteBuffer buffer = pooled.poll();
+    if (null == buffer) {
+      buffer = ByteBuffer.allocateDirect(segmentSize);
+      allocated.incrementAndGet();
+    } else {
+      reused.incrementAndGet();
+    }
+    inUse.incrementAndGet();
+    return buffer;
+  }
+
+  public void release(ByteBuffer buffer) {
+    inUse.decrementAndGet();
+    buffer.clear();
+    pooled.offer(buffer);
+  }
+
+  public int segmentSize() {
+    return segmentSize;
+  }
+
+  /** @return the number of buffers acquired and not yet released */
+  public int inUse() {
+    return inUse.get();
+  }
+
+  /** @return the number of buffers available for reuse */
+  public int pooled() {
+    return pooled.size();
+  }
+
+  /** @return the number of buffers allocated because none were available for reuse */
+  public long allocated() {
+    return allocated.get();
+  }
+
+  /** @return the number of acquisitions served by a previously released buffer */
+  public long reused() {
+    return reused.get();
+  }
+}
@@ -0,0 +1,187 @@
+package datadog.communication.serialization;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link StreamingBuffer} which encodes into a chain of direct segments acquired from a {@link
+ * DirectBufferPool} on demand. When flushed, the complete messages are handed to the consumer as a
+ * list of read-only views over the segments, which are returned to the pool once the consumer
+ * returns, so the consumer must have finished with them by then.
+ */
+public final class PooledFlushingBuffer implements StreamingBuffer {
+
+  private final DirectBufferPool pool;
+  private final ByteBufferConsumer consumer;
+  private final int maxSegments;
+  private final List<ByteBuffer> segments;
+
+  private ByteBuffer current;
+  private int messageCount;
+  private int markSegment = -1;
+  private int markPosition;
+
+  /**
+   * @param capacity the maximum number of bytes to buffer before overflowing, rounded up to a
+   *     whole number of segments
+   */
+  public PooledFlushingBuffer(int capacity, DirectBufferPool pool, ByteBufferConsumer consumer) {
+    this.pool = pool;
+    this.consumer = consumer;
+    this.maxSegments = Math.max(1, (capacity + pool.segmentSize() - 1) / pool.segmentSize());
+    this.segments = new ArrayList<>(Math.min(maxSegments, 16));
+  }
+
+  @Override
+  public int capacity() {
+    return maxSegments * pool.segmentSize();
+  }
+
+  @Override
+  public boolean isDirty() {
+    return messageCount > 0;
+  }
+
+  @Override
+  public void mark() {
+    markSegment = segments.size() - 1;
+    markPosition = null == current ? 0 : current.position();
+    ++messageCount;
+  }
+
+  @Override
+  public boolean flush() {
+    if (messageCount == 0) {
+      return false;
+    }
+    List<ByteBuffer> toPublish = new ArrayList<>(markSegment + 1);
+    for (int i = 0; i <= markSegment; ++i) {
+      ByteBuffer segment = segments.get(i).duplicate();
+      segment.limit(i == markSegment ? markPosition : segment.position());
+      segment.position(0);
+      toPublish.add(segment.asReadOnlyBuffer());
+    }
+    try {
+      consumer.accept(messageCount, toPublish);
+    } finally {
+      reset();
+    }
+    return true;
+  }
+
+  private ByteBuffer next() {
+    if (segments.size() == maxSegments) {
+      throw new BufferOverflowException();
+    }
+    current = pool.acquire();
+    segments.add(current);
+    return current;
+  }
+
+  private ByteBuffer ensure(int bytes) {
+    ByteBuffer buffer = current;
+    if (null == buffer || !buffer.hasRemaining()) {
+      buffer = next();
+    }
+    // values which straddle two segments are written a byte at a time
+    return buffer.remaining() >= bytes ? buffer : null;
+  }
+
+  @Override
+  public void put(byte b) {
+    ensure(1).put(b);
+  }
+
+  @Override
+  public void putShort(short s) {
+    ByteBuffer buffer = ensure(2);
+    if (null != buffer) {
+      buffer.putShort(s);
+    } else {
+      putBytes(s, 2);
+    }
+  }
+
+  @Override
+  public void putChar(char c) {
+    putShort((short) c);
+  }
+
+  @Override
+  public void putInt(int i) {
+    ByteBuffer buffer = ensure(4);
+    if (null != buffer) {
+      buffer.putInt(i);
+    } else {
+      putBytes(i, 4);
+    }
+  }
+
+  @Override
+  public void putLong(long l) {
+    ByteBuffer buffer = ensure(8);
+    if (null != buffer) {
+      buffer.putLong(l);
+    } else {
+      putBytes(l, 8);
+    }
+  }
+
+  @Override
+  public void putFloat(float f) {
+    putInt(Float.floatToRawIntBits(f));
+  }
+
+  @Override
+  public void putDouble(double d) {
+    putLong(Double.doubleToRawLongBits(d));
+  }
+
+  private void putBytes(long value, int width) {
+    for (int shift = (width - 1) << 3; shift >= 0; shift -= 8) {
+      put((byte) (value >>> shift));
+    }
+  }
+
+  @Override
+  public void put(byte[] bytes) {
+    put(bytes, 0, bytes.length);
+  }
+
+  @Override
+  public void put(byte[] bytes, int offset, int length) {
+    while (length > 0) {
+      ByteBuffer buffer = ensure(1);
+      int chunk = Math.min(length, buffer.remaining());
+      buffer.put(bytes, offset, chunk);
+      offset += chunk;
+      length -= chunk;
+    }
+  }
+
+  @Override
+  public void put(ByteBuffer buffer) {
+    while (buffer.hasRemaining()) {
+      ByteBuffer target = ensure(1);
+      int chunk = Math.min(buffer.remaining(), target.remaining());
+      ByteBuffer slice = buffer.duplicate();
+      slice.limit(slice.position() + chunk);
+      target.put(slice);
+      buffer.position(buffer.position() + chunk);
+    }
+  }
+
+  @Override
+  public void reset() {
+    for (ByteBuffer segment : segments) {
+      pool.release(segment);
+    }
+    segments.clear();
+    current = null;
+    messageCount = 0;
+    markSegment = -1;
+    markPosition = 0;
+  }
+}
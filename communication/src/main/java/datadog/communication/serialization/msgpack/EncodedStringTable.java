@@ -0,0 +1,116 @@
+package datadog.communication.serialization.msgpack;
+
+import static datadog.communication.serialization.msgpack.MsgPackWriter.FIXSTR;
+import static datadog.communication.serialization.msgpack.MsgPackWriter.STR16;
+import static datadog.communication.serialization.msgpack.MsgPackWriter.STR8;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import datadog.communication.serialization.EncodingCache;
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+
+/**
+ * Bounded cache of complete msgpack string encodings (header and UTF-8 bytes) so that frequently
+ * repeated strings such as service names, operation names, resource names, span types and tag keys
+ * can be written with a single {@code put}. Writers only use the table for strings written with
+ * {@link #LOW_CARDINALITY}, so that tag and baggage values don't evict the repeated strings.
+ *
+ * <p>The table is direct-mapped: each string can only live in one slot, and a string hashing to an
+ * occupied slot evicts the previous occupant. Lookups check identity before falling back to
+ * comparing contents, so the common case of the same {@link UTF8BytesString} or constant {@link
+ * String} instance being written over and over doesn't compare characters. Only {@link String} and
+ * {@link UTF8BytesString} values are cached, because other {@link CharSequence}s may be mutable.
+ *
+ * <p>Slots hold immutable entries, so the table can be shared by writers on different threads
+ * without locking; a lost update just means a string is encoded again.
+ */
+public final class EncodedStringTable {
+
+  /** Shared by the tracer's trace and metrics serializers. */
+  public static final EncodedStringTable SHARED = new EncodedStringTable(4096, 256);
+
+  /**
+   * Passed as the {@link EncodingCache} of strings which are repeated across spans, such as names
+   * and tag keys, to write them from the writer's table. Writers without a table encode them as
+   * usual.
+   */
+  public static final EncodingCache LOW_CARDINALITY = s -> null;
+
+  private static final class Entry {
+    final CharSequence key;
+    final byte[] encoded;
+
+    Entry(CharSequence key, byte[] encoded) {
+      this.key = key;
+      this.encoded = encoded;
+    }
+  }
+
+  private final Entry[] entries;
+  private final int mask;
+  private final int maxLength;
+
+  /**
+   * @param capacity the number of slots, rounded up to a power of two
+   * @param maxLength strings longer than this are never cached
+   */
+  public EncodedStringTable(int capacity, int maxLength) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    this.entries = new Entry[size];
+    this.mask = size - 1;
+    // keep every cached encoding within a STR16 header
+    this.maxLength = Math.min(maxLength, 0xFFFF / 3);
+  }
+
+  /**
+   * @return the msgpack encoding of the string including its header, or null if it can't be cached
+   */
+  public byte[] encode(CharSequence s) {
+    if (!(s instanceof String || s instanceof UTF8BytesString) || s.length() > maxLength) {
+      return null;
+    }
+    int h = s.hashCode();
+    int slot = (h ^ (h >>> 16)) & mask;
+    Entry entry = entries[slot];
+    if (null != entry
+        && (entry.key == s || entry.key.hashCode() == h && sameContents(entry.key, s))) {
+      return entry.encoded;
+    }
+    byte[] encoded = encodeWithHeader(s);
+    entries[slot] = new Entry(s, encoded);
+    return encoded;
+  }
+
+  private static boolean sameContents(CharSequence cached, CharSequence s) {
+    // toString doesn't copy for either of the cacheable types
+    return cached.toString().equals(s.toString());
+  }
+
+  private static byte[] encodeWithHeader(CharSequence s) {
+    byte[] utf8 =
+        s instanceof UTF8BytesString
+            ? ((UTF8BytesString) s).getUtf8Bytes()
+            : ((String) s).getBytes(UTF_8);
+    int length = utf8.length;
+    byte[] encoded;
+    int offset;
+    if (length < 0x10) {
+      encoded = new byte[length + 1];
+      encoded[0] = (byte) (FIXSTR | length);
+      offset = 1;
+    } else if (length < 0x100) {
+      encoded = new byte[length + 2];
+      encoded[0] = STR8;
+      encoded[1] = (byte) length;
+      offset = 2;
+    } else {
+      // maxLength keeps cached strings well below 64KB
+      encoded = new byte[length + 3];
+      encoded[0] = STR16;
+      encoded[1] = (byte) (length >>> 8);
+      encoded[2] = (byte) length;
+      offset = 3;
+    }
+    System.arraycopy(utf8, 0, encoded, offset, length);
+    return encoded;
+  }
+}
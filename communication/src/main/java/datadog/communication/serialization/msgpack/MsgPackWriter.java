@@ -62,13 +62,24 @@ public class MsgPackWriter implements WritableFormatter {
 
   private final StreamingBuffer buffer;
 
+  private final EncodedStringTable stringTable;
+
   public MsgPackWriter(StreamingBuffer buffer) {
     this(Codec.INSTANCE, buffer);
   }
 
   public MsgPackWriter(Codec codec, StreamingBuffer buffer) {
+    this(codec, buffer, null);
+  }
+
+  /**
+   * @param stringTable when not null, strings written with {@link
+   *     EncodedStringTable#LOW_CARDINALITY} are written from this table
+   */
+  public MsgPackWriter(Codec codec, StreamingBuffer buffer, EncodedStringTable stringTable) {
     this.codec = codec;
     this.buffer = buffer;
+    this.stringTable = stringTable;
   }
 
   @Override
@@ -168,7 +179,11 @@ public class MsgPackWriter implements WritableFormatter {
     if (null == s) {
       writeNull();
     } else {
-      if (null != encodingCache) {
+      if (EncodedStringTable.LOW_CARDINALITY == encodingCache) {
+        if (writeFromTable(s)) {
+          return;
+        }
+      } else if (null != encodingCache) {
         byte[] utf8 = encodingCache.encode(s);
         if (null != utf8) {
           writeUTF8(utf8);
@@ -200,6 +215,17 @@ public class MsgPackWriter implements WritableFormatter {
     buffer.put(string.getUtf8Bytes());
   }
 
+  private boolean writeFromTable(CharSequence s) {
+    if (null != stringTable) {
+      byte[] encoded = stringTable.encode(s);
+      if (null != encoded) {
+        buffer.put(encoded);
+        return true;
+      }
+    }
+    return false;
+  }
+
   @Override
   public void writeBinary(byte[] binary) {
     writeBinaryHeader(binary.length);
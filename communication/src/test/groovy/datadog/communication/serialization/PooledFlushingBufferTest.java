@@ -0,0 +1,107 @@
+package datadog.communication.serialization;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PooledFlushingBufferTest {
+
+  @Test
+  public void testBufferCapacityIsRoundedUpToSegments() {
+    DirectBufferPool pool = new DirectBufferPool(8, 4);
+    assertEquals(16, new PooledFlushingBuffer(9, pool, (messageCount, buffer) -> {}).capacity());
+  }
+
+  @Test
+  public void testValuesStraddlingSegmentsAreWrittenContiguously() {
+    DirectBufferPool pool = new DirectBufferPool(5, 8);
+    CapturingConsumer consumer = new CapturingConsumer();
+    PooledFlushingBuffer buffer = new PooledFlushingBuffer(64, pool, consumer);
+
+    buffer.put((byte) 1);
+    buffer.putShort((short) 0x0203);
+    buffer.putInt(0x04050607);
+    buffer.putLong(0x08090A0B0C0D0E0FL);
+    buffer.put(new byte[] {16, 17, 18, 19, 20, 21, 22});
+    buffer.mark();
+    // a partially written message is not published
+    buffer.putInt(-1);
+
+    assertTrue(buffer.flush());
+    assertEquals(1, consumer.messageCount);
+    assertEquals(5, consumer.segments);
+    byte[] expected = new byte[22];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = (byte) (i + 1);
+    }
+    assertArrayEquals(expected, consumer.bytes);
+  }
+
+  @Test
+  public void testSegmentsAreReturnedToThePoolAfterFlush() {
+    DirectBufferPool pool = new DirectBufferPool(4, 8);
+    CapturingConsumer consumer = new CapturingConsumer();
+    PooledFlushingBuffer buffer = new PooledFlushingBuffer(64, pool, consumer);
+
+    buffer.putLong(1L);
+    buffer.mark();
+    assertEquals(2, pool.inUse());
+    assertTrue(buffer.flush());
+    assertEquals(0, pool.inUse());
+    assertEquals(2, pool.pooled());
+    assertFalse(buffer.flush());
+
+    buffer.putLong(2L);
+    buffer.mark();
+    buffer.flush();
+    assertEquals(2, pool.allocated());
+    assertEquals(2, pool.reused());
+  }
+
+  @Test
+  public void testOverflowAfterMaxSegments() {
+    DirectBufferPool pool = new DirectBufferPool(4, 8);
+    PooledFlushingBuffer buffer =
+        new PooledFlushingBuffer(8, pool, (messageCount, bytes) -> {});
+
+    buffer.putLong(1L);
+    assertThrows(BufferOverflowException.class, () -> buffer.put((byte) 0));
+    buffer.reset();
+    assertEquals(0, pool.inUse());
+  }
+
+  private static final class CapturingConsumer implements ByteBufferConsumer {
+    int messageCount;
+    int segments;
+    byte[] bytes;
+
+    @Override
+    public void accept(int messageCount, ByteBuffer buffer) {
+      throw new AssertionError("expected segmented payload");
+    }
+
+    @Override
+    public void accept(int messageCount, List<ByteBuffer> buffers) {
+      this.messageCount = messageCount;
+      this.segments = buffers.size();
+      int size = 0;
+      for (ByteBuffer buffer : buffers) {
+        size += buffer.remaining();
+      }
+      bytes = new byte[size];
+      int offset = 0;
+      for (ByteBuffer buffer : buffers) {
+        int length = buffer.remaining();
+        buffer.get(bytes, offset, length);
+        offset += length;
+      }
+    }
+  }
+}
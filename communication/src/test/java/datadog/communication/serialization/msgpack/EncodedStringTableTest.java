@@ -0,0 +1,89 @@
+package datadog.communication.serialization.msgpack;
+
+import static datadog.communication.serialization.msgpack.EncodedStringTable.LOW_CARDINALITY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import datadog.communication.serialization.Codec;
+import datadog.communication.serialization.GrowableBuffer;
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+public class EncodedStringTableTest {
+
+  @Test
+  public void testEncodingsMatchUncachedWrites() {
+    EncodedStringTable table = new EncodedStringTable(16, 1024);
+    for (String s :
+        Arrays.asList("", "service", repeat('x', 20), repeat('é', 200), repeat('y', 1000))) {
+      assertArrayEquals(write(s, null), write(s, table), s);
+      assertArrayEquals(
+          write(UTF8BytesString.create(s), null), write(UTF8BytesString.create(s), table), s);
+    }
+  }
+
+  @Test
+  public void testRepeatedStringsShareTheirEncoding() {
+    EncodedStringTable table = new EncodedStringTable(16, 64);
+    UTF8BytesString name = UTF8BytesString.create("servlet.request");
+    byte[] encoded = table.encode(name);
+    assertSame(encoded, table.encode(name));
+    // equal contents also hit, regardless of the string type
+    assertSame(encoded, table.encode(new String("servlet.request")));
+  }
+
+  @Test
+  public void testUncacheableStrings() {
+    EncodedStringTable table = new EncodedStringTable(16, 8);
+    assertNull(table.encode(new StringBuilder("mutable")));
+    assertNull(table.encode("longer than eight"));
+    assertNotNull(table.encode("short"));
+  }
+
+  @Test
+  public void testCollidingStringsEvictEachOther() {
+    EncodedStringTable table = new EncodedStringTable(2, 64);
+    // "Aa" and "BB" have the same hash code
+    byte[] first = table.encode("Aa");
+    table.encode("BB");
+    assertNotSame(first, table.encode("Aa"));
+    assertArrayEquals(first, table.encode("Aa"));
+  }
+
+  @Test
+  public void testOnlyLowCardinalityStringsAreWrittenFromTheTable() {
+    EncodedStringTable table = new EncodedStringTable(2, 64);
+    byte[] first = table.encode("Aa");
+    MsgPackWriter writer = new MsgPackWriter(Codec.INSTANCE, new GrowableBuffer(16), table);
+    // "BB" would evict "Aa" if it went through the table
+    writer.writeString("BB", null);
+    writer.writeObject("BB", null);
+    writer.writeUTF8(UTF8BytesString.create("BB"));
+    assertSame(first, table.encode("Aa"));
+    writer.writeString("BB", LOW_CARDINALITY);
+    assertNotSame(first, table.encode("Aa"));
+  }
+
+  private static byte[] write(CharSequence s, EncodedStringTable table) {
+    GrowableBuffer buffer = new GrowableBuffer(16);
+    MsgPackWriter writer = new MsgPackWriter(Codec.INSTANCE, buffer, table);
+    writer.writeString(s, LOW_CARDINALITY);
+    writer.writeString(s, null);
+    buffer.mark();
+    ByteBuffer slice = buffer.slice();
+    byte[] bytes = new byte[slice.remaining()];
+    slice.get(bytes);
+    return bytes;
+  }
+
+  private static String repeat(char c, int count) {
+    char[] chars = new char[count];
+    Arrays.fill(chars, c);
+    return new String(chars);
+  }
+}
@@ -5,11 +5,11 @@ import static datadog.trace.bootstrap.instrumentation.api.Tags.DB_TYPE;
 import datadog.trace.api.Config;
 import datadog.trace.api.cache.DDCache;
 import datadog.trace.api.cache.DDCaches;
+import datadog.trace.api.cache.UTF8BytesStringTable;
 import datadog.trace.api.naming.NamingSchema;
 import datadog.trace.api.naming.SpanNaming;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
-import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 
 public abstract class DatabaseClientDecorator<CONNECTION> extends ClientDecorator {
   protected static class NamingEntry {
@@ -22,7 +22,7 @@ public abstract class DatabaseClientDecorator<CONNECTION> extends ClientDecorato
       final NamingSchema.ForDatabase schema = SpanNaming.instance().namingSchema().database();
       this.dbType = schema.normalizedName(rawDbType);
       this.service = schema.service(dbType);
-      this.operation = UTF8BytesString.create(schema.operation(dbType));
+      this.operation = UTF8BytesStringTable.SHARED.intern(schema.operation(dbType));
     }
 
     public String getService() {
@@ -2,6 +2,7 @@ package datadog.trace.bootstrap.instrumentation.decorator;
 
 import datadog.trace.api.cache.DDCache;
 import datadog.trace.api.cache.DDCaches;
+import datadog.trace.api.cache.UTF8BytesStringTable;
 import datadog.trace.api.naming.SpanNaming;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.InternalSpanTypes;
@@ -20,7 +21,7 @@ public class UrlConnectionDecorator extends UriBasedClientDecorator {
 
   private static final Function<String, CharSequence> ADDER =
       protocol ->
-          UTF8BytesString.create(
+          UTF8BytesStringTable.SHARED.intern(
               SpanNaming.instance().namingSchema().client().operationForProtocol(protocol));
 
   private static final Logger LOGGER = LoggerFactory.getLogger(UrlConnectionDecorator.class);
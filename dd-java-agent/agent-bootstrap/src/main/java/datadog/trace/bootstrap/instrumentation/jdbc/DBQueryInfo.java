@@ -2,6 +2,7 @@ package datadog.trace.bootstrap.instrumentation.jdbc;
 
 import datadog.trace.api.cache.DDCache;
 import datadog.trace.api.cache.DDCaches;
+import datadog.trace.api.cache.UTF8BytesStringTable;
 import datadog.trace.api.normalize.SQLNormalizer;
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
 import java.util.function.Function;
@@ -29,7 +30,7 @@ public final class DBQueryInfo {
 
   public DBQueryInfo(String sql) {
     this.sql = SQLNormalizer.normalize(sql);
-    this.operation = UTF8BytesString.create(extractOperation(this.sql));
+    this.operation = UTF8BytesStringTable.SHARED.intern(extractOperation(this.sql));
   }
 
   public UTF8BytesString getOperation() {
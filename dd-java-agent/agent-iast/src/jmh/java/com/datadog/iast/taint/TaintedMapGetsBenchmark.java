@@ -14,9 +14,11 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
@@ -32,6 +34,9 @@ public class TaintedMapGetsBenchmark {
   private static final int INITIAL_OP_COUNT = 1 << 12;
   private static final int OP_COUNT = 1024;
 
+  @Param({"default", "concurrent"})
+  String implementation;
+
   private TaintedMap map;
   private List<Object> objectList;
   private List<Object> initialObjectList;
@@ -39,7 +44,12 @@ public class TaintedMapGetsBenchmark {
   @Setup(Level.Iteration)
   public void setup(BenchmarkParams params) {
     final boolean baseline = params.getBenchmark().endsWith("baseline");
-    map = baseline ? TaintedMap.NoOp.INSTANCE : new TaintedMap.TaintedMapImpl();
+    map =
+        baseline
+            ? TaintedMap.NoOp.INSTANCE
+            : "concurrent".equals(implementation)
+                ? new ConcurrentTaintedMap()
+                : new TaintedMap.TaintedMapImpl();
     initialObjectList = new ArrayList<>(INITIAL_OP_COUNT);
     objectList = new ArrayList<>(OP_COUNT);
     for (int i = 0; i < INITIAL_OP_COUNT; i++) {
@@ -69,4 +79,13 @@ public class TaintedMapGetsBenchmark {
       bh.consume(map.get(objectList.get(i)));
     }
   }
+
+  @Benchmark
+  @OperationsPerInvocation(OP_COUNT)
+  @Threads(16)
+  public void concurrentGets(final Blackhole bh) {
+    for (int i = 0; i < OP_COUNT; i++) {
+      bh.consume(map.get(objectList.get(i)));
+    }
+  }
 }
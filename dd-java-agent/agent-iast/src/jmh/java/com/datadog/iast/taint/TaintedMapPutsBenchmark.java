@@ -17,9 +17,11 @@ import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Timeout;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
@@ -38,45 +40,68 @@ public class TaintedMapPutsBenchmark {
 
   private static final Range[] EMPTY_RANGES = new Range[0];
 
+  @Param({"default", "concurrent"})
+  String implementation;
+
   private TaintedMap map;
   private List<Object> initialObjectList;
-  private GarbageCollectorHandler gcHandler;
 
   @Setup(Level.Iteration)
   public void setup(BenchmarkParams params) {
     final boolean baseline = params.getBenchmark().endsWith("baseline");
-    map = baseline ? TaintedMap.NoOp.INSTANCE : new TaintedMap.TaintedMapImpl();
-    gcHandler = new GarbageCollectorHandler(OP_COUNT);
+    map =
+        baseline
+            ? TaintedMap.NoOp.INSTANCE
+            : "concurrent".equals(implementation)
+                ? new ConcurrentTaintedMap()
+                : new TaintedMap.TaintedMapImpl();
     initialObjectList = new ArrayList<>(INITIAL_OP_COUNT);
     for (int i = 0; i < INITIAL_OP_COUNT; i++) {
       final Object k = new Object();
       initialObjectList.add(k);
-      map.put(new TaintedObject(k, EMPTY_RANGES));
+      map.put(new TaintedObject(k, EMPTY_RANGES, map.referenceQueue()));
     }
   }
 
   @Benchmark
   @OperationsPerInvocation(OP_COUNT)
-  public void baseline() {
-    for (int i = 0; i < OP_COUNT; i++) {
-      final Object k = new Object();
-      final TaintedObject to = new TaintedObject(k, EMPTY_RANGES);
-      gcHandler.add(to);
-      map.put(to);
-    }
+  public void baseline(final ThreadState state) {
+    putAll(state);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OP_COUNT)
+  public void puts(final ThreadState state) {
+    putAll(state);
   }
 
   @Benchmark
   @OperationsPerInvocation(OP_COUNT)
-  public void puts() {
+  @Threads(16)
+  public void concurrentPuts(final ThreadState state) {
+    putAll(state);
+  }
+
+  private void putAll(final ThreadState state) {
     for (int i = 0; i < OP_COUNT; i++) {
       final Object k = new Object();
-      final TaintedObject to = new TaintedObject(k, EMPTY_RANGES);
-      gcHandler.add(to);
+      final TaintedObject to = new TaintedObject(k, EMPTY_RANGES, map.referenceQueue());
+      state.gcHandler.add(to);
       map.put(to);
     }
   }
 
+  @State(Scope.Thread)
+  public static class ThreadState {
+
+    private GarbageCollectorHandler gcHandler;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+      gcHandler = new GarbageCollectorHandler(OP_COUNT);
+    }
+  }
+
   /**
    * Reference queue that holds a circular buffer of alive objects and enqueues to be purged when
    * they are removed
@@ -2,13 +2,14 @@ package com.datadog.iast.propagation;
 
 import static com.datadog.iast.taint.Ranges.EMPTY;
 import static com.datadog.iast.taint.Ranges.highestPriorityRange;
-import static com.datadog.iast.taint.Ranges.mergeRanges;
 import static com.datadog.iast.taint.Tainteds.canBeTainted;
 import static com.datadog.iast.taint.Tainteds.getTainted;
 import static datadog.trace.api.telemetry.LogCollector.SEND_TELEMETRY;
 
 import com.datadog.iast.model.Range;
+import com.datadog.iast.taint.PackedRanges;
 import com.datadog.iast.taint.Ranges;
+import com.datadog.iast.taint.SourceTable;
 import com.datadog.iast.taint.TaintedObject;
 import com.datadog.iast.taint.TaintedObjects;
 import com.datadog.iast.util.RangeBuilder;
@@ -64,16 +65,20 @@ public class StringModuleImpl implements StringModule {
     if (taintedLeft == null && taintedRight == null) {
       return;
     }
-    final Range[] ranges;
+    final SourceTable sources = taintedObjects.getSourceTable();
+    final long[] ranges;
     if (taintedRight == null) {
-      ranges = taintedLeft.getRanges();
+      ranges = taintedLeft.getPackedRanges(sources);
     } else if (taintedLeft == null) {
-      ranges = new Range[taintedRight.getRanges().length];
-      Ranges.copyShift(taintedRight.getRanges(), ranges, 0, left.length());
+      ranges = PackedRanges.shift(taintedRight.getPackedRanges(sources), left.length());
     } else {
-      ranges = mergeRanges(left.length(), taintedLeft.getRanges(), taintedRight.getRanges());
+      ranges =
+          PackedRanges.merge(
+              left.length(),
+              taintedLeft.getPackedRanges(sources),
+              taintedRight.getPackedRanges(sources));
     }
-    taintedObjects.taint(result, ranges);
+    taintedObjects.taint(result, ranges, sources);
   }
 
   @Override
@@ -91,7 +96,8 @@ public class StringModuleImpl implements StringModule {
     if (paramTainted == null) {
       return;
     }
-    taintedObjects.taint(builder, paramTainted.getRanges());
+    final SourceTable sources = taintedObjects.getSourceTable();
+    taintedObjects.taint(builder, paramTainted.getPackedRanges(sources), sources);
   }
 
   @Override
@@ -111,16 +117,14 @@ public class StringModuleImpl implements StringModule {
     }
     final TaintedObject builderTainted = taintedObjects.get(builder);
     final int shift = builder.length() - param.length();
+    final SourceTable sources = taintedObjects.getSourceTable();
+    final long[] paramRanges = paramTainted.getPackedRanges(sources);
     if (builderTainted == null) {
-      final Range[] paramRanges = paramTainted.getRanges();
-      final Range[] ranges = new Range[paramRanges.length];
-      Ranges.copyShift(paramRanges, ranges, 0, shift);
-      taintedObjects.taint(builder, ranges);
+      taintedObjects.taint(builder, PackedRanges.shift(paramRanges, shift), sources);
     } else {
-      final Range[] builderRanges = builderTainted.getRanges();
-      final Range[] paramRanges = paramTainted.getRanges();
-      final Range[] ranges = mergeRanges(shift, builderRanges, paramRanges);
-      builderTainted.setRanges(ranges);
+      final long[] builderRanges = builderTainted.getPackedRanges(sources);
+      builderTainted.setPackedRanges(
+          PackedRanges.merge(shift, builderRanges, paramRanges), sources);
     }
   }
 
@@ -139,7 +143,8 @@ public class StringModuleImpl implements StringModule {
     if (to == null) {
       return;
     }
-    taintedObjects.taint(result, to.getRanges());
+    final SourceTable sources = taintedObjects.getSourceTable();
+    taintedObjects.taint(result, to.getPackedRanges(sources), sources);
   }
 
   @Override
@@ -158,14 +163,15 @@ public class StringModuleImpl implements StringModule {
     }
 
     final TaintedObjects taintedObjects = ctx.getTaintedObjects();
-    final RangeBuilder targetRanges = new RangeBuilder();
+    final SourceTable sources = taintedObjects.getSourceTable();
+    final PackedRanges.Builder targetRanges = new PackedRanges.Builder();
     int offset = 0;
     for (int item : recipeOffsets) {
       if (item < 0) {
         offset += -item;
       } else {
         final String argument = args[item];
-        final Range[] ranges = getRanges(getTainted(taintedObjects, argument));
+        final long[] ranges = getPackedRanges(getTainted(taintedObjects, argument), sources);
         if (ranges.length > 0) {
           targetRanges.add(ranges, offset);
           if (targetRanges.isFull()) {
@@ -176,7 +182,7 @@ public class StringModuleImpl implements StringModule {
       }
     }
     if (!targetRanges.isEmpty()) {
-      taintedObjects.taint(result, targetRanges.toArray());
+      taintedObjects.taint(result, targetRanges.toArray(), sources);
     }
   }
 
@@ -196,13 +202,14 @@ public class StringModuleImpl implements StringModule {
     if (selfTainted == null) {
       return;
     }
-    final Range[] rangesSelf = selfTainted.getRanges();
+    final SourceTable sources = taintedObjects.getSourceTable();
+    final long[] rangesSelf = selfTainted.getPackedRanges(sources);
     if (rangesSelf.length == 0) {
       return;
     }
-    Range[] newRanges = Ranges.forSubstring(beginIndex, result.length(), rangesSelf);
-    if (newRanges != null && newRanges.length > 0) {
-      taintedObjects.taint(result, newRanges);
+    final long[] newRanges = PackedRanges.forSubstring(beginIndex, result.length(), rangesSelf);
+    if (newRanges.length > 0) {
+      taintedObjects.taint(result, newRanges, sources);
     }
   }
 
@@ -221,13 +228,14 @@ public class StringModuleImpl implements StringModule {
     if (getTainted(taintedObjects, result) != null) {
       return;
     }
-    final Range[] delimiterRanges = getRanges(getTainted(taintedObjects, delimiter));
-    final RangeBuilder targetRanges = new RangeBuilder();
+    final SourceTable sources = taintedObjects.getSourceTable();
+    final long[] delimiterRanges = getPackedRanges(getTainted(taintedObjects, delimiter), sources);
+    final PackedRanges.Builder targetRanges = new PackedRanges.Builder();
     int delimiterLength = getToStringLength(delimiter), offset = 0;
     for (int i = 0; i < elements.length; i++) {
       // insert element ranges
       final CharSequence element = elements[i];
-      final Range[] ranges = getRanges(getTainted(taintedObjects, element));
+      final long[] ranges = getPackedRanges(getTainted(taintedObjects, element), sources);
       if (ranges.length > 0) {
         targetRanges.add(ranges, offset);
         if (targetRanges.isFull()) {
@@ -246,7 +254,7 @@ public class StringModuleImpl implements StringModule {
       }
     }
     if (!targetRanges.isEmpty()) {
-      taintedObjects.taint(result, targetRanges.toArray());
+      taintedObjects.taint(result, targetRanges.toArray(), sources);
     }
   }
 
@@ -362,6 +370,11 @@ public class StringModuleImpl implements StringModule {
     return taintedObject == null ? EMPTY : taintedObject.getRanges();
   }
 
+  private static long[] getPackedRanges(
+      @Nullable final TaintedObject taintedObject, @Nonnull final SourceTable sources) {
+    return taintedObject == null ? PackedRanges.EMPTY : taintedObject.getPackedRanges(sources);
+  }
+
   @Override
   @SuppressFBWarnings
   public void onStringTrim(@Nonnull final String self, @Nullable final String result) {
@@ -388,15 +401,16 @@ public class StringModuleImpl implements StringModule {
 
     int resultLength = result.length();
 
-    final Range[] rangesSelf = taintedSelf.getRanges();
-    if (null == rangesSelf || rangesSelf.length == 0) {
+    final SourceTable sources = taintedObjects.getSourceTable();
+    final long[] rangesSelf = taintedSelf.getPackedRanges(sources);
+    if (rangesSelf.length == 0) {
       return;
     }
 
-    final Range[] newRanges = Ranges.forSubstring(offset, resultLength, rangesSelf);
+    final long[] newRanges = PackedRanges.forSubstring(offset, resultLength, rangesSelf);
 
-    if (null != newRanges) {
-      taintedObjects.taint(result, newRanges);
+    if (newRanges.length > 0) {
+      taintedObjects.taint(result, newRanges, sources);
     }
   }
 
@@ -410,11 +424,12 @@ public class StringModuleImpl implements StringModule {
       return;
     }
     final TaintedObjects taintedObjects = ctx.getTaintedObjects();
-    final Range[] selfRanges = getRanges(taintedObjects.get(self));
+    final SourceTable sources = taintedObjects.getSourceTable();
+    final long[] selfRanges = getPackedRanges(taintedObjects.get(self), sources);
     if (selfRanges.length == 0) {
       return;
     }
-    taintedObjects.taint(result, selfRanges);
+    taintedObjects.taint(result, selfRanges, sources);
   }
 
   @Override
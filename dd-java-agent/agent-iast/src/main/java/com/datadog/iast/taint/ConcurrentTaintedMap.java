@@ -0,0 +1,372 @@
+package com.datadog.iast.taint;
+
+import datadog.trace.api.Config;
+import datadog.trace.api.iast.telemetry.IastMetric;
+import datadog.trace.api.iast.telemetry.IastMetricCollector;
+import datadog.trace.api.iast.telemetry.Verbosity;
+import datadog.trace.util.AgentTaskScheduler;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * {@link TaintedMap} for high concurrency, which doesn't lose puts and grows with its content.
+ *
+ * <p>The map is split in segments, each with its own lock held by puts, removals and resizes, while
+ * gets walk the buckets without locking. Segments start with a small table which is doubled when
+ * their load is high, so the map grows one segment at a time until its capacity is reached. From
+ * there on buckets grow up to the max bucket size and then fall back to flat mode, like {@link
+ * TaintedMap.TaintedMapImpl}.
+ *
+ * <p>Entries are aged by generation rather than timestamps: each purge removes the entries put
+ * before the previous one. Entries created with the {@link #referenceQueue() reference queue} of
+ * the map are removed as soon as the GC enqueues them, the others when a put walks past them.
+ */
+public final class ConcurrentTaintedMap implements TaintedMap, Runnable {
+
+  /** Number of segments. It MUST be a power of 2. */
+  static final int SEGMENT_COUNT = 16;
+
+  private static final int SEGMENT_SHIFT = 32 - Integer.numberOfTrailingZeros(SEGMENT_COUNT);
+
+  /** Initial capacity of each segment. It MUST be a power of 2. */
+  static final int INITIAL_SEGMENT_CAPACITY = 16;
+
+  /** Max number of enqueued references removed on each put */
+  private static final int MAX_EXPUNGED_PER_PUT = 16;
+
+  private final Segment[] segments;
+
+  private final int initialSegmentCapacity;
+
+  private final int maxSegmentCapacity;
+
+  private final int maxBucketSize;
+
+  private final ReferenceQueue<Object> queue = new ReferenceQueue<>();
+
+  /** Whether to collect the {@link IastMetric#TAINTED_FLAT_MODE} metric or not */
+  private final boolean collectFlatBucketMetric;
+
+  /**
+   * Flag for the current alive tainted objects (red/black style marking for max age calculation).
+   */
+  private volatile boolean generation = true;
+
+  /** Creates a map with {@link #DEFAULT_CAPACITY}, purged every {@link #DEFAULT_MAX_AGE} */
+  ConcurrentTaintedMap() {
+    this(
+        DEFAULT_CAPACITY,
+        DEFAULT_MAX_BUCKET_SIZE,
+        DEFAULT_MAX_AGE,
+        DEFAULT_MAX_AGE_UNIT,
+        AgentTaskScheduler.INSTANCE);
+  }
+
+  /**
+   * @param capacity Max capacity of the map. It must be a power of 2.
+   * @param maxBucketSize Max size for each bucket once the map is at capacity
+   * @param maxAge max time an entry can stay in the map (can take up to {@code 2 * maxAge} in the
+   *     worst case)
+   * @param maxAgeUnit unit for the max age
+   * @param scheduler scheduler for the purges, no purge happens if {@code null}
+   */
+  ConcurrentTaintedMap(
+      final int capacity,
+      final int maxBucketSize,
+      final int maxAge,
+      @Nullable final TimeUnit maxAgeUnit,
+      @Nullable final AgentTaskScheduler scheduler) {
+    maxSegmentCapacity = Math.max(1, capacity / SEGMENT_COUNT);
+    initialSegmentCapacity = Math.min(INITIAL_SEGMENT_CAPACITY, maxSegmentCapacity);
+    this.maxBucketSize = maxBucketSize;
+    segments = new Segment[SEGMENT_COUNT];
+    for (int i = 0; i < SEGMENT_COUNT; i++) {
+      segments[i] = new Segment(initialSegmentCapacity);
+    }
+    final Verbosity verbosity = Config.get().getIastTelemetryVerbosity();
+    collectFlatBucketMetric = IastMetric.TAINTED_FLAT_MODE.isEnabled(verbosity);
+    if (scheduler != null) {
+      scheduler.weakScheduleAtFixedRate(this, maxAge, maxAge, maxAgeUnit);
+    }
+  }
+
+  @Nullable
+  @Override
+  public TaintedObject get(@Nonnull final Object key) {
+    final int hash = System.identityHashCode(key) & POSITIVE_MASK;
+    final Segment segment = segmentFor(hash);
+    final AtomicReferenceArray<TaintedObject> table = segment.table;
+    TaintedObject entry = find(table, hash, key);
+    if (entry == null && (segment.resizing || segment.table != table)) {
+      // the buckets were relinked while we walked them
+      synchronized (segment) {
+        entry = find(segment.table, hash, key);
+      }
+    }
+    return entry;
+  }
+
+  /**
+   * Put a new {@link TaintedObject} in the hash table, at the head of its bucket. It will not
+   * insert the element if it is already present in the map.
+   *
+   * @param entry Tainted object.
+   */
+  @Override
+  public void put(@Nonnull final TaintedObject entry) {
+    expungeStaleEntries(MAX_EXPUNGED_PER_PUT);
+    final Object key = entry.get();
+    if (key == null) {
+      return;
+    }
+    final int hash = entry.positiveHashCode;
+    final Segment segment = segmentFor(hash);
+    synchronized (segment) {
+      final AtomicReferenceArray<TaintedObject> table = segment.table;
+      final int index = hash & (table.length() - 1);
+      int bucketSize = 0;
+      TaintedObject prev = null;
+      for (TaintedObject cur = table.get(index); cur != null; cur = cur.next) {
+        final Object referent = cur.get();
+        if (referent == null) {
+          unlink(table, index, prev, cur);
+          segment.count--;
+        } else if (referent == key) {
+          // Duplicate, exit early.
+          return;
+        } else {
+          bucketSize++;
+          prev = cur;
+        }
+      }
+      entry.generation = generation;
+      if (bucketSize >= maxBucketSize && table.length() >= maxSegmentCapacity) {
+        entry.next = null;
+        table.set(index, entry);
+        segment.count -= bucketSize - 1;
+        if (collectFlatBucketMetric) {
+          IastMetricCollector.add(IastMetric.TAINTED_FLAT_MODE, 1);
+        }
+      } else {
+        entry.next = table.get(index);
+        table.set(index, entry);
+        if (++segment.count > (table.length() >> 2) * 3 && table.length() < maxSegmentCapacity) {
+          resize(segment);
+        }
+      }
+    }
+  }
+
+  @Override
+  public int count() {
+    int size = 0;
+    for (final Segment segment : segments) {
+      final AtomicReferenceArray<TaintedObject> table = segment.table;
+      for (int i = 0; i < table.length(); i++) {
+        for (TaintedObject cur = table.get(i); cur != null; cur = cur.next) {
+          size++;
+        }
+      }
+    }
+    return size;
+  }
+
+  /** Removes all the entries and shrinks the map back to its initial capacity. */
+  @Override
+  public void clear() {
+    for (final Segment segment : segments) {
+      synchronized (segment) {
+        segment.table = new AtomicReferenceArray<>(initialSegmentCapacity);
+        segment.count = 0;
+      }
+    }
+    while (queue.poll() != null) {
+      // entries are gone already
+    }
+  }
+
+  @Nonnull
+  @Override
+  public ReferenceQueue<Object> referenceQueue() {
+    return queue;
+  }
+
+  @Nonnull
+  @Override
+  public Iterator<TaintedObject> iterator() {
+    return new EntryIterator();
+  }
+
+  /** Runnable used to purge stale entries after max age */
+  @Override
+  public void run() {
+    expungeStaleEntries(Integer.MAX_VALUE);
+    final boolean current = generation;
+    for (final Segment segment : segments) {
+      synchronized (segment) {
+        final AtomicReferenceArray<TaintedObject> table = segment.table;
+        for (int index = 0; index < table.length(); index++) {
+          TaintedObject prev = null;
+          for (TaintedObject cur = table.get(index); cur != null; cur = cur.next) {
+            // entry added to the map in previous generation
+            if (cur.generation != current || cur.get() == null) {
+              unlink(table, index, prev, cur);
+              segment.count--;
+            } else {
+              prev = cur;
+            }
+          }
+        }
+      }
+    }
+    generation = !current;
+  }
+
+  private Segment segmentFor(final int hash) {
+    // bucket indexes use the low bits, so spread all of them into the high ones
+    return segments[(hash * 0x9E3779B9) >>> SEGMENT_SHIFT];
+  }
+
+  @Nullable
+  private static TaintedObject find(
+      final AtomicReferenceArray<TaintedObject> table, final int hash, final Object key) {
+    for (TaintedObject cur = table.get(hash & (table.length() - 1)); cur != null; cur = cur.next) {
+      if (cur.positiveHashCode == hash && cur.get() == key) {
+        return cur;
+      }
+    }
+    return null;
+  }
+
+  /** Unlinks an entry, leaving its own link untouched for the gets walking past it. */
+  private static void unlink(
+      final AtomicReferenceArray<TaintedObject> table,
+      final int index,
+      @Nullable final TaintedObject prev,
+      final TaintedObject entry) {
+    if (prev == null) {
+      table.set(index, entry.next);
+    } else {
+      prev.next = entry.next;
+    }
+  }
+
+  /** Doubles the table of a segment, the caller MUST hold its lock. */
+  private void resize(final Segment segment) {
+    final AtomicReferenceArray<TaintedObject> oldTable = segment.table;
+    final AtomicReferenceArray<TaintedObject> newTable =
+        new AtomicReferenceArray<>(oldTable.length() << 1);
+    final int mask = newTable.length() - 1;
+    int count = 0;
+    segment.resizing = true;
+    try {
+      for (int i = 0; i < oldTable.length(); i++) {
+        TaintedObject cur = oldTable.get(i);
+        while (cur != null) {
+          final TaintedObject next = cur.next;
+          if (cur.get() != null) {
+            final int index = cur.positiveHashCode & mask;
+            cur.next = newTable.get(index);
+            newTable.set(index, cur);
+            count++;
+          }
+          cur = next;
+        }
+      }
+      segment.count = count;
+      segment.table = newTable;
+    } finally {
+      segment.resizing = false;
+    }
+  }
+
+  private void expungeStaleEntries(final int max) {
+    Reference<?> ref;
+    for (int i = 0; i < max && (ref = queue.poll()) != null; i++) {
+      remove((TaintedObject) ref);
+    }
+  }
+
+  private void remove(final TaintedObject entry) {
+    final Segment segment = segmentFor(entry.positiveHashCode);
+    synchronized (segment) {
+      final AtomicReferenceArray<TaintedObject> table = segment.table;
+      final int index = entry.positiveHashCode & (table.length() - 1);
+      TaintedObject prev = null;
+      for (TaintedObject cur = table.get(index); cur != null; prev = cur, cur = cur.next) {
+        if (cur == entry) {
+          unlink(table, index, prev, cur);
+          segment.count--;
+          return;
+        }
+      }
+    }
+  }
+
+  private static final class Segment {
+
+    volatile AtomicReferenceArray<TaintedObject> table;
+
+    /** Set while the entries are relinked into a new table */
+    volatile boolean resizing;
+
+    /** Number of entries, guarded by the segment */
+    int count;
+
+    Segment(final int capacity) {
+      table = new AtomicReferenceArray<>(capacity);
+    }
+  }
+
+  private final class EntryIterator implements Iterator<TaintedObject> {
+
+    private int segmentIndex;
+    private AtomicReferenceArray<TaintedObject> table = segments[0].table;
+    private int bucketIndex;
+    @Nullable private TaintedObject next;
+
+    EntryIterator() {
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public TaintedObject next() {
+      final TaintedObject current = next;
+      if (current == null) {
+        throw new NoSuchElementException();
+      }
+      next = current.next;
+      if (next == null) {
+        advance();
+      }
+      return current;
+    }
+
+    private void advance() {
+      while (true) {
+        while (bucketIndex < table.length()) {
+          next = table.get(bucketIndex++);
+          if (next != null) {
+            return;
+          }
+        }
+        if (++segmentIndex == segments.length) {
+          return;
+        }
+        table = segments[segmentIndex].table;
+        bucketIndex = 0;
+      }
+    }
+  }
+}
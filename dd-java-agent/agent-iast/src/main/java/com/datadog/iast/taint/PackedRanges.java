@@ -0,0 +1,219 @@
+package com.datadog.iast.taint;
+
+import static com.datadog.iast.taint.TaintedObject.MAX_RANGE_COUNT;
+
+import com.datadog.iast.model.Range;
+import java.util.Arrays;
+import javax.annotation.Nonnull;
+
+/**
+ * Utilities to work with ranges packed in {@code long[]} arrays, so propagation can move them
+ * around without allocating a {@link Range} per range and operation.
+ *
+ * <p>Each range takes two consecutive longs: the first one holds the start in its high half and the
+ * length in its low half, the second one the index of the source in a {@link SourceTable} in its
+ * high half and the marks in its low half. Packed arrays are only meaningful along with the table
+ * they were packed with, and like {@link Range} arrays they MUST NOT be mutated once built.
+ */
+public final class PackedRanges {
+
+  public static final long[] EMPTY = new long[0];
+
+  private static final long LOW_MASK = 0xFFFFFFFFL;
+
+  private PackedRanges() {}
+
+  public static int count(@Nonnull final long[] packed) {
+    return packed.length >> 1;
+  }
+
+  public static int start(@Nonnull final long[] packed, final int index) {
+    return (int) (packed[index << 1] >>> 32);
+  }
+
+  public static int length(@Nonnull final long[] packed, final int index) {
+    return (int) packed[index << 1];
+  }
+
+  public static int sourceIndex(@Nonnull final long[] packed, final int index) {
+    return (int) (packed[(index << 1) + 1] >>> 32);
+  }
+
+  public static int marks(@Nonnull final long[] packed, final int index) {
+    return (int) packed[(index << 1) + 1];
+  }
+
+  @Nonnull
+  public static long[] pack(@Nonnull final Range[] ranges, @Nonnull final SourceTable sources) {
+    if (ranges.length == 0) {
+      return EMPTY;
+    }
+    final long[] packed = new long[ranges.length << 1];
+    for (int i = 0, j = 0; i < ranges.length; i++, j += 2) {
+      final Range range = ranges[i];
+      packed[j] = position(range.getStart(), range.getLength());
+      packed[j + 1] = source(sources.indexOf(range.getSource()), range.getMarks());
+    }
+    return packed;
+  }
+
+  @Nonnull
+  public static Range[] unpack(@Nonnull final long[] packed, @Nonnull final SourceTable sources) {
+    final int count = count(packed);
+    if (count == 0) {
+      return Ranges.EMPTY;
+    }
+    final Range[] ranges = new Range[count];
+    for (int i = 0; i < count; i++) {
+      ranges[i] =
+          new Range(
+              start(packed, i),
+              length(packed, i),
+              sources.get(sourceIndex(packed, i)),
+              marks(packed, i));
+    }
+    return ranges;
+  }
+
+  /** Returns a copy of the ranges moved by {@code offset}, or the same array if there's no move */
+  @Nonnull
+  public static long[] shift(@Nonnull final long[] packed, final int offset) {
+    if (offset == 0 || packed.length == 0) {
+      return packed;
+    }
+    final long[] result = new long[packed.length];
+    copyShift(packed, result, 0, offset, count(packed));
+    return result;
+  }
+
+  /** Packed version of {@link Ranges#mergeRanges(int, Range[], Range[])} */
+  @Nonnull
+  public static long[] merge(
+      final int offset, @Nonnull final long[] left, @Nonnull final long[] right) {
+    final int leftCount = Math.min(count(left), MAX_RANGE_COUNT);
+    final int rightCount = Math.min(count(right), MAX_RANGE_COUNT - leftCount);
+    if (rightCount == 0 && leftCount == count(left)) {
+      return left;
+    }
+    final long[] result = new long[(leftCount + rightCount) << 1];
+    System.arraycopy(left, 0, result, 0, leftCount << 1);
+    copyShift(right, result, leftCount, offset, rightCount);
+    return result;
+  }
+
+  /**
+   * Packed version of {@link Ranges#forSubstring(int, int, Range[])}, it returns the same array if
+   * all the ranges are within the substring and {@link #EMPTY} if none of them are.
+   */
+  @Nonnull
+  public static long[] forSubstring(final int offset, final int length, final long[] packed) {
+    final int count = count(packed);
+    final int end = offset + length;
+    int included = 0;
+    boolean clipped = offset != 0;
+    for (int i = 0; i < count; i++) {
+      final int rangeStart = start(packed, i);
+      final long rangeEnd = (long) rangeStart + length(packed, i);
+      if (rangeStart < end && rangeEnd > offset) {
+        included++;
+        clipped |= rangeEnd > end;
+      } else {
+        clipped = true;
+      }
+    }
+    if (included == 0) {
+      return EMPTY;
+    }
+    if (!clipped) {
+      return packed;
+    }
+    final long[] result = new long[included << 1];
+    for (int i = 0, j = 0; i < count; i++) {
+      final int rangeStart = start(packed, i);
+      final long rangeEnd = (long) rangeStart + length(packed, i);
+      if (rangeStart < end && rangeEnd > offset) {
+        final int newStart = Math.max(rangeStart, offset) - offset;
+        final int newEnd = (int) Math.min(rangeEnd, end) - offset;
+        result[j++] = position(newStart, newEnd - newStart);
+        result[j++] = packed[(i << 1) + 1];
+      }
+    }
+    return result;
+  }
+
+  private static void copyShift(
+      final long[] src, final long[] dst, final int dstIndex, final int offset, final int count) {
+    for (int i = 0, j = dstIndex << 1; i < count; i++, j += 2) {
+      dst[j] = position(start(src, i) + offset, length(src, i));
+      dst[j + 1] = src[(i << 1) + 1];
+    }
+  }
+
+  private static long position(final int start, final int length) {
+    return ((long) start << 32) | (length & LOW_MASK);
+  }
+
+  private static long source(final int sourceIndex, final int marks) {
+    return ((long) sourceIndex << 32) | (marks & LOW_MASK);
+  }
+
+  /**
+   * Packed counterpart of {@link com.datadog.iast.util.RangeBuilder}, the ranges are copied into a
+   * single buffer which is only trimmed if needed once built.
+   */
+  public static final class Builder {
+
+    private final int maxSize;
+    private long[] buffer = EMPTY;
+    private int size;
+
+    /** Whether the buffer is an array added as is, which must be copied before writing to it */
+    private boolean shared;
+
+    public Builder() {
+      this(MAX_RANGE_COUNT);
+    }
+
+    public Builder(final int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    public void add(@Nonnull final long[] packed, final int offset) {
+      final int count = Math.min(count(packed), maxSize - size);
+      if (count <= 0) {
+        return;
+      }
+      if (size == 0 && offset == 0 && count == count(packed)) {
+        buffer = packed;
+        size = count;
+        shared = true;
+        return;
+      }
+      final int required = (size + count) << 1;
+      if (shared || required > buffer.length) {
+        buffer = Arrays.copyOf(buffer, Math.max(required, Math.min(maxSize, size << 1) << 1));
+        shared = false;
+      }
+      copyShift(packed, buffer, size, offset, count);
+      size += count;
+    }
+
+    @Nonnull
+    public long[] toArray() {
+      final int length = size << 1;
+      return length == buffer.length ? buffer : Arrays.copyOf(buffer, length);
+    }
+
+    public boolean isFull() {
+      return size >= maxSize;
+    }
+
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    public int size() {
+      return size;
+    }
+  }
+}
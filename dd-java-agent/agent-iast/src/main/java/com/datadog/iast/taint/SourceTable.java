@@ -0,0 +1,81 @@
+package com.datadog.iast.taint;
+
+import com.datadog.iast.model.Source;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import javax.annotation.Nonnull;
+
+/**
+ * Append-only table of the {@link Source sources} referenced by {@link PackedRanges packed ranges},
+ * which store the index of their source in the table instead of the source itself.
+ *
+ * <p>A table belongs to a {@link TaintedObjects} instance and it is never compacted, so indexes
+ * stay valid as long as the table is reachable. Once {@link #isFull() full}, the owner is expected
+ * to move on to a new table, while the operations still running keep adding to the old one.
+ */
+public final class SourceTable {
+
+  /** Number of sources after which a table is considered full */
+  public static final int MAX_SIZE = 1 << 12;
+
+  private static final int INITIAL_CAPACITY = 8;
+
+  // guarded by this
+  private final Map<Source, Integer> indexes = new IdentityHashMap<>();
+
+  /** Replaced by a larger copy when full, so reads never see a partially copied array */
+  private volatile Source[] sources = new Source[INITIAL_CAPACITY];
+
+  private volatile int size;
+
+  /** Returns the index of the source, adding it to the table if not present. */
+  public synchronized int indexOf(@Nonnull final Source source) {
+    final Integer index = indexes.get(source);
+    if (index != null) {
+      return index;
+    }
+    final int added = size;
+    Source[] current = sources;
+    if (added == current.length) {
+      current = Arrays.copyOf(current, added << 1);
+    }
+    current[added] = source;
+    sources = current;
+    indexes.put(source, added);
+    size = added + 1;
+    return added;
+  }
+
+  /**
+   * Returns the source at the index. Reads don't lock the table, since indexes are only handed out
+   * once their source is stored.
+   */
+  @Nonnull
+  public Source get(final int index) {
+    final Source[] current = sources;
+    if (index >= 0 && index < current.length) {
+      final Source source = current[index];
+      if (source != null) {
+        return source;
+      }
+    }
+    return getLocked(index);
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isFull() {
+    return size >= MAX_SIZE;
+  }
+
+  /** Fallback for reads racing with the publication of the packed ranges referencing the index */
+  private synchronized Source getLocked(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index);
+    }
+    return sources[index];
+  }
+}
@@ -7,6 +7,7 @@ import datadog.trace.api.iast.telemetry.IastMetric;
 import datadog.trace.api.iast.telemetry.IastMetricCollector;
 import datadog.trace.api.iast.telemetry.Verbosity;
 import datadog.trace.util.AgentTaskScheduler;
+import java.lang.ref.ReferenceQueue;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
@@ -41,7 +42,8 @@ import org.slf4j.LoggerFactory;
  * <p><i>Capacity</i> is fixed, so there is no rehashing.
  *
  * <p>This implementation works reasonably well under high concurrency, but it will lose some writes
- * in that case.
+ * in that case. When {@link Config#isIastConcurrentTaintedMapEnabled()} is set, {@link
+ * ConcurrentTaintedMap} is used instead, which doesn't lose writes and grows up to its capacity.
  */
 public interface TaintedMap extends Iterable<TaintedObject> {
 
@@ -64,6 +66,9 @@ public interface TaintedMap extends Iterable<TaintedObject> {
    * cases no purge will happen as they will be cleared on the end of the context.
    */
   static TaintedMap build(final int capacity) {
+    if (Config.get().isIastConcurrentTaintedMapEnabled()) {
+      return new ConcurrentTaintedMap(capacity, DEFAULT_MAX_BUCKET_SIZE, -1, null, null);
+    }
     final TaintedMapImpl map =
         new TaintedMapImpl(capacity, DEFAULT_MAX_BUCKET_SIZE, -1, null, null);
     return IastSystem.DEBUG ? new Debug(map) : map;
@@ -74,6 +79,10 @@ public interface TaintedMap extends Iterable<TaintedObject> {
    * case there is a purge logic that will clear stale entries according to the scheduled interval.
    */
   static TaintedMap buildWithPurge(final int capacity, int maxAge, TimeUnit maxAgeUnit) {
+    if (Config.get().isIastConcurrentTaintedMapEnabled()) {
+      return new ConcurrentTaintedMap(
+          capacity, DEFAULT_MAX_BUCKET_SIZE, maxAge, maxAgeUnit, AgentTaskScheduler.INSTANCE);
+    }
     final TaintedMapImpl map =
         new TaintedMapImpl(
             capacity, DEFAULT_MAX_BUCKET_SIZE, maxAge, maxAgeUnit, AgentTaskScheduler.INSTANCE);
@@ -89,6 +98,15 @@ public interface TaintedMap extends Iterable<TaintedObject> {
 
   void clear();
 
+  /**
+   * Queue to create the entries of this map with, so they are removed once their objects are
+   * garbage-collected. Maps returning {@code null} find collected entries while walking buckets.
+   */
+  @Nullable
+  default ReferenceQueue<Object> referenceQueue() {
+    return null;
+  }
+
   class TaintedMapImpl implements TaintedMap, Runnable {
 
     protected final TaintedObject[] table;
@@ -293,9 +311,13 @@ public interface TaintedMap extends Iterable<TaintedObject> {
 
     @Nullable
     protected TaintedObject next(@Nonnull final TaintedObject item) {
-      final TaintedObject next = findAlive(item.next);
-      item.next = next;
-      return next;
+      final TaintedObject next = item.next;
+      final TaintedObject alive = findAlive(next);
+      if (alive != next) {
+        // only write when unlinking, next is volatile for ConcurrentTaintedMap
+        item.next = alive;
+      }
+      return alive;
     }
 
     /** Gets the first reachable reference that has not been GC'ed */
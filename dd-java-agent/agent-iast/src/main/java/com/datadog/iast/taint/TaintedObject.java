@@ -4,7 +4,10 @@ import static com.datadog.iast.taint.TaintedMap.POSITIVE_MASK;
 
 import com.datadog.iast.model.Range;
 import datadog.trace.api.Config;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -13,34 +16,157 @@ public class TaintedObject extends WeakReference<Object> {
   public static final int MAX_RANGE_COUNT = Config.get().getIastMaxRangeCount();
 
   final int positiveHashCode;
-  @Nullable TaintedObject next;
-  private Range[] ranges;
+  @Nullable volatile TaintedObject next;
+
+  private static final AtomicReferenceFieldUpdater<TaintedObject, Object> RANGES =
+      AtomicReferenceFieldUpdater.newUpdater(TaintedObject.class, Object.class, "ranges");
+
+  /**
+   * Either a {@code Range[]}, a {@code long[]} packed with {@link #sources} or both of them once
+   * the ranges have been read in the other form.
+   */
+  private volatile Object ranges;
+
+  /** Table of the sources referenced by packed ranges, if any */
+  @Nullable private final SourceTable sources;
 
   /** generation of the tainted for max age purging purposes */
   boolean generation;
 
   public TaintedObject(final @Nonnull Object obj, final @Nonnull Range[] ranges) {
-    super(obj);
+    this(obj, ranges, null);
+  }
+
+  /**
+   * @param queue queue the entry is enqueued to once the object is garbage-collected, so the map
+   *     holding it can remove it
+   */
+  public TaintedObject(
+      final @Nonnull Object obj,
+      final @Nonnull Range[] ranges,
+      final @Nullable ReferenceQueue<Object> queue) {
+    this(obj, ranges, null, queue);
+  }
+
+  /**
+   * @param sources table the ranges set later on can be packed with
+   * @param queue queue the entry is enqueued to once the object is garbage-collected, so the map
+   *     holding it can remove it
+   */
+  public TaintedObject(
+      final @Nonnull Object obj,
+      final @Nonnull Range[] ranges,
+      final @Nullable SourceTable sources,
+      final @Nullable ReferenceQueue<Object> queue) {
+    super(obj, queue);
     this.positiveHashCode = System.identityHashCode(obj) & POSITIVE_MASK;
+    this.sources = sources;
     // ensure ranges never go over the limit
     if (ranges.length > MAX_RANGE_COUNT) {
-      this.ranges = new Range[MAX_RANGE_COUNT];
-      System.arraycopy(ranges, 0, this.ranges, 0, MAX_RANGE_COUNT);
+      this.ranges = Arrays.copyOf(ranges, MAX_RANGE_COUNT);
     } else {
       this.ranges = ranges;
     }
   }
 
+  /**
+   * @param packedRanges ranges packed with the {@code sources} table
+   * @param queue queue the entry is enqueued to once the object is garbage-collected, so the map
+   *     holding it can remove it
+   */
+  public TaintedObject(
+      final @Nonnull Object obj,
+      final @Nonnull long[] packedRanges,
+      final @Nonnull SourceTable sources,
+      final @Nullable ReferenceQueue<Object> queue) {
+    super(obj, queue);
+    this.positiveHashCode = System.identityHashCode(obj) & POSITIVE_MASK;
+    this.sources = sources;
+    // ensure ranges never go over the limit
+    if (PackedRanges.count(packedRanges) > MAX_RANGE_COUNT) {
+      this.ranges = Arrays.copyOf(packedRanges, MAX_RANGE_COUNT << 1);
+    } else {
+      this.ranges = packedRanges;
+    }
+  }
+
   /**
    * Get ranges. The array or its elements MUST NOT be mutated. This may be reused in multiple
    * instances.
+   *
+   * <p>Packed ranges are materialized on the first call only, the array is kept until the ranges
+   * change.
    */
   @Nonnull
   public Range[] getRanges() {
-    return ranges;
+    final Object current = ranges;
+    if (current instanceof Range[]) {
+      return (Range[]) current;
+    }
+    if (current instanceof Materialized) {
+      return ((Materialized) current).ranges;
+    }
+    final long[] packed = (long[]) current;
+    final Range[] unpacked = PackedRanges.unpack(packed, sourcesOf(packed));
+    // only cache if the ranges didn't change meanwhile
+    RANGES.compareAndSet(this, current, new Materialized(packed, unpacked));
+    return unpacked;
   }
 
   public void setRanges(@Nonnull final Range[] ranges) {
     this.ranges = ranges;
   }
+
+  /**
+   * Get the ranges packed with the given table, packing them only if they are not packed with it
+   * already. Ranges packed with the table of the object are kept, so objects tainted from {@code
+   * Range[]} are only packed once. The array MUST NOT be mutated.
+   */
+  @Nonnull
+  public long[] getPackedRanges(@Nonnull final SourceTable table) {
+    if (table != sources) {
+      return PackedRanges.pack(getRanges(), table);
+    }
+    final Object current = ranges;
+    if (current instanceof long[]) {
+      return (long[]) current;
+    }
+    if (current instanceof Materialized) {
+      return ((Materialized) current).packed;
+    }
+    final Range[] unpacked = (Range[]) current;
+    final long[] packed = PackedRanges.pack(unpacked, table);
+    // only cache if the ranges didn't change meanwhile
+    RANGES.compareAndSet(this, current, new Materialized(packed, unpacked));
+    return packed;
+  }
+
+  /** Sets ranges packed with the given table, they are unpacked if it's not the table in use. */
+  public void setPackedRanges(
+      @Nonnull final long[] packedRanges, @Nonnull final SourceTable table) {
+    if (table == sources) {
+      this.ranges = packedRanges;
+    } else {
+      this.ranges = PackedRanges.unpack(packedRanges, table);
+    }
+  }
+
+  private SourceTable sourcesOf(final long[] packed) {
+    if (sources == null) {
+      // only created with packed ranges along with their table
+      throw new IllegalStateException("Packed ranges without source table");
+    }
+    return sources;
+  }
+
+  /** The same ranges in both forms */
+  private static final class Materialized {
+    final long[] packed;
+    final Range[] ranges;
+
+    Materialized(final long[] packed, final Range[] ranges) {
+      this.packed = packed;
+      this.ranges = ranges;
+    }
+  }
 }
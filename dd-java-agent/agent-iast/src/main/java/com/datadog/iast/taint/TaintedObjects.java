@@ -26,6 +26,15 @@ public interface TaintedObjects extends Iterable<TaintedObject> {
   @Nullable
   TaintedObject taint(@Nonnull Object obj, @Nonnull Range[] ranges);
 
+  /** Taints the object with ranges packed with a table from {@link #getSourceTable()} */
+  @Nullable
+  TaintedObject taint(
+      @Nonnull Object obj, @Nonnull long[] packedRanges, @Nonnull SourceTable sources);
+
+  /** Returns the table to pack ranges with, which may change over time. */
+  @Nonnull
+  SourceTable getSourceTable();
+
   @Nullable
   TaintedObject get(@Nonnull Object obj);
 
@@ -37,6 +46,8 @@ public interface TaintedObjects extends Iterable<TaintedObject> {
 
     private final TaintedMap map;
 
+    private volatile SourceTable sources = new SourceTable();
+
     private TaintedObjectsImpl(final @Nonnull TaintedMap map) {
       this.map = map;
     }
@@ -44,11 +55,37 @@ public interface TaintedObjects extends Iterable<TaintedObject> {
     @Nonnull
     @Override
     public TaintedObject taint(final @Nonnull Object obj, final @Nonnull Range[] ranges) {
-      final TaintedObject tainted = new TaintedObject(obj, ranges);
+      final TaintedObject tainted = new TaintedObject(obj, ranges, sources, map.referenceQueue());
+      map.put(tainted);
+      return tainted;
+    }
+
+    @Nonnull
+    @Override
+    public TaintedObject taint(
+        final @Nonnull Object obj,
+        final @Nonnull long[] packedRanges,
+        final @Nonnull SourceTable sources) {
+      final TaintedObject tainted =
+          new TaintedObject(obj, packedRanges, sources, map.referenceQueue());
       map.put(tainted);
       return tainted;
     }
 
+    /**
+     * Long-lived instances keep getting new sources, so a full table is replaced by a new one. The
+     * objects tainted with the old one keep a reference to it.
+     */
+    @Nonnull
+    @Override
+    public SourceTable getSourceTable() {
+      SourceTable table = sources;
+      if (table.isFull()) {
+        table = sources = new SourceTable();
+      }
+      return table;
+    }
+
     @Nullable
     @Override
     public TaintedObject get(final @Nonnull Object obj) {
@@ -58,6 +95,7 @@ public interface TaintedObjects extends Iterable<TaintedObject> {
     @Override
     public void clear() {
       map.clear();
+      sources = new SourceTable();
     }
 
     @Override
@@ -92,6 +130,23 @@ public interface TaintedObjects extends Iterable<TaintedObject> {
       return tainted;
     }
 
+    @Nullable
+    @Override
+    public TaintedObject taint(
+        final @Nonnull Object obj,
+        final @Nonnull long[] packedRanges,
+        final @Nonnull SourceTable sources) {
+      final TaintedObject tainted = delegated.taint(obj, packedRanges, sources);
+      logTainted(tainted);
+      return tainted;
+    }
+
+    @Nonnull
+    @Override
+    public SourceTable getSourceTable() {
+      return delegated.getSourceTable();
+    }
+
     @Nullable
     @Override
     public TaintedObject get(final @Nonnull Object obj) {
@@ -145,12 +200,29 @@ public interface TaintedObjects extends Iterable<TaintedObject> {
 
     public static final TaintedObjects INSTANCE = new NoOp();
 
+    private static final SourceTable SOURCES = new SourceTable();
+
     @Nullable
     @Override
     public TaintedObject taint(@Nonnull final Object obj, @Nonnull final Range[] ranges) {
       return null;
     }
 
+    @Nullable
+    @Override
+    public TaintedObject taint(
+        @Nonnull final Object obj,
+        @Nonnull final long[] packedRanges,
+        @Nonnull final SourceTable sources) {
+      return null;
+    }
+
+    @Nonnull
+    @Override
+    public SourceTable getSourceTable() {
+      return SOURCES;
+    }
+
     @Nullable
     @Override
     public TaintedObject get(@Nonnull final Object obj) {
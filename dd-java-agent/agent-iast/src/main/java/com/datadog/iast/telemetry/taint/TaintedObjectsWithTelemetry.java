@@ -4,6 +4,7 @@ import static datadog.trace.api.iast.telemetry.IastMetric.EXECUTED_TAINTED;
 import static datadog.trace.api.iast.telemetry.IastMetric.REQUEST_TAINTED;
 
 import com.datadog.iast.model.Range;
+import com.datadog.iast.taint.SourceTable;
 import com.datadog.iast.taint.TaintedObject;
 import com.datadog.iast.taint.TaintedObjects;
 import com.datadog.iast.util.Wrapper;
@@ -45,6 +46,23 @@ public class TaintedObjectsWithTelemetry implements TaintedObjects, Wrapper<Tain
     return result;
   }
 
+  @Nullable
+  @Override
+  public TaintedObject taint(
+      @Nonnull Object obj, @Nonnull long[] packedRanges, @Nonnull SourceTable sources) {
+    final TaintedObject result = delegate.taint(obj, packedRanges, sources);
+    if (debug) {
+      IastMetricCollector.add(EXECUTED_TAINTED, 1, ctx);
+    }
+    return result;
+  }
+
+  @Nonnull
+  @Override
+  public SourceTable getSourceTable() {
+    return delegate.getSourceTable();
+  }
+
   @Nullable
   @Override
   public TaintedObject get(@Nonnull Object obj) {
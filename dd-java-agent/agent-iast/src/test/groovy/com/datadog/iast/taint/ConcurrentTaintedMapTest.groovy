@@ -0,0 +1,200 @@
+package com.datadog.iast.taint
+
+import com.datadog.iast.model.Range
+import datadog.trace.test.util.DDSpecification
+import datadog.trace.util.AgentTaskScheduler
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class ConcurrentTaintedMapTest extends DDSpecification {
+
+  def 'simple workflow'() {
+    given:
+    final map = new ConcurrentTaintedMap()
+    final o = new Object()
+    final to = new TaintedObject(o, [] as Range[], map.referenceQueue())
+
+    expect:
+    map.size() == 0
+    map.count() == 0
+    map.get(o) == null
+
+    when:
+    map.put(to)
+    map.put(new TaintedObject(o, [] as Range[], map.referenceQueue()))
+
+    then: 'duplicates are not inserted'
+    map.size() == 1
+    map.count() == 1
+    map.get(o).is(to)
+
+    when:
+    map.clear()
+
+    then:
+    map.size() == 0
+    map.count() == 0
+    map.get(o) == null
+  }
+
+  def 'segments grow up to the capacity'() {
+    given:
+    final capacity = 1024
+    final map = new ConcurrentTaintedMap(capacity, Integer.MAX_VALUE, 1, TimeUnit.HOURS, null)
+    final objects = (1..capacity * 4).collect { new Object() }
+
+    expect:
+    buckets(map) == ConcurrentTaintedMap.SEGMENT_COUNT * ConcurrentTaintedMap.INITIAL_SEGMENT_CAPACITY
+
+    when:
+    objects.each { map.put(new TaintedObject(it, [] as Range[])) }
+
+    then:
+    buckets(map) == capacity
+    map.count() == objects.size()
+    objects.every { map.get(it)?.get().is(it) }
+
+    when:
+    map.clear()
+
+    then:
+    buckets(map) == ConcurrentTaintedMap.SEGMENT_COUNT * ConcurrentTaintedMap.INITIAL_SEGMENT_CAPACITY
+  }
+
+  def 'buckets switch to flat mode once the map is at capacity'() {
+    given:
+    final maxBucketSize = 2
+    final map = new ConcurrentTaintedMap(ConcurrentTaintedMap.SEGMENT_COUNT, maxBucketSize, 1, TimeUnit.HOURS, null)
+
+    expect:
+    (1..1000).each {
+      final o = new Object()
+      final to = new TaintedObject(o, [] as Range[])
+      map.put(to)
+      assert map.get(o) == to
+    }
+    map.count() <= ConcurrentTaintedMap.SEGMENT_COUNT * maxBucketSize
+  }
+
+  def 'enqueued entries are removed'() {
+    given:
+    final map = new ConcurrentTaintedMap()
+    final objects = (1..10).collect { new Object() }
+    final entries = objects.collect { new TaintedObject(it, [] as Range[], map.referenceQueue()) }
+    entries.each { map.put(it) }
+
+    when: 'the GC enqueues some of the entries'
+    entries.take(4).each {
+      it.clear()
+      it.enqueue()
+    }
+    map.put(new TaintedObject('trigger', [] as Range[], map.referenceQueue()))
+
+    then:
+    map.count() == 7
+    objects.drop(4).every { map.get(it) != null }
+  }
+
+  def 'entries are purged after two generations'() {
+    given:
+    final purge = new MockAgentTaskScheduler()
+    final map = new ConcurrentTaintedMap(64, TaintedMap.DEFAULT_MAX_BUCKET_SIZE, 0, TimeUnit.MILLISECONDS, purge)
+    final items = (0..10).collect { it.toString() }
+    items.each { map.put(new TaintedObject(it, [] as Range[])) }
+
+    when: 'first purge is called'
+    purge.triggerAll()
+    map.put(new TaintedObject('new', [] as Range[]))
+
+    then: 'all the items remain in the map and the generation changes'
+    map.count() == items.size() + 1
+
+    when: 'second purge is called'
+    purge.triggerAll()
+
+    then: 'only the items of the previous generation are removed'
+    map.count() == 1
+    map.get('new') != null
+  }
+
+  def 'no puts are lost under concurrency'() {
+    given:
+    int nThreads = 16
+    int nObjectsPerThread = 2000
+    final map = new ConcurrentTaintedMap(1 << 14, Integer.MAX_VALUE, 1, TimeUnit.HOURS, null)
+    final objects = (1..nThreads).collect { (1..nObjectsPerThread).collect { new Object() } }
+    final executorService = Executors.newFixedThreadPool(nThreads)
+    final latch = new CountDownLatch(nThreads)
+
+    when:
+    final futures = objects.collect { threadObjects ->
+      executorService.submit({
+        ->
+        latch.countDown()
+        latch.await()
+        threadObjects.each { map.put(new TaintedObject(it, [] as Range[])) }
+      } as Runnable)
+    }
+    futures*.get()
+
+    then:
+    map.count() == nThreads * nObjectsPerThread
+    objects.flatten().every { map.get(it) != null }
+
+    cleanup:
+    executorService?.shutdown()
+  }
+
+  def 'gets never miss entries while segments are resized'() {
+    given:
+    final map = new ConcurrentTaintedMap(1 << 14, Integer.MAX_VALUE, 1, TimeUnit.HOURS, null)
+    final present = (1..256).collect { new Object() }
+    present.each { map.put(new TaintedObject(it, [] as Range[])) }
+    final misses = new AtomicInteger()
+    final done = new CountDownLatch(1)
+    final readers = (1..4).collect {
+      Thread.start {
+        while (done.count > 0) {
+          present.each {
+            if (map.get(it) == null) {
+              misses.incrementAndGet()
+            }
+          }
+        }
+      }
+    }
+
+    when:
+    (1..1 << 14).each { map.put(new TaintedObject(new Object(), [] as Range[])) }
+    done.countDown()
+    readers*.join()
+
+    then:
+    misses.get() == 0
+  }
+
+  private static int buckets(final ConcurrentTaintedMap map) {
+    return map.segments.sum { it.table.length() } as int
+  }
+
+  private static class MockAgentTaskScheduler extends AgentTaskScheduler {
+
+    private WeakHashMap<Object, Task<?>> tasks = new WeakHashMap<>()
+
+    MockAgentTaskScheduler() {
+      super(null)
+    }
+
+    void triggerAll() {
+      tasks.each { it.value.run(it.key) }
+    }
+
+    @Override
+    <T> void weakScheduleAtFixedRate(Task<T> task, T target, long initialDelay, long period, TimeUnit unit) {
+      tasks.put(target, task)
+    }
+  }
+}
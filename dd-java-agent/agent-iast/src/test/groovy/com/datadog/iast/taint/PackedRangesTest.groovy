@@ -0,0 +1,252 @@
+package com.datadog.iast.taint
+
+import com.datadog.iast.model.Range
+import com.datadog.iast.model.Source
+import datadog.trace.api.Config
+import datadog.trace.api.iast.SourceTypes
+import datadog.trace.api.iast.VulnerabilityMarks
+import datadog.trace.test.util.DDSpecification
+
+import static datadog.trace.api.iast.VulnerabilityMarks.NOT_MARKED
+
+class PackedRangesTest extends DDSpecification {
+
+  private static final int MAX_RANGE_COUNT = Config.get().iastMaxRangeCount
+
+  void 'pack and unpack'() {
+    given:
+    final sources = new SourceTable()
+    final source1 = new Source(SourceTypes.REQUEST_PARAMETER_VALUE, 'name', 'value')
+    final source2 = new Source(SourceTypes.REQUEST_HEADER_VALUE, 'header', 'value')
+    final ranges = [
+      new Range(0, 5, source1, VulnerabilityMarks.SQL_INJECTION_MARK),
+      new Range(6, Integer.MAX_VALUE, source2, NOT_MARKED),
+      new Range(10, 2, source1, 1 << 31)
+    ] as Range[]
+
+    when:
+    final packed = PackedRanges.pack(ranges, sources)
+
+    then:
+    PackedRanges.count(packed) == 3
+    sources.size() == 2
+    PackedRanges.sourceIndex(packed, 0) == PackedRanges.sourceIndex(packed, 2)
+
+    when:
+    final unpacked = PackedRanges.unpack(packed, sources)
+
+    then:
+    unpacked == ranges
+    unpacked*.source.every { it != null }
+    unpacked*.marks == ranges*.marks
+  }
+
+  void 'shift'() {
+    given:
+    final sources = new SourceTable()
+
+    when:
+    final result = PackedRanges.shift(packed(sources, spec), offset)
+
+    then:
+    toSpec(result) == expected
+
+    where:
+    spec             | offset | expected
+    []               | 2      | []
+    [[0, 1]]         | 0      | [[0, 1]]
+    [[0, 1], [3, 2]] | 4      | [[4, 1], [7, 2]]
+  }
+
+  void 'merge'() {
+    given:
+    final sources = new SourceTable()
+
+    when:
+    final result = PackedRanges.merge(offset, packed(sources, left), packed(sources, right))
+
+    then:
+    toSpec(result) == expected
+
+    where:
+    offset | left     | right            | expected
+    3      | []       | []               | []
+    3      | [[0, 1]] | []               | [[0, 1]]
+    3      | []       | [[0, 1]]         | [[3, 1]]
+    3      | [[0, 1]] | [[0, 1], [2, 1]] | [[0, 1], [3, 1], [5, 1]]
+  }
+
+  void 'merge with limits'() {
+    given:
+    final sources = new SourceTable()
+    final left = packed(sources, (0..<MAX_RANGE_COUNT - 1).collect { [it, 1] })
+    final right = packed(sources, [[0, 1], [1, 1]])
+
+    when:
+    final result = PackedRanges.merge(MAX_RANGE_COUNT, left, right)
+
+    then:
+    PackedRanges.count(result) == MAX_RANGE_COUNT
+    PackedRanges.start(result, MAX_RANGE_COUNT - 1) == MAX_RANGE_COUNT
+  }
+
+  void 'forSubstring'() {
+    given:
+    final sources = new SourceTable()
+    final ranges = packed(sources, spec)
+
+    when:
+    final result = PackedRanges.forSubstring(offset, length, ranges)
+
+    then:
+    toSpec(result) == expected
+
+    and: 'the substring is consistent with the unpacked version'
+    final expectedRanges = Ranges.forSubstring(offset, length, PackedRanges.unpack(ranges, sources))
+    PackedRanges.unpack(result, sources) == (expectedRanges ?: Ranges.EMPTY)
+
+    where:
+    offset | length | spec                     | expected
+    0      | 10     | [[0, 3], [5, 2]]         | [[0, 3], [5, 2]]
+    0      | 4      | [[0, 3], [5, 2]]         | [[0, 3]]
+    1      | 5      | [[0, 3], [5, 2]]         | [[0, 2], [4, 1]]
+    3      | 2      | [[0, 3], [5, 2]]         | []
+    2      | 3      | [[0, 10]]                | [[0, 3]]
+    4      | 4      | [[0, 2], [3, 2], [7, 5]] | [[0, 1], [3, 1]]
+  }
+
+  void 'forSubstring returns the same array when nothing changes'() {
+    given:
+    final ranges = packed(new SourceTable(), [[0, 3], [5, 2]])
+
+    expect:
+    PackedRanges.forSubstring(0, 7, ranges).is(ranges)
+  }
+
+  void 'builder'() {
+    given:
+    final sources = new SourceTable()
+    final builder = new PackedRanges.Builder(maxSize)
+
+    when:
+    items.each { builder.add(packed(sources, it.spec as List), it.offset as int) }
+
+    then:
+    toSpec(builder.toArray()) == expected
+    builder.isEmpty() == expected.isEmpty()
+    builder.isFull() == (expected.size() == maxSize)
+
+    where:
+    maxSize | items                                                              | expected
+    2       | []                                                                 | []
+    2       | [[spec: [[0, 1]], offset: 0]]                                      | [[0, 1]]
+    2       | [[spec: [[0, 1]], offset: 0], [spec: [[0, 1]], offset: 3]]         | [[0, 1], [3, 1]]
+    2       | [[spec: [[0, 1], [2, 1]], offset: 1], [spec: [[0, 1]], offset: 5]] | [[1, 1], [3, 1]]
+    3       | [[spec: [], offset: 0], [spec: [[0, 1], [2, 1]], offset: 2]]       | [[2, 1], [4, 1]]
+  }
+
+  void 'builder does not mutate the arrays added as is'() {
+    given:
+    final sources = new SourceTable()
+    final first = packed(sources, [[0, 1]])
+    final builder = new PackedRanges.Builder()
+
+    when:
+    builder.add(first, 0)
+    builder.add(packed(sources, [[0, 1]]), 2)
+
+    then:
+    toSpec(first) == [[0, 1]]
+    toSpec(builder.toArray()) == [[0, 1], [2, 1]]
+  }
+
+  void 'tainted objects keep packed ranges for their own table only'() {
+    given:
+    final sources = new SourceTable()
+    final other = new SourceTable()
+    final source = new Source(SourceTypes.REQUEST_PARAMETER_VALUE, 'name', 'value')
+    final packed = PackedRanges.pack([new Range(0, 3, source, NOT_MARKED)] as Range[], sources)
+    final to = new TaintedObject('abc', packed, sources, null)
+
+    expect:
+    to.getPackedRanges(sources).is(packed)
+    to.ranges == [new Range(0, 3, source, NOT_MARKED)] as Range[]
+    PackedRanges.unpack(to.getPackedRanges(other), other) == to.ranges
+
+    when:
+    to.setPackedRanges(PackedRanges.shift(packed, 1), other)
+
+    then:
+    to.ranges == [new Range(1, 3, source, NOT_MARKED)] as Range[]
+  }
+
+  void 'tainted objects materialize their ranges once'() {
+    given:
+    final sources = new SourceTable()
+    final source = new Source(SourceTypes.REQUEST_PARAMETER_VALUE, 'name', 'value')
+    final packed = PackedRanges.pack([new Range(0, 3, source, NOT_MARKED)] as Range[], sources)
+    final to = new TaintedObject('abc', packed, sources, null)
+
+    when:
+    final ranges = to.getRanges()
+
+    then:
+    to.getRanges().is(ranges)
+    to.getPackedRanges(sources).is(packed)
+
+    when:
+    to.setPackedRanges(PackedRanges.shift(packed, 1), sources)
+
+    then:
+    to.getRanges() == [new Range(1, 3, source, NOT_MARKED)] as Range[]
+    to.getRanges().is(to.getRanges())
+  }
+
+  void 'tainted objects pack their ranges once'() {
+    given:
+    final sources = new SourceTable()
+    final ranges = [new Range(0, 3, new Source(SourceTypes.NONE, 'name', 'value'), NOT_MARKED)] as Range[]
+    final to = new TaintedObject('abc', ranges, sources, null)
+
+    when:
+    final packed = to.getPackedRanges(sources)
+
+    then:
+    to.getPackedRanges(sources).is(packed)
+    to.getRanges().is(ranges)
+  }
+
+  void 'source table lookups'() {
+    given:
+    final sources = new SourceTable()
+    final items = (0..<20).collect { new Source(SourceTypes.NONE, String.valueOf(it), null) }
+
+    when:
+    final indexes = items.collect { sources.indexOf(it) }
+
+    then:
+    indexes == (0..<20).toList()
+    items.every { sources.indexOf(it) == indexes[items.indexOf(it)] }
+    (0..<20).every { sources.get(it).is(items[it]) }
+    sources.size() == 20
+
+    when:
+    sources.get(20)
+
+    then:
+    thrown(IndexOutOfBoundsException)
+  }
+
+  private static long[] packed(final SourceTable sources, final List<List<Integer>> spec) {
+    final ranges = spec.withIndex().collect { range, i ->
+      new Range(range[0], range[1], new Source(SourceTypes.NONE, String.valueOf(i), null), NOT_MARKED)
+    }
+    return PackedRanges.pack(ranges as Range[], sources)
+  }
+
+  private static List<List<Integer>> toSpec(final long[] packed) {
+    return (0..<PackedRanges.count(packed)).collect {
+      [PackedRanges.start(packed, it), PackedRanges.length(packed, it)]
+    }
+  }
+}
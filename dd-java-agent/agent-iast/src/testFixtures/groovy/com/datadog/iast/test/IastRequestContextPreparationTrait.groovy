@@ -3,6 +3,7 @@ package com.datadog.iast.test
 import com.datadog.iast.IastRequestContext
 import com.datadog.iast.IastSystem
 import com.datadog.iast.model.Range
+import com.datadog.iast.taint.SourceTable
 import com.datadog.iast.taint.TaintedObject
 import com.datadog.iast.taint.TaintedObjects
 import datadog.trace.api.gateway.*
@@ -69,6 +70,14 @@ trait IastRequestContextPreparationTrait {
         return tainted
       }
 
+      @Override
+      TaintedObject taint(Object obj, long[] packedRanges, SourceTable sources) {
+        objects << obj
+        final tainted = this.delegate.taint(obj, packedRanges, sources)
+        logTaint obj
+        return tainted
+      }
+
       private final static Logger LOGGER = withLogger("map tainted objects")
 
       private static Logger withLogger(final String name) {
@@ -0,0 +1,93 @@
+package datadog.appsec.benchmark;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.datadog.appsec.event.data.ObjectIntrospection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Converts request body DTO graphs the way the Spring and Jersey body hooks do */
+@State(Scope.Benchmark)
+@Warmup(iterations = 4, time = 1, timeUnit = SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 2)
+public class ObjectIntrospectionBenchmark {
+
+  static {
+    BenchmarkUtil.disableLogging();
+  }
+
+  @Param({"1", "10", "50"})
+  int itemCount;
+
+  Order order;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    order = new Order(itemCount);
+  }
+
+  @Benchmark
+  public Object convert() {
+    return ObjectIntrospection.convert(order);
+  }
+
+  static class Address {
+    String street = "Rua Augusta 24";
+    String city = "Lisbon";
+    String postcode = "1100-053";
+    String country = "PT";
+  }
+
+  static class Customer {
+    long id = 1234567;
+    String email = "jane.doe@example.com";
+    String name = "Jane Doe";
+    boolean verified = true;
+    Address billing = new Address();
+    Address shipping = new Address();
+  }
+
+  static class Item {
+    String sku;
+    int quantity;
+    double price;
+    List<String> tags = Arrays.asList("summer", "sale");
+
+    Item(int i) {
+      sku = "SKU-" + (100000 + i);
+      quantity = 1 + i % 3;
+      price = 19.99 + i;
+    }
+  }
+
+  static class Order {
+    String id = "ord-42";
+    Customer customer = new Customer();
+    List<Item> items;
+    String coupon = "' OR 1=1 --";
+
+    Order(int itemCount) {
+      items = new ArrayList<>(itemCount);
+      for (int i = 0; i < itemCount; i++) {
+        items.add(new Item(i));
+      }
+    }
+  }
+}
@@ -5,7 +5,11 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 import com.datadog.appsec.config.AppSecConfig;
 import com.datadog.appsec.config.AppSecConfigDeserializer;
+import com.datadog.appsec.event.data.Address;
+import com.datadog.appsec.event.data.DataBundle;
 import com.datadog.appsec.event.data.KnownAddresses;
+import com.datadog.appsec.event.data.MapDataBundle;
+import com.datadog.appsec.powerwaf.WafInputEncoder;
 import io.sqreen.powerwaf.Additive;
 import io.sqreen.powerwaf.Powerwaf;
 import io.sqreen.powerwaf.PowerwafContext;
@@ -14,8 +18,10 @@ import io.sqreen.powerwaf.exception.AbstractPowerwafException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -25,6 +31,7 @@ import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
@@ -44,9 +51,16 @@ public class PowerwafBenchmark {
     BenchmarkUtil.initializePowerwaf();
   }
 
+  /** headers only, or a request also carrying a JSON body of the given number of items */
+  @Param({"0", "10", "50"})
+  int bodyItems;
+
   PowerwafContext ctx;
   Map<String, Object> wafData = new HashMap<>();
   Powerwaf.Limits limits = new Powerwaf.Limits(50, 500, 1000, 5000000, 5000000);
+  Map<Address<?>, Object> requestData = new LinkedHashMap<>();
+  DataBundle dataBundle = MapDataBundle.ofDelegate(requestData);
+  WafInputEncoder encoder = new WafInputEncoder(50, 500, 1000);
 
   @Benchmark
   public void withMetrics() throws Exception {
@@ -69,6 +83,18 @@ public class PowerwafBenchmark {
     }
   }
 
+  @Benchmark
+  public void encodedInput() throws Exception {
+    Additive add = ctx.openAdditive();
+    encoder.tryAcquire();
+    try {
+      add.run(encoder.encode(requestData.keySet(), dataBundle), limits, null);
+    } finally {
+      encoder.release();
+      add.close();
+    }
+  }
+
   @Setup(Level.Trial)
   public void setUp() throws AbstractPowerwafException, IOException {
     InputStream stream = getClass().getClassLoader().getResourceAsStream("test_multi_config.json");
@@ -77,9 +103,8 @@ public class PowerwafBenchmark {
     AppSecConfig waf = cfg.get("waf");
     ctx = Powerwaf.createContext("waf", waf.getRawConfig());
 
-    wafData.put(KnownAddresses.REQUEST_METHOD.getKey(), "POST");
-    wafData.put(
-        KnownAddresses.REQUEST_URI_RAW.getKey(), "/foo/bar?foo=bar&foo=xpto&foo=%3cscript%3e");
+    requestData.put(KnownAddresses.REQUEST_METHOD, "POST");
+    requestData.put(KnownAddresses.REQUEST_URI_RAW, "/foo/bar?foo=bar&foo=xpto&foo=%3cscript%3e");
     Map<String, String> headers = new HashMap<>();
     headers.put("host", "localhost:8080");
     headers.put("connection", "keep-alive");
@@ -91,7 +116,7 @@ public class PowerwafBenchmark {
         "text/html,application/xhtml+xml,application/xml;q=0.9,image/webp,image/apng,*/*;q=0.8");
     headers.put("dnt", "1");
     headers.put("accept-encoding", "gzip, deflate, br");
-    wafData.put(KnownAddresses.RESPONSE_HEADERS_NO_COOKIES.getKey(), headers);
+    requestData.put(KnownAddresses.RESPONSE_HEADERS_NO_COOKIES, headers);
 
     Map<String, List<String>> query = new HashMap<>();
     List<String> fooValues = new ArrayList<>();
@@ -99,7 +124,7 @@ public class PowerwafBenchmark {
     fooValues.add("xpto");
     fooValues.add("<script>");
     query.put("foo", fooValues);
-    wafData.put(KnownAddresses.REQUEST_QUERY.getKey(), headers);
+    requestData.put(KnownAddresses.REQUEST_QUERY, query);
 
     Map<String, List<String>> cookies = new HashMap<>();
     cookies.put(
@@ -107,7 +132,50 @@ public class PowerwafBenchmark {
         Collections.singletonList(
             "=%7B%22color_mode%22%3A%22light%22%2C%22light_theme%22%3A%7B%22name%22%3A%22light%22%2C%22color_mode%22%3A%22light%22%7D%2C%22dark_theme%22%3A%7B%22name%22%3A%22dark%22%2C%22color_mode%22%3A%22dark%22%7D%7D"));
     cookies.put("tz", Collections.singletonList("Europe/Lisbon"));
-    wafData.put(KnownAddresses.REQUEST_COOKIES.getKey(), cookies);
+    requestData.put(KnownAddresses.REQUEST_COOKIES, cookies);
+
+    if (bodyItems > 0) {
+      requestData.put(KnownAddresses.REQUEST_BODY_OBJECT, jsonBody(bodyItems));
+    }
+    for (Map.Entry<Address<?>, Object> entry : requestData.entrySet()) {
+      wafData.put(entry.getKey().getKey(), entry.getValue());
+    }
+  }
+
+  /** A body shaped like what a JSON parser hands over for a typical order API request */
+  private static Map<String, Object> jsonBody(int itemCount) {
+    Map<String, Object> address = new LinkedHashMap<>();
+    address.put("street", "Rua Augusta 24");
+    address.put("city", "Lisbon");
+    address.put("postcode", "1100-053");
+    address.put("country", "PT");
+    Map<String, Object> customer = new LinkedHashMap<>();
+    customer.put("id", 1234567);
+    customer.put("email", "jane.doe@example.com");
+    customer.put("name", "Jane Doe");
+    customer.put("verified", true);
+    customer.put("address", address);
+
+    List<Object> items = new ArrayList<>(itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      Map<String, Object> attributes = new LinkedHashMap<>();
+      attributes.put("color", i % 2 == 0 ? "red" : "blue");
+      attributes.put("size", "M");
+      Map<String, Object> item = new LinkedHashMap<>();
+      item.put("sku", "SKU-" + (100000 + i));
+      item.put("quantity", 1 + i % 3);
+      item.put("price", 19.99 + i);
+      item.put("attributes", attributes);
+      item.put("tags", Arrays.asList("summer", "sale"));
+      items.add(item);
+    }
+
+    Map<String, Object> body = new LinkedHashMap<>();
+    body.put("customer", customer);
+    body.put("items", items);
+    body.put("coupon", "' OR 1=1 --");
+    body.put("notes", "Please leave the parcel with the neighbour <script>alert(1)</script>");
+    return body;
   }
 
   @TearDown(Level.Trial)
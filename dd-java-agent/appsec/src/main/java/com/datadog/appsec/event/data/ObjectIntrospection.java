@@ -1,6 +1,10 @@
 package com.datadog.appsec.event.data;
 
+import datadog.trace.api.GenericClassValue;
 import datadog.trace.api.Platform;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.*;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -16,6 +20,11 @@ public final class ObjectIntrospection {
 
   private static final Method trySetAccessible;
 
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  /** Introspection plans are computed once per class, and go away with the class */
+  private static final ClassValue<Plan> PLANS = GenericClassValue.of(Plan::new);
+
   static {
     // Method AccessibleObject.trySetAccessible introduced in Java 9
     Method method = null;
@@ -39,7 +48,8 @@ public final class ObjectIntrospection {
    * in other threads.
    *
    * <p>Certain instance fields are excluded. Right now, this includes metaClass fields in Groovy
-   * objects and this$0 fields in inner classes.
+   * objects and this$0 fields in inner classes. The fields of a class are looked up and made
+   * accessible once, the first time one of its objects is converted.
    *
    * @param obj an arbitrary object
    * @return the converted object
@@ -111,46 +121,75 @@ public final class ObjectIntrospection {
     }
 
     // else general objects
-    Map<String, Object> newMap = new HashMap<>();
-    List<Field[]> allFields = new ArrayList<>();
-    for (Class<?> classToLook = clazz;
-        classToLook != null && classToLook != Object.class;
-        classToLook = classToLook.getSuperclass()) {
-      allFields.add(classToLook.getDeclaredFields());
+    Plan plan = PLANS.get(clazz);
+    Map<String, Object> newMap = new HashMap<>((int) Math.ceil(plan.names.length / .75));
+    for (int i = 0; i < plan.names.length; i++) {
+      if (elemsLeft[0] <= 0) {
+        return newMap;
+      }
+      Object value;
+      try {
+        value = plan.getters[i].invokeExact(obj);
+      } catch (Throwable t) {
+        log.error("Unable to get field value", t);
+        continue;
+      }
+      newMap.put(plan.names[i], guardedConversion(value, depth + 1, elemsLeft));
     }
+    if (plan.opaque && elemsLeft[0] > 0) {
+      // One of fields is inaccessible, might be it's Strongly Encapsulated Internal class
+      // consider it as integral object without introspection
+      return obj.toString();
+    }
+    return newMap;
+  }
 
-    outer:
-    for (Field[] fields : allFields) {
-      for (Field f : fields) {
-        if (elemsLeft[0] <= 0) {
-          break outer;
-        }
-        if (Modifier.isStatic(f.getModifiers())) {
-          continue;
-        }
-        if (f.getType().getName().equals("groovy.lang.MetaClass")) {
-          continue;
-        }
-        String name = f.getName();
-        if (name.equals("this$0")) {
-          continue;
-        }
-
-        if (setAccessible(f)) {
+  /**
+   * The fields read from objects of a class, in the order they are converted, with their getters
+   * looked up once and shared by all conversions of that class.
+   */
+  private static final class Plan {
+    final String[] names;
+    final MethodHandle[] getters;
+    /** whether conversion stops at an inaccessible field after the ones above */
+    final boolean opaque;
+
+    Plan(Class<?> clazz) {
+      List<String> names = new ArrayList<>();
+      List<MethodHandle> getters = new ArrayList<>();
+      boolean opaque = false;
+      MethodHandles.Lookup lookup = MethodHandles.lookup();
+      outer:
+      for (Class<?> classToLook = clazz;
+          classToLook != null && classToLook != Object.class;
+          classToLook = classToLook.getSuperclass()) {
+        for (Field f : classToLook.getDeclaredFields()) {
+          if (Modifier.isStatic(f.getModifiers())) {
+            continue;
+          }
+          if (f.getType().getName().equals("groovy.lang.MetaClass")) {
+            continue;
+          }
+          String name = f.getName();
+          if (name.equals("this$0")) {
+            continue;
+          }
+          if (!setAccessible(f)) {
+            opaque = true;
+            break outer;
+          }
           try {
-            newMap.put(f.getName(), guardedConversion(f.get(obj), depth + 1, elemsLeft));
+            getters.add(lookup.unreflectGetter(f).asType(GETTER_TYPE));
+            names.add(name);
           } catch (IllegalAccessException e) {
             log.error("Unable to get field value", e);
           }
-        } else {
-          // One of fields is inaccessible, might be it's Strongly Encapsulated Internal class
-          // consider it as integral object without introspection
-          return obj.toString();
         }
       }
+      this.names = names.toArray(new String[0]);
+      this.getters = getters.toArray(new MethodHandle[0]);
+      this.opaque = opaque;
     }
-
-    return newMap;
   }
 
   /**
@@ -12,6 +12,7 @@ import io.sqreen.powerwaf.PowerwafMetrics;
 import java.io.Closeable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -78,11 +79,19 @@ public class AppSecRequestContext implements DataBundle, Closeable {
 
   // should be guarded by this
   private Additive additive;
+  // serializes the WAF runs on the additive, which is not thread-safe, and its closing. It is
+  // acquired before this, which is never held during a WAF run
+  private final Object additiveLock = new Object();
   // set after additive is set
   private volatile PowerwafMetrics wafMetrics;
   private volatile boolean blocked;
   private volatile int timeouts;
 
+  // bundles waiting to be evaluated off the request thread, guarded by this
+  private List<DataBundle> asyncBundles;
+  private boolean asyncEvaluationRunning;
+  private boolean asyncEvaluationClosed;
+
   private static final AtomicIntegerFieldUpdater<AppSecRequestContext> TIMEOUTS_UPDATER =
       AtomicIntegerFieldUpdater.newUpdater(AppSecRequestContext.class, "timeouts");
 
@@ -145,15 +154,95 @@ public class AppSecRequestContext implements DataBundle, Closeable {
     return curAdditive;
   }
 
+  /**
+   * @return the lock to hold while running the WAF on the additive of this request, which waits for
+   *     other runs but never for the bundles to be queued or the events to be reported
+   */
+  public Object getAdditiveLock() {
+    return additiveLock;
+  }
+
   public void closeAdditive() {
+    synchronized (additiveLock) {
+      synchronized (this) {
+        if (additive != null) {
+          try {
+            additive.close();
+          } finally {
+            additive = null;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Queues a bundle to be evaluated off the request thread, together with any others queued
+   * before it is picked up.
+   *
+   * @return true if no evaluation is running for this request, so one must be scheduled
+   */
+  public boolean queueAsyncBundle(DataBundle bundle) {
+    synchronized (this) {
+      if (asyncEvaluationClosed) {
+        log.debug("Dropped data received after the end of the request");
+        return false;
+      }
+      if (asyncBundles == null) {
+        asyncBundles = new ArrayList<>(4);
+      }
+      asyncBundles.add(bundle);
+      if (asyncEvaluationRunning) {
+        return false;
+      }
+      asyncEvaluationRunning = true;
+      return true;
+    }
+  }
+
+  /**
+   * @return the bundles queued since the last call, or null once there are none left, at which
+   *     point the running evaluation is over
+   */
+  public List<DataBundle> drainAsyncBundles() {
     synchronized (this) {
-      if (additive != null) {
-        try {
-          additive.close();
-        } finally {
-          additive = null;
+      List<DataBundle> bundles = asyncBundles;
+      asyncBundles = null;
+      if (bundles == null || asyncEvaluationClosed) {
+        asyncEvaluationRunning = false;
+        notifyAll();
+        return null;
+      }
+      return bundles;
+    }
+  }
+
+  public boolean isAsyncEvaluationClosed() {
+    synchronized (this) {
+      return asyncEvaluationClosed;
+    }
+  }
+
+  /**
+   * Waits for the bundles queued for this request to be evaluated, so their events are reported
+   * before the request ends. Bundles not evaluated in time are dropped.
+   */
+  void awaitAsyncEvaluation(long timeoutMillis) {
+    synchronized (this) {
+      long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+      try {
+        long remaining;
+        while (asyncEvaluationRunning && (remaining = deadline - System.nanoTime()) > 0) {
+          TimeUnit.NANOSECONDS.timedWait(this, remaining);
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
+      if (asyncEvaluationRunning) {
+        log.debug("Asynchronous WAF evaluation did not finish before the end of the request");
+      }
+      asyncEvaluationClosed = true;
+      asyncBundles = null;
     }
   }
 
@@ -360,14 +449,19 @@ public class AppSecRequestContext implements DataBundle, Closeable {
 
   @Override
   public void close() {
-    synchronized (this) {
-      if (additive == null) {
-        return;
+    // waits for any asynchronous evaluation running, so it can't open an additive afterwards
+    synchronized (additiveLock) {
+      synchronized (this) {
+        asyncEvaluationClosed = true;
+        asyncBundles = null;
+        if (additive == null) {
+          return;
+        }
       }
-    }
 
-    log.warn("WAF object had not been closed (probably missed request-end event)");
-    closeAdditive();
+      log.warn("WAF object had not been closed (probably missed request-end event)");
+      closeAdditive();
+    }
   }
 
   /* end interface for GatewayBridge */
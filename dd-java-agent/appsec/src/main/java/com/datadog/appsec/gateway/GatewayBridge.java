@@ -45,6 +45,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import org.slf4j.Logger;
@@ -65,6 +66,8 @@ public class GatewayBridge {
   private final RateLimiter rateLimiter;
   private final ApiSecurityRequestSampler requestSampler;
   private final List<TraceSegmentPostProcessor> traceSegmentPostProcessors;
+  // how long the end of a request waits for data evaluated asynchronously
+  private final long asyncWafTimeoutMillis;
 
   // subscriber cache
   private volatile DataSubscriberInfo initialReqDataSubInfo;
@@ -87,6 +90,8 @@ public class GatewayBridge {
     this.rateLimiter = rateLimiter;
     this.requestSampler = requestSampler;
     this.traceSegmentPostProcessors = traceSegmentPostProcessors;
+    this.asyncWafTimeoutMillis =
+        Math.max(1, TimeUnit.MICROSECONDS.toMillis(Config.get().getAppSecWafTimeout()));
   }
 
   public void init() {
@@ -112,6 +117,9 @@ public class GatewayBridge {
             return NoopFlow.INSTANCE;
           }
 
+          // events found off the request thread must be reported with the others
+          ctx.awaitAsyncEvaluation(asyncWafTimeoutMillis);
+
           maybeExtractSchemas(ctx);
 
           // WAF call
@@ -1,5 +1,6 @@
 package com.datadog.appsec.powerwaf;
 
+import static datadog.trace.util.AgentThreadFactory.AgentThread.APPSEC_WAF_WORKER;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toMap;
@@ -27,6 +28,7 @@ import datadog.trace.api.ProductActivation;
 import datadog.trace.api.gateway.Flow;
 import datadog.trace.api.telemetry.LogCollector;
 import datadog.trace.api.telemetry.WafMetricCollector;
+import datadog.trace.util.AgentThreadFactory;
 import io.sqreen.powerwaf.Additive;
 import io.sqreen.powerwaf.Powerwaf;
 import io.sqreen.powerwaf.PowerwafConfig;
@@ -37,29 +39,25 @@ import io.sqreen.powerwaf.exception.AbstractPowerwafException;
 import io.sqreen.powerwaf.exception.InvalidRuleSetException;
 import io.sqreen.powerwaf.exception.TimeoutPowerwafException;
 import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.Proxy;
 import java.lang.reflect.UndeclaredThrowableException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
-import javax.annotation.Nonnull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -69,10 +67,13 @@ public class PowerWAFModule implements AppSecModule {
   private static final int MAX_DEPTH = 10;
   private static final int MAX_ELEMENTS = 150;
   private static final int MAX_STRING_SIZE = 4096;
+  private static final int ASYNC_QUEUE_SIZE = 1024;
+  private static final String[] RULE_SECTIONS = {
+    "rules", "custom_rules", "rules_override", "exclusions"
+  };
   private static volatile Powerwaf.Limits LIMITS;
-  private static final Class<?> PROXY_CLASS =
-      Proxy.getProxyClass(PowerWAFModule.class.getClassLoader(), Set.class);
-  private static final Constructor<?> PROXY_CLASS_CONSTRUCTOR;
+  private static final ThreadLocal<WafInputEncoder> WAF_INPUT_ENCODERS =
+      ThreadLocal.withInitial(PowerWAFModule::newWafInputEncoder);
 
   private static final JsonAdapter<List<PowerWAFResultData>> RES_JSON_ADAPTER;
 
@@ -92,28 +93,28 @@ public class PowerWAFModule implements AppSecModule {
     final Collection<Address<?>> addressesOfInterest;
     final PowerwafContext ctx;
     final Map<String /* id */, ActionInfo> actionInfoMap;
+    // addresses which can be evaluated off the request thread
+    final Set<Address<?>> nonBlockingAddresses;
 
     private CtxAndAddresses(
         Collection<Address<?>> addressesOfInterest,
         PowerwafContext ctx,
-        Map<String, ActionInfo> actionInfoMap) {
+        Map<String, ActionInfo> actionInfoMap,
+        Set<Address<?>> nonBlockingAddresses) {
       this.addressesOfInterest = addressesOfInterest;
       this.ctx = ctx;
       this.actionInfoMap = actionInfoMap;
+      this.nonBlockingAddresses = nonBlockingAddresses;
     }
 
-    CtxAndAddresses withNewActions(Map<String, ActionInfo> actionInfoMap) {
-      return new CtxAndAddresses(this.addressesOfInterest, this.ctx, actionInfoMap);
+    CtxAndAddresses withNewActions(
+        Map<String, ActionInfo> actionInfoMap, Set<Address<?>> nonBlockingAddresses) {
+      return new CtxAndAddresses(
+          this.addressesOfInterest, this.ctx, actionInfoMap, nonBlockingAddresses);
     }
   }
 
   static {
-    try {
-      PROXY_CLASS_CONSTRUCTOR = PROXY_CLASS.getConstructor(InvocationHandler.class);
-    } catch (NoSuchMethodException e) {
-      throw new UndeclaredThrowableException(e);
-    }
-
     Moshi moshi = new Moshi.Builder().build();
     RES_JSON_ADAPTER =
         moshi.adapter(Types.newParameterizedType(List.class, PowerWAFResultData.class));
@@ -142,6 +143,12 @@ public class PowerWAFModule implements AppSecModule {
 
   private final boolean wafMetricsEnabled =
       Config.get().isAppSecWafMetrics(); // could be static if not for tests
+  private final ExecutorService asyncWafExecutor =
+      Config.get().isAppSecWafAsyncEnabled()
+          ? createAsyncWafExecutor(Config.get().getAppSecWafAsyncThreads())
+          : null;
+  // latest version of each rule section, to find the rules which can block
+  private final Map<String, Object> ruleSections = new HashMap<>();
   private final AtomicReference<CtxAndAddresses> ctxAndAddresses = new AtomicReference<>();
   private final PowerWAFInitializationResultReporter initReporter =
       new PowerWAFInitializationResultReporter();
@@ -201,9 +208,14 @@ public class PowerWAFModule implements AppSecModule {
       } else if (config.dirtyStatus.isDirtyForActions()) {
         // only internal actions change
         // if we're here curCtxAndAddresses is not null
+        AppSecConfig ruleConfig = config.getMergedUpdateConfig();
         Map<String, ActionInfo> actionInfoMap =
-            calculateEffectiveActions(curCtxAndAddresses, config.getMergedUpdateConfig());
-        CtxAndAddresses newCtxAndAddresses = curCtxAndAddresses.withNewActions(actionInfoMap);
+            calculateEffectiveActions(curCtxAndAddresses, ruleConfig);
+        CtxAndAddresses newCtxAndAddresses =
+            curCtxAndAddresses.withNewActions(
+                actionInfoMap,
+                calculateNonBlockingAddresses(
+                    curCtxAndAddresses.addressesOfInterest, ruleConfig, actionInfoMap));
         boolean success =
             this.ctxAndAddresses.compareAndSet(curCtxAndAddresses, newCtxAndAddresses);
         if (!success) {
@@ -265,7 +277,15 @@ public class PowerWAFModule implements AppSecModule {
       Map<String, ActionInfo> actionInfoMap =
           calculateEffectiveActions(prevContextAndAddresses, ruleConfig);
 
-      newContextAndAddresses = new CtxAndAddresses(addresses, newPwafCtx, actionInfoMap);
+      if (prevContextAndAddresses == null) {
+        ruleSections.clear();
+      }
+      newContextAndAddresses =
+          new CtxAndAddresses(
+              addresses,
+              newPwafCtx,
+              actionInfoMap,
+              calculateNonBlockingAddresses(addresses, ruleConfig, actionInfoMap));
       if (initReport != null) {
         this.statsReporter.rulesVersion = initReport.rulesetVersion;
       }
@@ -326,6 +346,125 @@ public class PowerWAFModule implements AppSecModule {
     return actionInfoMap;
   }
 
+  /**
+   * Finds the addresses which no rule with a blocking or redirecting action reads, whose
+   * evaluation therefore can't block the request and can be left to the asynchronous workers.
+   * Rule overrides and exclusions with actions of their own aren't resolved to the rules they
+   * target, so when there are any all addresses are considered blocking.
+   */
+  private Set<Address<?>> calculateNonBlockingAddresses(
+      Collection<Address<?>> addresses,
+      AppSecConfig ruleConfig,
+      Map<String, ActionInfo> actionInfoMap) {
+    if (asyncWafExecutor == null) {
+      return Collections.emptySet();
+    }
+    Map<String, Object> rawConfig = ruleConfig.getRawConfig();
+    for (String section : RULE_SECTIONS) {
+      if (rawConfig.containsKey(section)) {
+        ruleSections.put(section, rawConfig.get(section));
+      }
+    }
+    if (hasActions(ruleSections.get("rules_override"))
+        || hasActions(ruleSections.get("exclusions"))) {
+      return Collections.emptySet();
+    }
+
+    Set<String> blockingAddresses = new HashSet<>();
+    for (String section : new String[] {"rules", "custom_rules"}) {
+      Object rules = ruleSections.get(section);
+      if (!(rules instanceof List)) {
+        continue;
+      }
+      for (Object rule : (List<?>) rules) {
+        if (rule instanceof Map && canBlock(((Map<?, ?>) rule).get("on_match"), actionInfoMap)) {
+          collectInputAddresses(((Map<?, ?>) rule).get("conditions"), blockingAddresses);
+        }
+      }
+    }
+
+    Set<Address<?>> nonBlockingAddresses = new HashSet<>();
+    for (Address<?> address : addresses) {
+      // the schemas extracted at the end of the request must be ready before it ends
+      if (address != KnownAddresses.WAF_CONTEXT_PROCESSOR
+          && !blockingAddresses.contains(address.getKey())) {
+        nonBlockingAddresses.add(address);
+      }
+    }
+    return nonBlockingAddresses;
+  }
+
+  private static boolean hasActions(Object entries) {
+    if (entries instanceof List) {
+      for (Object entry : (List<?>) entries) {
+        if (entry instanceof Map) {
+          Object onMatch = ((Map<?, ?>) entry).get("on_match");
+          if (onMatch instanceof Collection && !((Collection<?>) onMatch).isEmpty()) {
+            return true;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  private static boolean canBlock(Object onMatch, Map<String, ActionInfo> actionInfoMap) {
+    if (!(onMatch instanceof Collection)) {
+      return false;
+    }
+    for (Object action : (Collection<?>) onMatch) {
+      ActionInfo actionInfo = actionInfoMap.get(String.valueOf(action));
+      if (actionInfo == null
+          || "block_request".equals(actionInfo.type)
+          || "redirect_request".equals(actionInfo.type)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static void collectInputAddresses(Object conditions, Set<String> addresses) {
+    if (!(conditions instanceof List)) {
+      return;
+    }
+    for (Object condition : (List<?>) conditions) {
+      if (!(condition instanceof Map)) {
+        continue;
+      }
+      Object parameters = ((Map<?, ?>) condition).get("parameters");
+      if (!(parameters instanceof Map)) {
+        continue;
+      }
+      Object inputs = ((Map<?, ?>) parameters).get("inputs");
+      if (!(inputs instanceof List)) {
+        continue;
+      }
+      for (Object input : (List<?>) inputs) {
+        if (input instanceof Map) {
+          Object address = ((Map<?, ?>) input).get("address");
+          if (address != null) {
+            addresses.add(address.toString());
+          }
+        }
+      }
+    }
+  }
+
+  private static ExecutorService createAsyncWafExecutor(int threads) {
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            60,
+            TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(ASYNC_QUEUE_SIZE),
+            new AgentThreadFactory(APPSEC_WAF_WORKER),
+            // when the workers can't keep up, evaluate on the request thread
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
   private PowerwafConfig createPowerwafConfig() {
     PowerwafConfig pwConfig = new PowerwafConfig();
     Config config = Config.get();
@@ -397,13 +536,57 @@ public class PowerWAFModule implements AppSecModule {
     @Override
     public void onDataAvailable(
         ChangeableFlow flow, AppSecRequestContext reqCtx, DataBundle newData, boolean isTransient) {
-      Powerwaf.ResultWithData resultWithData;
       CtxAndAddresses ctxAndAddr = ctxAndAddresses.get();
       if (ctxAndAddr == null) {
         log.debug("Skipped; the WAF is not configured");
         return;
       }
 
+      if (asyncWafExecutor != null
+          && !isTransient
+          && ctxAndAddr.nonBlockingAddresses.containsAll(newData.getAllAddresses())) {
+        // no action can come of it, so the request doesn't have to wait for the WAF
+        if (reqCtx.queueAsyncBundle(newData)) {
+          asyncWafExecutor.execute(() -> evaluateQueuedBundles(reqCtx));
+        }
+        return;
+      }
+
+      evaluate(flow, reqCtx, newData, ctxAndAddr, isTransient);
+    }
+
+    /** Evaluates the bundles queued for a request in batches, until there are none left. */
+    private void evaluateQueuedBundles(AppSecRequestContext reqCtx) {
+      List<DataBundle> bundles;
+      while ((bundles = reqCtx.drainAsyncBundles()) != null) {
+        DataBundle batch = bundles.get(0);
+        for (int i = 1; i < bundles.size(); i++) {
+          batch = DataBundle.unionOf(batch, bundles.get(i));
+        }
+        CtxAndAddresses ctxAndAddr = ctxAndAddresses.get();
+        if (ctxAndAddr == null) {
+          continue;
+        }
+        try {
+          synchronized (reqCtx.getAdditiveLock()) {
+            // the additive is closed once the request has ended
+            if (!reqCtx.isAsyncEvaluationClosed()) {
+              evaluate(new ChangeableFlow(), reqCtx, batch, ctxAndAddr, false);
+            }
+          }
+        } catch (RuntimeException e) {
+          log.warn("Error evaluating data asynchronously", e);
+        }
+      }
+    }
+
+    private void evaluate(
+        ChangeableFlow flow,
+        AppSecRequestContext reqCtx,
+        DataBundle newData,
+        CtxAndAddresses ctxAndAddr,
+        boolean isTransient) {
+      Powerwaf.ResultWithData resultWithData;
       StandardizedLogging.executingWAF(log);
       long start = 0L;
       if (log.isDebugEnabled()) {
@@ -411,7 +594,10 @@ public class PowerWAFModule implements AppSecModule {
       }
 
       try {
-        resultWithData = doRunPowerwaf(reqCtx, newData, ctxAndAddr, isTransient);
+        // the additive is not thread-safe, and may be in use by an asynchronous evaluation
+        synchronized (reqCtx.getAdditiveLock()) {
+          resultWithData = doRunPowerwaf(reqCtx, newData, ctxAndAddr, isTransient);
+        }
       } catch (TimeoutPowerwafException tpe) {
         reqCtx.increaseTimeouts();
         log.debug(LogCollector.EXCLUDE_TELEMETRY, "Timeout calling the WAF", tpe);
@@ -521,16 +707,40 @@ public class PowerWAFModule implements AppSecModule {
     private Powerwaf.ResultWithData runPowerwafAdditive(
         Additive additive, PowerwafMetrics metrics, DataBundle newData, CtxAndAddresses ctxAndAddr)
         throws AbstractPowerwafException {
-      return additive.run(
-          new DataBundleMapWrapper(ctxAndAddr.addressesOfInterest, newData), LIMITS, metrics);
+      WafInputEncoder encoder = acquireWafInputEncoder();
+      try {
+        return additive.run(
+            encoder.encode(ctxAndAddr.addressesOfInterest, newData), LIMITS, metrics);
+      } finally {
+        encoder.release();
+      }
     }
   }
 
   private Powerwaf.ResultWithData runPowerwafTransient(
       Additive additive, PowerwafMetrics metrics, DataBundle bundle, CtxAndAddresses ctxAndAddr)
       throws AbstractPowerwafException {
-    return additive.runEphemeral(
-        new DataBundleMapWrapper(ctxAndAddr.addressesOfInterest, bundle), LIMITS, metrics);
+    WafInputEncoder encoder = acquireWafInputEncoder();
+    try {
+      return additive.runEphemeral(
+          encoder.encode(ctxAndAddr.addressesOfInterest, bundle), LIMITS, metrics);
+    } finally {
+      encoder.release();
+    }
+  }
+
+  private static WafInputEncoder acquireWafInputEncoder() {
+    WafInputEncoder encoder = WAF_INPUT_ENCODERS.get();
+    if (!encoder.tryAcquire()) {
+      // the WAF is being run again while this thread's input is still in use
+      encoder = newWafInputEncoder();
+      encoder.tryAcquire();
+    }
+    return encoder;
+  }
+
+  private static WafInputEncoder newWafInputEncoder() {
+    return new WafInputEncoder(MAX_DEPTH, MAX_ELEMENTS, MAX_STRING_SIZE);
   }
 
   private Collection<AppSecEvent> buildEvents(Powerwaf.ResultWithData actionWithData) {
@@ -592,142 +802,4 @@ public class PowerWAFModule implements AppSecModule {
         .withRuleMatches(ruleMatchList)
         .build();
   }
-
-  private static final class DataBundleMapWrapper implements Map<String, Object> {
-    private final Collection<Address<?>> addressesOfInterest;
-    private final DataBundle dataBundle;
-
-    private DataBundleMapWrapper(
-        Collection<Address<?>> addressesOfInterest, DataBundle dataBundle) {
-      this.addressesOfInterest = addressesOfInterest;
-      this.dataBundle = dataBundle;
-    }
-
-    // powerwaf only calls entrySet().iterator() and size()
-    @Nonnull
-    @Override
-    public Set<Entry<String, Object>> entrySet() {
-      try {
-        return (Set<Entry<String, Object>>)
-            PROXY_CLASS_CONSTRUCTOR.newInstance(new SetIteratorInvocationHandler());
-      } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
-        throw new UndeclaredThrowableException(e);
-      }
-    }
-
-    private class SetIteratorInvocationHandler implements InvocationHandler {
-      @Override
-      public Object invoke(Object proxy, Method method, Object[] args) {
-        if (!method.getName().equals("iterator")) {
-          throw new UnsupportedOperationException(
-              "Only supported method is 'iterator'; got " + method.getName());
-        }
-
-        final Iterator<Address<?>> addrIterator = dataBundle.getAllAddresses().iterator();
-        final MutableEntry entry = new MutableEntry();
-
-        return new Iterator<Entry<String, Object>>() {
-          private Address<?> next = computeNextAddress();
-
-          private Address<?> computeNextAddress() {
-            return addrIterator.hasNext() ? addrIterator.next() : null;
-          }
-
-          @Override
-          public boolean hasNext() {
-            return next != null;
-          }
-
-          @Override
-          public Entry<String, Object> next() {
-            if (next == null) {
-              throw new NoSuchElementException();
-            }
-            // the usage pattern in powerwaf allows object recycling here
-            entry.key = next.getKey();
-            entry.value =
-                addressesOfInterest.contains(next) ? dataBundle.get(next) : Collections.emptyMap();
-            next = computeNextAddress();
-            return entry;
-          }
-        };
-      }
-    }
-
-    @Override
-    public int size() {
-      return dataBundle.size();
-    }
-
-    /* unimplemented map methods */
-    @Override
-    public boolean isEmpty() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public boolean containsKey(Object key) {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public boolean containsValue(Object value) {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Object get(Object key) {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Object put(String key, Object value) {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Object remove(Object key) {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void putAll(@Nonnull Map<? extends String, ?> m) {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public void clear() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Set<String> keySet() {
-      throw new UnsupportedOperationException();
-    }
-
-    @Override
-    public Collection<Object> values() {
-      throw new UnsupportedOperationException();
-    }
-  }
-
-  private static final class MutableEntry implements Map.Entry<String, Object> {
-    String key;
-    Object value;
-
-    @Override
-    public String getKey() {
-      return key;
-    }
-
-    @Override
-    public Object getValue() {
-      return value;
-    }
-
-    @Override
-    public Object setValue(Object value) {
-      throw new UnsupportedOperationException();
-    }
-  }
 }
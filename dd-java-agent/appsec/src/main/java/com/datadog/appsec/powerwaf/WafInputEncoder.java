@@ -0,0 +1,346 @@
+package com.datadog.appsec.powerwaf;
+
+import com.datadog.appsec.event.data.Address;
+import com.datadog.appsec.event.data.DataBundle;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import javax.annotation.Nonnull;
+
+/**
+ * Encodes the addresses of a {@link DataBundle} into the maps, lists and scalars handed to the WAF,
+ * writing them into a flat buffer of nodes which is reused from one run to the next.
+ *
+ * <p>The WAF's limits are enforced while the input is walked, the same way the binding's serializer
+ * would: containers deeper than the maximum depth are encoded empty, elements beyond the maximum
+ * number are dropped and strings are truncated to the maximum size. Whatever the serializer would
+ * have discarded is never visited. The binding then reads the buffer through read-only map and list
+ * views pooled with the nodes, so no copy of the request data is made on the Java side.
+ *
+ * <p>Encoders are not thread-safe, and the encoded input is only valid until the encoder is {@link
+ * #release() released}.
+ */
+public final class WafInputEncoder {
+
+  private static final byte SCALAR = 0;
+  private static final byte MAP = 1;
+  private static final byte LIST = 2;
+
+  private static final int NONE = -1;
+
+  private final int maxDepth;
+  private final int maxElements;
+  private final int maxStringSize;
+
+  private byte[] kinds;
+  private String[] keys;
+  private Object[] values;
+  private int[] firstChild;
+  private int[] lastChild;
+  private int[] nextSibling;
+  private int[] childCount;
+  private Object[] views;
+
+  private int nodeCount;
+  private int elementsLeft;
+  private boolean inUse;
+
+  public WafInputEncoder(int maxDepth, int maxElements, int maxStringSize) {
+    this.maxDepth = maxDepth;
+    this.maxElements = maxElements;
+    this.maxStringSize = maxStringSize;
+    allocate(64);
+  }
+
+  /** @return false if the encoder's input is still in use */
+  public boolean tryAcquire() {
+    if (inUse) {
+      return false;
+    }
+    inUse = true;
+    return true;
+  }
+
+  /**
+   * Encodes the addresses of the bundle, addresses not of interest are encoded as empty maps.
+   *
+   * @return the input to pass to the WAF, valid until the encoder is released
+   */
+  public Map<String, Object> encode(Collection<Address<?>> addressesOfInterest, DataBundle bundle) {
+    clear();
+    elementsLeft = maxElements;
+    int root = newNode(NONE, null);
+    kinds[root] = MAP;
+    for (Address<?> address : bundle.getAllAddresses()) {
+      int node = newNode(root, address.getKey());
+      if (addressesOfInterest.contains(address)) {
+        encodeValue(node, bundle.get(address), 1);
+      } else {
+        kinds[node] = MAP;
+      }
+    }
+    return mapView(root);
+  }
+
+  /** Drops the references to the encoded input and makes the encoder available again. */
+  public void release() {
+    clear();
+    inUse = false;
+  }
+
+  private void encodeValue(int node, Object value, int depth) {
+    if (value instanceof CharSequence) {
+      values[node] = truncate(value.toString());
+    } else if (value instanceof Map) {
+      kinds[node] = MAP;
+      if (depth < maxDepth) {
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+          if (elementsLeft <= 0) {
+            break;
+          }
+          int child = newNode(node, truncate(String.valueOf(entry.getKey())));
+          encodeValue(child, entry.getValue(), depth + 1);
+        }
+      }
+    } else if (value instanceof Iterable) {
+      kinds[node] = LIST;
+      if (depth < maxDepth) {
+        for (Object element : (Iterable<?>) value) {
+          if (elementsLeft <= 0) {
+            break;
+          }
+          encodeValue(newNode(node, null), element, depth + 1);
+        }
+      }
+    } else if (value instanceof Object[]) {
+      kinds[node] = LIST;
+      if (depth < maxDepth) {
+        for (Object element : (Object[]) value) {
+          if (elementsLeft <= 0) {
+            break;
+          }
+          encodeValue(newNode(node, null), element, depth + 1);
+        }
+      }
+    } else {
+      // numbers, booleans and anything else are left to the binding
+      values[node] = value;
+    }
+  }
+
+  private String truncate(String string) {
+    return string.length() > maxStringSize ? string.substring(0, maxStringSize) : string;
+  }
+
+  private int newNode(int parent, String key) {
+    if (nodeCount == kinds.length) {
+      allocate(nodeCount << 1);
+    }
+    int node = nodeCount++;
+    kinds[node] = SCALAR;
+    keys[node] = key;
+    firstChild[node] = NONE;
+    lastChild[node] = NONE;
+    nextSibling[node] = NONE;
+    childCount[node] = 0;
+    if (parent != NONE) {
+      elementsLeft--;
+      if (lastChild[parent] == NONE) {
+        firstChild[parent] = node;
+      } else {
+        nextSibling[lastChild[parent]] = node;
+      }
+      lastChild[parent] = node;
+      childCount[parent]++;
+    }
+    return node;
+  }
+
+  private void allocate(int capacity) {
+    if (null == kinds) {
+      kinds = new byte[capacity];
+      keys = new String[capacity];
+      values = new Object[capacity];
+      firstChild = new int[capacity];
+      lastChild = new int[capacity];
+      nextSibling = new int[capacity];
+      childCount = new int[capacity];
+      views = new Object[capacity];
+    } else {
+      kinds = Arrays.copyOf(kinds, capacity);
+      keys = Arrays.copyOf(keys, capacity);
+      values = Arrays.copyOf(values, capacity);
+      firstChild = Arrays.copyOf(firstChild, capacity);
+      lastChild = Arrays.copyOf(lastChild, capacity);
+      nextSibling = Arrays.copyOf(nextSibling, capacity);
+      childCount = Arrays.copyOf(childCount, capacity);
+      views = Arrays.copyOf(views, capacity);
+    }
+  }
+
+  private void clear() {
+    Arrays.fill(keys, 0, nodeCount, null);
+    Arrays.fill(values, 0, nodeCount, null);
+    nodeCount = 0;
+  }
+
+  private Object valueOf(int node) {
+    switch (kinds[node]) {
+      case MAP:
+        return mapView(node);
+      case LIST:
+        return listView(node);
+      default:
+        return values[node];
+    }
+  }
+
+  private MapView mapView(int node) {
+    Object view = views[node];
+    MapView mapView;
+    if (view instanceof MapView) {
+      mapView = (MapView) view;
+    } else {
+      views[node] = mapView = new MapView();
+    }
+    mapView.node = node;
+    return mapView;
+  }
+
+  private ListView listView(int node) {
+    Object view = views[node];
+    ListView listView;
+    if (view instanceof ListView) {
+      listView = (ListView) view;
+    } else {
+      views[node] = listView = new ListView();
+    }
+    listView.node = node;
+    return listView;
+  }
+
+  private final class MapView extends AbstractMap<String, Object> {
+    int node;
+
+    private final Set<Entry<String, Object>> entrySet =
+        new AbstractSet<Entry<String, Object>>() {
+          @Override
+          public Iterator<Entry<String, Object>> iterator() {
+            return new EntryIterator(firstChild[node]);
+          }
+
+          @Override
+          public int size() {
+            return childCount[node];
+          }
+        };
+
+    @Nonnull
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return entrySet;
+    }
+
+    @Override
+    public int size() {
+      return childCount[node];
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+    private final MutableEntry entry = new MutableEntry();
+    private int next;
+
+    EntryIterator(int next) {
+      this.next = next;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != NONE;
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      if (next == NONE) {
+        throw new NoSuchElementException();
+      }
+      // the usage pattern in powerwaf allows object recycling here
+      entry.key = keys[next];
+      entry.value = valueOf(next);
+      next = nextSibling[next];
+      return entry;
+    }
+  }
+
+  private final class ListView extends AbstractList<Object> {
+    int node;
+
+    @Override
+    public Object get(int index) {
+      if (index < 0 || index >= childCount[node]) {
+        throw new IndexOutOfBoundsException("Index: " + index);
+      }
+      int child = firstChild[node];
+      for (int i = 0; i < index; i++) {
+        child = nextSibling[child];
+      }
+      return valueOf(child);
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<Object> iterator() {
+      final int first = firstChild[node];
+      return new Iterator<Object>() {
+        private int next = first;
+
+        @Override
+        public boolean hasNext() {
+          return next != NONE;
+        }
+
+        @Override
+        public Object next() {
+          if (next == NONE) {
+            throw new NoSuchElementException();
+          }
+          Object value = valueOf(next);
+          next = nextSibling[next];
+          return value;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return childCount[node];
+    }
+  }
+
+  private static final class MutableEntry implements Map.Entry<String, Object> {
+    String key;
+    Object value;
+
+    @Override
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public Object getValue() {
+      return value;
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
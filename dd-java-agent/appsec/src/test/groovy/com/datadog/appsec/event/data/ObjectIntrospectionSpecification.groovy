@@ -73,6 +73,32 @@ class ObjectIntrospectionSpecification extends Specification {
     convert(new ClassToBeConvertedExt()) == [c: 'd', a: 'b', l: ['1', '2']]
   }
 
+  void 'objects of the same class are converted with their own values'() {
+    setup:
+    def first = new ClassToBeConverted()
+    def second = new ClassToBeConverted()
+    second.a = 'c'
+    second.l = [3]
+
+    expect:
+    convert(first) == [a: 'b', l: ['1', '2']]
+    convert(second) == [a: 'c', l: ['3']]
+    convert([first, second]) == [[a: 'b', l: ['1', '2']], [a: 'c', l: ['3']]]
+  }
+
+  void 'max number of elements is honored for objects'() {
+    setup:
+    def objects = (1..100).collect { new ClassToBeConverted() }
+
+    when:
+    def converted = convert(objects)
+
+    then: 'each object takes one element for itself, one per field and one per list element'
+    converted.size() == 51
+    converted[49] == [a: 'b', l: ['1', '2']]
+    converted[50] == [a: 'b', l: ['1', null]]
+  }
+
   void 'max number of elements is honored'() {
     setup:
     def m = [:]
@@ -162,6 +162,69 @@ class AppSecRequestContextSpecification extends DDSpecification {
       'accept': ['application/json', 'application/xml']] as Map
   }
 
+  void 'queued bundles are drained together by a single evaluation'() {
+    setup:
+    def first = MapDataBundle.of(KnownAddresses.REQUEST_URI_RAW, '/a')
+    def second = MapDataBundle.of(KnownAddresses.REQUEST_QUERY, [foo: ['bar']])
+
+    expect:
+    ctx.queueAsyncBundle(first)
+    !ctx.queueAsyncBundle(second)
+    ctx.drainAsyncBundles() == [first, second]
+    ctx.drainAsyncBundles() == null
+
+    and: 'a new evaluation is needed once the previous one is over'
+    ctx.queueAsyncBundle(first)
+  }
+
+  void 'bundles queued after the end of the request are dropped'() {
+    setup:
+    def bundle = MapDataBundle.of(KnownAddresses.REQUEST_URI_RAW, '/a')
+
+    when:
+    ctx.awaitAsyncEvaluation(1)
+
+    then:
+    ctx.asyncEvaluationClosed
+    !ctx.queueAsyncBundle(bundle)
+    ctx.drainAsyncBundles() == null
+  }
+
+  void 'the end of the request waits for the running evaluation'() {
+    setup:
+    def bundle = MapDataBundle.of(KnownAddresses.REQUEST_URI_RAW, '/a')
+    ctx.queueAsyncBundle(bundle)
+    def drained = []
+    def worker = Thread.start {
+      List bundles
+      while ((bundles = ctx.drainAsyncBundles()) != null) {
+        drained.addAll(bundles)
+      }
+    }
+
+    when:
+    ctx.awaitAsyncEvaluation(5000)
+    worker.join()
+
+    then:
+    drained == [bundle]
+    ctx.asyncEvaluationClosed
+  }
+
+  void 'close drops the queued bundles when the end of the request was missed'() {
+    setup:
+    def bundle = MapDataBundle.of(KnownAddresses.REQUEST_URI_RAW, '/a')
+    ctx.queueAsyncBundle(bundle)
+
+    when:
+    ctx.close()
+
+    then:
+    ctx.asyncEvaluationClosed
+    ctx.drainAsyncBundles() == null
+    !ctx.queueAsyncBundle(bundle)
+  }
+
   private Additive createAdditive() {
     Powerwaf.initialize false
     def service = new StubAppSecConfigService()
@@ -869,6 +869,62 @@ class PowerWAFModuleSpecification extends DDSpecification {
     assert !flow.blocking
   }
 
+  void 'only addresses no blocking rule reads are evaluated asynchronously'() {
+    setup:
+    injectSysConfig('appsec.waf.async.enabled', 'true')
+    pwafModule = new PowerWAFModule() // replace the one created too soon
+    setupWithStubConfigService()
+
+    when:
+    def nonBlockingAddresses = pwafModule.ctxAndAddresses.get().nonBlockingAddresses
+
+    then:
+    KnownAddresses.REQUEST_BODY_OBJECT in nonBlockingAddresses
+    KnownAddresses.REQUEST_QUERY in nonBlockingAddresses
+    !(KnownAddresses.HEADERS_NO_COOKIES in nonBlockingAddresses)
+    !(KnownAddresses.REQUEST_INFERRED_CLIENT_IP in nonBlockingAddresses)
+  }
+
+  void 'events of asynchronous evaluations are reported before the request ends'() {
+    setup:
+    injectSysConfig('appsec.waf.async.enabled', 'true')
+    pwafModule = new PowerWAFModule() // replace the one created too soon
+    setupWithStubConfigService()
+    AppSecRequestContext reqCtx = new AppSecRequestContext()
+    ChangeableFlow flow = new ChangeableFlow()
+    DataBundle bundle = MapDataBundle.of(KnownAddresses.REQUEST_BODY_OBJECT, '/cybercop')
+
+    when:
+    dataListener.onDataAvailable(flow, reqCtx, bundle, false)
+    reqCtx.awaitAsyncEvaluation(5000)
+    def events = reqCtx.transferCollectedEvents()
+    reqCtx.closeAdditive()
+
+    then:
+    !flow.blocking
+    'crs-913-120' in events*.rule.id
+  }
+
+  void 'asynchronous evaluations do not open an additive once the request context is closed'() {
+    setup:
+    injectSysConfig('appsec.waf.async.enabled', 'true')
+    pwafModule = new PowerWAFModule() // replace the one created too soon
+    setupWithStubConfigService()
+    AppSecRequestContext reqCtx = new AppSecRequestContext()
+    DataBundle bundle = MapDataBundle.of(KnownAddresses.REQUEST_BODY_OBJECT, '/cybercop')
+
+    when: 'the context is closed without the request end event while the evaluation is pending'
+    synchronized (reqCtx.additiveLock) {
+      dataListener.onDataAvailable(new ChangeableFlow(), reqCtx, bundle, false)
+      reqCtx.close()
+    }
+    reqCtx.awaitAsyncEvaluation(5000)
+
+    then:
+    reqCtx.additive == null
+    reqCtx.transferCollectedEvents().empty
+  }
+
   void 'timeout is honored'() {
     setup:
     injectSysConfig('appsec.waf.timeout', '1')
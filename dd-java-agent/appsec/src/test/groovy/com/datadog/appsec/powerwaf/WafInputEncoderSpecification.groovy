@@ -0,0 +1,140 @@
+package com.datadog.appsec.powerwaf
+
+import com.datadog.appsec.event.data.DataBundle
+import com.datadog.appsec.event.data.KnownAddresses
+import com.datadog.appsec.event.data.MapDataBundle
+import datadog.trace.test.util.DDSpecification
+
+class WafInputEncoderSpecification extends DDSpecification {
+  // use ofDelegate with LinkedHashMap to ensure iteration order
+  DataBundle dataBundle = MapDataBundle.ofDelegate([
+    (KnownAddresses.REQUEST_URI_RAW): '/b',
+    (KnownAddresses.REQUEST_CLIENT_IP): '::1'])
+
+  WafInputEncoder encoder = new WafInputEncoder(10, 150, 4096)
+
+  Map<String, Object> encode(DataBundle bundle, List addressesOfInterest = bundle.allAddresses as List) {
+    encoder.tryAcquire()
+    encoder.encode(addressesOfInterest, bundle)
+  }
+
+  void size() {
+    expect:
+    // REQUEST_CLIENT_IP will be filtered into an empty map
+    encode(dataBundle, [KnownAddresses.REQUEST_URI_RAW]).size() == 2
+  }
+
+  void entrySet() {
+    def iter = encode(dataBundle, [KnownAddresses.REQUEST_URI_RAW]).entrySet().iterator()
+    def elem
+
+    expect:
+    iter.hasNext() == true
+
+    when:
+    elem = iter.next()
+
+    then:
+    elem.key == KnownAddresses.REQUEST_URI_RAW.key
+    elem.value == '/b'
+
+    when:
+    elem.value = 'foo'
+
+    then:
+    thrown(UnsupportedOperationException)
+
+    when:
+    elem = iter.next()
+
+    then:
+    elem.key == KnownAddresses.REQUEST_CLIENT_IP.key
+    elem.value == [:]
+    iter.hasNext() == false
+
+    when:
+    iter.remove()
+
+    then:
+    thrown(UnsupportedOperationException)
+
+    when:
+    iter.next()
+
+    then:
+    thrown(NoSuchElementException)
+  }
+
+  void 'nested maps, lists and arrays are encoded'() {
+    setup:
+    def body = [
+      user: [name: 'alice', roles: ['admin', 'dev'] as String[]],
+      items: [[id: 1, tags: ['a', 'b']], [id: 2, enabled: true]],
+      empty: [:]]
+
+    when:
+    def input = encode(MapDataBundle.of(KnownAddresses.REQUEST_BODY_OBJECT, body))
+
+    then:
+    input == [(KnownAddresses.REQUEST_BODY_OBJECT.key): [
+        user: [name: 'alice', roles: ['admin', 'dev']],
+        items: [[id: 1, tags: ['a', 'b']], [id: 2, enabled: true]],
+        empty: [:]]]
+  }
+
+  void 'containers beyond the maximum depth are encoded empty'() {
+    setup:
+    encoder = new WafInputEncoder(3, 150, 4096)
+    def body = [a: [b: [c: [d: 'deep']], l: [['deep']]]]
+
+    when:
+    def input = encode(MapDataBundle.of(KnownAddresses.REQUEST_BODY_OBJECT, body))
+
+    then:
+    input[KnownAddresses.REQUEST_BODY_OBJECT.key] == [a: [b: [:], l: []]]
+  }
+
+  void 'elements beyond the maximum number are dropped'() {
+    setup:
+    encoder = new WafInputEncoder(10, 5, 4096)
+    def body = (1..10).collect { "value$it".toString() }
+
+    when:
+    def input = encode(MapDataBundle.of(KnownAddresses.REQUEST_BODY_OBJECT, body))
+
+    then: 'the address itself counts as one element'
+    input[KnownAddresses.REQUEST_BODY_OBJECT.key] == ['value1', 'value2', 'value3', 'value4']
+  }
+
+  void 'strings and keys are truncated to the maximum size'() {
+    setup:
+    encoder = new WafInputEncoder(10, 150, 4)
+    def body = [longkey: 'longvalue', list: [new StringBuilder('builder')]]
+
+    when:
+    def input = encode(MapDataBundle.of(KnownAddresses.REQUEST_BODY_OBJECT, body))
+
+    then:
+    input[KnownAddresses.REQUEST_BODY_OBJECT.key] == [long: 'long', list: ['buil']]
+  }
+
+  void 'the buffer is reused once released'() {
+    setup:
+    def first = MapDataBundle.of(KnownAddresses.REQUEST_QUERY, [foo: ['bar']])
+    def second = MapDataBundle.of(KnownAddresses.REQUEST_URI_RAW, '/c')
+
+    when:
+    def input = encode(first)
+
+    then:
+    !encoder.tryAcquire()
+    input == [(KnownAddresses.REQUEST_QUERY.key): [foo: ['bar']]]
+
+    when:
+    encoder.release()
+    input = encode(second)
+
+    then:
+    input == [(KnownAddresses.REQUEST_URI_RAW.key): '/c']
+  }
+}
@@ -0,0 +1,65 @@
+package datadog.benchmark;
+
+import datadog.trace.api.Trace;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Spawns a million virtual threads from a traced method, each running an empty task, to measure
+ * the cost of propagating the trace context to every one of them. Virtual threads need Java 21, so
+ * they are created reflectively to keep this module compiling on older versions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class VirtualThreadBenchmark {
+
+  @Param({"1000000"})
+  int threads;
+
+  @Setup(Level.Trial)
+  public void checkVirtualThreads() throws Exception {
+    newVirtualThreadPerTaskExecutor().shutdown();
+  }
+
+  @Benchmark
+  @Trace
+  public void spawnVirtualThreads() throws Exception {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    for (int i = 0; i < threads; i++) {
+      executor.execute(VirtualThreadBenchmark::task);
+    }
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+  }
+
+  static void task() {}
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() throws Exception {
+    return (ExecutorService)
+        Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+  }
+
+  @Fork(jvmArgsAppend = "-javaagent:/path/to/dd-java-agent-master.jar")
+  public static class WithAgentMaster extends VirtualThreadBenchmark {}
+
+  @Fork(
+      jvmArgsAppend =
+          "-javaagent:/path/to/dd-trace-java/dd-java-agent/build/libs/dd-java-agent.jar")
+  public static class WithAgent extends VirtualThreadBenchmark {}
+}
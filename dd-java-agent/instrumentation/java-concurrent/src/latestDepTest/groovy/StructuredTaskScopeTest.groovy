@@ -0,0 +1,71 @@
+import datadog.trace.agent.test.AgentTestRunner
+import datadog.trace.core.DDSpan
+
+import java.util.concurrent.Callable
+import java.util.concurrent.StructuredTaskScope
+
+import static datadog.trace.agent.test.utils.TraceUtils.runUnderTrace
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeScope
+
+class StructuredTaskScopeTest extends AgentTestRunner {
+
+  def "forked subtasks are children of the forking span"() {
+    setup:
+    def taskScope = openTaskScope()
+
+    when:
+    runUnderTrace("parent") {
+      activeScope().setAsyncPropagation(true)
+      taskScope.fork((Callable) new JavaAsyncChild())
+      taskScope.fork((Callable) new JavaAsyncChild())
+      taskScope.join()
+    }
+    taskScope.close()
+    TEST_WRITER.waitForTraces(1)
+    List<DDSpan> trace = TEST_WRITER.get(0)
+
+    then:
+    TEST_WRITER.size() == 1
+    trace.size() == 3
+    trace.get(0).operationName == "parent"
+    trace.findAll { it.operationName == "asyncChild" }.every { it.parentId == trace.get(0).spanId }
+  }
+
+  def "the trace is not written while forked subtasks are running"() {
+    setup:
+    def taskScope = openTaskScope()
+    def child = new JavaAsyncChild(true, true)
+
+    when: 'the forking span finishes before the subtask runs'
+    runUnderTrace("parent") {
+      activeScope().setAsyncPropagation(true)
+      taskScope.fork((Callable) child)
+    }
+
+    then:
+    TEST_WRITER.size() == 0
+
+    when:
+    child.unblock()
+    taskScope.join()
+    taskScope.close()
+    TEST_WRITER.waitForTraces(1)
+    List<DDSpan> trace = TEST_WRITER.get(0)
+
+    then:
+    TEST_WRITER.size() == 1
+    trace.size() == 2
+    trace.get(0).operationName == "parent"
+    trace.get(1).operationName == "asyncChild"
+    trace.get(1).parentId == trace.get(0).spanId
+  }
+
+  private static openTaskScope() {
+    try {
+      // the preview API changed in later JDKs
+      return StructuredTaskScope.getMethod("open").invoke(null)
+    } catch (NoSuchMethodException ignored) {
+      return Class.forName('java.util.concurrent.StructuredTaskScope$ShutdownOnFailure').getConstructor().newInstance()
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package datadog.trace.instrumentation.java.concurrent;
+
+import static datadog.trace.agent.tooling.bytebuddy.matcher.NameMatchers.named;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeScope;
+import static datadog.trace.bootstrap.instrumentation.java.concurrent.AdviceUtils.endTaskScope;
+import static datadog.trace.bootstrap.instrumentation.java.concurrent.AdviceUtils.startTaskScope;
+import static java.util.Collections.singletonMap;
+import static net.bytebuddy.matcher.ElementMatchers.isConstructor;
+import static net.bytebuddy.matcher.ElementMatchers.isMethod;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+import com.google.auto.service.AutoService;
+import datadog.trace.agent.tooling.Instrumenter;
+import datadog.trace.agent.tooling.InstrumenterModule;
+import datadog.trace.bootstrap.InstrumentationContext;
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.java.concurrent.State;
+import java.util.Map;
+import net.bytebuddy.asm.Advice;
+
+/**
+ * Propagates the active scope to the subtasks forked by a {@code StructuredTaskScope}.
+ *
+ * <p>Each subtask captures a continuation when it is forked, like tasks submitted to an executor.
+ * The span which was active when forking may finish before the owner joins the scope, so the
+ * continuation is what keeps the trace from being written while subtasks are still running.
+ */
+@AutoService(InstrumenterModule.class)
+public final class StructuredTaskScopeInstrumentation extends InstrumenterModule.Tracing
+    implements Instrumenter.ForBootstrap, Instrumenter.ForKnownTypes {
+  public StructuredTaskScopeInstrumentation() {
+    super("java_concurrent", "structured-task-scope");
+  }
+
+  @Override
+  public String[] knownMatchingTypes() {
+    return new String[] {
+      "java.util.concurrent.StructuredTaskScope$SubtaskImpl",
+      "java.util.concurrent.StructuredTaskScopeImpl$SubtaskImpl"
+    };
+  }
+
+  @Override
+  public Map<String, String> contextStore() {
+    return singletonMap("java.lang.Runnable", State.class.getName());
+  }
+
+  @Override
+  public void methodAdvice(MethodTransformer transformer) {
+    transformer.applyAdvice(isConstructor(), getClass().getName() + "$Construct");
+    transformer.applyAdvice(
+        isMethod().and(named("run")).and(takesArguments(0)), getClass().getName() + "$Run");
+  }
+
+  public static final class Construct {
+    @Advice.OnMethodExit(suppress = Throwable.class)
+    public static void capture(@Advice.This Runnable subtask) {
+      AgentScope activeScope = activeScope();
+      if (null != activeScope) {
+        State state = State.FACTORY.create();
+        state.captureAndSetContinuation(activeScope);
+        InstrumentationContext.get(Runnable.class, State.class).put(subtask, state);
+      }
+    }
+  }
+
+  public static final class Run {
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static AgentScope activate(@Advice.This Runnable subtask) {
+      return startTaskScope(InstrumentationContext.get(Runnable.class, State.class), subtask);
+    }
+
+    @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
+    public static void close(@Advice.Enter AgentScope scope) {
+      endTaskScope(scope);
+    }
+  }
+}
@@ -68,6 +68,8 @@ public final class ConfigDefaults {
   static final int DEFAULT_SCOPE_DEPTH_LIMIT = 100;
   static final int DEFAULT_SCOPE_ITERATION_KEEP_ALIVE = 30; // in seconds
   static final int DEFAULT_PARTIAL_FLUSH_MIN_SPANS = 1000;
+  static final boolean DEFAULT_PENDING_TRACE_BUFFER_DEADLINE_ENABLED = false;
+  static final int DEFAULT_PENDING_TRACE_BUFFER_DEADLINE_CAPACITY = 1 << 12; // 4096
   static final boolean DEFAULT_PROPAGATION_EXTRACT_LOG_HEADER_NAMES_ENABLED = false;
   static final Set<TracePropagationStyle> DEFAULT_TRACE_PROPAGATION_STYLE =
       new LinkedHashSet<>(asList(DATADOG, TRACECONTEXT));
@@ -98,6 +100,8 @@ public final class ConfigDefaults {
   static final int DEFAULT_APPSEC_TRACE_RATE_LIMIT = 100;
   static final boolean DEFAULT_APPSEC_WAF_METRICS = true;
   static final int DEFAULT_APPSEC_WAF_TIMEOUT = 100000; // 0.1 s
+  static final boolean DEFAULT_APPSEC_WAF_ASYNC_ENABLED = false;
+  static final int DEFAULT_APPSEC_WAF_ASYNC_THREADS = 2;
   static final boolean DEFAULT_API_SECURITY_ENABLED = false;
   static final float DEFAULT_API_SECURITY_REQUEST_SAMPLE_RATE = 0.1f; // 10 %
 
@@ -123,6 +127,7 @@ public final class ConfigDefaults {
   static final int DEFAULT_IAST_TRUNCATION_MAX_VALUE_LENGTH = 250;
   public static final boolean DEFAULT_IAST_DEDUPLICATION_ENABLED = true;
   static final boolean DEFAULT_IAST_ANONYMOUS_CLASSES_ENABLED = true;
+  static final boolean DEFAULT_IAST_CONCURRENT_TAINTED_MAP_ENABLED = false;
 
   static final boolean DEFAULT_USM_ENABLED = false;
 
@@ -183,6 +188,7 @@ public final class ConfigDefaults {
   static final boolean DEFAULT_TRACE_ANALYTICS_ENABLED = false;
   static final float DEFAULT_ANALYTICS_SAMPLE_RATE = 1.0f;
   static final int DEFAULT_TRACE_RATE_LIMIT = 100;
+  static final boolean DEFAULT_TRACE_RATE_LIMIT_STRIPED = false;
 
   public static final boolean DEFAULT_ASYNC_PROPAGATING = true;
 
@@ -213,11 +219,20 @@ public final class ConfigDefaults {
   static final boolean DEFAULT_TRACE_LONG_RUNNING_ENABLED = false;
   static final long DEFAULT_TRACE_LONG_RUNNING_INITIAL_FLUSH_INTERVAL = 20; // seconds
   static final long DEFAULT_TRACE_LONG_RUNNING_FLUSH_INTERVAL = 120; // seconds -> 2 minutes
+  static final int DEFAULT_TRACE_LONG_RUNNING_MAX_TRACKED_TRACES = 100_000;
+  static final boolean DEFAULT_TRACE_SPAN_STREAMING_ENABLED = false;
+  static final int DEFAULT_TRACE_SPAN_STREAMING_CHUNK_SIZE = 100;
 
   static final float DEFAULT_TRACE_FLUSH_INTERVAL = 1;
 
   static final long DEFAULT_TRACE_POST_PROCESSING_TIMEOUT = 1000; // 1 second
 
+  static final int DEFAULT_TRACE_SERIALIZATION_SHARDS = 1;
+  static final boolean DEFAULT_TRACE_SERIALIZATION_DIRECT_BUFFERS_ENABLED = false;
+  static final boolean DEFAULT_TRACE_LOAD_SHEDDING_ENABLED = false;
+  static final double DEFAULT_TRACE_LOAD_SHEDDING_MIN_KEEP_RATIO = 0.1;
+  static final int DEFAULT_TRACE_CLOCK_RESOLUTION_MICROS = 0;
+
   static final boolean DEFAULT_COUCHBASE_INTERNAL_SPANS_ENABLED = true;
   static final boolean DEFAULT_ELASTICSEARCH_BODY_ENABLED = false;
   static final boolean DEFAULT_ELASTICSEARCH_PARAMS_ENABLED = true;
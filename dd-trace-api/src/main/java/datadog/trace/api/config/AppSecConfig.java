@@ -11,6 +11,8 @@ public final class AppSecConfig {
   public static final String APPSEC_TRACE_RATE_LIMIT = "appsec.trace.rate.limit";
   public static final String APPSEC_WAF_METRICS = "appsec.waf.metrics";
   public static final String APPSEC_WAF_TIMEOUT = "appsec.waf.timeout";
+  public static final String APPSEC_WAF_ASYNC_ENABLED = "appsec.waf.async.enabled";
+  public static final String APPSEC_WAF_ASYNC_THREADS = "appsec.waf.async.threads";
   public static final String APPSEC_OBFUSCATION_PARAMETER_KEY_REGEXP =
       "appsec.obfuscation.parameter_key_regexp";
   public static final String APPSEC_OBFUSCATION_PARAMETER_VALUE_REGEXP =
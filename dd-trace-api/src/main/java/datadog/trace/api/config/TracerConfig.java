@@ -49,6 +49,7 @@ public final class TracerConfig {
   // a global rate used for all services (that don’t have a dedicated rule defined).
   public static final String TRACE_SAMPLE_RATE = "trace.sample.rate";
   public static final String TRACE_RATE_LIMIT = "trace.rate.limit";
+  public static final String TRACE_RATE_LIMIT_STRIPED = "trace.rate.limit.striped";
   public static final String TRACE_REPORT_HOSTNAME = "trace.report-hostname";
   public static final String TRACE_CLIENT_IP_HEADER = "trace.client-ip-header";
   public static final String TRACE_CLIENT_IP_RESOLVER_ENABLED = "trace.client-ip.resolver.enabled";
@@ -77,6 +78,10 @@ public final class TracerConfig {
   public static final String SCOPE_ITERATION_KEEP_ALIVE = "trace.scope.iteration.keep.alive";
   public static final String PARTIAL_FLUSH_ENABLED = "trace.partial.flush.enabled";
   public static final String PARTIAL_FLUSH_MIN_SPANS = "trace.partial.flush.min.spans";
+  public static final String PENDING_TRACE_BUFFER_DEADLINE_ENABLED =
+      "trace.pending.buffer.deadline.enabled";
+  public static final String PENDING_TRACE_BUFFER_DEADLINE_CAPACITY =
+      "trace.pending.buffer.deadline.capacity";
   public static final String TRACE_STRICT_WRITES_ENABLED = "trace.strict.writes.enabled";
   public static final String PROPAGATION_EXTRACT_LOG_HEADER_NAMES_ENABLED =
       "propagation.extract.log_header_names.enabled";
@@ -120,6 +125,18 @@ public final class TracerConfig {
       "trace.experimental.long-running.initial.flush.interval";
   public static final String TRACE_LONG_RUNNING_FLUSH_INTERVAL =
       "trace.experimental.long-running.flush.interval";
+  public static final String TRACE_LONG_RUNNING_MAX_TRACKED_TRACES =
+      "trace.experimental.long-running.max-tracked-traces";
+
+  /**
+   * When enabled, finished spans are written in chunks as soon as enough of them have finished,
+   * instead of being held until the whole trace completes.
+   */
+  public static final String TRACE_SPAN_STREAMING_ENABLED =
+      "trace.experimental.span-streaming.enabled";
+
+  public static final String TRACE_SPAN_STREAMING_CHUNK_SIZE =
+      "trace.experimental.span-streaming.chunk.size";
   public static final String TRACE_PEER_SERVICE_DEFAULTS_ENABLED =
       "trace.peer.service.defaults.enabled";
 
@@ -135,5 +152,35 @@ public final class TracerConfig {
 
   public static final String TRACE_POST_PROCESSING_TIMEOUT = "trace.post-processing.timeout";
 
+  /**
+   * Number of threads serializing traces for the agent writer. Each shard owns its own queues and
+   * payload buffers; traces are routed by trace id. Defaults to a single serializer thread.
+   */
+  public static final String TRACE_SERIALIZATION_SHARDS = "trace.serialization.shards";
+
+  /**
+   * Whether traces are encoded into segments of a shared pool of direct buffers, rather than a
+   * heap buffer of the maximum payload size per serializer.
+   */
+  public static final String TRACE_SERIALIZATION_DIRECT_BUFFERS_ENABLED =
+      "trace.serialization.direct-buffers.enabled";
+
+  /**
+   * Whether the sampling rate of new traces is lowered when the serializer queues fill up or
+   * serializing and sending traces slows down, before any trace is dropped on overflow.
+   */
+  public static final String TRACE_LOAD_SHEDDING_ENABLED = "trace.load-shedding.enabled";
+
+  /** The lowest fraction of sampled traces which is kept while shedding load. */
+  public static final String TRACE_LOAD_SHEDDING_MIN_KEEP_RATIO =
+      "trace.load-shedding.min-keep-ratio";
+
+  /**
+   * When positive, spans are timed with a clock refreshed in the background at this resolution in
+   * microseconds instead of reading the clock source on every start and finish. Spans shorter than
+   * the resolution are still finished with a precise read. Disabled by default.
+   */
+  public static final String TRACE_CLOCK_RESOLUTION_MICROS = "trace.clock.resolution.micros";
+
   private TracerConfig() {}
 }
@@ -0,0 +1,137 @@
+package datadog.trace.common.metrics;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
+import datadog.communication.monitor.Monitoring;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.core.CoreSpan;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Several producer threads publish high cardinality traces and then wait for a report, so each
+ * operation includes draining everything that was published through the aggregator threads. The
+ * throughput should scale with the number of shards until the producers become the bottleneck.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(SECONDS)
+@Threads(4)
+@Fork(value = 1)
+public class ConflatingMetricsAggregatorBenchmark {
+
+  @Param({"1", "2", "4"})
+  int shards;
+
+  @Param({"1024"})
+  int cardinality;
+
+  private ConflatingMetricsAggregator aggregator;
+  private List<List<DDSpan>> traces;
+
+  @Setup(Level.Trial)
+  public void init() {
+    aggregator =
+        new ConflatingMetricsAggregator(
+            Collections.emptySet(),
+            new FixedFeaturesDiscovery(),
+            new NullSink(),
+            new NullMetricWriter(),
+            cardinality * 2,
+            cardinality * 8,
+            10,
+            SECONDS,
+            shards);
+    CoreTracer tracer =
+        CoreTracer.builder().writer(new ListWriter()).strictTraceWrites(true).build();
+    traces = new ArrayList<>(cardinality);
+    for (int i = 0; i < cardinality; ++i) {
+      DDSpan span =
+          (DDSpan)
+              tracer
+                  .buildSpan("benchmark", "operation")
+                  .withServiceName("service")
+                  .withResourceName("resource-" + i)
+                  .start();
+      span.finishWithDuration(1000 + i);
+      traces.add(Collections.singletonList(span));
+    }
+    tracer.close();
+    aggregator.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    aggregator.close();
+  }
+
+  @Benchmark
+  public boolean publishAndReport() throws Exception {
+    for (List<? extends CoreSpan<?>> trace : traces) {
+      aggregator.publish(trace);
+    }
+    return aggregator.forceReport().get();
+  }
+
+  private static final class FixedFeaturesDiscovery extends DDAgentFeaturesDiscovery {
+    FixedFeaturesDiscovery() {
+      super(null, Monitoring.DISABLED, null, false, true);
+    }
+
+    @Override
+    public void discover() {}
+
+    @Override
+    public boolean supportsMetrics() {
+      return true;
+    }
+
+    @Override
+    public String getMetricsEndpoint() {
+      return V6_METRICS_ENDPOINT;
+    }
+  }
+
+  private static final class NullSink implements Sink {
+    @Override
+    public void register(EventListener listener) {}
+
+    @Override
+    public void accept(int messageCount, ByteBuffer buffer) {}
+  }
+
+  private static final class NullMetricWriter implements MetricWriter {
+    @Override
+    public void startBucket(int metricCount, long start, long duration) {}
+
+    @Override
+    public void add(MetricKey key, AggregateMetric aggregate) {}
+
+    @Override
+    public void finishBucket() {}
+
+    @Override
+    public void reset() {}
+  }
+}
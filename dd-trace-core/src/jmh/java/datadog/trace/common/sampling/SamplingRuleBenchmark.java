@@ -0,0 +1,113 @@
+package datadog.trace.common.sampling;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.core.BlackholeWriter;
+import datadog.trace.core.CoreTracer;
+import datadog.trace.core.DDSpan;
+import datadog.trace.core.TraceCounters;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares finding the first matching sampling rule with a linear scan and with {@link
+ * SamplingRuleIndex}. One rule in five uses a glob for its service, and spans are spread over all
+ * the services so most of them only match rules far down the list.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class SamplingRuleBenchmark {
+
+  private static final int SPANS = 1024;
+
+  @Param({"1", "50", "500"})
+  int rules;
+
+  CoreTracer tracer;
+  List<SamplingRule> samplingRules;
+  SamplingRuleIndex<SamplingRule> index;
+  DDSpan[] spans;
+  int next;
+
+  @Setup(Level.Trial)
+  public void init(Blackhole blackhole) {
+    tracer =
+        CoreTracer.builder()
+            .writer(new BlackholeWriter(blackhole, new TraceCounters(), 0))
+            .strictTraceWrites(false)
+            .build();
+    samplingRules = new ArrayList<>();
+    for (int i = 0; i < rules; i++) {
+      String service = i % 5 == 4 ? "service-" + i + "*" : "service-" + i;
+      samplingRules.add(
+          new SamplingRule.TraceSamplingRule(
+              service,
+              "operation-" + (i % 10),
+              null,
+              Collections.<String, String>emptyMap(),
+              new DeterministicSampler.TraceSampler(0.5)));
+    }
+    index = new SamplingRuleIndex<>(samplingRules);
+    SplittableRandom random = new SplittableRandom(0);
+    spans = new DDSpan[SPANS];
+    for (int i = 0; i < SPANS; i++) {
+      int rule = random.nextInt(rules);
+      spans[i] =
+          (DDSpan)
+              tracer
+                  .buildSpan("operation-" + (rule % 10))
+                  .withServiceName("service-" + rule)
+                  .withResourceName("GET /resource")
+                  .start();
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    for (DDSpan span : spans) {
+      span.finish();
+    }
+    tracer.close();
+  }
+
+  private DDSpan nextSpan() {
+    return spans[next++ & (SPANS - 1)];
+  }
+
+  @Benchmark
+  public SamplingRule linear() {
+    DDSpan span = nextSpan();
+    for (SamplingRule rule : samplingRules) {
+      if (rule.matches(span)) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  @Benchmark
+  public SamplingRule indexed() {
+    return index.firstMatch(nextSpan());
+  }
+}
@@ -0,0 +1,65 @@
+package datadog.trace.core;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import java.util.Properties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the cost of starting and finishing a span when spans are timed with the precise clock
+ * ({@code resolutionMicros} of 0) against the coarse clock. The difference is largest on hosts
+ * where reading the clock source is slow, such as VMs without a stable TSC.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class SpanTimingBenchmark {
+
+  @Param({"0", "100", "1000"})
+  String resolutionMicros;
+
+  CoreTracer tracer;
+
+  @Setup(Level.Trial)
+  public void init(TraceCounters counters, Blackhole blackhole) {
+    Properties properties = new Properties();
+    properties.setProperty("trace.clock.resolution.micros", resolutionMicros);
+    tracer =
+        CoreTracer.builder()
+            .withProperties(properties)
+            .writer(new BlackholeWriter(blackhole, counters, 0))
+            .strictTraceWrites(false)
+            .build();
+  }
+
+  @TearDown(Level.Trial)
+  public void close() {
+    tracer.close();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void startFinish() {
+    AgentSpan span = tracer.startSpan("benchmark", "operation");
+    span.finish();
+  }
+}
@@ -0,0 +1,117 @@
+package datadog.trace.core;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.communication.serialization.msgpack.MsgPackWriter;
+import java.util.HashMap;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares the span tag storage against the {@link HashMap} it replaced. Run with {@code -prof gc}
+ * to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(NANOSECONDS)
+@Fork(value = 1)
+public class TagMapBenchmark {
+
+  @Param({"4", "16"})
+  int tagCount;
+
+  String[] keys;
+  HashMap<String, Object> hashMap;
+  TagMap tagMap;
+  MsgPackWriter writer;
+
+  @Setup(Level.Trial)
+  public void init(Blackhole blackhole) {
+    writer = new MsgPackWriter(new BlackholeBuffer(blackhole));
+    keys = new String[tagCount];
+    hashMap = new HashMap<>();
+    tagMap = new TagMap();
+    for (int i = 0; i < tagCount; i++) {
+      keys[i] = "tag." + i;
+      if ((i & 1) == 0) {
+        hashMap.put(keys[i], (long) i << 20);
+        tagMap.putLong(keys[i], (long) i << 20);
+      } else {
+        hashMap.put(keys[i], "value-" + i);
+        tagMap.put(keys[i], "value-" + i);
+      }
+    }
+  }
+
+  @Benchmark
+  public Object setHashMap() {
+    Map<String, Object> map = new HashMap<>(tagCount * 4 / 3 + 1);
+    for (int i = 0; i < keys.length; i++) {
+      map.put(keys[i], (long) i << 20);
+    }
+    return map;
+  }
+
+  @Benchmark
+  public Object setTagMap() {
+    TagMap map = new TagMap(tagCount);
+    for (int i = 0; i < keys.length; i++) {
+      map.putLong(keys[i], (long) i << 20);
+    }
+    return map;
+  }
+
+  @Benchmark
+  public void getHashMap(Blackhole blackhole) {
+    for (String key : keys) {
+      blackhole.consume(hashMap.get(key));
+    }
+  }
+
+  @Benchmark
+  public void getTagMap(Blackhole blackhole) {
+    for (String key : keys) {
+      blackhole.consume(tagMap.get(key));
+    }
+  }
+
+  @Benchmark
+  public void serializeHashMap() {
+    writer.startMap(hashMap.size());
+    for (Map.Entry<String, Object> entry : hashMap.entrySet()) {
+      writer.writeString(entry.getKey(), null);
+      writer.writeObject(entry.getValue(), null);
+    }
+    writer.flush();
+  }
+
+  @Benchmark
+  public void serializeTagMap() {
+    TagMap tags = this.tagMap;
+    writer.startMap(tags.size());
+    for (int i = tags.first(); i >= 0; i = tags.next(i)) {
+      writer.writeString(tags.keyAt(i), null);
+      if (tags.typeAt(i) == TagMap.LONG) {
+        writer.writeLong(tags.longAt(i));
+      } else {
+        writer.writeObject(tags.valueAt(i), null);
+      }
+    }
+    writer.flush();
+  }
+}
@@ -0,0 +1,85 @@
+package datadog.trace.core.histogram;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import datadog.communication.serialization.GrowableBuffer;
+import datadog.communication.serialization.msgpack.MsgPackWriter;
+import java.util.SplittableRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Simulates one reporting interval of high cardinality stats: a histogram per key is created and
+ * filled, serialized, then dropped. Run with {@code -prof gc} to compare the allocation rates of
+ * the on-heap DDSketch and the pooled histograms.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class HistogramBenchmark {
+
+  @Param({"100", "1000"})
+  int keys;
+
+  @Param({"10", "100"})
+  int valuesPerKey;
+
+  private double[] values;
+  private GrowableBuffer buffer;
+  private MsgPackWriter writer;
+  private HistogramSerializer serializer;
+
+  @Setup(Level.Trial)
+  public void init() {
+    SplittableRandom random = new SplittableRandom(0);
+    values = new double[keys * valuesPerKey];
+    for (int i = 0; i < values.length; ++i) {
+      // latencies in nanoseconds spread over a few orders of magnitude
+      values[i] = Math.exp(11 + random.nextDouble() * 6);
+    }
+    buffer = new GrowableBuffer(1 << 20);
+    writer = new MsgPackWriter(buffer);
+    serializer = new HistogramSerializer();
+  }
+
+  @Benchmark
+  public int ddSketch() {
+    buffer.reset();
+    for (int k = 0; k < keys; ++k) {
+      Histogram histogram = Histograms.newHistogram();
+      for (int i = k * valuesPerKey; i < (k + 1) * valuesPerKey; ++i) {
+        histogram.accept(values[i]);
+      }
+      writer.writeBinary(histogram.serialize());
+    }
+    return buffer.messageCount();
+  }
+
+  @Benchmark
+  public int pooled() {
+    buffer.reset();
+    for (int k = 0; k < keys; ++k) {
+      PooledHistogram histogram = Histograms.newPooledHistogram();
+      for (int i = k * valuesPerKey; i < (k + 1) * valuesPerKey; ++i) {
+        histogram.accept(values[i]);
+      }
+      serializer.writeBinary(writer, histogram);
+      histogram.clear();
+    }
+    return buffer.messageCount();
+  }
+}
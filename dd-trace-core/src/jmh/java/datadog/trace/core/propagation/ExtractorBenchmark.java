@@ -37,7 +37,16 @@ import org.openjdk.jmh.infra.Blackhole;
 @Fork(value = 1)
 @SuppressForbidden
 public class ExtractorBenchmark {
-  @Param({"datadog", "b3", "datadog,b3", "datadog:x-dth"})
+  @Param({
+    "datadog",
+    "b3",
+    "tracecontext",
+    "datadog,b3",
+    "datadog,tracecontext",
+    "tracecontext,datadog",
+    "datadog,b3single,b3multi,tracecontext,haystack,xray",
+    "datadog:x-dth"
+  })
   String extractPropagationStyles;
 
   List<Pair<String, String>> headers;
@@ -54,6 +63,11 @@ public class ExtractorBenchmark {
     headers.add(Pair.of(DatadogHttpCodec.SPAN_ID_KEY, "23456"));
     headers.add(Pair.of(B3HttpCodec.TRACE_ID_KEY, "12345")); // HEX
     headers.add(Pair.of(B3HttpCodec.SPAN_ID_KEY, "23456")); // HEX
+    // same ids as the datadog headers
+    headers.add(
+        Pair.of(
+            W3CHttpCodec.TRACE_PARENT_KEY,
+            "00-00000000000000000000000000003039-0000000000005ba0-01"));
     headers.add(Pair.of("some-header-1", "ignored"));
     headers.add(Pair.of("some-header-2", "ignored"));
     headers.add(Pair.of("x-data-header-1", "ignored")); // starts like datadog headers
@@ -92,7 +106,8 @@ public class ExtractorBenchmark {
             .apply();
     extractor = HttpCodec.createExtractor(Config.get(), dynamicConfig::captureTraceConfig);
 
-    if (extractPropagationStyles.startsWith("datadog")) {
+    if (extractPropagationStyles.startsWith("datadog")
+        || extractPropagationStyles.startsWith("tracecontext")) {
       traceId = DDTraceId.from("12345");
       spanId = DDSpanId.from("23456");
     } else if (extractPropagationStyles.contains("b3")) {
@@ -108,7 +123,7 @@ public class ExtractorBenchmark {
     ExtractedContext extractedContext = (ExtractedContext) context;
     blackhole.consume(context);
     blackhole.consume(list);
-    assert extractedContext.getTraceId().equals(traceId);
+    assert extractedContext.getTraceId().toLong() == traceId.toLong();
     assert extractedContext.getSpanId() == spanId;
   }
 
@@ -10,6 +10,7 @@ import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
 import datadog.trace.core.BlackholeWriter;
 import datadog.trace.core.CoreTracer;
 import datadog.trace.core.DDSpanContext;
+import datadog.trace.core.PendingTrace;
 import datadog.trace.core.TraceCounters;
 import de.thetaphi.forbiddenapis.SuppressForbidden;
 import java.nio.charset.StandardCharsets;
@@ -22,6 +23,7 @@ import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
@@ -38,18 +40,29 @@ import org.openjdk.jmh.infra.Blackhole;
 @Fork(value = 1)
 @SuppressForbidden
 public class InjectorBenchmark {
-  @Param({"datadog", "b3", "datadog,b3", "datadog:x-dth", "datadog:x-dth-mod"})
+  @Param({
+    "datadog",
+    "b3",
+    "tracecontext",
+    "datadog,b3",
+    "datadog,tracecontext",
+    "datadog:x-dth",
+    "datadog:x-dth-mod"
+  })
   String injectPropagationStyles;
 
   static String dup(String input) {
     return new String(input.toLowerCase().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
   }
 
+  static final int FAN_OUT = 10;
+
   Map<String, String> headers;
   HttpCodec.Injector injector;
   DDTraceId traceId;
   long spanId;
   CoreTracer tracer;
+  PendingTrace trace;
   DDSpanContext spanContext;
   PropagationTags propagationTags;
   boolean modifyPropagationTags = false;
@@ -92,7 +105,7 @@ public class InjectorBenchmark {
       }
     }
 
-    System.setProperty("dd.propagation.style.extract", propagations.toString());
+    System.setProperty("dd.propagation.style.inject", propagations.toString());
     injector =
         HttpCodec.createInjector(
             Config.get(), Config.get().getTracePropagationStylesToInject(), Collections.emptyMap());
@@ -106,27 +119,31 @@ public class InjectorBenchmark {
             .strictTraceWrites(false)
             .build();
 
-    spanContext =
-        new DDSpanContext(
-            traceId,
-            spanId,
-            DDSpanId.ZERO,
-            "",
-            "service",
-            "operation",
-            "resource",
-            0,
-            "origin",
-            Collections.<String, String>emptyMap(),
-            false,
-            "type",
-            0,
-            tracer.createTrace(traceId),
-            null,
-            null,
-            null,
-            false,
-            propagationTags);
+    trace = tracer.createTrace(traceId);
+    spanContext = newSpanContext();
+  }
+
+  private DDSpanContext newSpanContext() {
+    return new DDSpanContext(
+        traceId,
+        spanId,
+        DDSpanId.ZERO,
+        "",
+        "service",
+        "operation",
+        "resource",
+        0,
+        "origin",
+        Collections.<String, String>emptyMap(),
+        false,
+        "type",
+        0,
+        trace,
+        null,
+        null,
+        null,
+        false,
+        propagationTags);
   }
 
   int mechanism = 0;
@@ -141,6 +158,22 @@ public class InjectorBenchmark {
     }
   }
 
+  /** A span making several downstream calls, so all but the first injection hit the cache. */
+  @Benchmark
+  @OperationsPerInvocation(FAN_OUT)
+  public void injectRepeatedly(Blackhole blackhole) {
+    for (int i = 0; i < FAN_OUT; i++) {
+      injectContext(blackhole);
+    }
+  }
+
+  /** A new span for every injection, so nothing is cached. */
+  @Benchmark
+  public void injectNewContext(Blackhole blackhole) {
+    spanContext = newSpanContext();
+    injectContext(blackhole);
+  }
+
   private static final AgentPropagation.ContextVisitor<Map<String, String>> MAP_VISITOR =
       new MapContextVisitor<>();
 
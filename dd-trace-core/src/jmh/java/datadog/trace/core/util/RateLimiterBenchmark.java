@@ -0,0 +1,70 @@
+package datadog.trace.core.util;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the throughput of {@link SimpleRateLimiter} and {@link StripedRateLimiter} shared by an
+ * increasing number of threads. With the default rate almost every acquisition is rejected, which
+ * is the common case for a busy service, while the high rate exercises handing out tokens.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 10, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 10, timeUnit = SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Fork(value = 1)
+public class RateLimiterBenchmark {
+
+  @Param({"simple", "striped"})
+  String limiter;
+
+  @Param({"100", "10000000"})
+  int rate;
+
+  RateLimiter rateLimiter;
+
+  @Setup(Level.Trial)
+  public void init() {
+    rateLimiter =
+        "striped".equals(limiter) ? new StripedRateLimiter(rate) : new SimpleRateLimiter(rate);
+  }
+
+  @Benchmark
+  @Threads(1)
+  public boolean tryAcquire1() {
+    return rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public boolean tryAcquire8() {
+    return rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(32)
+  public boolean tryAcquire32() {
+    return rateLimiter.tryAcquire();
+  }
+
+  @Benchmark
+  @Threads(64)
+  public boolean tryAcquire64() {
+    return rateLimiter.tryAcquire();
+  }
+}
@@ -2,6 +2,7 @@ package datadog.trace.civisibility.writer.ddintake;
 
 import static datadog.communication.http.OkHttpUtils.gzippedMsgpackRequestBodyOf;
 import static datadog.communication.http.OkHttpUtils.msgpackRequestBodyOf;
+import static datadog.communication.serialization.msgpack.EncodedStringTable.LOW_CARDINALITY;
 
 import datadog.communication.serialization.GrowableBuffer;
 import datadog.communication.serialization.Writable;
@@ -165,7 +166,7 @@ public class CiTestCycleMapperV1 implements RemoteMapper {
       for (String topLevelTag : topLevelTags) {
         Object tagValue = span.getTag(topLevelTag);
         if (tagValue != null) {
-          writable.writeString(topLevelTag, null);
+          writable.writeString(topLevelTag, LOW_CARDINALITY);
 
           if (tagValue instanceof Number) {
             writable.writeObject(tagValue, null);
@@ -179,13 +180,13 @@ public class CiTestCycleMapperV1 implements RemoteMapper {
 
       /* 1  */
       writable.writeUTF8(SERVICE);
-      writable.writeString(span.getServiceName(), null);
+      writable.writeString(span.getServiceName(), LOW_CARDINALITY);
       /* 2  */
       writable.writeUTF8(NAME);
-      writable.writeObject(span.getOperationName(), null);
+      writable.writeString(span.getOperationName(), LOW_CARDINALITY);
       /* 3  */
       writable.writeUTF8(RESOURCE);
-      writable.writeObject(span.getResourceName(), null);
+      writable.writeString(span.getResourceName(), LOW_CARDINALITY);
       /* 4  */
       writable.writeUTF8(START);
       writable.writeLong(span.getStartTime());
@@ -293,7 +294,7 @@ public class CiTestCycleMapperV1 implements RemoteMapper {
       writable.startMap(metricsSize);
       for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
         if (entry.getValue() instanceof Number) {
-          writable.writeString(entry.getKey(), null);
+          writable.writeString(entry.getKey(), LOW_CARDINALITY);
           writable.writeObject(entry.getValue(), null);
         }
       }
@@ -304,7 +305,7 @@ public class CiTestCycleMapperV1 implements RemoteMapper {
       // since they will be accumulated into maps in the same order downstream,
       // we just need to be sure that the size is the same as the number of elements
       for (Map.Entry<String, String> entry : metadata.getBaggage().entrySet()) {
-        writable.writeString(entry.getKey(), null);
+        writable.writeString(entry.getKey(), LOW_CARDINALITY);
         writable.writeString(entry.getValue(), null);
       }
       if (null != metadata.getHttpStatusCode()) {
@@ -314,7 +315,7 @@ public class CiTestCycleMapperV1 implements RemoteMapper {
       for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
         Object value = entry.getValue();
         if (!(value instanceof Number)) {
-          writable.writeString(entry.getKey(), null);
+          writable.writeString(entry.getKey(), LOW_CARDINALITY);
           if (!(value instanceof Iterable)) {
             writable.writeObjectString(value, null);
           } else {
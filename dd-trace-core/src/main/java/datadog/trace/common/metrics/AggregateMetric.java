@@ -1,7 +1,7 @@
 package datadog.trace.common.metrics;
 
-import datadog.trace.core.histogram.Histogram;
 import datadog.trace.core.histogram.Histograms;
+import datadog.trace.core.histogram.PooledHistogram;
 import java.util.concurrent.atomic.AtomicLongArray;
 
 /** Not thread-safe. Accumulates counts and durations. */
@@ -10,16 +10,16 @@ public final class AggregateMetric {
   static final long ERROR_TAG = 0x8000000000000000L;
   static final long TOP_LEVEL_TAG = 0x4000000000000000L;
 
-  private final Histogram okLatencies;
-  private final Histogram errorLatencies;
+  private final PooledHistogram okLatencies;
+  private final PooledHistogram errorLatencies;
   private int errorCount;
   private int hitCount;
   private int topLevelCount;
   private long duration;
 
   public AggregateMetric() {
-    okLatencies = Histograms.newHistogram();
-    errorLatencies = Histograms.newHistogram();
+    okLatencies = Histograms.newPooledHistogram();
+    errorLatencies = Histograms.newPooledHistogram();
   }
 
   public AggregateMetric recordDurations(int count, AtomicLongArray durations) {
@@ -59,11 +59,11 @@ public final class AggregateMetric {
     return duration;
   }
 
-  public Histogram getOkLatencies() {
+  public PooledHistogram getOkLatencies() {
     return okLatencies;
   }
 
-  public Histogram getErrorLatencies() {
+  public PooledHistogram getErrorLatencies() {
     return errorLatencies;
   }
 
@@ -23,7 +23,7 @@ final class Aggregator implements Runnable {
 
   private final Queue<Batch> batchPool;
   private final MpscCompoundQueue<InboxItem> inbox;
-  private final LRUCache<MetricKey, AggregateMetric> aggregates;
+  private LRUCache<MetricKey, AggregateMetric> aggregates;
   private final NonBlockingHashMap<MetricKey, Batch> pending;
   private final Set<MetricKey> commonKeys;
   private final MetricWriter writer;
@@ -33,6 +33,10 @@ final class Aggregator implements Runnable {
   private final long reportingIntervalNanos;
 
   private final long sleepMillis;
+  private final int maxAggregates;
+  // only set when this aggregator owns a shard of the key space
+  private final ShardedMetricsReporter reporter;
+  private final int shard;
 
   private boolean dirty;
 
@@ -67,20 +71,84 @@ final class Aggregator implements Runnable {
       long reportingInterval,
       TimeUnit reportingIntervalTimeUnit,
       long sleepMillis) {
+    this(
+        writer,
+        batchPool,
+        inbox,
+        pending,
+        commonKeys,
+        maxAggregates,
+        reportingInterval,
+        reportingIntervalTimeUnit,
+        sleepMillis,
+        null,
+        0);
+  }
+
+  Aggregator(
+      ShardedMetricsReporter reporter,
+      int shard,
+      Queue<Batch> batchPool,
+      MpscCompoundQueue<InboxItem> inbox,
+      NonBlockingHashMap<MetricKey, Batch> pending,
+      final Set<MetricKey> commonKeys,
+      int maxAggregates,
+      long reportingInterval,
+      TimeUnit reportingIntervalTimeUnit) {
+    this(
+        null,
+        batchPool,
+        inbox,
+        pending,
+        commonKeys,
+        maxAggregates,
+        reportingInterval,
+        reportingIntervalTimeUnit,
+        DEFAULT_SLEEP_MILLIS,
+        reporter,
+        shard);
+    reporter.release(shard, newAggregates());
+  }
+
+  private Aggregator(
+      MetricWriter writer,
+      Queue<Batch> batchPool,
+      MpscCompoundQueue<InboxItem> inbox,
+      NonBlockingHashMap<MetricKey, Batch> pending,
+      final Set<MetricKey> commonKeys,
+      int maxAggregates,
+      long reportingInterval,
+      TimeUnit reportingIntervalTimeUnit,
+      long sleepMillis,
+      ShardedMetricsReporter reporter,
+      int shard) {
     this.writer = writer;
     this.batchPool = batchPool;
     this.inbox = inbox;
     this.commonKeys = commonKeys;
-    this.aggregates =
-        new LRUCache<>(
-            new CommonKeyCleaner(commonKeys), maxAggregates * 4 / 3, 0.75f, maxAggregates);
+    this.maxAggregates = maxAggregates;
+    this.aggregates = newAggregates();
     this.pending = pending;
     this.reportingIntervalNanos = reportingIntervalTimeUnit.toNanos(reportingInterval);
     this.sleepMillis = sleepMillis;
+    this.reporter = reporter;
+    this.shard = shard;
+  }
+
+  private LRUCache<MetricKey, AggregateMetric> newAggregates() {
+    return new LRUCache<>(
+        new CommonKeyCleaner(commonKeys), maxAggregates * 4 / 3, 0.75f, maxAggregates);
   }
 
   public void clearAggregates() {
     this.aggregates.clear();
+    if (null != reporter) {
+      LRUCache<MetricKey, AggregateMetric> spare = reporter.takeSpare(shard);
+      if (null != spare) {
+        spare.clear();
+        reporter.release(shard, spare);
+      }
+    }
   }
 
   @Override
@@ -135,6 +203,10 @@ final class Aggregator implements Runnable {
   }
 
   private void report(long when, SignalItem signal) {
+    if (null != reporter) {
+      reportShard(when, signal);
+      return;
+    }
     boolean skipped = true;
     if (dirty) {
       try {
@@ -161,7 +233,27 @@ final class Aggregator implements Runnable {
     }
   }
 
+  private void reportShard(long when, SignalItem signal) {
+    LRUCache<MetricKey, AggregateMetric> spare = reporter.takeSpare(shard);
+    if (null != spare) {
+      LRUCache<MetricKey, AggregateMetric> filled = aggregates;
+      aggregates = spare;
+      dirty = false;
+      reporter.submit(shard, when, filled);
+    } else {
+      // the other shards haven't all reported since our last submission,
+      // so keep aggregating into the current map until the next cycle
+      log.debug("deferred metrics reporting for shard {}", shard);
+    }
+    signal.complete();
+  }
+
   private void expungeStaleAggregates() {
+    expungeStaleAggregates(aggregates, commonKeys);
+  }
+
+  static void expungeStaleAggregates(
+      Map<MetricKey, AggregateMetric> aggregates, Set<MetricKey> commonKeys) {
     Iterator<Map.Entry<MetricKey, AggregateMetric>> it = aggregates.entrySet().iterator();
     while (it.hasNext()) {
       Map.Entry<MetricKey, AggregateMetric> pair = it.next();
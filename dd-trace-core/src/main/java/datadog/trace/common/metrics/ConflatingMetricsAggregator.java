@@ -1,7 +1,6 @@
 package datadog.trace.common.metrics;
 
 import static datadog.communication.ddagent.DDAgentFeaturesDiscovery.V6_METRICS_ENDPOINT;
-import static datadog.trace.api.Functions.UTF8_ENCODE;
 import static datadog.trace.common.metrics.AggregateMetric.ERROR_TAG;
 import static datadog.trace.common.metrics.AggregateMetric.TOP_LEVEL_TAG;
 import static datadog.trace.common.metrics.SignalItem.ReportSignal.REPORT;
@@ -15,9 +14,7 @@ import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
 import datadog.communication.ddagent.SharedCommunicationObjects;
 import datadog.trace.api.Config;
 import datadog.trace.api.WellKnownTags;
-import datadog.trace.api.cache.DDCache;
-import datadog.trace.api.cache.DDCaches;
-import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.api.cache.UTF8BytesStringTable;
 import datadog.trace.common.metrics.SignalItem.ReportSignal;
 import datadog.trace.common.writer.ddagent.DDAgentApi;
 import datadog.trace.core.CoreSpan;
@@ -44,19 +41,17 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   private static final Map<String, String> DEFAULT_HEADERS =
       Collections.singletonMap(DDAgentApi.DATADOG_META_TRACER_VERSION, DDTraceCoreInfo.VERSION);
 
-  private static final DDCache<String, UTF8BytesString> SERVICE_NAMES =
-      DDCaches.newFixedSizeCache(32);
-
   private static final CharSequence SYNTHETICS_ORIGIN = "synthetics";
 
   private final Set<String> ignoredResources;
-  private final Queue<Batch> batchPool;
+  // one inbox, batch pool, aggregator and thread per shard of the key space
+  private final Queue<Batch>[] batchPools;
   private final NonBlockingHashMap<MetricKey, Batch> pending;
   private final NonBlockingHashMap<MetricKey, MetricKey> keys;
-  private final Thread thread;
-  private final MpscCompoundQueue<InboxItem> inbox;
+  private final Thread[] threads;
+  private final MpscCompoundQueue<InboxItem>[] inboxes;
   private final Sink sink;
-  private final Aggregator aggregator;
+  private final Aggregator[] aggregators;
   private final long reportingInterval;
   private final TimeUnit reportingIntervalTimeUnit;
   private final DDAgentFeaturesDiscovery features;
@@ -77,7 +72,28 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
             false,
             DEFAULT_HEADERS),
         config.getTracerMetricsMaxAggregates(),
-        config.getTracerMetricsMaxPending());
+        config.getTracerMetricsMaxPending(),
+        config.getTracerMetricsAggregatorShards());
+  }
+
+  ConflatingMetricsAggregator(
+      WellKnownTags wellKnownTags,
+      Set<String> ignoredResources,
+      DDAgentFeaturesDiscovery features,
+      Sink sink,
+      int maxAggregates,
+      int queueSize,
+      int shards) {
+    this(
+        ignoredResources,
+        features,
+        sink,
+        new SerializingMetricWriter(wellKnownTags, sink),
+        maxAggregates,
+        queueSize,
+        10,
+        SECONDS,
+        shards);
   }
 
   ConflatingMetricsAggregator(
@@ -119,24 +135,77 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       int queueSize,
       long reportingInterval,
       TimeUnit timeUnit) {
+    this(
+        ignoredResources,
+        features,
+        sink,
+        metricWriter,
+        maxAggregates,
+        queueSize,
+        reportingInterval,
+        timeUnit,
+        1);
+  }
+
+  @SuppressWarnings("unchecked")
+  ConflatingMetricsAggregator(
+      Set<String> ignoredResources,
+      DDAgentFeaturesDiscovery features,
+      Sink sink,
+      MetricWriter metricWriter,
+      int maxAggregates,
+      int queueSize,
+      long reportingInterval,
+      TimeUnit timeUnit,
+      int shards) {
+    shards = Math.max(1, shards);
     this.ignoredResources = ignoredResources;
-    this.inbox = new MpscCompoundQueue<>(queueSize);
-    this.batchPool = new SpmcArrayQueue<>(maxAggregates);
+    this.inboxes = new MpscCompoundQueue[shards];
+    this.batchPools = new Queue[shards];
+    this.aggregators = new Aggregator[shards];
+    this.threads = new Thread[shards];
     this.pending = new NonBlockingHashMap<>(maxAggregates * 4 / 3);
     this.keys = new NonBlockingHashMap<>();
     this.features = features;
     this.sink = sink;
-    this.aggregator =
-        new Aggregator(
-            metricWriter,
-            batchPool,
-            inbox,
-            pending,
-            keys.keySet(),
-            maxAggregates,
-            reportingInterval,
-            timeUnit);
-    this.thread = newAgentThread(METRICS_AGGREGATOR, aggregator);
+    if (shards == 1) {
+      inboxes[0] = new MpscCompoundQueue<>(queueSize);
+      batchPools[0] = new SpmcArrayQueue<>(maxAggregates);
+      aggregators[0] =
+          new Aggregator(
+              metricWriter,
+              batchPools[0],
+              inboxes[0],
+              pending,
+              keys.keySet(),
+              maxAggregates,
+              reportingInterval,
+              timeUnit);
+      threads[0] = newAgentThread(METRICS_AGGREGATOR, aggregators[0]);
+    } else {
+      // each shard aggregates a disjoint subset of the keys, so the limits are split between them
+      int shardQueueSize = Math.max(queueSize / shards, 16);
+      int shardMaxAggregates = Math.max(maxAggregates / shards, 16);
+      ShardedMetricsReporter reporter =
+          new ShardedMetricsReporter(
+              metricWriter, keys.keySet(), shards, timeUnit.toNanos(reportingInterval));
+      for (int i = 0; i < shards; ++i) {
+        inboxes[i] = new MpscCompoundQueue<>(shardQueueSize);
+        batchPools[i] = new SpmcArrayQueue<>(shardMaxAggregates);
+        aggregators[i] =
+            new Aggregator(
+                reporter,
+                i,
+                batchPools[i],
+                inboxes[i],
+                pending,
+                keys.keySet(),
+                shardMaxAggregates,
+                reportingInterval,
+                timeUnit);
+        threads[i] = newAgentThread(METRICS_AGGREGATOR, "-" + i, aggregators[i], true);
+      }
+    }
     this.reportingInterval = reportingInterval;
     this.reportingIntervalTimeUnit = timeUnit;
   }
@@ -145,7 +214,9 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
   public void start() {
     if (isMetricsEnabled()) {
       sink.register(this);
-      thread.start();
+      for (Thread thread : threads) {
+        thread.start();
+      }
       cancellation =
           AgentTaskScheduler.INSTANCE.scheduleAtFixedRate(
               new ReportTask(),
@@ -168,6 +239,14 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
 
   @Override
   public boolean report() {
+    boolean published = true;
+    for (MpscCompoundQueue<InboxItem> inbox : inboxes) {
+      published &= report(inbox);
+    }
+    return published;
+  }
+
+  private static boolean report(MpscCompoundQueue<InboxItem> inbox) {
     boolean published;
     int attempts = 0;
     do {
@@ -186,14 +265,45 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     if (!isMetricsEnabled()) {
       return CompletableFuture.completedFuture(false);
     }
-    // Wait for the thread to start
-    while (cancellation == null || (cancellation.get() != null && !thread.isAlive())) {
+    // Wait for the threads to start
+    while (cancellation == null || (cancellation.get() != null && !allAlive())) {
       try {
         Thread.sleep(10);
       } catch (InterruptedException e) {
         return CompletableFuture.completedFuture(false);
       }
     }
+    if (inboxes.length == 1) {
+      return forceReport(threads[0], inboxes[0]);
+    }
+    // the payload is written by the last shard to report
+    CompletableFuture<?>[] reports = new CompletableFuture[inboxes.length];
+    for (int i = 0; i < inboxes.length; ++i) {
+      reports[i] = forceReport(threads[i], inboxes[i]);
+    }
+    return CompletableFuture.allOf(reports)
+        .thenApply(
+            ignored -> {
+              for (CompletableFuture<?> report : reports) {
+                if (!Boolean.TRUE.equals(report.join())) {
+                  return false;
+                }
+              }
+              return true;
+            });
+  }
+
+  private boolean allAlive() {
+    for (Thread thread : threads) {
+      if (!thread.isAlive()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static CompletableFuture<Boolean> forceReport(
+      Thread thread, MpscCompoundQueue<InboxItem> inbox) {
     // Try to send the report signal
     ReportSignal reportSignal = new ReportSignal();
     boolean published = false;
@@ -241,7 +351,7 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     MetricKey newKey =
         new MetricKey(
             span.getResourceName(),
-            SERVICE_NAMES.computeIfAbsent(span.getServiceName(), UTF8_ENCODE),
+            UTF8BytesStringTable.SHARED.intern(span.getServiceName()),
             span.getOperationName(),
             span.getType(),
             span.getHttpStatusCode(),
@@ -275,7 +385,7 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     // or had been consumed by the time we tried to add to it
     pending.put(key, batch);
     // must offer to the queue after adding to pending
-    inbox.offer(batch);
+    inboxes[shardOf(key)].offer(batch);
     // force keep keys we haven't seen before or errors
     return isNewKey || span.getError() > 0;
   }
@@ -284,8 +394,16 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     return span.getOrigin() != null && SYNTHETICS_ORIGIN.equals(span.getOrigin().toString());
   }
 
+  private int shardOf(MetricKey key) {
+    if (inboxes.length == 1) {
+      return 0;
+    }
+    int h = key.hashCode();
+    return ((h ^ (h >>> 16)) & 0x7FFFFFFF) % inboxes.length;
+  }
+
   private Batch newBatch(MetricKey key) {
-    Batch batch = batchPool.poll();
+    Batch batch = batchPools[shardOf(key)].poll();
     if (null == batch) {
       return new Batch(key);
     }
@@ -296,14 +414,18 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
     if (null != cancellation) {
       cancellation.cancel();
     }
-    inbox.offer(STOP);
+    for (MpscCompoundQueue<InboxItem> inbox : inboxes) {
+      inbox.offer(STOP);
+    }
   }
 
   @Override
   public void close() {
     stop();
     try {
-      thread.join(THREAD_JOIN_TIMOUT_MS);
+      for (Thread thread : threads) {
+        thread.join(THREAD_JOIN_TIMOUT_MS);
+      }
     } catch (InterruptedException ignored) {
     }
   }
@@ -333,11 +455,15 @@ public final class ConflatingMetricsAggregator implements MetricsAggregator, Eve
       if (null != cancellation) {
         cancellation.cancel();
       }
-      this.thread.interrupt();
+      for (Thread thread : threads) {
+        thread.interrupt();
+      }
       this.pending.clear();
-      this.batchPool.clear();
-      this.inbox.clear();
-      this.aggregator.clearAggregates();
+      for (int i = 0; i < inboxes.length; ++i) {
+        this.batchPools[i].clear();
+        this.inboxes[i].clear();
+        this.aggregators[i].clearAggregates();
+      }
     }
   }
 
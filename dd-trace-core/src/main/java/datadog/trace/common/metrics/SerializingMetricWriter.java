@@ -1,11 +1,15 @@
 package datadog.trace.common.metrics;
 
+import static datadog.communication.serialization.msgpack.EncodedStringTable.LOW_CARDINALITY;
 import static java.nio.charset.StandardCharsets.ISO_8859_1;
 
+import datadog.communication.serialization.Codec;
 import datadog.communication.serialization.GrowableBuffer;
 import datadog.communication.serialization.WritableFormatter;
+import datadog.communication.serialization.msgpack.EncodedStringTable;
 import datadog.communication.serialization.msgpack.MsgPackWriter;
 import datadog.trace.api.WellKnownTags;
+import datadog.trace.core.histogram.HistogramSerializer;
 
 public final class SerializingMetricWriter implements MetricWriter {
 
@@ -33,6 +37,7 @@ public final class SerializingMetricWriter implements MetricWriter {
   private final WritableFormatter writer;
   private final Sink sink;
   private final GrowableBuffer buffer;
+  private final HistogramSerializer histograms = new HistogramSerializer();
   private long sequence = 0;
 
   public SerializingMetricWriter(WellKnownTags wellKnownTags, Sink sink) {
@@ -42,7 +47,7 @@ public final class SerializingMetricWriter implements MetricWriter {
   public SerializingMetricWriter(WellKnownTags wellKnownTags, Sink sink, int initialCapacity) {
     this.wellKnownTags = wellKnownTags;
     this.buffer = new GrowableBuffer(initialCapacity);
-    this.writer = new MsgPackWriter(buffer);
+    this.writer = new MsgPackWriter(Codec.INSTANCE, buffer, EncodedStringTable.SHARED);
     this.sink = sink;
   }
 
@@ -86,16 +91,16 @@ public final class SerializingMetricWriter implements MetricWriter {
     writer.startMap(12);
 
     writer.writeUTF8(NAME);
-    writer.writeUTF8(key.getOperationName());
+    writer.writeString(key.getOperationName(), LOW_CARDINALITY);
 
     writer.writeUTF8(SERVICE);
-    writer.writeUTF8(key.getService());
+    writer.writeString(key.getService(), LOW_CARDINALITY);
 
     writer.writeUTF8(RESOURCE);
-    writer.writeUTF8(key.getResource());
+    writer.writeString(key.getResource(), LOW_CARDINALITY);
 
     writer.writeUTF8(TYPE);
-    writer.writeUTF8(key.getType());
+    writer.writeString(key.getType(), LOW_CARDINALITY);
 
     writer.writeUTF8(HTTP_STATUS_CODE);
     writer.writeInt(key.getHttpStatusCode());
@@ -116,10 +121,10 @@ public final class SerializingMetricWriter implements MetricWriter {
     writer.writeLong(aggregate.getDuration());
 
     writer.writeUTF8(OK_SUMMARY);
-    writer.writeBinary(aggregate.getOkLatencies().serialize());
+    histograms.writeBinary(writer, aggregate.getOkLatencies());
 
     writer.writeUTF8(ERROR_SUMMARY);
-    writer.writeBinary(aggregate.getErrorLatencies().serialize());
+    histograms.writeBinary(writer, aggregate.getErrorLatencies());
   }
 
   @Override
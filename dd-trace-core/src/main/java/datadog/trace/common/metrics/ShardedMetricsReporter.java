@@ -0,0 +1,103 @@
+package datadog.trace.common.metrics;
+
+import datadog.trace.core.util.LRUCache;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges the aggregates of several sharded {@link Aggregator}s into a single payload per reporting
+ * cycle.
+ *
+ * <p>Each shard double-buffers its aggregates: when it receives a report signal it swaps in its
+ * spare map and submits the filled one here. The last shard to submit in a cycle writes every
+ * submitted map out as one bucket, clears them, and hands them back to their shards as spares. A
+ * shard whose spare hasn't been handed back yet (because some other shard hasn't reported) keeps
+ * aggregating into its current map until the next cycle.
+ */
+final class ShardedMetricsReporter {
+
+  private static final Logger log = LoggerFactory.getLogger(ShardedMetricsReporter.class);
+
+  private final MetricWriter writer;
+  private final Set<MetricKey> commonKeys;
+  private final long reportingIntervalNanos;
+  private final LRUCache<MetricKey, AggregateMetric>[] submitted;
+  private final AtomicReferenceArray<LRUCache<MetricKey, AggregateMetric>> spares;
+
+  private int submissions;
+  private long when;
+
+  @SuppressWarnings("unchecked")
+  ShardedMetricsReporter(
+      MetricWriter writer, Set<MetricKey> commonKeys, int shards, long reportingIntervalNanos) {
+    this.writer = writer;
+    this.commonKeys = commonKeys;
+    this.reportingIntervalNanos = reportingIntervalNanos;
+    this.submitted = new LRUCache[shards];
+    this.spares = new AtomicReferenceArray<>(shards);
+  }
+
+  int shards() {
+    return submitted.length;
+  }
+
+  /** Called by the shard's own thread, returns null while its last submission is outstanding. */
+  LRUCache<MetricKey, AggregateMetric> takeSpare(int shard) {
+    return spares.getAndSet(shard, null);
+  }
+
+  void release(int shard, LRUCache<MetricKey, AggregateMetric> aggregates) {
+    spares.set(shard, aggregates);
+  }
+
+  /**
+   * Submits a shard's aggregates for the current cycle, writing the payload if this was the last
+   * shard to submit. Note that this may do IO and block.
+   */
+  synchronized void submit(int shard, long when, LRUCache<MetricKey, AggregateMetric> aggregates) {
+    submitted[shard] = aggregates;
+    this.when = Math.max(this.when, when);
+    if (++submissions < submitted.length) {
+      return;
+    }
+    try {
+      write();
+    } finally {
+      for (int i = 0; i < submitted.length; ++i) {
+        release(i, submitted[i]);
+        submitted[i] = null;
+      }
+      submissions = 0;
+      this.when = 0;
+    }
+  }
+
+  private void write() {
+    int size = 0;
+    for (LRUCache<MetricKey, AggregateMetric> aggregates : submitted) {
+      Aggregator.expungeStaleAggregates(aggregates, commonKeys);
+      size += aggregates.size();
+    }
+    if (size == 0) {
+      log.debug("skipped metrics reporting because no points have changed");
+      return;
+    }
+    try {
+      writer.startBucket(size, when, reportingIntervalNanos);
+      for (LRUCache<MetricKey, AggregateMetric> aggregates : submitted) {
+        for (Map.Entry<MetricKey, AggregateMetric> aggregate : aggregates.entrySet()) {
+          writer.add(aggregate.getKey(), aggregate.getValue());
+          aggregate.getValue().clear();
+        }
+      }
+      // note that this may do IO and block
+      writer.finishBucket();
+    } catch (Throwable error) {
+      writer.reset();
+      log.debug("Error publishing metrics. Dropping payload", error);
+    }
+  }
+}
@@ -46,8 +46,13 @@ public abstract class DeterministicSampler implements RateSampler {
 
   @Override
   public <T extends CoreSpan<T>> boolean sample(final T span) {
+    return sampled(getSamplingId(span), cutoff(rate));
+  }
+
+  /** @return whether the id is sampled by the rate the {@link #cutoff(double)} was computed for */
+  public static boolean sampled(long samplingId, long cutoff) {
     // unsigned 64 bit comparison with cutoff
-    return getSamplingId(span) * KNUTH_FACTOR + Long.MIN_VALUE < cutoff(rate);
+    return samplingId * KNUTH_FACTOR + Long.MIN_VALUE < cutoff;
   }
 
   protected abstract <T extends CoreSpan<T>> long getSamplingId(T span);
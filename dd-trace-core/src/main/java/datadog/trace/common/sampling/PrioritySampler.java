@@ -1,7 +1,11 @@
 package datadog.trace.common.sampling;
 
+import datadog.trace.common.writer.LoadSheddingController;
 import datadog.trace.core.CoreSpan;
 
 public interface PrioritySampler {
   <T extends CoreSpan<T>> void setSamplingPriority(T span);
+
+  /** Lowers the rates of the sampler's own decisions while the tracer sheds load. */
+  default void setLoadShedding(LoadSheddingController loadShedding) {}
 }
@@ -4,6 +4,7 @@ import datadog.trace.api.cache.DDCache;
 import datadog.trace.api.cache.DDCaches;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.api.sampling.SamplingMechanism;
+import datadog.trace.common.writer.LoadSheddingController;
 import datadog.trace.common.writer.RemoteResponseListener;
 import datadog.trace.core.CoreSpan;
 import java.util.HashMap;
@@ -26,6 +27,14 @@ public class RateByServiceTraceSampler implements Sampler, PrioritySampler, Remo
 
   private volatile RateSamplersByEnvAndService serviceRates = new RateSamplersByEnvAndService();
 
+  private volatile LoadSheddingController loadShedding;
+
+  /** Lowers the agent's rates by the controller's keep ratio while the tracer sheds load. */
+  @Override
+  public void setLoadShedding(final LoadSheddingController loadShedding) {
+    this.loadShedding = loadShedding;
+  }
+
   @Override
   public <T extends CoreSpan<T>> boolean sample(final T span) {
     // Priority sampling sends all traces to the core agent, including traces marked dropped.
@@ -42,17 +51,32 @@ public class RateByServiceTraceSampler implements Sampler, PrioritySampler, Remo
     final RateSamplersByEnvAndService rates = serviceRates;
     RateSampler sampler = rates.getSampler(env, serviceName);
 
-    if (sampler.sample(span)) {
+    boolean keep = sampler.sample(span);
+    double sampleRate = sampler.getSampleRate();
+    final LoadSheddingController loadShedding = this.loadShedding;
+    if (null != loadShedding) {
+      final double keepRatio = loadShedding.keepRatio();
+      if (keepRatio < 1) {
+        sampleRate *= keepRatio;
+        if (keep && loadShedding.shed(span.getTraceId().toLong(), sampleRate)) {
+          keep = false;
+          // shed traces aren't sent to the agent at all, otherwise shedding relieves nothing
+          span.setLoadShed();
+        }
+      }
+    }
+
+    if (keep) {
       span.setSamplingPriority(
           PrioritySampling.SAMPLER_KEEP,
           SAMPLING_AGENT_RATE,
-          sampler.getSampleRate(),
+          sampleRate,
           SamplingMechanism.AGENT_RATE);
     } else {
       span.setSamplingPriority(
           PrioritySampling.SAMPLER_DROP,
           SAMPLING_AGENT_RATE,
-          sampler.getSampleRate(),
+          sampleRate,
           SamplingMechanism.AGENT_RATE);
     }
   }
@@ -7,8 +7,11 @@ import datadog.trace.common.sampling.SamplingRule.AlwaysMatchesSamplingRule;
 import datadog.trace.common.sampling.SamplingRule.OperationSamplingRule;
 import datadog.trace.common.sampling.SamplingRule.ServiceSamplingRule;
 import datadog.trace.common.sampling.SamplingRule.TraceSamplingRule;
+import datadog.trace.common.writer.LoadSheddingController;
 import datadog.trace.core.CoreSpan;
+import datadog.trace.core.util.RateLimiter;
 import datadog.trace.core.util.SimpleRateLimiter;
+import datadog.trace.core.util.StripedRateLimiter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -19,9 +22,9 @@ import org.slf4j.LoggerFactory;
 public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, PrioritySampler {
 
   private static final Logger log = LoggerFactory.getLogger(RuleBasedTraceSampler.class);
-  private final List<SamplingRule> samplingRules;
+  private final SamplingRuleIndex<SamplingRule> samplingRules;
   private final PrioritySampler fallbackSampler;
-  private final SimpleRateLimiter rateLimiter;
+  private final RateLimiter rateLimiter;
   private final long rateLimit;
 
   public static final String SAMPLING_RULE_RATE = "_dd.rule_psr";
@@ -31,9 +34,17 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
       final List<SamplingRule> samplingRules,
       final int rateLimit,
       final PrioritySampler fallbackSampler) {
-    this.samplingRules = samplingRules;
+    this(samplingRules, new SimpleRateLimiter(rateLimit), rateLimit, fallbackSampler);
+  }
+
+  private RuleBasedTraceSampler(
+      final List<SamplingRule> samplingRules,
+      final RateLimiter rateLimiter,
+      final int rateLimit,
+      final PrioritySampler fallbackSampler) {
+    this.samplingRules = new SamplingRuleIndex<>(samplingRules);
     this.fallbackSampler = fallbackSampler;
-    rateLimiter = new SimpleRateLimiter(rateLimit);
+    this.rateLimiter = rateLimiter;
 
     this.rateLimit = rateLimit;
   }
@@ -49,6 +60,17 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
       final TraceSamplingRules traceSamplingRules,
       final Double defaultRate,
       final int rateLimit) {
+    return build(
+        serviceRules, operationRules, traceSamplingRules, defaultRate, rateLimit, false);
+  }
+
+  public static RuleBasedTraceSampler build(
+      @Deprecated final Map<String, String> serviceRules,
+      @Deprecated final Map<String, String> operationRules,
+      final TraceSamplingRules traceSamplingRules,
+      final Double defaultRate,
+      final int rateLimit,
+      final boolean stripedRateLimiter) {
 
     final List<SamplingRule> samplingRules = new ArrayList<>();
 
@@ -109,7 +131,10 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
       samplingRules.add(samplingRule);
     }
 
-    return new RuleBasedTraceSampler(samplingRules, rateLimit, new RateByServiceTraceSampler());
+    final RateLimiter rateLimiter =
+        stripedRateLimiter ? new StripedRateLimiter(rateLimit) : new SimpleRateLimiter(rateLimit);
+    return new RuleBasedTraceSampler(
+        samplingRules, rateLimiter, rateLimit, new RateByServiceTraceSampler());
   }
 
   @Override
@@ -117,16 +142,15 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
     return true;
   }
 
+  /** Rule decisions are the user's, only the traces left to the fallback sampler are shed. */
   @Override
-  public <T extends CoreSpan<T>> void setSamplingPriority(final T span) {
-    SamplingRule matchedRule = null;
+  public void setLoadShedding(final LoadSheddingController loadShedding) {
+    fallbackSampler.setLoadShedding(loadShedding);
+  }
 
-    for (final SamplingRule samplingRule : samplingRules) {
-      if (samplingRule.matches(span)) {
-        matchedRule = samplingRule;
-        break;
-      }
-    }
+  @Override
+  public <T extends CoreSpan<T>> void setSamplingPriority(final T span) {
+    SamplingRule matchedRule = samplingRules.firstMatch(span);
 
     if (matchedRule == null) {
       fallbackSampler.setSamplingPriority(span);
@@ -145,7 +169,13 @@ public class RuleBasedTraceSampler<T extends CoreSpan<T>> implements Sampler, Pr
               matchedRule.getSampler().getSampleRate(),
               SamplingMechanism.RULE);
         }
-        span.setMetric(SAMPLING_LIMIT_RATE, rateLimit);
+        if (rateLimiter instanceof StripedRateLimiter) {
+          // report the fraction of the matched traces actually kept over the last second
+          span.setMetric(
+              SAMPLING_LIMIT_RATE, ((StripedRateLimiter) rateLimiter).getEffectiveRate());
+        } else {
+          span.setMetric(SAMPLING_LIMIT_RATE, rateLimit);
+        }
       } else {
         span.setSamplingPriority(
             PrioritySampling.USER_DROP,
@@ -62,7 +62,8 @@ public interface Sampler {
                     operationRules,
                     traceSamplingRules,
                     traceSampleRate,
-                    config.getTraceRateLimit());
+                    config.getTraceRateLimit(),
+                    config.isTraceRateLimitStriped());
           } catch (final IllegalArgumentException e) {
             log.error("Invalid sampler configuration. Using AllSampler", e);
             sampler = new AllSampler();
@@ -3,7 +3,7 @@ package datadog.trace.common.sampling;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.util.Matcher;
 import datadog.trace.core.util.Matchers;
-import datadog.trace.core.util.SimpleRateLimiter;
+import datadog.trace.core.util.RateLimiter;
 import datadog.trace.core.util.TagsMatcher;
 import java.util.Map;
 import java.util.regex.Pattern;
@@ -17,6 +17,30 @@ public abstract class SamplingRule {
 
   public abstract <T extends CoreSpan<T>> boolean matches(T span);
 
+  /**
+   * @return whether a span with this service name may match, which {@link SamplingRuleIndex}
+   *     checks once per service name
+   */
+  public boolean matchesService(String serviceName) {
+    return true;
+  }
+
+  /**
+   * @return whether a span with this operation name may match, which {@link SamplingRuleIndex}
+   *     checks once per service and operation name
+   */
+  public boolean matchesOperation(String operationName) {
+    return true;
+  }
+
+  /**
+   * @return whether the span matches, given that its service and operation names do. Rules which
+   *     don't narrow down the service and operation names have to match the whole span here.
+   */
+  public <T extends CoreSpan<T>> boolean matchesRemaining(T span) {
+    return matches(span);
+  }
+
   public <T extends CoreSpan<T>> boolean sample(final T span) {
     return sampler.sample(span);
   }
@@ -52,6 +76,10 @@ public abstract class SamplingRule {
     }
 
     protected abstract <T extends CoreSpan<T>> CharSequence getRelevantString(T span);
+
+    protected final boolean patternMatches(String relevantString) {
+      return relevantString != null && pattern.matcher(relevantString).matches();
+    }
   }
 
   public static class ServiceSamplingRule extends PatternMatchSamplingRule {
@@ -63,6 +91,16 @@ public abstract class SamplingRule {
     protected <T extends CoreSpan<T>> String getRelevantString(final T span) {
       return span.getServiceName();
     }
+
+    @Override
+    public boolean matchesService(String serviceName) {
+      return patternMatches(serviceName);
+    }
+
+    @Override
+    public <T extends CoreSpan<T>> boolean matchesRemaining(T span) {
+      return true;
+    }
   }
 
   public static class OperationSamplingRule extends PatternMatchSamplingRule {
@@ -74,6 +112,16 @@ public abstract class SamplingRule {
     protected <T extends CoreSpan<T>> CharSequence getRelevantString(final T span) {
       return span.getOperationName();
     }
+
+    @Override
+    public boolean matchesOperation(String operationName) {
+      return patternMatches(operationName);
+    }
+
+    @Override
+    public <T extends CoreSpan<T>> boolean matchesRemaining(T span) {
+      return true;
+    }
   }
 
   public static final class TraceSamplingRule extends SamplingRule {
@@ -99,7 +147,22 @@ public abstract class SamplingRule {
     public <T extends CoreSpan<T>> boolean matches(T span) {
       return Matchers.matches(serviceMatcher, span.getServiceName())
           && Matchers.matches(operationMatcher, span.getOperationName())
-          && Matchers.matches(resourceMatcher, span.getResourceName())
+          && matchesRemaining(span);
+    }
+
+    @Override
+    public boolean matchesService(String serviceName) {
+      return Matchers.matches(serviceMatcher, serviceName);
+    }
+
+    @Override
+    public boolean matchesOperation(String operationName) {
+      return Matchers.matches(operationMatcher, operationName);
+    }
+
+    @Override
+    public <T extends CoreSpan<T>> boolean matchesRemaining(T span) {
+      return Matchers.matches(resourceMatcher, span.getResourceName())
           && tagsMatcher.matches(span);
     }
   }
@@ -107,13 +170,13 @@ public abstract class SamplingRule {
   public static final class SpanSamplingRule extends SamplingRule {
     private final Matcher serviceMatcher;
     private final Matcher operationMatcher;
-    private final SimpleRateLimiter rateLimiter;
+    private final RateLimiter rateLimiter;
 
     public SpanSamplingRule(
         final String serviceName,
         final String operationName,
         final RateSampler sampler,
-        final SimpleRateLimiter rateLimiter) {
+        final RateLimiter rateLimiter) {
       super(sampler);
 
       serviceMatcher = Matchers.compileGlob(serviceName);
@@ -128,12 +191,27 @@ public abstract class SamplingRule {
           && Matchers.matches(operationMatcher, span.getOperationName());
     }
 
+    @Override
+    public boolean matchesService(String serviceName) {
+      return Matchers.matches(serviceMatcher, serviceName);
+    }
+
+    @Override
+    public boolean matchesOperation(String operationName) {
+      return Matchers.matches(operationMatcher, operationName);
+    }
+
+    @Override
+    public <T extends CoreSpan<T>> boolean matchesRemaining(T span) {
+      return true;
+    }
+
     @Override
     public <T extends CoreSpan<T>> boolean sample(T span) {
       return super.sample(span) && (rateLimiter == null || rateLimiter.tryAcquire());
     }
 
-    public SimpleRateLimiter getRateLimiter() {
+    public RateLimiter getRateLimiter() {
       return rateLimiter;
     }
   }
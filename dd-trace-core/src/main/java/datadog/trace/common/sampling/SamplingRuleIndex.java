@@ -0,0 +1,91 @@
+package datadog.trace.common.sampling;
+
+import datadog.trace.api.cache.DDCache;
+import datadog.trace.api.cache.DDCaches;
+import datadog.trace.core.CoreSpan;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Finds the first of a list of sampling rules which matches a span, without testing every rule
+ * against every span.
+ *
+ * <p>The rules which may match a service name are computed the first time the service name is
+ * seen, and among those the rules which may match an operation name the first time that operation
+ * name is seen for the service. Both are cached, so exact names and globs are only evaluated once
+ * per distinct name, and a span is only tested for its remaining properties, like its resource
+ * and tags, against the rules left for its service and operation name, in their original order.
+ */
+final class SamplingRuleIndex<R extends SamplingRule> {
+
+  private static final int SERVICE_CACHE_SIZE = 256;
+  private static final int OPERATION_CACHE_SIZE = 128;
+
+  private final List<R> rules;
+  private final DDCache<String, ServiceRules<R>> byService =
+      DDCaches.newFixedSizeCache(SERVICE_CACHE_SIZE);
+  private final Function<String, ServiceRules<R>> forService = this::forService;
+
+  SamplingRuleIndex(List<R> rules) {
+    this.rules = rules;
+  }
+
+  /** @return the first rule which matches the span, or {@code null} if none does */
+  <T extends CoreSpan<T>> R firstMatch(T span) {
+    String serviceName = span.getServiceName();
+    CharSequence operationName = span.getOperationName();
+    if (serviceName == null || operationName == null) {
+      for (R rule : rules) {
+        if (rule.matches(span)) {
+          return rule;
+        }
+      }
+      return null;
+    }
+    List<R> candidates =
+        byService.computeIfAbsent(serviceName, forService).forOperation(operationName.toString());
+    for (int i = 0; i < candidates.size(); i++) {
+      R rule = candidates.get(i);
+      if (rule.matchesRemaining(span)) {
+        return rule;
+      }
+    }
+    return null;
+  }
+
+  private ServiceRules<R> forService(String serviceName) {
+    List<R> matching = new ArrayList<>();
+    for (R rule : rules) {
+      if (rule.matchesService(serviceName)) {
+        matching.add(rule);
+      }
+    }
+    return new ServiceRules<>(matching);
+  }
+
+  private static final class ServiceRules<R extends SamplingRule> {
+    private final List<R> rules;
+    private final DDCache<String, List<R>> byOperation =
+        DDCaches.newFixedSizeCache(OPERATION_CACHE_SIZE);
+    private final Function<String, List<R>> forOperation = this::computeForOperation;
+
+    ServiceRules(List<R> rules) {
+      this.rules = rules;
+    }
+
+    List<R> forOperation(String operationName) {
+      return rules.isEmpty() ? rules : byOperation.computeIfAbsent(operationName, forOperation);
+    }
+
+    private List<R> computeForOperation(String operationName) {
+      List<R> matching = new ArrayList<>();
+      for (R rule : rules) {
+        if (rule.matchesOperation(operationName)) {
+          matching.add(rule);
+        }
+      }
+      return matching;
+    }
+  }
+}
@@ -5,7 +5,9 @@ import static datadog.trace.api.config.TracerConfig.SPAN_SAMPLING_RULES_FILE;
 
 import datadog.trace.api.Config;
 import datadog.trace.core.CoreSpan;
+import datadog.trace.core.util.RateLimiter;
 import datadog.trace.core.util.SimpleRateLimiter;
+import datadog.trace.core.util.StripedRateLimiter;
 import java.util.ArrayList;
 import java.util.List;
 import org.slf4j.Logger;
@@ -37,12 +39,12 @@ public interface SingleSpanSampler {
       if (spanSamplingRulesDefined) {
         SpanSamplingRules rules = SpanSamplingRules.deserialize(spanSamplingRules);
         if (!rules.isEmpty()) {
-          return new RuleBasedSingleSpanSampler(rules);
+          return new RuleBasedSingleSpanSampler(rules, config.isTraceRateLimitStriped());
         }
       } else if (spanSamplingRulesFileDefined) {
         SpanSamplingRules rules = SpanSamplingRules.deserializeFile(spanSamplingRulesFile);
         if (!rules.isEmpty()) {
-          return new RuleBasedSingleSpanSampler(rules);
+          return new RuleBasedSingleSpanSampler(rules, config.isTraceRateLimitStriped());
         }
       }
 
@@ -53,39 +55,43 @@ public interface SingleSpanSampler {
   }
 
   final class RuleBasedSingleSpanSampler implements SingleSpanSampler {
-    private final List<SamplingRule.SpanSamplingRule> spanSamplingRules;
+    private final SamplingRuleIndex<SamplingRule.SpanSamplingRule> spanSamplingRules;
 
     public RuleBasedSingleSpanSampler(SpanSamplingRules rules) {
+      this(rules, false);
+    }
+
+    public RuleBasedSingleSpanSampler(SpanSamplingRules rules, boolean stripedRateLimiter) {
       if (rules == null) {
         throw new NullPointerException("SpanSamplingRules can't be null.");
       }
-      this.spanSamplingRules = new ArrayList<>();
+      List<SamplingRule.SpanSamplingRule> spanSamplingRules = new ArrayList<>();
       for (SpanSamplingRules.Rule rule : rules.getRules()) {
         RateSampler sampler = new DeterministicSampler.SpanSampler(rule.getSampleRate());
-        SimpleRateLimiter simpleRateLimiter =
-            rule.getMaxPerSecond() == Integer.MAX_VALUE
-                ? null
-                : new SimpleRateLimiter(rule.getMaxPerSecond());
+        RateLimiter rateLimiter = null;
+        if (rule.getMaxPerSecond() != Integer.MAX_VALUE) {
+          rateLimiter =
+              stripedRateLimiter
+                  ? new StripedRateLimiter(rule.getMaxPerSecond())
+                  : new SimpleRateLimiter(rule.getMaxPerSecond());
+        }
         SamplingRule.SpanSamplingRule spanSamplingRule =
             new SamplingRule.SpanSamplingRule(
-                rule.getService(), rule.getName(), sampler, simpleRateLimiter);
+                rule.getService(), rule.getName(), sampler, rateLimiter);
         spanSamplingRules.add(spanSamplingRule);
       }
+      this.spanSamplingRules = new SamplingRuleIndex<>(spanSamplingRules);
     }
 
     @Override
     public <T extends CoreSpan<T>> boolean setSamplingPriority(T span) {
-      for (SamplingRule.SpanSamplingRule rule : spanSamplingRules) {
-        if (rule.matches(span)) {
-          if (rule.sample(span)) {
-            double rate = rule.getSampler().getSampleRate();
-            SimpleRateLimiter rateLimiter = rule.getRateLimiter();
-            int limit = rateLimiter == null ? Integer.MAX_VALUE : rateLimiter.getCapacity();
-            span.setSpanSamplingPriority(rate, limit);
-            return true;
-          }
-          break;
-        }
+      SamplingRule.SpanSamplingRule rule = spanSamplingRules.firstMatch(span);
+      if (rule != null && rule.sample(span)) {
+        double rate = rule.getSampler().getSampleRate();
+        RateLimiter rateLimiter = rule.getRateLimiter();
+        int limit = rateLimiter == null ? Integer.MAX_VALUE : rateLimiter.getCapacity();
+        span.setSpanSamplingPriority(rate, limit);
+        return true;
       }
       return false;
     }
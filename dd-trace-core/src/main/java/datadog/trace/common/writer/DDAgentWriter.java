@@ -8,6 +8,7 @@ import static datadog.trace.common.writer.ddagent.Prioritization.FAST_LANE;
 
 import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
 import datadog.communication.monitor.Monitoring;
+import datadog.communication.serialization.DirectBufferPool;
 import datadog.trace.api.Config;
 import datadog.trace.common.sampling.SingleSpanSampler;
 import datadog.trace.common.writer.ddagent.DDAgentApi;
@@ -40,6 +41,9 @@ public class DDAgentWriter extends RemoteWriter {
     boolean traceAgentV05Enabled = Config.get().isTraceAgentV05Enabled();
     boolean metricsReportingEnabled = Config.get().isTracerMetricsEnabled();
     boolean alwaysFlush = false;
+    int serializationShards = 1;
+    boolean directBuffers = false;
+    LoadSheddingController loadShedding = null;
 
     private DDAgentApi agentApi;
     private Prioritization prioritization;
@@ -121,6 +125,21 @@ public class DDAgentWriter extends RemoteWriter {
       return this;
     }
 
+    public DDAgentWriterBuilder serializationShards(int serializationShards) {
+      this.serializationShards = serializationShards;
+      return this;
+    }
+
+    public DDAgentWriterBuilder directBuffers(boolean directBuffers) {
+      this.directBuffers = directBuffers;
+      return this;
+    }
+
+    public DDAgentWriterBuilder loadShedding(LoadSheddingController loadShedding) {
+      this.loadShedding = loadShedding;
+      return this;
+    }
+
     public DDAgentWriterBuilder spanSamplingRules(SingleSpanSampler singleSpanSampler) {
       this.singleSpanSampler = singleSpanSampler;
       return this;
@@ -142,30 +161,84 @@ public class DDAgentWriter extends RemoteWriter {
             new DDAgentApi(client, agentUrl, featureDiscovery, monitoring, metricsReportingEnabled);
       }
 
-      final DDAgentMapperDiscovery mapperDiscovery = new DDAgentMapperDiscovery(featureDiscovery);
-      final PayloadDispatcher dispatcher =
-          new PayloadDispatcherImpl(mapperDiscovery, agentApi, healthMetrics, monitoring);
+      // shards share the pool, which retains at most the equivalent of one full-size (5MB)
+      // payload buffer per shard
+      final DirectBufferPool bufferPool =
+          directBuffers
+              ? new DirectBufferPool(
+                  DirectBufferPool.DEFAULT_SEGMENT_SIZE,
+                  serializationShards * ((5 << 20) / DirectBufferPool.DEFAULT_SEGMENT_SIZE))
+              : null;
+      // each serializer shard needs its own mapper because mappers hold per-payload state
+      final PayloadDispatcher[] dispatchers = new PayloadDispatcher[serializationShards];
+      for (int i = 0; i < dispatchers.length; i++) {
+        dispatchers[i] =
+            new PayloadDispatcherImpl(
+                new DDAgentMapperDiscovery(featureDiscovery),
+                agentApi,
+                healthMetrics,
+                monitoring,
+                bufferPool,
+                loadShedding);
+      }
       final TraceProcessingWorker traceProcessingWorker =
           new TraceProcessingWorker(
               traceBufferSize,
               healthMetrics,
-              dispatcher,
+              dispatchers,
               featureDiscovery,
               null == prioritization ? FAST_LANE : prioritization,
               flushIntervalMilliseconds,
               TimeUnit.MILLISECONDS,
               singleSpanSampler,
-              null);
+              null,
+              loadShedding);
 
-      return new DDAgentWriter(traceProcessingWorker, dispatcher, healthMetrics, alwaysFlush);
+      // dropped trace counts only need to be reported once, so they are piggybacked on the
+      // payloads of the first shard
+      return new DDAgentWriter(
+          traceProcessingWorker, dispatchers[0], healthMetrics, alwaysFlush, loadShedding);
     }
   }
 
+  private final LoadSheddingController loadShedding;
+
   DDAgentWriter(
       TraceProcessingWorker worker,
       PayloadDispatcher dispatcher,
       HealthMetrics healthMetrics,
       boolean alwaysFlush) {
+    this(worker, dispatcher, healthMetrics, alwaysFlush, null);
+  }
+
+  DDAgentWriter(
+      TraceProcessingWorker worker,
+      PayloadDispatcher dispatcher,
+      HealthMetrics healthMetrics,
+      boolean alwaysFlush,
+      LoadSheddingController loadShedding) {
     super(worker, dispatcher, healthMetrics, alwaysFlush);
+    this.loadShedding = loadShedding;
+  }
+
+  /** @return the load shedding controller, or null when load shedding isn't enabled */
+  public LoadSheddingController getLoadShedding() {
+    return loadShedding;
+  }
+
+  @Override
+  public void start() {
+    super.start();
+    if (null != loadShedding) {
+      loadShedding.start();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (null != loadShedding) {
+      loadShedding.stop();
+    }
+    super.close();
   }
 }
@@ -0,0 +1,142 @@
+package datadog.trace.common.writer;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import datadog.trace.common.sampling.DeterministicSampler;
+import datadog.trace.core.monitor.HealthMetrics;
+import datadog.trace.util.AgentTaskScheduler;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lowers the fraction of sampler-kept traces which are actually kept when the trace pipeline comes
+ * under pressure, so that bursts degrade the sampling rate smoothly instead of overflowing the
+ * serializer queues and dropping traces at random.
+ *
+ * <p>Pressure is the largest of three ratios: how full the serializer queues are relative to a high
+ * watermark, and the average time spent serializing a trace and sending a payload over the last
+ * interval relative to their targets. While the pressure exceeds 1 the keep ratio is cut
+ * multiplicatively, down to a floor; once it falls back below {@link #RECOVERY_PRESSURE} the ratio
+ * recovers additively. The sampler applies the keep ratio by scaling its own rate, so traces are
+ * still sampled deterministically by trace id and the reported rate stays accurate. The traces it
+ * sheds are dropped by the tracer before reaching the writer, rather than sent as dropped traces.
+ */
+public final class LoadSheddingController {
+
+  static final long UPDATE_INTERVAL_MILLIS = 100;
+  static final double QUEUE_HIGH_WATERMARK = 0.5;
+  static final long SERIALIZATION_TARGET_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+  static final long SEND_TARGET_NANOS = TimeUnit.SECONDS.toNanos(1);
+  static final double RECOVERY_PRESSURE = 0.75;
+  static final double RECOVERY_STEP = 0.05;
+
+  private final HealthMetrics healthMetrics;
+  private final double minKeepRatio;
+
+  private final LongAdder serializationNanos = new LongAdder();
+  private final LongAdder serializedTraces = new LongAdder();
+  private final LongAdder sendNanos = new LongAdder();
+  private final LongAdder sends = new LongAdder();
+
+  private volatile TraceProcessingWorker worker;
+  private volatile double keepRatio = 1;
+  private volatile double pressure;
+  private AgentTaskScheduler.Scheduled<LoadSheddingController> scheduled;
+
+  public LoadSheddingController(HealthMetrics healthMetrics, double minKeepRatio) {
+    this.healthMetrics = healthMetrics;
+    this.minKeepRatio = Math.max(0, Math.min(1, minKeepRatio));
+  }
+
+  /** Sets the worker whose queue depth is monitored. */
+  void monitor(TraceProcessingWorker worker) {
+    this.worker = worker;
+  }
+
+  public synchronized void start() {
+    if (null == scheduled) {
+      scheduled =
+          AgentTaskScheduler.INSTANCE.scheduleAtFixedRate(
+              LoadSheddingController::update,
+              this,
+              UPDATE_INTERVAL_MILLIS,
+              UPDATE_INTERVAL_MILLIS,
+              MILLISECONDS);
+    }
+  }
+
+  public synchronized void stop() {
+    if (null != scheduled) {
+      scheduled.cancel();
+      scheduled = null;
+    }
+  }
+
+  /** Records the time taken to serialize a trace. */
+  public void onSerialize(long nanos) {
+    serializationNanos.add(nanos);
+    serializedTraces.increment();
+  }
+
+  /** Records the time taken to send a payload and get the agent's response. */
+  public void onSend(long nanos) {
+    sendNanos.add(nanos);
+    sends.increment();
+  }
+
+  /** @return the fraction of the traces kept by the sampler which should still be kept */
+  public double keepRatio() {
+    return keepRatio;
+  }
+
+  /**
+   * @param traceId the id of a trace the sampler decided to keep
+   * @param reducedRate the sampler's rate multiplied by the {@link #keepRatio()}
+   * @return whether the trace should be dropped to shed load
+   */
+  public boolean shed(long traceId, double reducedRate) {
+    if (DeterministicSampler.sampled(traceId, DeterministicSampler.cutoff(reducedRate))) {
+      return false;
+    }
+    healthMetrics.onLoadShed();
+    return true;
+  }
+
+  double pressure() {
+    return pressure;
+  }
+
+  void update() {
+    double pressure =
+        Math.max(
+            queuePressure(),
+            Math.max(
+                drainAverage(serializationNanos, serializedTraces, SERIALIZATION_TARGET_NANOS),
+                drainAverage(sendNanos, sends, SEND_TARGET_NANOS)));
+    double ratio = keepRatio;
+    if (pressure > 1) {
+      // cut harder the further over target the pipeline is, but never more than half at once
+      ratio = Math.max(minKeepRatio, ratio * Math.max(0.5, Math.min(0.9, 1 / pressure)));
+    } else if (pressure < RECOVERY_PRESSURE) {
+      ratio = Math.min(1, ratio + RECOVERY_STEP);
+    }
+    this.pressure = pressure;
+    this.keepRatio = ratio;
+    healthMetrics.onLoadSheddingUpdate(ratio, pressure);
+  }
+
+  private double queuePressure() {
+    TraceProcessingWorker worker = this.worker;
+    if (null == worker) {
+      return 0;
+    }
+    double fill = 1 - (double) worker.getRemainingCapacity() / worker.getCapacity();
+    return fill / QUEUE_HIGH_WATERMARK;
+  }
+
+  private static double drainAverage(LongAdder total, LongAdder count, long target) {
+    long n = count.sumThenReset();
+    long sum = total.sumThenReset();
+    return n == 0 ? 0 : (double) sum / n / target;
+  }
+}
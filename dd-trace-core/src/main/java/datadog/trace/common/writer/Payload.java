@@ -10,6 +10,8 @@ import static datadog.communication.serialization.msgpack.MsgPackWriter.MAP32;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
+import java.util.Collections;
+import java.util.List;
 import okhttp3.RequestBody;
 
 public abstract class Payload {
@@ -20,6 +22,8 @@ public abstract class Payload {
   private long droppedTraces = 0;
   private long droppedSpans = 0;
   protected ByteBuffer body = EMPTY_ARRAY.duplicate();
+  // set instead of body when the payload was encoded into pooled segments
+  private List<ByteBuffer> bodySegments;
 
   public Payload withBody(int traceCount, ByteBuffer body) {
     this.traceCount = traceCount;
@@ -29,6 +33,34 @@ public abstract class Payload {
     return this;
   }
 
+  /**
+   * Sets a body spread over several buffers, only supported by payloads which access their body
+   * through {@link #bodySize()} and {@link #bodyBuffers()}.
+   */
+  public Payload withBody(int traceCount, List<ByteBuffer> bodySegments) {
+    if (bodySegments.size() == 1) {
+      return withBody(traceCount, bodySegments.get(0));
+    }
+    this.traceCount = traceCount;
+    this.bodySegments = bodySegments;
+    return this;
+  }
+
+  protected int bodySize() {
+    if (null == bodySegments) {
+      return body.remaining();
+    }
+    int size = 0;
+    for (ByteBuffer segment : bodySegments) {
+      size += segment.remaining();
+    }
+    return size;
+  }
+
+  protected List<ByteBuffer> bodyBuffers() {
+    return null == bodySegments ? Collections.singletonList(body) : bodySegments;
+  }
+
   public Payload withDroppedTraces(long droppedTraceCount) {
     this.droppedTraces += droppedTraceCount;
     return this;
@@ -3,8 +3,12 @@ package datadog.trace.common.writer;
 import datadog.communication.monitor.Monitoring;
 import datadog.communication.monitor.Recording;
 import datadog.communication.serialization.ByteBufferConsumer;
+import datadog.communication.serialization.Codec;
+import datadog.communication.serialization.DirectBufferPool;
 import datadog.communication.serialization.FlushingBuffer;
+import datadog.communication.serialization.PooledFlushingBuffer;
 import datadog.communication.serialization.WritableFormatter;
+import datadog.communication.serialization.msgpack.EncodedStringTable;
 import datadog.communication.serialization.msgpack.MsgPackWriter;
 import datadog.trace.core.CoreSpan;
 import datadog.trace.core.monitor.HealthMetrics;
@@ -25,10 +29,14 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
   private final RemoteMapperDiscovery mapperDiscovery;
   private final HealthMetrics healthMetrics;
   private final Monitoring monitoring;
+  private final DirectBufferPool bufferPool;
+  private final LoadSheddingController loadShedding;
 
   private Recording batchTimer;
   private RemoteMapper mapper;
   private WritableFormatter packer;
+  // set when a pooled payload was sent, the pool is only sampled once its segments are back
+  private boolean bufferPoolStatsPending;
 
   private final FixedSizeStripedLongCounter droppedSpanCount =
       CountersFactory.createFixedSizeStripedCounter(8);
@@ -40,16 +48,43 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       RemoteApi api,
       HealthMetrics healthMetrics,
       Monitoring monitoring) {
+    this(mapperDiscovery, api, healthMetrics, monitoring, null);
+  }
+
+  /**
+   * @param bufferPool when not null, payloads are encoded into direct segments from this pool
+   *     instead of a dedicated heap buffer of the mapper's maximum payload size
+   */
+  public PayloadDispatcherImpl(
+      RemoteMapperDiscovery mapperDiscovery,
+      RemoteApi api,
+      HealthMetrics healthMetrics,
+      Monitoring monitoring,
+      DirectBufferPool bufferPool) {
+    this(mapperDiscovery, api, healthMetrics, monitoring, bufferPool, null);
+  }
+
+  /** @param loadShedding when not null, is told how long each payload takes to send */
+  public PayloadDispatcherImpl(
+      RemoteMapperDiscovery mapperDiscovery,
+      RemoteApi api,
+      HealthMetrics healthMetrics,
+      Monitoring monitoring,
+      DirectBufferPool bufferPool,
+      LoadSheddingController loadShedding) {
     this.mapperDiscovery = mapperDiscovery;
     this.api = api;
     this.healthMetrics = healthMetrics;
     this.monitoring = monitoring;
+    this.bufferPool = bufferPool;
+    this.loadShedding = loadShedding;
   }
 
   @Override
   public void flush() {
     if (null != packer) {
       packer.flush();
+      reportBufferPoolStats();
     }
   }
 
@@ -75,6 +110,15 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       healthMetrics.onFailedPublish(
           trace.isEmpty() ? 0 : trace.get(0).samplingPriority(), trace.size());
     }
+    reportBufferPoolStats();
+  }
+
+  private void reportBufferPoolStats() {
+    if (bufferPoolStatsPending) {
+      bufferPoolStatsPending = false;
+      healthMetrics.onBufferPoolStats(
+          bufferPool.inUse(), bufferPool.pooled(), bufferPool.allocated(), bufferPool.reused());
+    }
   }
 
   private void selectMapper() {
@@ -87,7 +131,13 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
       if (null != mapper && null == packer) {
         batchTimer =
             monitoring.newTimer("tracer.trace.buffer.fill.time", "endpoint:" + mapper.endpoint());
-        packer = new MsgPackWriter(new FlushingBuffer(mapper.messageBufferSize(), this));
+        packer =
+            new MsgPackWriter(
+                Codec.INSTANCE,
+                null == bufferPool
+                    ? new FlushingBuffer(mapper.messageBufferSize(), this)
+                    : new PooledFlushingBuffer(mapper.messageBufferSize(), bufferPool, this),
+                EncodedStringTable.SHARED);
         batchTimer.start();
       }
     }
@@ -101,29 +151,54 @@ public class PayloadDispatcherImpl implements ByteBufferConsumer, PayloadDispatc
         .withDroppedTraces(droppedTraceCount.getAndReset());
   }
 
+  Payload newPayload(int messageCount, List<ByteBuffer> buffers) {
+    return mapper
+        .newPayload()
+        .withBody(messageCount, buffers)
+        .withDroppedSpans(droppedSpanCount.getAndReset())
+        .withDroppedTraces(droppedTraceCount.getAndReset());
+  }
+
   @Override
   public void accept(int messageCount, ByteBuffer buffer) {
     // the packer calls this when the buffer is full,
     // or when the packer is flushed at a heartbeat
     if (messageCount > 0) {
-      batchTimer.reset();
-      Payload payload = newPayload(messageCount, buffer);
-      final int sizeInBytes = payload.sizeInBytes();
-      healthMetrics.onSerialize(sizeInBytes);
-      RemoteApi.Response response = api.sendSerializedTraces(payload);
-      mapper.reset();
-      if (response.success()) {
-        if (log.isDebugEnabled()) {
-          log.debug("Successfully sent {} traces to the API", messageCount);
-        }
-        healthMetrics.onSend(messageCount, sizeInBytes, response);
-      } else {
-        if (log.isDebugEnabled()) {
-          log.debug(
-              "Failed to send {} traces of size {} bytes to the API", messageCount, sizeInBytes);
-        }
-        healthMetrics.onFailedSend(messageCount, sizeInBytes, response);
+      send(messageCount, newPayload(messageCount, buffer));
+    }
+  }
+
+  @Override
+  public void accept(int messageCount, List<ByteBuffer> buffers) {
+    // the segments are returned to the pool as soon as this returns, which is fine
+    // because the payload is sent synchronously
+    if (messageCount > 0) {
+      send(messageCount, newPayload(messageCount, buffers));
+      bufferPoolStatsPending = true;
+    }
+  }
+
+  private void send(int messageCount, Payload payload) {
+    batchTimer.reset();
+    final int sizeInBytes = payload.sizeInBytes();
+    healthMetrics.onSerialize(sizeInBytes);
+    final long start = null == loadShedding ? 0 : System.nanoTime();
+    RemoteApi.Response response = api.sendSerializedTraces(payload);
+    if (null != loadShedding) {
+      loadShedding.onSend(System.nanoTime() - start);
+    }
+    mapper.reset();
+    if (response.success()) {
+      if (log.isDebugEnabled()) {
+        log.debug("Successfully sent {} traces to the API", messageCount);
+      }
+      healthMetrics.onSend(messageCount, sizeInBytes, response);
+    } else {
+      if (log.isDebugEnabled()) {
+        log.debug(
+            "Failed to send {} traces of size {} bytes to the API", messageCount, sizeInBytes);
       }
+      healthMetrics.onFailedSend(messageCount, sizeInBytes, response);
     }
   }
 }
@@ -32,19 +32,21 @@ import org.slf4j.LoggerFactory;
  *
  * <p>publishing to the buffer will not block the calling thread, but instead will return false if
  * the buffer is full. This is to avoid impacting an application thread.
+ *
+ * <p>Serialization can optionally be split across several shards, see {@link
+ * datadog.trace.api.config.TracerConfig#TRACE_SERIALIZATION_SHARDS}. Traces are routed to a shard
+ * by trace id, so all chunks of a trace are serialized by the same thread.
  */
 public class TraceProcessingWorker implements AutoCloseable {
 
   private static final Logger log = LoggerFactory.getLogger(TraceProcessingWorker.class);
 
-  private final PrioritizationStrategy prioritizationStrategy;
-  private final MpscBlockingConsumerArrayQueue<Object> primaryQueue;
-  private final MpscBlockingConsumerArrayQueue<Object> secondaryQueue;
-  private final TraceSerializingHandler serializingHandler;
-  private final Thread serializerThread;
-  private final int capacity;
+  /** Upper bound on the number of serializer shards, each shard runs its own thread. */
+  public static final int MAX_SHARDS = 64;
 
-  private final SpanSamplingWorker spanSamplingWorker;
+  private final Shard[] shards;
+  private final HealthMetrics healthMetrics;
+  private final int capacity;
 
   public TraceProcessingWorker(
       final int capacity,
@@ -56,58 +58,108 @@ public class TraceProcessingWorker implements AutoCloseable {
       final TimeUnit timeUnit,
       final SingleSpanSampler singleSpanSampler,
       final SpanPostProcessor spanPostProcessor) {
-    this.capacity = capacity;
-    this.primaryQueue = createQueue(capacity);
-    this.secondaryQueue = createQueue(capacity);
-    this.spanSamplingWorker =
-        SpanSamplingWorker.build(
-            capacity,
-            primaryQueue,
-            secondaryQueue,
-            singleSpanSampler,
-            healthMetrics,
-            droppingPolicy);
-    this.prioritizationStrategy =
-        prioritization.create(
-            primaryQueue,
-            secondaryQueue,
-            spanSamplingWorker.getSpanSamplingQueue(),
-            droppingPolicy);
+    this(
+        capacity,
+        healthMetrics,
+        new PayloadDispatcher[] {dispatcher},
+        droppingPolicy,
+        prioritization,
+        flushInterval,
+        timeUnit,
+        singleSpanSampler,
+        spanPostProcessor);
+  }
 
+  /**
+   * Creates a worker with one serializer shard per dispatcher. Each shard owns its own queues,
+   * serializer thread and dispatcher (and therefore its own mapper and buffers), and traces are
+   * routed to shards by trace id. With a single dispatcher this is the classic single-threaded
+   * worker.
+   */
+  public TraceProcessingWorker(
+      final int capacity,
+      final HealthMetrics healthMetrics,
+      final PayloadDispatcher[] dispatchers,
+      final DroppingPolicy droppingPolicy,
+      final Prioritization prioritization,
+      final long flushInterval,
+      final TimeUnit timeUnit,
+      final SingleSpanSampler singleSpanSampler,
+      final SpanPostProcessor spanPostProcessor) {
+    this(
+        capacity,
+        healthMetrics,
+        dispatchers,
+        droppingPolicy,
+        prioritization,
+        flushInterval,
+        timeUnit,
+        singleSpanSampler,
+        spanPostProcessor,
+        null);
+  }
+
+  /**
+   * @param loadShedding when not null, is told how long each trace takes to serialize and monitors
+   *     the depth of the queues
+   */
+  public TraceProcessingWorker(
+      final int capacity,
+      final HealthMetrics healthMetrics,
+      final PayloadDispatcher[] dispatchers,
+      final DroppingPolicy droppingPolicy,
+      final Prioritization prioritization,
+      final long flushInterval,
+      final TimeUnit timeUnit,
+      final SingleSpanSampler singleSpanSampler,
+      final SpanPostProcessor spanPostProcessor,
+      final LoadSheddingController loadShedding) {
+    if (dispatchers.length < 1 || dispatchers.length > MAX_SHARDS) {
+      throw new IllegalArgumentException(
+          "Number of serializer shards must be between 1 and " + MAX_SHARDS);
+    }
+    this.capacity = capacity;
+    this.healthMetrics = healthMetrics;
+    this.shards = new Shard[dispatchers.length];
     boolean runAsDaemon = !Config.get().isCiVisibilityEnabled();
-    this.serializingHandler =
-        runAsDaemon
-            ? new DaemonTraceSerializingHandler(
-                primaryQueue,
-                secondaryQueue,
-                healthMetrics,
-                dispatcher,
-                flushInterval,
-                timeUnit,
-                spanPostProcessor)
-            : new NonDaemonTraceSerializingHandler(
-                primaryQueue,
-                secondaryQueue,
-                healthMetrics,
-                dispatcher,
-                flushInterval,
-                timeUnit,
-                spanPostProcessor);
-    this.serializerThread = newAgentThread(TRACE_PROCESSOR, serializingHandler, runAsDaemon);
+    for (int i = 0; i < shards.length; i++) {
+      shards[i] =
+          new Shard(
+              dispatchers.length > 1 ? i : Shard.UNSHARDED,
+              capacity,
+              healthMetrics,
+              dispatchers[i],
+              droppingPolicy,
+              prioritization,
+              flushInterval,
+              timeUnit,
+              singleSpanSampler,
+              spanPostProcessor,
+              loadShedding,
+              runAsDaemon);
+    }
+    if (null != loadShedding) {
+      loadShedding.monitor(this);
+    }
   }
 
   public void start() {
-    this.serializerThread.start();
-    this.spanSamplingWorker.start();
+    for (Shard shard : shards) {
+      shard.start();
+    }
   }
 
   public boolean flush(long timeout, TimeUnit timeUnit) {
-    CountDownLatch latch = new CountDownLatch(1);
+    // every shard acknowledges the same flush event, so the flush
+    // only completes once all shards have flushed their payloads
+    CountDownLatch latch = new CountDownLatch(shards.length);
     FlushEvent flush = new FlushEvent(latch);
-    boolean offered;
-    do {
-      offered = primaryQueue.offer(flush);
-    } while (!offered && serializerThread.isAlive());
+    for (Shard shard : shards) {
+      boolean offered;
+      do {
+        offered = shard.primaryQueue.offer(flush);
+      } while (!offered && shard.serializerThread.isAlive());
+    }
     try {
       return latch.await(timeout, timeUnit);
     } catch (InterruptedException e) {
@@ -118,32 +170,131 @@ public class TraceProcessingWorker implements AutoCloseable {
 
   @Override
   public void close() {
-    spanSamplingWorker.close();
-    serializerThread.interrupt();
-    try {
-      serializerThread.join(THREAD_JOIN_TIMOUT_MS);
-    } catch (InterruptedException ignored) {
+    for (Shard shard : shards) {
+      shard.spanSamplingWorker.close();
+      shard.serializerThread.interrupt();
+    }
+    for (Shard shard : shards) {
+      try {
+        shard.serializerThread.join(THREAD_JOIN_TIMOUT_MS);
+      } catch (InterruptedException ignored) {
+      }
     }
   }
 
   public <T extends CoreSpan<T>> PrioritizationStrategy.PublishResult publish(
       T root, int samplingPriority, final List<T> trace) {
-    return prioritizationStrategy.publish(root, samplingPriority, trace);
+    if (shards.length == 1) {
+      return shards[0].prioritizationStrategy.publish(root, samplingPriority, trace);
+    }
+    int shardIndex = shardFor(root.getTraceId().toLong(), shards.length);
+    PrioritizationStrategy.PublishResult result =
+        shards[shardIndex].prioritizationStrategy.publish(root, samplingPriority, trace);
+    if (result == PrioritizationStrategy.PublishResult.DROPPED_BUFFER_OVERFLOW) {
+      healthMetrics.onShardOverflow(shardIndex);
+    }
+    return result;
+  }
+
+  static int shardFor(long traceId, int shardCount) {
+    // trace ids are random, but fold the high bits in so 128-bit derived ids spread too
+    int hash = (int) (traceId ^ (traceId >>> 32));
+    return (hash & Integer.MAX_VALUE) % shardCount;
   }
 
   public int getCapacity() {
-    return capacity;
+    return capacity * shards.length;
+  }
+
+  public int getShardCount() {
+    return shards.length;
   }
 
   public long getRemainingCapacity() {
     // only advertise primary capacity (partly to keep test which aims to saturate the queue happy)
-    return primaryQueue.remainingCapacity();
+    long remainingCapacity = 0;
+    for (Shard shard : shards) {
+      remainingCapacity += shard.primaryQueue.remainingCapacity();
+    }
+    return remainingCapacity;
   }
 
   private static MpscBlockingConsumerArrayQueue<Object> createQueue(int capacity) {
     return new MpscBlockingConsumerArrayQueue<>(capacity);
   }
 
+  private static final class Shard {
+    static final int UNSHARDED = -1;
+
+    final MpscBlockingConsumerArrayQueue<Object> primaryQueue;
+    final MpscBlockingConsumerArrayQueue<Object> secondaryQueue;
+    final SpanSamplingWorker spanSamplingWorker;
+    final PrioritizationStrategy prioritizationStrategy;
+    final Thread serializerThread;
+
+    Shard(
+        final int shardId,
+        final int capacity,
+        final HealthMetrics healthMetrics,
+        final PayloadDispatcher dispatcher,
+        final DroppingPolicy droppingPolicy,
+        final Prioritization prioritization,
+        final long flushInterval,
+        final TimeUnit timeUnit,
+        final SingleSpanSampler singleSpanSampler,
+        final SpanPostProcessor spanPostProcessor,
+        final LoadSheddingController loadShedding,
+        final boolean runAsDaemon) {
+      this.primaryQueue = createQueue(capacity);
+      this.secondaryQueue = createQueue(capacity);
+      this.spanSamplingWorker =
+          SpanSamplingWorker.build(
+              capacity,
+              primaryQueue,
+              secondaryQueue,
+              singleSpanSampler,
+              healthMetrics,
+              droppingPolicy);
+      this.prioritizationStrategy =
+          prioritization.create(
+              primaryQueue,
+              secondaryQueue,
+              spanSamplingWorker.getSpanSamplingQueue(),
+              droppingPolicy);
+      TraceSerializingHandler serializingHandler =
+          runAsDaemon
+              ? new DaemonTraceSerializingHandler(
+                  primaryQueue,
+                  secondaryQueue,
+                  healthMetrics,
+                  dispatcher,
+                  flushInterval,
+                  timeUnit,
+                  spanPostProcessor)
+              : new NonDaemonTraceSerializingHandler(
+                  primaryQueue,
+                  secondaryQueue,
+                  healthMetrics,
+                  dispatcher,
+                  flushInterval,
+                  timeUnit,
+                  spanPostProcessor);
+      serializingHandler.shardId = shardId;
+      serializingHandler.loadShedding = loadShedding;
+      this.serializerThread =
+          newAgentThread(
+              TRACE_PROCESSOR,
+              shardId == UNSHARDED ? null : "-" + shardId,
+              serializingHandler,
+              runAsDaemon);
+    }
+
+    void start() {
+      serializerThread.start();
+      spanSamplingWorker.start();
+    }
+  }
+
   private static class DaemonTraceSerializingHandler extends TraceSerializingHandler {
     public DaemonTraceSerializingHandler(
         MpscBlockingConsumerArrayQueue<Object> primaryQueue,
@@ -238,6 +389,8 @@ public class TraceProcessingWorker implements AutoCloseable {
     private final PayloadDispatcher payloadDispatcher;
     private long lastTicks;
     private final SpanPostProcessor spanPostProcessor;
+    int shardId = Shard.UNSHARDED;
+    LoadSheddingController loadShedding;
 
     public TraceSerializingHandler(
         final MpscBlockingConsumerArrayQueue<Object> primaryQueue,
@@ -271,7 +424,16 @@ public class TraceProcessingWorker implements AutoCloseable {
           List<DDSpan> trace = (List<DDSpan>) event;
           maybeTracePostProcessing(trace);
           // TODO populate `_sample_rate` metric in a way that accounts for lost/dropped traces
-          payloadDispatcher.addTrace(trace);
+          if (null == loadShedding) {
+            payloadDispatcher.addTrace(trace);
+          } else {
+            long start = System.nanoTime();
+            payloadDispatcher.addTrace(trace);
+            loadShedding.onSerialize(System.nanoTime() - start);
+          }
+          if (shardId != Shard.UNSHARDED) {
+            healthMetrics.onShardSerialize(shardId);
+          }
         } else if (event instanceof FlushEvent) {
           payloadDispatcher.flush();
           ((FlushEvent) event).sync();
@@ -15,6 +15,7 @@ import datadog.communication.ddagent.DDAgentFeaturesDiscovery;
 import datadog.communication.ddagent.SharedCommunicationObjects;
 import datadog.trace.api.Config;
 import datadog.trace.api.intake.TrackType;
+import datadog.trace.common.sampling.PrioritySampler;
 import datadog.trace.common.sampling.Sampler;
 import datadog.trace.common.sampling.SingleSpanSampler;
 import datadog.trace.common.writer.ddagent.DDAgentApi;
@@ -140,6 +141,15 @@ public class WriterFactory {
         ddAgentApi.addResponseListener((RemoteResponseListener) sampler);
       }
 
+      LoadSheddingController loadShedding = null;
+      if (config.isTraceLoadSheddingEnabled()) {
+        loadShedding =
+            new LoadSheddingController(healthMetrics, config.getTraceLoadSheddingMinKeepRatio());
+        if (sampler instanceof PrioritySampler) {
+          ((PrioritySampler) sampler).setLoadShedding(loadShedding);
+        }
+      }
+
       remoteWriter =
           DDAgentWriter.builder()
               .agentApi(ddAgentApi)
@@ -150,6 +160,9 @@ public class WriterFactory {
               .alwaysFlush(alwaysFlush)
               .spanSamplingRules(singleSpanSampler)
               .flushIntervalMilliseconds(flushIntervalMilliseconds)
+              .serializationShards(config.getTraceSerializationShards())
+              .directBuffers(config.isTraceSerializationDirectBuffersEnabled())
+              .loadShedding(loadShedding)
               .build();
     }
 
@@ -111,8 +111,8 @@ public class DDAgentApi extends RemoteApi {
                   metricsEnabled && featuresDiscovery.supportsMetrics() ? "true" : "")
               .put(payload.toRequest())
               .build();
-      this.totalTraces += payload.traceCount();
-      this.receivedTraces += payload.traceCount();
+      this.totalTraces.add(payload.traceCount());
+      this.receivedTraces.add(payload.traceCount());
       try (final Recording recording = sendPayloadTimer.start();
           final okhttp3.Response response = httpClient.newCall(request).execute()) {
         handleAgentChange(response.header(DATADOG_AGENT_STATE));
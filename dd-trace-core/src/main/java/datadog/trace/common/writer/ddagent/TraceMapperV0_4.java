@@ -1,6 +1,7 @@
 package datadog.trace.common.writer.ddagent;
 
 import static datadog.communication.http.OkHttpUtils.msgpackRequestBodyOf;
+import static datadog.communication.serialization.msgpack.EncodedStringTable.LOW_CARDINALITY;
 
 import datadog.communication.serialization.Writable;
 import datadog.trace.bootstrap.instrumentation.api.InstrumentationTags;
@@ -9,10 +10,11 @@ import datadog.trace.core.CoreSpan;
 import datadog.trace.core.Metadata;
 import datadog.trace.core.MetadataConsumer;
 import datadog.trace.core.PendingTrace;
+import datadog.trace.core.TagMap;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import okhttp3.RequestBody;
@@ -58,15 +60,31 @@ public final class TraceMapperV0_4 implements TraceMapper {
               + (metadata.topLevel() ? 1 : 0)
               + (metadata.longRunningVersion() != 0 ? 1 : 0)
               + 1;
-      for (Map.Entry<String, Object> tag : metadata.getTags().entrySet()) {
-        Object value = tag.getValue();
-        if (value instanceof Number) {
-          ++metricsSize;
-          --metaSize;
-        } else if (value instanceof Map) {
-          // Compute size based on amount of elements in tree
-          --metaSize;
-          metaSize += getFlatMapSize((Map) value);
+      Map<String, Object> tags = metadata.getTags();
+      // iterate the tag map's slots directly to avoid boxing unboxed numeric tags
+      TagMap tagMap = tags instanceof TagMap ? (TagMap) tags : null;
+      if (null != tagMap) {
+        for (int i = tagMap.first(); i >= 0; i = tagMap.next(i)) {
+          if (tagMap.isNumberAt(i)) {
+            ++metricsSize;
+            --metaSize;
+          } else if (tagMap.typeAt(i) == TagMap.OBJECT && tagMap.valueAt(i) instanceof Map) {
+            // Compute size based on amount of elements in tree
+            --metaSize;
+            metaSize += getFlatMapSize((Map) tagMap.valueAt(i));
+          }
+        }
+      } else {
+        for (Map.Entry<String, Object> tag : tags.entrySet()) {
+          Object value = tag.getValue();
+          if (value instanceof Number) {
+            ++metricsSize;
+            --metaSize;
+          } else if (value instanceof Map) {
+            // Compute size based on amount of elements in tree
+            --metaSize;
+            metaSize += getFlatMapSize((Map) value);
+          }
         }
       }
       writable.writeUTF8(METRICS);
@@ -94,10 +112,19 @@ public final class TraceMapperV0_4 implements TraceMapper {
       }
       writable.writeUTF8(THREAD_ID);
       writable.writeLong(metadata.getThreadId());
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        if (entry.getValue() instanceof Number) {
-          writable.writeString(entry.getKey(), null);
-          writable.writeObject(entry.getValue(), null);
+      if (null != tagMap) {
+        for (int i = tagMap.first(); i >= 0; i = tagMap.next(i)) {
+          if (tagMap.isNumberAt(i)) {
+            writable.writeString(tagMap.keyAt(i), LOW_CARDINALITY);
+            writeNumber(tagMap, i);
+          }
+        }
+      } else {
+        for (Map.Entry<String, Object> entry : tags.entrySet()) {
+          if (entry.getValue() instanceof Number) {
+            writable.writeString(entry.getKey(), LOW_CARDINALITY);
+            writable.writeObject(entry.getValue(), null);
+          }
         }
       }
 
@@ -107,7 +134,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
       // since they will be accumulated into maps in the same order downstream,
       // we just need to be sure that the size is the same as the number of elements
       for (Map.Entry<String, String> entry : metadata.getBaggage().entrySet()) {
-        writable.writeString(entry.getKey(), null);
+        writable.writeString(entry.getKey(), LOW_CARDINALITY);
         writable.writeString(entry.getValue(), null);
       }
       writable.writeUTF8(THREAD_NAME);
@@ -118,21 +145,53 @@ public final class TraceMapperV0_4 implements TraceMapper {
       }
       if (null != metadata.getOrigin()) {
         writable.writeUTF8(ORIGIN_KEY);
-        writable.writeString(metadata.getOrigin(), null);
+        writable.writeString(metadata.getOrigin(), LOW_CARDINALITY);
       }
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        String key = entry.getKey();
-        Object value = entry.getValue();
-        if (value instanceof Map) {
-          // Write map as flat map
-          writeFlatMap(key, (Map) value);
-        } else if (!(value instanceof Number)) {
-          writable.writeString(entry.getKey(), null);
-          writable.writeObjectString(entry.getValue(), null);
+      if (null != tagMap) {
+        for (int i = tagMap.first(); i >= 0; i = tagMap.next(i)) {
+          if (!tagMap.isNumberAt(i)) {
+            writeMeta(tagMap.keyAt(i), tagMap.valueAt(i));
+          }
+        }
+      } else {
+        for (Map.Entry<String, Object> entry : tags.entrySet()) {
+          Object value = entry.getValue();
+          if (!(value instanceof Number)) {
+            writeMeta(entry.getKey(), value);
+          }
         }
       }
     }
 
+    private void writeMeta(String key, Object value) {
+      if (value instanceof Map) {
+        // Write map as flat map
+        writeFlatMap(key, (Map) value);
+      } else {
+        writable.writeString(key, LOW_CARDINALITY);
+        writable.writeObjectString(value, null);
+      }
+    }
+
+    private void writeNumber(TagMap tagMap, int slot) {
+      switch (tagMap.typeAt(slot)) {
+        case TagMap.INT:
+          writable.writeInt(tagMap.intAt(slot));
+          break;
+        case TagMap.LONG:
+          writable.writeLong(tagMap.longAt(slot));
+          break;
+        case TagMap.FLOAT:
+          writable.writeFloat(tagMap.floatAt(slot));
+          break;
+        case TagMap.DOUBLE:
+          writable.writeDouble(tagMap.doubleAt(slot));
+          break;
+        default:
+          writable.writeObject(tagMap.valueAt(slot), null);
+      }
+    }
+
     /**
      * Calculate number of all values from map and all sub-maps Assuming map could be a binary tree
      *
@@ -170,7 +229,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
         if (newValue instanceof Map) {
           writeFlatMap(newKey, (Map) newValue);
         } else {
-          writable.writeString(newKey, null);
+          writable.writeString(newKey, LOW_CARDINALITY);
           writable.writeObjectString(newValue, null);
         }
       }
@@ -187,13 +246,13 @@ public final class TraceMapperV0_4 implements TraceMapper {
       writable.startMap(12);
       /* 1  */
       writable.writeUTF8(SERVICE);
-      writable.writeString(span.getServiceName(), null);
+      writable.writeString(span.getServiceName(), LOW_CARDINALITY);
       /* 2  */
       writable.writeUTF8(NAME);
-      writable.writeObject(span.getOperationName(), null);
+      writable.writeString(span.getOperationName(), LOW_CARDINALITY);
       /* 3  */
       writable.writeUTF8(RESOURCE);
-      writable.writeObject(span.getResourceName(), null);
+      writable.writeString(span.getResourceName(), LOW_CARDINALITY);
       /* 4  */
       writable.writeUTF8(TRACE_ID);
       writable.writeUnsignedLong(span.getTraceId().toLong());
@@ -211,7 +270,7 @@ public final class TraceMapperV0_4 implements TraceMapper {
       writable.writeLong(PendingTrace.getDurationNano(span));
       /* 9  */
       writable.writeUTF8(TYPE);
-      writable.writeString(span.getType(), null);
+      writable.writeString(span.getType(), LOW_CARDINALITY);
       /* 10 */
       writable.writeUTF8(ERROR);
       writable.writeInt(span.getError());
@@ -219,7 +278,8 @@ public final class TraceMapperV0_4 implements TraceMapper {
       span.processTagsAndBaggage(
           metaWriter
               .withWritable(writable)
-              .withWriteSamplingPriority(i == 0 || i == trace.size() - 1));
+              .withWriteSamplingPriority(i == 0 || i == trace.size() - 1),
+          i == 0);
     }
   }
 
@@ -245,23 +305,29 @@ public final class TraceMapperV0_4 implements TraceMapper {
 
     @Override
     public int sizeInBytes() {
-      return msgpackArrayHeaderSize(traceCount()) + body.remaining();
+      return msgpackArrayHeaderSize(traceCount()) + bodySize();
     }
 
     @Override
     public void writeTo(WritableByteChannel channel) throws IOException {
-      ByteBuffer header = msgpackArrayHeader(traceCount());
-      while (header.hasRemaining()) {
-        channel.write(header);
-      }
-      while (body.hasRemaining()) {
-        channel.write(body);
+      for (ByteBuffer buffer : toList()) {
+        while (buffer.hasRemaining()) {
+          channel.write(buffer);
+        }
       }
     }
 
     @Override
     public RequestBody toRequest() {
-      return msgpackRequestBodyOf(Arrays.asList(msgpackArrayHeader(traceCount()), body));
+      return msgpackRequestBodyOf(toList());
+    }
+
+    private List<ByteBuffer> toList() {
+      List<ByteBuffer> body = bodyBuffers();
+      List<ByteBuffer> buffers = new ArrayList<>(body.size() + 1);
+      buffers.add(msgpackArrayHeader(traceCount()));
+      buffers.addAll(body);
+      return buffers;
     }
   }
 }
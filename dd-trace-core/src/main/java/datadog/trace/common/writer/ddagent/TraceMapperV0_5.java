@@ -14,10 +14,11 @@ import datadog.trace.core.CoreSpan;
 import datadog.trace.core.Metadata;
 import datadog.trace.core.MetadataConsumer;
 import datadog.trace.core.PendingTrace;
+import datadog.trace.core.TagMap;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.WritableByteChannel;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -78,7 +79,8 @@ public final class TraceMapperV0_5 implements TraceMapper {
       span.processTagsAndBaggage(
           metaWriter
               .withWritable(writable)
-              .withWriteSamplingPriority(i == 0 || i == trace.size() - 1));
+              .withWriteSamplingPriority(i == 0 || i == trace.size() - 1),
+          i == 0);
       /* 12 */
       writeDictionaryEncoded(writable, span.getType());
     }
@@ -148,7 +150,7 @@ public final class TraceMapperV0_5 implements TraceMapper {
           + msgpackArrayHeaderSize(stringCount)
           + dictionary.remaining()
           + msgpackArrayHeaderSize(traceCount())
-          + body.remaining();
+          + bodySize();
     }
 
     @Override
@@ -166,13 +168,15 @@ public final class TraceMapperV0_5 implements TraceMapper {
     }
 
     private List<ByteBuffer> toList() {
-      return Arrays.asList(
-          // msgpack array header with 2 elements (FIXARRAY | 2)
-          ByteBuffer.allocate(1).put(0, (byte) 0x92),
-          msgpackArrayHeader(stringCount),
-          dictionary,
-          msgpackArrayHeader(traceCount()),
-          body);
+      List<ByteBuffer> body = bodyBuffers();
+      List<ByteBuffer> buffers = new ArrayList<>(body.size() + 4);
+      // msgpack array header with 2 elements (FIXARRAY | 2)
+      buffers.add(ByteBuffer.allocate(1).put(0, (byte) 0x92));
+      buffers.add(msgpackArrayHeader(stringCount));
+      buffers.add(dictionary);
+      buffers.add(msgpackArrayHeader(traceCount()));
+      buffers.addAll(body);
+      return buffers;
     }
   }
 
@@ -205,15 +209,31 @@ public final class TraceMapperV0_5 implements TraceMapper {
               + (metadata.topLevel() ? 1 : 0)
               + (metadata.longRunningVersion() != 0 ? 1 : 0)
               + 1;
-      for (Map.Entry<String, Object> tag : metadata.getTags().entrySet()) {
-        Object value = tag.getValue();
-        if (value instanceof Number) {
-          ++metricsSize;
-          --metaSize;
-        } else if (value instanceof Map) {
-          // Compute size based on amount of elements in tree
-          --metaSize;
-          metaSize += getFlatMapSize((Map) value);
+      Map<String, Object> tags = metadata.getTags();
+      // iterate the tag map's slots directly to avoid boxing unboxed numeric tags
+      TagMap tagMap = tags instanceof TagMap ? (TagMap) tags : null;
+      if (null != tagMap) {
+        for (int i = tagMap.first(); i >= 0; i = tagMap.next(i)) {
+          if (tagMap.isNumberAt(i)) {
+            ++metricsSize;
+            --metaSize;
+          } else if (tagMap.typeAt(i) == TagMap.OBJECT && tagMap.valueAt(i) instanceof Map) {
+            // Compute size based on amount of elements in tree
+            --metaSize;
+            metaSize += getFlatMapSize((Map) tagMap.valueAt(i));
+          }
+        }
+      } else {
+        for (Map.Entry<String, Object> tag : tags.entrySet()) {
+          Object value = tag.getValue();
+          if (value instanceof Number) {
+            ++metricsSize;
+            --metaSize;
+          } else if (value instanceof Map) {
+            // Compute size based on amount of elements in tree
+            --metaSize;
+            metaSize += getFlatMapSize((Map) value);
+          }
         }
       }
       writable.startMap(metaSize);
@@ -234,15 +254,18 @@ public final class TraceMapperV0_5 implements TraceMapper {
         writeDictionaryEncoded(writable, ORIGIN_KEY);
         writeDictionaryEncoded(writable, metadata.getOrigin());
       }
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        String key = entry.getKey();
-        Object value = entry.getValue();
-        if (value instanceof Map) {
-          // Write map as flat map
-          writeFlatMap(key, (Map) value);
-        } else if (!(value instanceof Number)) {
-          writeDictionaryEncoded(writable, key);
-          writeDictionaryEncoded(writable, value);
+      if (null != tagMap) {
+        for (int i = tagMap.first(); i >= 0; i = tagMap.next(i)) {
+          if (!tagMap.isNumberAt(i)) {
+            writeMeta(tagMap.keyAt(i), tagMap.valueAt(i));
+          }
+        }
+      } else {
+        for (Map.Entry<String, Object> entry : tags.entrySet()) {
+          Object value = entry.getValue();
+          if (!(value instanceof Number)) {
+            writeMeta(entry.getKey(), value);
+          }
         }
       }
       writable.startMap(metricsSize);
@@ -269,14 +292,52 @@ public final class TraceMapperV0_5 implements TraceMapper {
       }
       writeDictionaryEncoded(writable, THREAD_ID);
       writable.writeLong(metadata.getThreadId());
-      for (Map.Entry<String, Object> entry : metadata.getTags().entrySet()) {
-        if (entry.getValue() instanceof Number) {
-          writeDictionaryEncoded(writable, entry.getKey());
-          writable.writeObject(entry.getValue(), null);
+      if (null != tagMap) {
+        for (int i = tagMap.first(); i >= 0; i = tagMap.next(i)) {
+          if (tagMap.isNumberAt(i)) {
+            writeDictionaryEncoded(writable, tagMap.keyAt(i));
+            writeNumber(tagMap, i);
+          }
+        }
+      } else {
+        for (Map.Entry<String, Object> entry : tags.entrySet()) {
+          if (entry.getValue() instanceof Number) {
+            writeDictionaryEncoded(writable, entry.getKey());
+            writable.writeObject(entry.getValue(), null);
+          }
         }
       }
     }
 
+    private void writeMeta(String key, Object value) {
+      if (value instanceof Map) {
+        // Write map as flat map
+        writeFlatMap(key, (Map) value);
+      } else {
+        writeDictionaryEncoded(writable, key);
+        writeDictionaryEncoded(writable, value);
+      }
+    }
+
+    private void writeNumber(TagMap tagMap, int slot) {
+      switch (tagMap.typeAt(slot)) {
+        case TagMap.INT:
+          writable.writeInt(tagMap.intAt(slot));
+          break;
+        case TagMap.LONG:
+          writable.writeLong(tagMap.longAt(slot));
+          break;
+        case TagMap.FLOAT:
+          writable.writeFloat(tagMap.floatAt(slot));
+          break;
+        case TagMap.DOUBLE:
+          writable.writeDouble(tagMap.doubleAt(slot));
+          break;
+        default:
+          writable.writeObject(tagMap.valueAt(slot), null);
+      }
+    }
+
     /**
      * Calculate number of all values from map and all sub-maps Assuming map could be a binary tree
      *
@@ -139,8 +139,8 @@ public class DDEvpProxyApi extends RemoteApi {
     }
 
     final Request request = builder.post(payload.toRequest()).build();
-    totalTraces += payload.traceCount();
-    receivedTraces += payload.traceCount();
+    totalTraces.add(payload.traceCount());
+    receivedTraces.add(payload.traceCount());
 
     try (okhttp3.Response response =
         OkHttpUtils.sendWithRetries(httpClient, retryPolicyFactory, request)) {
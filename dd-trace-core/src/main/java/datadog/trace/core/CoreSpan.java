@@ -65,10 +65,26 @@ public interface CoreSpan<T extends CoreSpan<T>> {
 
   boolean isForceKeep();
 
+  /** @return whether load shedding dropped the trace, which is then not written at all */
+  default boolean isLoadShed() {
+    return false;
+  }
+
+  /** Marks the trace of this local root span as dropped by load shedding. */
+  default void setLoadShed() {}
+
   CharSequence getType();
 
   void processTagsAndBaggage(MetadataConsumer consumer);
 
+  /**
+   * @param firstInChunk whether this span is the first span of the trace chunk being written, in
+   *     which case it also carries the trace level tags when it isn't the local root itself.
+   */
+  default void processTagsAndBaggage(MetadataConsumer consumer, boolean firstInChunk) {
+    processTagsAndBaggage(consumer);
+  }
+
   T setSamplingPriority(int samplingPriority, int samplingMechanism);
 
   T setSamplingPriority(
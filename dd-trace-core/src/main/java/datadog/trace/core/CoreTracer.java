@@ -5,7 +5,10 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_ASYNC_PROPAGATING;
 import static datadog.trace.api.DDTags.PROFILING_CONTEXT_ENGINE;
 import static datadog.trace.common.metrics.MetricsAggregatorFactory.createMetricsAggregator;
 import static datadog.trace.util.AgentThreadFactory.AGENT_THREAD_GROUP;
+import static datadog.trace.util.AgentThreadFactory.AgentThread.COARSE_CLOCK;
+import static datadog.trace.util.AgentThreadFactory.newAgentThread;
 import static datadog.trace.util.CollectionUtils.tryMakeImmutableMap;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
@@ -41,6 +44,7 @@ import datadog.trace.api.naming.SpanNaming;
 import datadog.trace.api.remoteconfig.ServiceNameCollector;
 import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.api.scopemanager.ScopeListener;
+import datadog.trace.api.time.CoarseTimeSource;
 import datadog.trace.api.time.SystemTimeSource;
 import datadog.trace.api.time.TimeSource;
 import datadog.trace.bootstrap.instrumentation.api.AgentDataStreamsMonitoring;
@@ -61,6 +65,7 @@ import datadog.trace.civisibility.interceptor.CiVisibilityTelemetryInterceptor;
 import datadog.trace.civisibility.interceptor.CiVisibilityTraceInterceptor;
 import datadog.trace.common.GitMetadataTraceInterceptor;
 import datadog.trace.common.metrics.MetricsAggregator;
+import datadog.trace.common.sampling.PrioritySampler;
 import datadog.trace.common.sampling.Sampler;
 import datadog.trace.common.sampling.SingleSpanSampler;
 import datadog.trace.common.sampling.SpanSamplingRules;
@@ -175,6 +180,8 @@ public class CoreTracer implements AgentTracer.TracerAPI {
 
   /** number of spans in a pending trace before they get flushed */
   private final int partialFlushMinSpans;
+  /** maximum number of spans in a streamed trace chunk, 0 when span streaming is disabled */
+  private final int spanStreamingChunkSize;
 
   private final StatsDClient statsDClient;
   private final Monitoring monitoring;
@@ -188,6 +195,8 @@ public class CoreTracer implements AgentTracer.TracerAPI {
   private final ExternalAgentLauncher externalAgentLauncher;
   private final boolean disableSamplingMechanismValidation;
   private final TimeSource timeSource;
+  /** Refreshed in the background when spans are timed with a coarse clock, otherwise null */
+  private final CoarseTimeSource coarseTimeSource;
   private final ProfilingContextIntegration profilingContextIntegration;
   private boolean injectBaggageAsTags;
 
@@ -512,7 +521,19 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     assert taggedHeaders != null;
     assert baggageMapping != null;
 
-    this.timeSource = timeSource == null ? SystemTimeSource.INSTANCE : timeSource;
+    long clockResolutionNanos = MICROSECONDS.toNanos(config.getTraceClockResolutionMicros());
+    if (clockResolutionNanos > 0) {
+      this.coarseTimeSource =
+          new CoarseTimeSource(
+              timeSource == null ? SystemTimeSource.INSTANCE : timeSource,
+              clockResolutionNanos,
+              SECONDS.toNanos(10),
+              drift -> this.healthMetrics.onClockDrift(drift));
+      this.timeSource = coarseTimeSource;
+    } else {
+      this.coarseTimeSource = null;
+      this.timeSource = timeSource == null ? SystemTimeSource.INSTANCE : timeSource;
+    }
     startTimeNano = this.timeSource.getCurrentTimeNanos();
     startNanoTicks = this.timeSource.getNanoTicks();
     clockSyncPeriod = Math.max(1_000_000L, SECONDS.toNanos(config.getClockSyncPeriod()));
@@ -556,6 +577,7 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     this.logs128bTraceIdEnabled = InstrumenterConfig.get().isLogs128bTraceIdEnabled();
     this.defaultSpanTags = defaultSpanTags;
     this.partialFlushMinSpans = partialFlushMinSpans;
+    this.spanStreamingChunkSize = config.getSpanStreamingChunkSize();
     this.idGenerationStrategy =
         null == idGenerationStrategy
             ? Config.get().getIdGenerationStrategy()
@@ -576,9 +598,12 @@ public class CoreTracer implements AgentTracer.TracerAPI {
             : Monitoring.DISABLED;
     healthMetrics =
         config.isHealthMetricsEnabled()
-            ? new TracerHealthMetrics(this.statsDClient)
+            ? new TracerHealthMetrics(this.statsDClient, config.getTraceSerializationShards())
             : HealthMetrics.NO_OP;
     healthMetrics.start();
+    if (null != coarseTimeSource) {
+      newAgentThread(COARSE_CLOCK, coarseTimeSource).start();
+    }
     performanceMonitoring =
         config.isPerfMetricsEnabled()
             ? new MonitoringImpl(this.statsDClient, 10, SECONDS)
@@ -878,6 +903,10 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     return partialFlushMinSpans;
   }
 
+  public int getSpanStreamingChunkSize() {
+    return spanStreamingChunkSize;
+  }
+
   @Override
   public AgentSpan activeSpan() {
     return scopeManager.activeSpan();
@@ -945,6 +974,11 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     DDSpan spanToSample = rootSpan == null ? writtenTrace.get(0) : rootSpan;
     spanToSample.forceKeep(forceKeep);
     boolean published = forceKeep || pendingTrace.sample(spanToSample);
+    if (published && !forceKeep && spanToSample.isLoadShed()) {
+      // shed traces are dropped before reaching the writer's queues, which they'd otherwise load
+      healthMetrics.onFailedPublish(spanToSample.samplingPriority(), writtenTrace.size());
+      published = false;
+    }
     if (published) {
       writer.write(writtenTrace);
     } else {
@@ -954,7 +988,9 @@ public class CoreTracer implements AgentTracer.TracerAPI {
       // reporting fail without this, so will need to be fixed first.
       writer.incrementDropCounts(writtenTrace.size());
     }
-    if (null != rootSpan) {
+    // partially flushed and streamed chunks are written before the root span finishes, only the
+    // chunk holding the finished root ends the trace
+    if (null != rootSpan && containsSpan(trace, rootSpan)) {
       onRootSpanFinished(rootSpan, rootSpan.getEndpointTracker());
 
       // request context is propagated to contexts in child spans
@@ -970,6 +1006,15 @@ public class CoreTracer implements AgentTracer.TracerAPI {
     }
   }
 
+  private static boolean containsSpan(List<DDSpan> trace, DDSpan span) {
+    for (int i = 0; i < trace.size(); i++) {
+      if (trace.get(i) == span) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private List<DDSpan> interceptCompleteTrace(List<DDSpan> trace) {
     if (!interceptors.isEmpty() && !trace.isEmpty()) {
       Collection<? extends MutableSpan> interceptedTrace = new ArrayList<>(trace);
@@ -1087,6 +1132,9 @@ public class CoreTracer implements AgentTracer.TracerAPI {
 
   @Override
   public void close() {
+    if (null != coarseTimeSource) {
+      coarseTimeSource.close();
+    }
     tracingConfigPoller.stop();
     pendingTraceBuffer.close();
     writer.close();
@@ -1624,6 +1672,11 @@ public class CoreTracer implements AgentTracer.TracerAPI {
         sampler = oldSnapshot.sampler;
       } else {
         sampler = Sampler.Builder.forConfig(CoreTracer.this.initialConfig, this);
+        if (sampler instanceof PrioritySampler
+            && CoreTracer.this.writer instanceof DDAgentWriter) {
+          ((PrioritySampler) sampler)
+              .setLoadShedding(((DDAgentWriter) CoreTracer.this.writer).getLoadShedding());
+        }
       }
     }
 
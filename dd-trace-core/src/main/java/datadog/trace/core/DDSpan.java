@@ -94,6 +94,9 @@ public class DDSpan
 
   private boolean forceKeep;
 
+  /** Set by the sampler, which may run on another thread than the one writing the trace */
+  private volatile boolean loadShed;
+
   private volatile EndpointTracker endpointTracker;
 
   // Cached OT/OTel wrapper to avoid multiple allocations, e.g. when span is activated
@@ -163,7 +166,7 @@ public class DDSpan
   public void finish() {
     if (!externalClock) {
       // no external clock was used, so we can rely on nano time
-      finishAndAddToTrace(context.getTrace().getCurrentTimeNano() - startTimeNano);
+      finishAndAddToTrace(context.getTrace().getFinishTimeNano(startTimeNano) - startTimeNano);
     } else {
       finish(context.getTrace().getTimeSource().getCurrentTimeMicros());
     }
@@ -239,7 +242,7 @@ public class DDSpan
     long durationNano;
     if (!externalClock) {
       // note: getting internal time from the trace implicitly 'touches' it
-      durationNano = context.getTrace().getCurrentTimeNano() - startTimeNano;
+      durationNano = context.getTrace().getFinishTimeNano(startTimeNano) - startTimeNano;
     } else {
       durationNano = context.getTrace().getTimeSource().getCurrentTimeNanos() - startTimeNano;
       context.getTrace().touch(); // external clock: explicitly update lastReferenced
@@ -295,6 +298,16 @@ public class DDSpan
     return forceKeep;
   }
 
+  @Override
+  public boolean isLoadShed() {
+    return loadShed;
+  }
+
+  @Override
+  public void setLoadShed() {
+    this.loadShed = true;
+  }
+
   /**
    * Check if the span is the root parent. It means that the traceId is the same as the spanId. In
    * the context of distributed tracing this will return true if an only if this is the application
@@ -700,7 +713,15 @@ public class DDSpan
 
   @Override
   public void processTagsAndBaggage(final MetadataConsumer consumer) {
-    context.processTagsAndBaggage(consumer, longRunningVersion, links);
+    context.processTagsAndBaggage(consumer, longRunningVersion, links, false);
+  }
+
+  @Override
+  public void processTagsAndBaggage(final MetadataConsumer consumer, final boolean firstInChunk) {
+    // chunks which don't start with the local root (partial flushes or streamed chunks)
+    // need the trace level tags to be repeated on their first span
+    context.processTagsAndBaggage(
+        consumer, longRunningVersion, links, firstInChunk && !isLocalRootSpan());
   }
 
   @Override
@@ -24,6 +24,7 @@ import datadog.trace.bootstrap.instrumentation.api.ProfilingContextIntegration;
 import datadog.trace.bootstrap.instrumentation.api.ResourceNamePriorities;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import datadog.trace.core.propagation.InjectionCache;
 import datadog.trace.core.propagation.PropagationTags;
 import datadog.trace.core.taginterceptor.TagInterceptor;
 import datadog.trace.core.tagprocessor.TagsPostProcessorFactory;
@@ -91,8 +92,10 @@ public class DDSpanContext
    * threads, they will rarely, if ever, be read and modified concurrently by multiple threads but
    * rather read and accessed in a serial fashion on thread after thread. The synchronization can
    * then be wrapped around bulk operations to minimize the costly atomic operations.
+   *
+   * <p>Numeric and boolean tags which don't need interception are stored unboxed.
    */
-  private final Map<String, Object> unsafeTags;
+  private final TagMap unsafeTags;
 
   /** The service name is required, otherwise the span are dropped by the agent */
   private volatile String serviceName;
@@ -132,6 +135,8 @@ public class DDSpanContext
 
   private final PropagationTags propagationTags;
 
+  private InjectionCache injectionCache;
+
   private volatile PathwayContext pathwayContext;
 
   private volatile BlockResponseFunction blockResponseFunction;
@@ -325,10 +330,8 @@ public class DDSpanContext
     assert pathwayContext != null;
     this.pathwayContext = pathwayContext;
 
-    // The +1 is the magic number from the tags below that we set at the end,
-    // and "* 4 / 3" is to make sure that we don't resize immediately
-    final int capacity = Math.max((tagsSize <= 0 ? 3 : (tagsSize + 1)) * 4 / 3, 8);
-    this.unsafeTags = new HashMap<>(capacity);
+    // The +1 is the magic number from the tags below that we set at the end
+    this.unsafeTags = new TagMap(Math.max(tagsSize <= 0 ? 3 : (tagsSize + 1), 6));
     // must set this before setting the service and resource names below
     this.profilingContextIntegration = profilingContextIntegration;
     // as fast as we can try to make this operation, we still might need to activate/deactivate
@@ -687,6 +690,30 @@ public class DDSpanContext
     }
   }
 
+  public void setMetric(final CharSequence key, final int value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putInt(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final long value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putLong(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final float value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putFloat(key.toString(), value);
+    }
+  }
+
+  public void setMetric(final CharSequence key, final double value) {
+    synchronized (unsafeTags) {
+      unsafeTags.putDouble(key.toString(), value);
+    }
+  }
+
   /**
    * Sets a tag to the span. Tags are not propagated to the children.
    *
@@ -711,6 +738,58 @@ public class DDSpanContext
     }
   }
 
+  public void setTag(final String tag, final int value) {
+    if (null == tag) {
+      return;
+    }
+    if (trace.getTracer().getTagInterceptor().needsIntercept(tag)) {
+      setTag(tag, (Object) value);
+    } else {
+      synchronized (unsafeTags) {
+        unsafeTags.putInt(tag, value);
+      }
+    }
+  }
+
+  public void setTag(final String tag, final long value) {
+    if (null == tag) {
+      return;
+    }
+    if (trace.getTracer().getTagInterceptor().needsIntercept(tag)) {
+      setTag(tag, (Object) value);
+    } else {
+      synchronized (unsafeTags) {
+        unsafeTags.putLong(tag, value);
+      }
+    }
+  }
+
+  public void setTag(final String tag, final double value) {
+    if (null == tag) {
+      return;
+    }
+    if (trace.getTracer().getTagInterceptor().needsIntercept(tag)) {
+      setTag(tag, (Object) value);
+    } else {
+      synchronized (unsafeTags) {
+        unsafeTags.putDouble(tag, value);
+      }
+    }
+  }
+
+  public void setTag(final String tag, final boolean value) {
+    if (null == tag) {
+      return;
+    }
+    if (trace.getTracer().getTagInterceptor().needsIntercept(tag)) {
+      setTag(tag, (Object) value);
+    } else {
+      synchronized (unsafeTags) {
+        unsafeTags.putBoolean(tag, value);
+      }
+    }
+  }
+
   void setAllTags(final Map<String, ?> map) {
     if (map == null || map.isEmpty()) {
       return;
@@ -783,6 +862,19 @@ public class DDSpanContext
 
   public void processTagsAndBaggage(
       final MetadataConsumer consumer, int longRunningVersion, List<AgentSpanLink> links) {
+    processTagsAndBaggage(consumer, longRunningVersion, links, false);
+  }
+
+  /**
+   * @param withTraceTags whether to add the trace level propagation tags held by the local root,
+   *     used for the first span of a trace chunk that doesn't contain the local root.
+   */
+  public void processTagsAndBaggage(
+      final MetadataConsumer consumer,
+      int longRunningVersion,
+      List<AgentSpanLink> links,
+      boolean withTraceTags) {
+    PropagationTags traceTags = withTraceTags ? getPropagationTags() : propagationTags;
     synchronized (unsafeTags) {
       // Tags
       Map<String, Object> tags = TagsPostProcessorFactory.instance().processTags(unsafeTags, this);
@@ -794,9 +886,9 @@ public class DDSpanContext
       Map<String, String> baggageItemsWithPropagationTags;
       if (injectBaggageAsTags) {
         baggageItemsWithPropagationTags = new HashMap<>(baggageItems);
-        propagationTags.fillTagMap(baggageItemsWithPropagationTags);
+        traceTags.fillTagMap(baggageItemsWithPropagationTags);
       } else {
-        baggageItemsWithPropagationTags = propagationTags.createTagMap();
+        baggageItemsWithPropagationTags = traceTags.createTagMap();
       }
 
       consumer.accept(
@@ -902,6 +994,17 @@ public class DDSpanContext
     return getRootSpanContextOrThis().propagationTags;
   }
 
+  /** @return the encodings of this span's ids for injection, created on first use */
+  public InjectionCache getInjectionCache() {
+    InjectionCache cache = this.injectionCache;
+    // This race condition is intentional and benign.
+    // The worst that can happen is that a span's ids are encoded more than once.
+    if (cache == null) {
+      this.injectionCache = cache = new InjectionCache();
+    }
+    return cache;
+  }
+
   /** TraceSegment Implementation */
   @Override
   public void setTagTop(String key, Object value, boolean sanitize) {
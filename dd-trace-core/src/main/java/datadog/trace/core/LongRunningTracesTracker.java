@@ -5,10 +5,26 @@ import datadog.communication.ddagent.SharedCommunicationObjects;
 import datadog.trace.api.Config;
 import datadog.trace.core.monitor.HealthMetrics;
 import java.util.ArrayList;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Tracks traces with running spans so their finished spans can be flushed periodically.
+ *
+ * <p>Traces are kept in a timing wheel of one second slots, in the slot of the second in which
+ * they are next due, be it to be flushed or to expire. Flushes are checked at most once a second,
+ * and only look at the slots which became due since the previous check, so their cost depends on
+ * the traces due rather than all the traces tracked. Flush intervals are at most 450 seconds, so
+ * deadlines are always less than a turn of the wheel away.
+ *
+ * <p>Most traces are written long before they are first due, so the traces whose spans have all
+ * been written are purged from every slot on each check, which keeps them from being retained and
+ * from counting against the maximum number of tracked traces.
+ */
 public class LongRunningTracesTracker {
+  private static final int WHEEL_SLOTS = 512;
+  private static final int WHEEL_MASK = WHEEL_SLOTS - 1;
+  private static final long NO_SECOND = Long.MIN_VALUE;
+
   private final DDAgentFeaturesDiscovery features;
   private final HealthMetrics healthMetrics;
   private long lastFlushMilli = 0;
@@ -17,7 +33,11 @@ public class LongRunningTracesTracker {
   private final int initialFlushPeriodMilli;
   private final int flushPeriodMilli;
   private final long maxTrackedDurationMilli = TimeUnit.HOURS.toMillis(12);
-  private final List<PendingTrace> traceArray = new ArrayList<>(1 << 4);
+  private final ArrayList<PendingTrace>[] wheel;
+  private ArrayList<PendingTrace> spareSlot = new ArrayList<>();
+  // the last second whose slot has been checked
+  private long checkedSecond = NO_SECOND;
+  private int trackedTraces = 0;
   private int dropped = 0;
   private int write = 0;
   private int expired = 0;
@@ -29,6 +49,7 @@ public class LongRunningTracesTracker {
   public static final int WRITE_RUNNING_SPANS = 3;
   public static final int EXPIRED = 4;
 
+  @SuppressWarnings("unchecked")
   public LongRunningTracesTracker(
       Config config,
       int maxTrackedTraces,
@@ -41,6 +62,10 @@ public class LongRunningTracesTracker {
         (int) TimeUnit.SECONDS.toMillis(config.getLongRunningTraceFlushInterval());
     this.features = sharedCommunicationObjects.featuresDiscovery(config);
     this.healthMetrics = healthMetrics;
+    this.wheel = new ArrayList[WHEEL_SLOTS];
+    for (int i = 0; i < WHEEL_SLOTS; i++) {
+      wheel[i] = new ArrayList<>();
+    }
   }
 
   public boolean add(PendingTraceBuffer.Element element) {
@@ -60,49 +85,120 @@ public class LongRunningTracesTracker {
     if (trace.empty()) {
       return;
     }
-    if (traceArray.size() == maxTrackedTraces) {
+    if (trackedTraces == maxTrackedTraces) {
       dropped++;
       return;
     }
-    traceArray.add(trace);
+    trackedTraces++;
+    schedule(trace);
   }
 
   public void flushAndCompact(long nowMilli) {
     if (nowMilli < lastFlushMilli + TimeUnit.SECONDS.toMillis(1)) {
       return;
     }
-    int i = 0;
-    while (i < traceArray.size()) {
-      PendingTrace trace = traceArray.get(i);
-      if (trace == null) {
-        cleanSlot(i);
-        continue;
+    long nowSecond = TimeUnit.MILLISECONDS.toSeconds(nowMilli);
+    if (!features.supportsLongRunning()) {
+      untrackAll();
+    } else if (nowSecond > checkedSecond) {
+      // check each slot at most once, even when more than a turn of the wheel has passed
+      long firstSecond =
+          checkedSecond == NO_SECOND
+              ? nowSecond - WHEEL_MASK
+              : Math.max(checkedSecond + 1, nowSecond - WHEEL_MASK);
+      checkedSecond = nowSecond;
+      purgeEmpty();
+      for (long second = firstSecond; second <= nowSecond; second++) {
+        flushSlot((int) (second & WHEEL_MASK), nowMilli);
       }
-      if (trace.empty() || !features.supportsLongRunning()) {
-        trace.compareAndSetLongRunningState(WRITE_RUNNING_SPANS, NOT_TRACKED);
-        cleanSlot(i);
-        continue;
+    }
+    lastFlushMilli = nowMilli;
+    flushStats();
+  }
+
+  private void flushSlot(int slot, long nowMilli) {
+    ArrayList<PendingTrace> due = wheel[slot];
+    if (due.isEmpty()) {
+      return;
+    }
+    // traces still tracked are rescheduled to later seconds, which may use this slot again
+    wheel[slot] = spareSlot;
+    for (int i = 0; i < due.size(); i++) {
+      flush(due.get(i), nowMilli);
+    }
+    due.clear();
+    spareSlot = due;
+  }
+
+  private void purgeEmpty() {
+    for (ArrayList<PendingTrace> slot : wheel) {
+      int i = 0;
+      while (i < slot.size()) {
+        PendingTrace trace = slot.get(i);
+        if (trace.empty()) {
+          trace.compareAndSetLongRunningState(WRITE_RUNNING_SPANS, NOT_TRACKED);
+          trackedTraces--;
+          // the order of the traces within a slot doesn't matter
+          int last = slot.size() - 1;
+          slot.set(i, slot.get(last));
+          slot.remove(last);
+        } else {
+          i++;
+        }
       }
-      if (hasExpired(nowMilli, trace)) {
-        trace.compareAndSetLongRunningState(WRITE_RUNNING_SPANS, EXPIRED);
-        expired++;
-        cleanSlot(i);
-        continue;
+    }
+  }
+
+  private void flush(PendingTrace trace, long nowMilli) {
+    if (trace.empty()) {
+      trace.compareAndSetLongRunningState(WRITE_RUNNING_SPANS, NOT_TRACKED);
+      trackedTraces--;
+      return;
+    }
+    if (hasExpired(nowMilli, trace)) {
+      trace.compareAndSetLongRunningState(WRITE_RUNNING_SPANS, EXPIRED);
+      expired++;
+      trackedTraces--;
+      return;
+    }
+    if (shouldFlush(nowMilli, trace)) {
+      if (negativeOrNullPriority(trace)) {
+        trace.compareAndSetLongRunningState(TRACKED, NOT_TRACKED);
+        trackedTraces--;
+        return;
       }
-      if (shouldFlush(nowMilli, trace)) {
-        if (negativeOrNullPriority(trace)) {
-          trace.compareAndSetLongRunningState(TRACKED, NOT_TRACKED);
-          cleanSlot(i);
-          continue;
-        }
-        trace.compareAndSetLongRunningState(TRACKED, WRITE_RUNNING_SPANS);
-        write++;
-        trace.write();
+      trace.compareAndSetLongRunningState(TRACKED, WRITE_RUNNING_SPANS);
+      write++;
+      trace.write();
+    }
+    schedule(trace);
+  }
+
+  private void schedule(PendingTrace trace) {
+    long traceStartTimeNano = trace.getRunningTraceStartTime();
+    long lastWriteTimeNano = trace.getLastWriteTime();
+    long startMilli = TimeUnit.NANOSECONDS.toMillis(traceStartTimeNano);
+    long flushMilli =
+        lastWriteTimeNano <= traceStartTimeNano
+            ? startMilli + initialFlushPeriodMilli
+            : TimeUnit.NANOSECONDS.toMillis(lastWriteTimeNano) + flushPeriodMilli;
+    long dueMilli = Math.min(flushMilli, startMilli + maxTrackedDurationMilli);
+    // traces are due strictly after their deadline, so at the earliest in the following second
+    long second = TimeUnit.MILLISECONDS.toSeconds(dueMilli) + 1;
+    if (checkedSecond != NO_SECOND) {
+      second = Math.min(Math.max(second, checkedSecond + 1), checkedSecond + WHEEL_SLOTS);
+    }
+    wheel[(int) (second & WHEEL_MASK)].add(trace);
+  }
+
+  private void untrackAll() {
+    for (ArrayList<PendingTrace> slot : wheel) {
+      for (int i = 0; i < slot.size(); i++) {
+        slot.get(i).compareAndSetLongRunningState(WRITE_RUNNING_SPANS, NOT_TRACKED);
       }
-      i++;
+      slot.clear();
     }
-    lastFlushMilli = nowMilli;
-    flushStats();
+    trackedTraces = 0;
   }
 
   private boolean hasExpired(long nowMilli, PendingTrace trace) {
@@ -122,12 +218,6 @@ public class LongRunningTracesTracker {
     return nowMilli - TimeUnit.NANOSECONDS.toMillis(lastWriteTimeNano) > flushPeriodMilli;
   }
 
-  private void cleanSlot(int index) {
-    int lastElementIndex = traceArray.size() - 1;
-    traceArray.set(index, traceArray.get(lastElementIndex));
-    traceArray.remove(lastElementIndex);
-  }
-
   private boolean negativeOrNullPriority(PendingTrace trace) {
     Integer prio = trace.evaluateSamplingPriority();
     return prio == null || prio <= 0;
@@ -135,6 +225,7 @@ public class LongRunningTracesTracker {
 
   private void flushStats() {
     healthMetrics.onLongRunningUpdate(dropped, write, expired);
+    healthMetrics.onLongRunningTracked(trackedTraces);
     dropped = 0;
     write = 0;
     expired = 0;
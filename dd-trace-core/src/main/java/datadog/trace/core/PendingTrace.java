@@ -4,6 +4,7 @@ import datadog.communication.monitor.Recording;
 import datadog.trace.api.DDTraceId;
 import datadog.trace.api.TraceConfig;
 import datadog.trace.api.sampling.PrioritySampling;
+import datadog.trace.api.time.CoarseTimeSource;
 import datadog.trace.api.time.TimeSource;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentTrace;
@@ -42,6 +43,12 @@ import org.slf4j.LoggerFactory;
  * <p>When the long-running traces feature is enabled, periodic writes are triggered by the
  * PendingTraceBuffer in addition to the other write conditions. Running spans are also written in
  * that case. <br>
+ *
+ * <p>When span streaming is enabled, finished spans are written in chunks of at most {@link
+ * CoreTracer#getSpanStreamingChunkSize()} spans as soon as that many have finished, so large traces
+ * don't keep every finished span on the heap until the root finishes. The sampling decision is
+ * made on the root span when the first chunk is written and applies to all later chunks, and the
+ * first span of every chunk carries the trace level tags.
  */
 public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
 
@@ -125,7 +132,8 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
 
   /**
    * During a trace there are cases where the root span must be accessed (e.g. priority sampling and
-   * trace-search tags). These use cases are an obstacle to span-streaming.
+   * trace-search tags). These use cases are an obstacle to span-streaming, which is why streamed
+   * chunks still refer back to the root span for the sampling decision and trace level tags.
    */
   private volatile DDSpan rootSpan = null;
 
@@ -189,6 +197,30 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
     return tracer.getTimeWithNanoTicks(nanoTicks);
   }
 
+  /**
+   * Current timestamp in nanoseconds for finishing a span which started at the given time;
+   * 'touches' the trace like {@link #getCurrentTimeNano()}.
+   *
+   * <p>When spans are timed with a coarse clock and the span looks shorter than its resolution, the
+   * precise clock is read instead so short spans keep a meaningful duration.
+   *
+   * @param startTimeNano the span's start timestamp in nanoseconds
+   * @return timestamp in nanoseconds
+   */
+  public long getFinishTimeNano(long startTimeNano) {
+    long nanoTicks = timeSource.getNanoTicks();
+    long finishTimeNano = tracer.getTimeWithNanoTicks(nanoTicks);
+    if (timeSource instanceof CoarseTimeSource) {
+      CoarseTimeSource coarseTimeSource = (CoarseTimeSource) timeSource;
+      if (finishTimeNano - startTimeNano < coarseTimeSource.getResolutionNanos()) {
+        nanoTicks = coarseTimeSource.getPreciseNanoTicks();
+        finishTimeNano = tracer.getTimeWithNanoTicks(nanoTicks);
+      }
+    }
+    lastReferenced = nanoTicks;
+    return finishTimeNano;
+  }
+
   public TimeSource getTimeSource() {
     return timeSource;
   }
@@ -292,6 +324,7 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
   enum PublishState {
     WRITTEN,
     PARTIAL_FLUSH,
+    STREAMED,
     ROOT_BUFFERED,
     BUFFERED,
     PENDING
@@ -303,6 +336,7 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
       throw new IllegalStateException("Pending reference count " + count + " is negative");
     }
     int partialFlushMinSpans = tracer.getPartialFlushMinSpans();
+    int spanStreamingChunkSize = tracer.getSpanStreamingChunkSize();
 
     if (count == 0 && (strictTraceWrites || !rootSpanWritten)) {
       // Finished with no pending work ... write immediately
@@ -312,6 +346,10 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
       // Finished root with pending work ... delay write
       pendingTraceBuffer.enqueue(this);
       return PublishState.ROOT_BUFFERED;
+    } else if (spanStreamingChunkSize > 0 && size() >= spanStreamingChunkSize) {
+      // Streaming, hand a bounded chunk of finished spans to the writer
+      streamChunk(spanStreamingChunkSize);
+      return PublishState.STREAMED;
     } else if (partialFlushMinSpans > 0 && size() >= partialFlushMinSpans) {
       // Trace is getting too big, write anything completed.
       partialFlush();
@@ -333,6 +371,31 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
     }
   }
 
+  /** Writes at most {@code chunkSize} finished spans, leaving any others for a later chunk. */
+  private void streamChunk(int chunkSize) {
+    try (Recording recording = tracer.writeTimer()) {
+      final List<DDSpan> chunk;
+      final int completedSpans;
+      synchronized (this) {
+        // another thread may have streamed the spans we were counting on
+        if (size() < chunkSize) {
+          return;
+        }
+        chunk = new ArrayList<>(chunkSize);
+        completedSpans = enqueueSpansToWrite(chunk, false, chunkSize);
+      }
+      if (!chunk.isEmpty()) {
+        COMPLETED_SPAN_COUNT.addAndGet(this, -completedSpans);
+        tracer.write(chunk);
+        healthMetrics.onCreateTrace();
+        healthMetrics.onPartialFlush(completedSpans);
+        if (log.isDebugEnabled()) {
+          log.debug("t_id={} -> streamed trace chunk of size {}", traceId, completedSpans);
+        }
+      }
+    }
+  }
+
   /** Important to note: may be called multiple times. */
   @Override
   public void write() {
@@ -380,6 +443,11 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
   }
 
   public int enqueueSpansToWrite(List<DDSpan> trace, boolean writeRunningSpans) {
+    return enqueueSpansToWrite(trace, writeRunningSpans, Integer.MAX_VALUE);
+  }
+
+  private int enqueueSpansToWrite(
+      List<DDSpan> trace, boolean writeRunningSpans, int maxCompletedSpans) {
     int completedSpans = 0;
     boolean runningSpanSeen = false;
     long firstRunningSpanID = 0;
@@ -398,7 +466,9 @@ public class PendingTrace implements AgentTrace, PendingTraceBuffer.Element {
       }
       if (span.isFinished()) {
         trace.add(span);
-        completedSpans++;
+        if (++completedSpans >= maxCompletedSpans) {
+          break;
+        }
       } else {
         // keep the running span in the list
         spans.add(span);
@@ -8,6 +8,7 @@ import datadog.communication.ddagent.SharedCommunicationObjects;
 import datadog.trace.api.Config;
 import datadog.trace.api.time.TimeSource;
 import datadog.trace.core.monitor.HealthMetrics;
+import java.util.PriorityQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.jctools.queues.MessagePassingQueue;
@@ -47,6 +48,8 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
     private static final long FORCE_SEND_DELAY_MS = TimeUnit.SECONDS.toMillis(5);
     private static final long SEND_DELAY_NS = TimeUnit.MILLISECONDS.toNanos(500);
     private static final long SLEEP_TIME_MS = 100;
+    private static final long RETRY_DELAY_NS = TimeUnit.MILLISECONDS.toNanos(SLEEP_TIME_MS);
+    private static final long MAX_WAIT_NS = TimeUnit.SECONDS.toNanos(1);
 
     private final MpscBlockingConsumerArrayQueue<Element> queue;
     private final Thread worker;
@@ -219,20 +222,148 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
       }
     }
 
+    /**
+     * Worker which, rather than requeueing traces which are too new to be written and sleeping,
+     * keeps them ordered by the time they are next due to be checked, and only wakes up when the
+     * earliest of them is due. The traces stay marked as enqueued while they are waiting, so spans
+     * finishing meanwhile don't enqueue them again, and the queue is only used to hand over new
+     * traces, which lets the buffer hold far more pending traces than the queue would.
+     *
+     * <p>New traces are checked as soon as they are handed over, like {@link Worker} does, then
+     * every {@link #SLEEP_TIME_MS} ms until they are written.
+     *
+     * <p>Pending traces are kept on the heap as they are, not serialized to off-heap staging:
+     * interceptors, sampling and payload assembly only run once the trace is written, so spans
+     * serialized any earlier would skip them. For the same reason the capacity defaults to the size
+     * of the regular buffer, holding more pending traces retains that much more heap.
+     */
+    private final class DeadlineWorker implements Runnable {
+      private final int capacity;
+      private final PriorityQueue<Pending> pending;
+
+      DeadlineWorker(int capacity) {
+        this.capacity = capacity;
+        this.pending = new PriorityQueue<>(Math.min(capacity, BUFFER_SIZE));
+      }
+
+      @Override
+      public void run() {
+        try {
+          while (!closed && !Thread.currentThread().isInterrupted()) {
+            Pending next = pending.peek();
+            long waitNanos =
+                next == null
+                    ? MAX_WAIT_NS
+                    : Math.min(MAX_WAIT_NS, next.deadlineNanos - timeSource.getNanoTicks());
+
+            Element pendingTrace = null;
+            if (waitNanos > 0) {
+              pendingTrace = queue.poll(waitNanos, TimeUnit.NANOSECONDS);
+            } else {
+              pendingTrace = queue.poll();
+            }
+            if (longRunningSpansEnabled()) {
+              runningTracesTracker.flushAndCompact(timeSource.getCurrentTimeMillis());
+            }
+
+            if (pendingTrace instanceof FlushElement) {
+              // Since this is an MPSC queue, the drain needs to be called on the consumer thread
+              queue.drain(WriteDrain.WRITE_DRAIN);
+              writeAll();
+              flushCounter.incrementAndGet();
+              continue;
+            }
+            if (pendingTrace != null) {
+              accept(pendingTrace);
+            }
+            releaseDue();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      private void accept(Element pendingTrace) {
+        if (longRunningSpansEnabled() && runningTracesTracker.add(pendingTrace)) {
+          pendingTrace.setEnqueued(false);
+          return;
+        }
+        if (pending.size() >= capacity) {
+          pendingTrace.setEnqueued(false);
+          if (pendingTrace.writeOnBufferFull()) {
+            pendingTrace.write();
+          }
+          return;
+        }
+        // due right away, releaseDue checks it before the worker waits again
+        pending.offer(new Pending(pendingTrace, timeSource.getNanoTicks()));
+      }
+
+      private void releaseDue() {
+        long now = timeSource.getNanoTicks();
+        Pending next;
+        while ((next = pending.peek()) != null && next.deadlineNanos - now <= 0) {
+          pending.poll();
+          Element pendingTrace = next.element;
+          long finishTimestampMillis =
+              TimeUnit.NANOSECONDS.toMillis(pendingTrace.oldestFinishedTime());
+          if (finishTimestampMillis <= timeSource.getCurrentTimeMillis() - FORCE_SEND_DELAY_MS
+              || pendingTrace.lastReferencedNanosAgo(SEND_DELAY_NS)) {
+            // Root span is getting old or trace has been unmodified long enough, so write it.
+            pendingTrace.setEnqueued(false);
+            pendingTrace.write();
+          } else {
+            // Trace is too new, check it again later.
+            next.deadlineNanos = now + RETRY_DELAY_NS;
+            pending.offer(next);
+          }
+        }
+      }
+
+      private void writeAll() {
+        Pending next;
+        while ((next = pending.poll()) != null) {
+          next.element.setEnqueued(false);
+          next.element.write();
+        }
+      }
+    }
+
+    private static final class Pending implements Comparable<Pending> {
+      final Element element;
+      long deadlineNanos;
+
+      Pending(Element element, long deadlineNanos) {
+        this.element = element;
+        this.deadlineNanos = deadlineNanos;
+      }
+
+      @Override
+      public int compareTo(Pending other) {
+        return Long.compare(deadlineNanos - other.deadlineNanos, 0);
+      }
+    }
+
     public DelayingPendingTraceBuffer(
         int bufferSize,
+        boolean deadlineOrdered,
         TimeSource timeSource,
         Config config,
         SharedCommunicationObjects sharedCommunicationObjects,
         HealthMetrics healthMetrics) {
       this.queue = new MpscBlockingConsumerArrayQueue<>(bufferSize);
-      this.worker = newAgentThread(TRACE_MONITOR, new Worker());
+      this.worker =
+          newAgentThread(
+              TRACE_MONITOR, deadlineOrdered ? new DeadlineWorker(bufferSize) : new Worker());
       this.timeSource = timeSource;
       boolean runningSpansEnabled = config.isLongRunningTraceEnabled();
       this.runningTracesTracker =
           runningSpansEnabled
               ? new LongRunningTracesTracker(
-                  config, bufferSize, sharedCommunicationObjects, healthMetrics)
+                  config,
+                  config.getLongRunningTraceMaxTrackedTraces(),
+                  sharedCommunicationObjects,
+                  healthMetrics)
               : null;
     }
   }
@@ -261,8 +392,17 @@ public abstract class PendingTraceBuffer implements AutoCloseable {
       Config config,
       SharedCommunicationObjects sharedCommunicationObjects,
       HealthMetrics healthMetrics) {
+    if (config.isPendingTraceBufferDeadlineEnabled()) {
+      return new DelayingPendingTraceBuffer(
+          config.getPendingTraceBufferDeadlineCapacity(),
+          true,
+          timeSource,
+          config,
+          sharedCommunicationObjects,
+          healthMetrics);
+    }
     return new DelayingPendingTraceBuffer(
-        BUFFER_SIZE, timeSource, config, sharedCommunicationObjects, healthMetrics);
+        BUFFER_SIZE, false, timeSource, config, sharedCommunicationObjects, healthMetrics);
   }
 
   public static PendingTraceBuffer discarding() {
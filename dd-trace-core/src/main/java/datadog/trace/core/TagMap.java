@@ -0,0 +1,390 @@
+package datadog.trace.core;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Open-addressing map used to hold span tags.
+ *
+ * <p>Numeric and boolean values set through the primitive {@code put*} methods are stored unboxed
+ * and only boxed if they are read back through the {@link Map} interface. Serializers can avoid
+ * boxing altogether by walking the slots directly:
+ *
+ * <pre>{@code
+ * for (int i = tags.first(); i >= 0; i = tags.next(i)) {
+ *   switch (tags.typeAt(i)) { ... }
+ * }
+ * }</pre>
+ *
+ * <p>This class is not thread-safe, callers are expected to synchronize externally in the same way
+ * as they would for a {@link java.util.HashMap}.
+ */
+public final class TagMap extends AbstractMap<String, Object> {
+  public static final byte OBJECT = 0;
+  public static final byte INT = 1;
+  public static final byte LONG = 2;
+  public static final byte FLOAT = 3;
+  public static final byte DOUBLE = 4;
+  public static final byte BOOLEAN = 5;
+
+  // marks a removed slot so that probe sequences stay intact; identity comparison only
+  @SuppressWarnings("StringOperationCanBeSimplified")
+  private static final String REMOVED = new String("");
+
+  private String[] keys;
+  private Object[] objects;
+  private long[] primitives;
+  private byte[] types;
+  private int size;
+  // number of slots which are either occupied or REMOVED
+  private int used;
+  private int modCount;
+
+  private Set<Map.Entry<String, Object>> entrySet;
+
+  public TagMap() {
+    this(8);
+  }
+
+  public TagMap(int expectedSize) {
+    allocate(tableSizeFor(expectedSize));
+  }
+
+  private static int tableSizeFor(int expectedSize) {
+    int minCapacity = Math.max(expectedSize, 2) * 4 / 3 + 1;
+    return Integer.highestOneBit(minCapacity - 1) << 1;
+  }
+
+  private void allocate(int capacity) {
+    keys = new String[capacity];
+    objects = new Object[capacity];
+    primitives = new long[capacity];
+    types = new byte[capacity];
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private int indexOf(Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+    String[] keys = this.keys;
+    int mask = keys.length - 1;
+    int i = hash((String) key) & mask;
+    String k;
+    while ((k = keys[i]) != null) {
+      if (k != REMOVED && (k == key || k.equals(key))) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    return -1;
+  }
+
+  /** @return the slot to write {@code key} to, which may already hold the key */
+  private int slotFor(String key) {
+    if ((used + 1) * 4 > keys.length * 3) {
+      // grow if mostly live entries, otherwise just purge the removed slots
+      resize(size * 2 > keys.length / 2 ? keys.length << 1 : keys.length);
+    }
+    String[] keys = this.keys;
+    int mask = keys.length - 1;
+    int i = hash(key) & mask;
+    int removed = -1;
+    String k;
+    while ((k = keys[i]) != null) {
+      if (k == REMOVED) {
+        if (removed < 0) {
+          removed = i;
+        }
+      } else if (k == key || k.equals(key)) {
+        return i;
+      }
+      i = (i + 1) & mask;
+    }
+    if (removed >= 0) {
+      i = removed;
+    } else {
+      ++used;
+    }
+    keys[i] = key;
+    ++size;
+    ++modCount;
+    return i;
+  }
+
+  private void resize(int capacity) {
+    String[] oldKeys = keys;
+    Object[] oldObjects = objects;
+    long[] oldPrimitives = primitives;
+    byte[] oldTypes = types;
+    allocate(capacity);
+    int mask = capacity - 1;
+    for (int j = 0; j < oldKeys.length; ++j) {
+      String key = oldKeys[j];
+      if (key != null && key != REMOVED) {
+        int i = hash(key) & mask;
+        while (keys[i] != null) {
+          i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        objects[i] = oldObjects[j];
+        primitives[i] = oldPrimitives[j];
+        types[i] = oldTypes[j];
+      }
+    }
+    used = size;
+  }
+
+  private void clearSlot(int i) {
+    keys[i] = REMOVED;
+    objects[i] = null;
+    primitives[i] = 0;
+    types[i] = OBJECT;
+    --size;
+    ++modCount;
+  }
+
+  public void putInt(String key, int value) {
+    putPrimitive(key, INT, value);
+  }
+
+  public void putLong(String key, long value) {
+    putPrimitive(key, LONG, value);
+  }
+
+  public void putFloat(String key, float value) {
+    putPrimitive(key, FLOAT, Float.floatToRawIntBits(value));
+  }
+
+  public void putDouble(String key, double value) {
+    putPrimitive(key, DOUBLE, Double.doubleToRawLongBits(value));
+  }
+
+  public void putBoolean(String key, boolean value) {
+    putPrimitive(key, BOOLEAN, value ? 1 : 0);
+  }
+
+  private void putPrimitive(String key, byte type, long bits) {
+    int i = slotFor(key);
+    objects[i] = null;
+    primitives[i] = bits;
+    types[i] = type;
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    if (key == null) {
+      throw new NullPointerException("key");
+    }
+    int i = slotFor(key);
+    Object previous = valueAt(i);
+    objects[i] = value;
+    primitives[i] = 0;
+    types[i] = OBJECT;
+    return previous;
+  }
+
+  @Override
+  public Object get(Object key) {
+    int i = indexOf(key);
+    return i < 0 ? null : valueAt(i);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public Object remove(Object key) {
+    int i = indexOf(key);
+    if (i < 0) {
+      return null;
+    }
+    Object previous = valueAt(i);
+    clearSlot(i);
+    return previous;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @Override
+  public void clear() {
+    if (used > 0) {
+      Arrays.fill(keys, null);
+      Arrays.fill(objects, null);
+      Arrays.fill(primitives, 0);
+      Arrays.fill(types, OBJECT);
+      size = 0;
+      used = 0;
+      ++modCount;
+    }
+  }
+
+  /** @return the first occupied slot, or -1 if the map is empty */
+  public int first() {
+    return next(-1);
+  }
+
+  /** @return the next occupied slot after {@code slot}, or -1 if there are no more */
+  public int next(int slot) {
+    String[] keys = this.keys;
+    for (int i = slot + 1; i < keys.length; ++i) {
+      String key = keys[i];
+      if (key != null && key != REMOVED) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public String keyAt(int slot) {
+    return keys[slot];
+  }
+
+  public byte typeAt(int slot) {
+    return types[slot];
+  }
+
+  /** @return whether the value in the slot should be serialized as a metric */
+  public boolean isNumberAt(int slot) {
+    byte type = types[slot];
+    return type == OBJECT ? objects[slot] instanceof Number : type != BOOLEAN;
+  }
+
+  public int intAt(int slot) {
+    return (int) primitives[slot];
+  }
+
+  public long longAt(int slot) {
+    return primitives[slot];
+  }
+
+  public float floatAt(int slot) {
+    return Float.intBitsToFloat((int) primitives[slot]);
+  }
+
+  public double doubleAt(int slot) {
+    return Double.longBitsToDouble(primitives[slot]);
+  }
+
+  /** @return the value in the slot, boxing it if it is stored unboxed */
+  public Object valueAt(int slot) {
+    switch (types[slot]) {
+      case INT:
+        return intAt(slot);
+      case LONG:
+        return longAt(slot);
+      case FLOAT:
+        return floatAt(slot);
+      case DOUBLE:
+        return doubleAt(slot);
+      case BOOLEAN:
+        return primitives[slot] != 0;
+      default:
+        return objects[slot];
+    }
+  }
+
+  @Override
+  public Set<Map.Entry<String, Object>> entrySet() {
+    Set<Map.Entry<String, Object>> entrySet = this.entrySet;
+    if (entrySet == null) {
+      this.entrySet = entrySet = new EntrySet();
+    }
+    return entrySet;
+  }
+
+  private final class EntrySet extends AbstractSet<Map.Entry<String, Object>> {
+    @Override
+    public Iterator<Map.Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+
+    @Override
+    public void clear() {
+      TagMap.this.clear();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+    private int next = first();
+    private int current = -1;
+    private int expectedModCount = modCount;
+
+    @Override
+    public boolean hasNext() {
+      return next >= 0;
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      if (next < 0) {
+        throw new NoSuchElementException();
+      }
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      current = next;
+      next = TagMap.this.next(next);
+      return new Entry(current);
+    }
+
+    @Override
+    public void remove() {
+      if (current < 0) {
+        throw new IllegalStateException();
+      }
+      if (modCount != expectedModCount) {
+        throw new ConcurrentModificationException();
+      }
+      // removal leaves a marker in the slot, so the iteration order is unaffected
+      clearSlot(current);
+      current = -1;
+      expectedModCount = modCount;
+    }
+  }
+
+  private final class Entry extends AbstractMap.SimpleEntry<String, Object> {
+    private final int slot;
+
+    Entry(int slot) {
+      super(keys[slot], valueAt(slot));
+      this.slot = slot;
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      if (keys[slot] != getKey()) {
+        throw new ConcurrentModificationException();
+      }
+      objects[slot] = value;
+      primitives[slot] = 0;
+      types[slot] = OBJECT;
+      return super.setValue(value);
+    }
+  }
+}
@@ -8,6 +8,7 @@ import datadog.communication.serialization.WritableFormatter;
 import datadog.communication.serialization.msgpack.MsgPackWriter;
 import datadog.trace.api.WellKnownTags;
 import datadog.trace.common.metrics.Sink;
+import datadog.trace.core.histogram.HistogramSerializer;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -37,6 +38,7 @@ public class MsgPackDatastreamsPayloadWriter implements DatastreamsPayloadWriter
   private final WritableFormatter writer;
   private final Sink sink;
   private final GrowableBuffer buffer;
+  private final HistogramSerializer histograms = new HistogramSerializer();
   private final WellKnownTags wellKnownTags;
   private final byte[] tracerVersionValue;
   private final byte[] primaryTagValue;
@@ -123,15 +125,17 @@ public class MsgPackDatastreamsPayloadWriter implements DatastreamsPayloadWriter
 
       /* 1 */
       packer.writeUTF8(PATHWAY_LATENCY);
-      packer.writeBinary(group.getPathwayLatency().serialize());
+      histograms.writeBinary(packer, group.getPathwayLatency());
 
       /* 2 */
       packer.writeUTF8(EDGE_LATENCY);
-      packer.writeBinary(group.getEdgeLatency().serialize());
+      histograms.writeBinary(packer, group.getEdgeLatency());
 
       /* 3 */
       packer.writeUTF8(PAYLOAD_SIZE);
-      packer.writeBinary(group.getPayloadSize().serialize());
+      histograms.writeBinary(packer, group.getPayloadSize());
+      // the buckets are dropped once written, so the bins can be reused by the next ones
+      group.release();
 
       /* 4 */
       packer.writeUTF8(HASH);
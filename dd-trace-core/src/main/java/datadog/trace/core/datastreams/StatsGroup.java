@@ -1,7 +1,7 @@
 package datadog.trace.core.datastreams;
 
-import datadog.trace.core.histogram.Histogram;
 import datadog.trace.core.histogram.Histograms;
+import datadog.trace.core.histogram.PooledHistogram;
 import java.util.List;
 
 public class StatsGroup {
@@ -10,17 +10,17 @@ public class StatsGroup {
   private final List<String> edgeTags;
   private final long hash;
   private final long parentHash;
-  private final Histogram pathwayLatency;
-  private final Histogram edgeLatency;
-  private final Histogram payloadSize;
+  private final PooledHistogram pathwayLatency;
+  private final PooledHistogram edgeLatency;
+  private final PooledHistogram payloadSize;
 
   public StatsGroup(List<String> edgeTags, long hash, long parentHash) {
     this.edgeTags = edgeTags;
     this.hash = hash;
     this.parentHash = parentHash;
-    pathwayLatency = Histograms.newHistogram();
-    edgeLatency = Histograms.newHistogram();
-    payloadSize = Histograms.newHistogram();
+    pathwayLatency = Histograms.newPooledHistogram();
+    edgeLatency = Histograms.newPooledHistogram();
+    payloadSize = Histograms.newPooledHistogram();
   }
 
   public void add(long pathwayLatencyNano, long edgeLatencyNano, long payloadSizeBytes) {
@@ -43,18 +43,25 @@ public class StatsGroup {
     return parentHash;
   }
 
-  public Histogram getPathwayLatency() {
+  public PooledHistogram getPathwayLatency() {
     return pathwayLatency;
   }
 
-  public Histogram getEdgeLatency() {
+  public PooledHistogram getEdgeLatency() {
     return edgeLatency;
   }
 
-  public Histogram getPayloadSize() {
+  public PooledHistogram getPayloadSize() {
     return payloadSize;
   }
 
+  /** Returns the histograms' bins to the pool once the group has been reported. */
+  public void release() {
+    pathwayLatency.clear();
+    edgeLatency.clear();
+    payloadSize.clear();
+  }
+
   @Override
   public String toString() {
     return "StatsGroup{"
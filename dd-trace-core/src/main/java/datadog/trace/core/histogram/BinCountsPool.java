@@ -0,0 +1,64 @@
+package datadog.trace.core.histogram;
+
+import java.util.Queue;
+import org.jctools.queues.MpmcArrayQueue;
+
+/**
+ * Recycles the bin count arrays of {@link PooledHistogram}s between reporting intervals. Arrays are
+ * pooled in power of two size classes from {@link #MIN_LENGTH} up to the maximum number of bins,
+ * and must be zeroed before they are released.
+ */
+final class BinCountsPool {
+
+  static final int MIN_LENGTH = 64;
+
+  static final BinCountsPool SHARED = new BinCountsPool(1024, 256);
+
+  private final int maxLength;
+  private final Queue<double[]>[] sizeClasses;
+
+  /**
+   * @param maxLength the largest array length, rounded up to a power of two
+   * @param maxPooled the number of arrays kept in each size class
+   */
+  @SuppressWarnings("unchecked")
+  BinCountsPool(int maxLength, int maxPooled) {
+    this.maxLength = lengthFor(maxLength, Integer.MAX_VALUE);
+    int classes = sizeClass(this.maxLength) + 1;
+    this.sizeClasses = new Queue[classes];
+    for (int i = 0; i < classes; ++i) {
+      sizeClasses[i] = new MpmcArrayQueue<>(Math.max(2, maxPooled));
+    }
+  }
+
+  int maxLength() {
+    return maxLength;
+  }
+
+  /** @return a zeroed array at least {@code minLength} long, but no longer than the maximum */
+  double[] acquire(int minLength) {
+    int length = lengthFor(minLength, maxLength);
+    double[] counts = sizeClasses[sizeClass(length)].poll();
+    return null == counts ? new double[length] : counts;
+  }
+
+  /** Returns a zeroed array to the pool, arrays that weren't acquired from this pool are dropped */
+  void release(double[] counts) {
+    int length = counts.length;
+    if (length >= MIN_LENGTH && length <= maxLength && Integer.bitCount(length) == 1) {
+      sizeClasses[sizeClass(length)].offer(counts);
+    }
+  }
+
+  private static int lengthFor(int minLength, int maxLength) {
+    if (minLength <= MIN_LENGTH) {
+      return MIN_LENGTH;
+    }
+    int length = Integer.highestOneBit(minLength - 1) << 1;
+    return length > 0 ? Math.min(length, maxLength) : maxLength;
+  }
+
+  private static int sizeClass(int length) {
+    return Integer.numberOfTrailingZeros(length) - Integer.numberOfTrailingZeros(MIN_LENGTH);
+  }
+}
@@ -0,0 +1,24 @@
+package datadog.trace.core.histogram;
+
+import datadog.communication.serialization.Writable;
+import java.nio.ByteBuffer;
+
+/**
+ * Writes {@link PooledHistogram}s as binary values through a reusable scratch buffer, so payload
+ * writers don't allocate a buffer per histogram. Not thread-safe, each payload writer should have
+ * its own.
+ */
+public final class HistogramSerializer {
+
+  private ByteBuffer scratch = ByteBuffer.allocate(4096);
+
+  public void writeBinary(Writable writable, PooledHistogram histogram) {
+    int size = histogram.serializedSize();
+    if (scratch.capacity() < size) {
+      scratch = ByteBuffer.allocate(Math.max(size, scratch.capacity() << 1));
+    }
+    scratch.clear();
+    histogram.serialize(scratch);
+    writable.writeBinary(scratch.array(), 0, scratch.position());
+  }
+}
@@ -19,4 +19,13 @@ public final class Histograms {
     DDSketch sketch = DDSketches.logarithmicCollapsingLowestDense(relativeAccuracy, maxNumBins);
     return new Histogram(sketch);
   }
+
+  /**
+   * Creates a histogram which only holds on to its bins until it's cleared, for histograms which
+   * are refilled every reporting interval. It has the same index mapping as {@link
+   * #newHistogram()}.
+   */
+  public static PooledHistogram newPooledHistogram() {
+    return new PooledHistogram(INDEX_MAPPING, BinCountsPool.SHARED);
+  }
 }
@@ -0,0 +1,152 @@
+package datadog.trace.core.histogram;
+
+import java.util.Arrays;
+
+/**
+ * A dense bin store which borrows its counts from a {@link BinCountsPool}. The array is only held
+ * while the store is non-empty and grows through the pool's size classes as the range of indexes
+ * widens. Once the range exceeds the largest size class the lowest bins are collapsed together, so
+ * the accuracy of the highest values is preserved. Not thread-safe.
+ */
+final class PooledBinStore {
+
+  private final BinCountsPool pool;
+
+  private double[] counts;
+  private int offset;
+  private int minIndex;
+  private int maxIndex;
+  private double totalCount;
+
+  PooledBinStore(BinCountsPool pool) {
+    this.pool = pool;
+  }
+
+  boolean isEmpty() {
+    return totalCount == 0;
+  }
+
+  double getTotalCount() {
+    return totalCount;
+  }
+
+  int getMinIndex() {
+    return minIndex;
+  }
+
+  int getMaxIndex() {
+    return maxIndex;
+  }
+
+  double getCount(int index) {
+    return null == counts || index < minIndex || index > maxIndex ? 0 : counts[index - offset];
+  }
+
+  void add(int index, double count) {
+    if (count <= 0) {
+      return;
+    }
+    if (null == counts) {
+      counts = pool.acquire(BinCountsPool.MIN_LENGTH);
+      offset = index - (counts.length >> 1);
+      minIndex = index;
+      maxIndex = index;
+    } else if (index < minIndex || index > maxIndex) {
+      index = extendRange(index);
+    }
+    counts[index - offset] += count;
+    totalCount += count;
+  }
+
+  /** Adds the bins of the other store to this one without modifying it. */
+  void mergeWith(PooledBinStore other) {
+    if (other.isEmpty()) {
+      return;
+    }
+    // extend the range to both ends first so the bins are moved at most twice
+    add(other.maxIndex, other.counts[other.maxIndex - other.offset]);
+    if (other.minIndex < other.maxIndex) {
+      add(other.minIndex, other.counts[other.minIndex - other.offset]);
+    }
+    for (int index = other.minIndex + 1; index < other.maxIndex; ++index) {
+      add(index, other.counts[index - other.offset]);
+    }
+  }
+
+  /** Empties the store and returns its counts to the pool. */
+  void clear() {
+    if (null != counts) {
+      Arrays.fill(counts, minIndex - offset, maxIndex - offset + 1, 0D);
+      pool.release(counts);
+      counts = null;
+    }
+    totalCount = 0;
+  }
+
+  /** @return the index the count should be added to, which differs when it has been collapsed */
+  private int extendRange(int index) {
+    int newMinIndex = Math.min(index, minIndex);
+    int newMaxIndex = Math.max(index, maxIndex);
+    if (newMinIndex >= offset && newMaxIndex < offset + counts.length) {
+      minIndex = newMinIndex;
+      maxIndex = newMaxIndex;
+      return index;
+    }
+    int range = newMaxIndex - newMinIndex + 1;
+    double[] target = counts;
+    if (range > counts.length && counts.length < pool.maxLength()) {
+      target = pool.acquire(range);
+    }
+    if (range <= target.length) {
+      // leave the same amount of room on either side of the new range
+      relocate(target, newMinIndex - ((target.length - range) >> 1));
+      minIndex = newMinIndex;
+      maxIndex = newMaxIndex;
+      return index;
+    }
+    int newOffset = newMaxIndex - target.length + 1;
+    relocate(target, newOffset);
+    minIndex = Math.max(newMinIndex, newOffset);
+    maxIndex = newMaxIndex;
+    return Math.max(index, newOffset);
+  }
+
+  /**
+   * Moves the bins into the target array, which is either the current array or a zeroed one, so
+   * that it starts at the new offset. Bins below the new offset are collapsed into the first bin.
+   */
+  private void relocate(double[] target, int newOffset) {
+    double collapsed = 0;
+    int from = minIndex;
+    for (; from <= maxIndex && from < newOffset; ++from) {
+      collapsed += counts[from - offset];
+      counts[from - offset] = 0;
+    }
+    if (from <= maxIndex) {
+      int length = maxIndex - from + 1;
+      int oldStart = from - offset;
+      int newStart = from - newOffset;
+      System.arraycopy(counts, oldStart, target, newStart, length);
+      // zero whatever part of the old range the copy didn't overwrite
+      if (target != counts) {
+        Arrays.fill(counts, oldStart, oldStart + length, 0D);
+      } else if (newStart < oldStart) {
+        Arrays.fill(counts, Math.max(oldStart, newStart + length), oldStart + length, 0D);
+      } else if (newStart > oldStart) {
+        Arrays.fill(counts, oldStart, Math.min(oldStart + length, newStart), 0D);
+      }
+    }
+    if (collapsed > 0) {
+      target[0] += collapsed;
+      minIndex = newOffset;
+      if (maxIndex < newOffset) {
+        maxIndex = newOffset;
+      }
+    }
+    if (target != counts) {
+      pool.release(counts);
+      counts = target;
+    }
+    offset = newOffset;
+  }
+}
@@ -0,0 +1,270 @@
+package datadog.trace.core.histogram;
+
+import com.datadoghq.sketch.ddsketch.DDSketch;
+import com.datadoghq.sketch.ddsketch.mapping.BitwiseLinearlyInterpolatedMapping;
+import com.datadoghq.sketch.ddsketch.mapping.IndexMapping;
+import com.datadoghq.sketch.ddsketch.store.CollapsingLowestDenseStore;
+import datadog.trace.bootstrap.instrumentation.api.AgentHistogram;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A DDSketch whose bins are held in arrays borrowed from a {@link BinCountsPool}. It indexes values
+ * with the DDSketch library's {@link IndexMapping}, so the bins and their encoding are the same as
+ * those of the sketches made by {@link Histograms#newHistogram()}. Clearing the histogram at the
+ * end of a reporting interval returns the arrays to the pool, so histograms which are recreated or
+ * refilled every interval don't allocate new bins.
+ *
+ * <p>Histograms can be merged in place and serialize straight to the DDSketch protobuf format,
+ * either into a new buffer or into a reusable one provided by the caller. Not thread-safe.
+ */
+public final class PooledHistogram implements AgentHistogram {
+
+  // protobuf field keys of the DDSketch, IndexMapping and Store messages
+  private static final int SKETCH_MAPPING = (1 << 3) | 2;
+  private static final int SKETCH_POSITIVE_VALUES = (2 << 3) | 2;
+  private static final int SKETCH_NEGATIVE_VALUES = (3 << 3) | 2;
+  private static final int SKETCH_ZERO_COUNT = (4 << 3) | 1;
+  private static final int STORE_CONTIGUOUS_BIN_COUNTS = (2 << 3) | 2;
+  private static final int STORE_CONTIGUOUS_BIN_INDEX_OFFSET = 3 << 3;
+
+  private final IndexMapping mapping;
+  private final double minIndexableValue;
+  private final byte[] encodedMapping;
+  private final PooledBinStore positiveValues;
+  private final PooledBinStore negativeValues;
+  private double zeroCount;
+
+  PooledHistogram(double relativeAccuracy, BinCountsPool pool) {
+    this(new BitwiseLinearlyInterpolatedMapping(relativeAccuracy), pool);
+  }
+
+  PooledHistogram(IndexMapping mapping, BinCountsPool pool) {
+    this.mapping = mapping;
+    this.minIndexableValue = mapping.minIndexableValue();
+    this.encodedMapping = encodeMapping(mapping);
+    this.positiveValues = new PooledBinStore(pool);
+    this.negativeValues = new PooledBinStore(pool);
+  }
+
+  private int index(double value) {
+    return mapping.index(value);
+  }
+
+  private double value(int index) {
+    return mapping.value(index);
+  }
+
+  @Override
+  public double getCount() {
+    return zeroCount + positiveValues.getTotalCount() + negativeValues.getTotalCount();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return getCount() == 0;
+  }
+
+  @Override
+  public void accept(double value) {
+    accept(value, 1);
+  }
+
+  @Override
+  public void accept(double value, double count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("The count cannot be negative.");
+    }
+    if (value > minIndexableValue) {
+      positiveValues.add(index(value), count);
+    } else if (value < -minIndexableValue) {
+      negativeValues.add(index(-value), count);
+    } else {
+      zeroCount += count;
+    }
+  }
+
+  /** Adds the values of the other histogram, which must have the same index mapping. */
+  public void mergeWith(PooledHistogram other) {
+    if (!Arrays.equals(encodedMapping, other.encodedMapping)) {
+      throw new IllegalArgumentException(
+          "The histograms don't have the same relative accuracy, and cannot be merged.");
+    }
+    positiveValues.mergeWith(other.positiveValues);
+    negativeValues.mergeWith(other.negativeValues);
+    zeroCount += other.zeroCount;
+  }
+
+  @Override
+  public double getValueAtQuantile(double quantile) {
+    double count = getCount();
+    if (quantile < 0 || quantile > 1 || count == 0) {
+      throw new NoSuchElementException();
+    }
+    double rank = quantile * (count - 1);
+    double n = 0;
+    if (!negativeValues.isEmpty()) {
+      for (int i = negativeValues.getMaxIndex(); i >= negativeValues.getMinIndex(); --i) {
+        if ((n += negativeValues.getCount(i)) > rank) {
+          return -value(i);
+        }
+      }
+    }
+    if ((n += zeroCount) > rank) {
+      return 0;
+    }
+    for (int i = positiveValues.getMinIndex(); i <= positiveValues.getMaxIndex(); ++i) {
+      if ((n += positiveValues.getCount(i)) > rank) {
+        return value(i);
+      }
+    }
+    return value(positiveValues.getMaxIndex());
+  }
+
+  @Override
+  public double getMinValue() {
+    if (!negativeValues.isEmpty()) {
+      return -value(negativeValues.getMaxIndex());
+    } else if (zeroCount > 0) {
+      return 0;
+    } else if (!positiveValues.isEmpty()) {
+      return value(positiveValues.getMinIndex());
+    }
+    throw new NoSuchElementException();
+  }
+
+  @Override
+  public double getMaxValue() {
+    if (!positiveValues.isEmpty()) {
+      return value(positiveValues.getMaxIndex());
+    } else if (zeroCount > 0) {
+      return 0;
+    } else if (!negativeValues.isEmpty()) {
+      return -value(negativeValues.getMinIndex());
+    }
+    throw new NoSuchElementException();
+  }
+
+  /** Empties the histogram and returns its bins to the pool. */
+  @Override
+  public void clear() {
+    positiveValues.clear();
+    negativeValues.clear();
+    zeroCount = 0;
+  }
+
+  @Override
+  public ByteBuffer serialize() {
+    ByteBuffer buffer = ByteBuffer.allocate(serializedSize());
+    serialize(buffer);
+    buffer.flip();
+    return buffer;
+  }
+
+  /** @return the number of bytes {@link #serialize(ByteBuffer)} will write */
+  public int serializedSize() {
+    int positiveSize = storeSize(positiveValues);
+    int negativeSize = storeSize(negativeValues);
+    return encodedMapping.length
+        + 1
+        + varIntSize(positiveSize)
+        + positiveSize
+        + 1
+        + varIntSize(negativeSize)
+        + negativeSize
+        + (zeroCount != 0 ? 1 + 8 : 0);
+  }
+
+  /**
+   * Writes the histogram in the DDSketch protobuf format at the buffer's position, which must have
+   * at least {@link #serializedSize()} bytes remaining.
+   */
+  public void serialize(ByteBuffer buffer) {
+    buffer.put(encodedMapping);
+    buffer.put((byte) SKETCH_POSITIVE_VALUES);
+    writeVarInt(buffer, storeSize(positiveValues));
+    writeStore(buffer, positiveValues);
+    buffer.put((byte) SKETCH_NEGATIVE_VALUES);
+    writeVarInt(buffer, storeSize(negativeValues));
+    writeStore(buffer, negativeValues);
+    if (zeroCount != 0) {
+      buffer.put((byte) SKETCH_ZERO_COUNT);
+      writeDouble(buffer, zeroCount);
+    }
+  }
+
+  /**
+   * Returns the mapping field of the DDSketch message as the library writes it, which is the first
+   * field of the sketch. It's only done once per histogram, not on every serialization.
+   */
+  private static byte[] encodeMapping(IndexMapping mapping) {
+    ByteBuffer sketch = new DDSketch(mapping, () -> new CollapsingLowestDenseStore(1)).serialize();
+    int start = sketch.position();
+    if (sketch.get() != SKETCH_MAPPING) {
+      throw new IllegalStateException("The sketch encoding doesn't start with the index mapping.");
+    }
+    int length = 0;
+    int shift = 0;
+    byte b;
+    do {
+      b = sketch.get();
+      length |= (b & 0x7F) << shift;
+      shift += 7;
+    } while (b < 0);
+    byte[] encoded = new byte[sketch.position() - start + length];
+    sketch.position(start);
+    sketch.get(encoded);
+    return encoded;
+  }
+
+  private static int storeSize(PooledBinStore store) {
+    if (store.isEmpty()) {
+      return 0;
+    }
+    int countsSize = (store.getMaxIndex() - store.getMinIndex() + 1) * 8;
+    return 1
+        + varIntSize(countsSize)
+        + countsSize
+        + 1
+        + varIntSize(zigZag(store.getMinIndex()));
+  }
+
+  private static void writeStore(ByteBuffer buffer, PooledBinStore store) {
+    if (store.isEmpty()) {
+      return;
+    }
+    int minIndex = store.getMinIndex();
+    int maxIndex = store.getMaxIndex();
+    buffer.put((byte) STORE_CONTIGUOUS_BIN_COUNTS);
+    writeVarInt(buffer, (maxIndex - minIndex + 1) * 8);
+    for (int i = minIndex; i <= maxIndex; ++i) {
+      writeDouble(buffer, store.getCount(i));
+    }
+    buffer.put((byte) STORE_CONTIGUOUS_BIN_INDEX_OFFSET);
+    writeVarInt(buffer, zigZag(minIndex));
+  }
+
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int varIntSize(int value) {
+    return ((31 - Integer.numberOfLeadingZeros(value | 1)) / 7) + 1;
+  }
+
+  private static void writeVarInt(ByteBuffer buffer, int value) {
+    while ((value & ~0x7F) != 0) {
+      buffer.put((byte) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  private static void writeDouble(ByteBuffer buffer, double value) {
+    // protobuf fixed width values are little endian
+    long bits = Double.doubleToRawLongBits(value);
+    buffer.putLong(buffer.order() == ByteOrder.LITTLE_ENDIAN ? bits : Long.reverseBytes(bits));
+  }
+}
@@ -43,8 +43,24 @@ public abstract class HealthMetrics implements AutoCloseable {
 
   public void onSerialize(final int serializedSizeInBytes) {}
 
+  public void onShardOverflow(final int shard) {}
+
+  public void onShardSerialize(final int shard) {}
+
+  public void onBufferPoolStats(
+      final int segmentsInUse,
+      final int segmentsPooled,
+      final long segmentsAllocated,
+      final long segmentsReused) {}
+
   public void onFailedSerialize(final List<DDSpan> trace, final Throwable optionalCause) {}
 
+  public void onLoadSheddingUpdate(final double keepRatio, final double pressure) {}
+
+  public void onLoadShed() {}
+
+  public void onClockDrift(final long driftNanos) {}
+
   public void onCreateSpan() {}
 
   public void onFinishSpan() {}
@@ -73,6 +89,8 @@ public abstract class HealthMetrics implements AutoCloseable {
 
   public void onLongRunningUpdate(final int dropped, final int write, final int expired) {}
 
+  public void onLongRunningTracked(final int tracked) {}
+
   /** @return Human-readable summary of the current health metrics. */
   public String summary() {
     return "";
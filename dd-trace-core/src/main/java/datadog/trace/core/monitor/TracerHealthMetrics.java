@@ -11,13 +11,16 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 import datadog.trace.api.StatsDClient;
 import datadog.trace.api.cache.RadixTreeCache;
+import datadog.trace.api.cache.UTF8BytesStringTable;
 import datadog.trace.bootstrap.instrumentation.api.ScopeSource;
 import datadog.trace.common.writer.RemoteApi;
+import datadog.trace.common.writer.TraceProcessingWorker;
 import datadog.trace.core.DDSpan;
 import datadog.trace.util.AgentTaskScheduler;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.IntFunction;
 import org.jctools.counters.CountersFactory;
 import org.jctools.counters.FixedSizeStripedLongCounter;
@@ -132,10 +135,35 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
       CountersFactory.createFixedSizeStripedCounter(8);
   private final FixedSizeStripedLongCounter longRunningTracesExpired =
       CountersFactory.createFixedSizeStripedCounter(8);
+  // traces currently tracked, only updated when long running traces are enabled
+  private volatile int longRunningTracesTracked = -1;
+
+  // per-shard counters are only updated when trace serialization is sharded;
+  // serialized traces are counted by each shard's own thread so don't need striping
+  private final AtomicLongArray shardSerializedTraces =
+      new AtomicLongArray(TraceProcessingWorker.MAX_SHARDS);
+  private final AtomicLongArray shardOverflowedTraces =
+      new AtomicLongArray(TraceProcessingWorker.MAX_SHARDS);
+
+  // latest snapshot of the direct buffer pool, only updated when pooled serialization is enabled
+  private volatile int bufferPoolInUse;
+  private volatile int bufferPoolPooled;
+  private volatile long bufferPoolAllocated;
+  private volatile long bufferPoolReused;
+
+  // latest state of the load shedding controller, only updated when load shedding is enabled
+  private volatile double loadSheddingKeepRatio = 1;
+  private volatile double loadSheddingPressure;
+  private final FixedSizeStripedLongCounter loadShedTraces =
+      CountersFactory.createFixedSizeStripedCounter(8);
+
+  // largest delay of the coarse clock's refreshes, only updated when spans use the coarse clock
+  private volatile long clockDriftNanos = -1;
 
   private final StatsDClient statsd;
   private final long interval;
   private final TimeUnit units;
+  private final int serializationShards;
 
   @Override
   public void start() {
@@ -147,13 +175,23 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
   }
 
   public TracerHealthMetrics(final StatsDClient statsd) {
-    this(statsd, 30, SECONDS);
+    this(statsd, 1);
+  }
+
+  public TracerHealthMetrics(final StatsDClient statsd, int serializationShards) {
+    this(statsd, 30, SECONDS, serializationShards);
   }
 
   public TracerHealthMetrics(final StatsDClient statsd, long interval, TimeUnit units) {
+    this(statsd, interval, units, 1);
+  }
+
+  public TracerHealthMetrics(
+      final StatsDClient statsd, long interval, TimeUnit units, int serializationShards) {
     this.statsd = statsd;
     this.interval = interval;
     this.units = units;
+    this.serializationShards = Math.min(serializationShards, TraceProcessingWorker.MAX_SHARDS);
   }
 
   @Override
@@ -258,6 +296,44 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     enqueuedBytes.inc(serializedSizeInBytes);
   }
 
+  @Override
+  public void onShardOverflow(final int shard) {
+    shardOverflowedTraces.incrementAndGet(shard);
+  }
+
+  @Override
+  public void onShardSerialize(final int shard) {
+    shardSerializedTraces.incrementAndGet(shard);
+  }
+
+  @Override
+  public void onBufferPoolStats(
+      final int segmentsInUse,
+      final int segmentsPooled,
+      final long segmentsAllocated,
+      final long segmentsReused) {
+    bufferPoolInUse = segmentsInUse;
+    bufferPoolPooled = segmentsPooled;
+    bufferPoolAllocated = segmentsAllocated;
+    bufferPoolReused = segmentsReused;
+  }
+
+  @Override
+  public void onLoadSheddingUpdate(final double keepRatio, final double pressure) {
+    loadSheddingKeepRatio = keepRatio;
+    loadSheddingPressure = pressure;
+  }
+
+  @Override
+  public void onLoadShed() {
+    loadShedTraces.inc();
+  }
+
+  @Override
+  public void onClockDrift(final long driftNanos) {
+    clockDriftNanos = driftNanos;
+  }
+
   @Override
   public void onFailedSerialize(final List<DDSpan> trace, final Throwable optionalCause) {
     if (trace != null) {
@@ -338,6 +414,11 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     longRunningTracesExpired.inc(expired);
   }
 
+  @Override
+  public void onLongRunningTracked(final int tracked) {
+    longRunningTracesTracked = tracked;
+  }
+
   private void onSendAttempt(
       final int traceCount, final int sizeInBytes, final RemoteApi.Response response) {
     apiRequests.inc();
@@ -378,9 +459,21 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
     private static final String[] UNSET_TAG = new String[] {"priority:unset"};
     private static final String[] SINGLE_SPAN_SAMPLER = new String[] {"sampler:single-span"};
 
-    private final long[] previousCounts = new long[43];
+    private final long[] previousCounts = new long[44];
     private int countIndex;
 
+    private final long[] previousShardSerialized = new long[TraceProcessingWorker.MAX_SHARDS];
+    private final long[] previousShardOverflowed = new long[TraceProcessingWorker.MAX_SHARDS];
+    private final String[][] shardTags = new String[TraceProcessingWorker.MAX_SHARDS][];
+
+    private long previousBufferAllocated;
+    private long previousBufferReused;
+    private long previousInternHits;
+    private long previousInternMisses;
+    private long previousInternEvictions;
+
+    private double previousKeepRatio = 1;
+
     @Override
     public void run(TracerHealthMetrics target) {
       countIndex = -1; // reposition so _next_ value is 0
@@ -488,6 +581,37 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
             target.statsd, "long-running.dropped", target.longRunningTracesDropped, NO_TAGS);
         reportIfChanged(
             target.statsd, "long-running.expired", target.longRunningTracesExpired, NO_TAGS);
+        int longRunningTracesTracked = target.longRunningTracesTracked;
+        if (longRunningTracesTracked >= 0) {
+          target.statsd.gauge("long-running.tracked", longRunningTracesTracked, NO_TAGS);
+        }
+
+        for (int shard = 0; shard < target.serializationShards; shard++) {
+          reportShardIfChanged(
+              target.statsd,
+              "queue.shard.serialized.traces",
+              target.shardSerializedTraces,
+              previousShardSerialized,
+              shard);
+          reportShardIfChanged(
+              target.statsd,
+              "queue.shard.dropped.traces",
+              target.shardOverflowedTraces,
+              previousShardOverflowed,
+              shard);
+        }
+
+        reportBufferPool(target);
+        reportInternTable(target);
+
+        reportIfChanged(
+            target.statsd, "load_shedding.shed.traces", target.loadShedTraces, NO_TAGS);
+        reportLoadShedding(target);
+
+        long clockDriftNanos = target.clockDriftNanos;
+        if (clockDriftNanos >= 0) {
+          target.statsd.gauge("clock.coarse.drift_ns", clockDriftNanos, NO_TAGS);
+        }
 
       } catch (ArrayIndexOutOfBoundsException e) {
         log.warn(
@@ -509,6 +633,69 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
         previousCounts[countIndex] = count;
       }
     }
+
+    private void reportBufferPool(TracerHealthMetrics target) {
+      long allocated = target.bufferPoolAllocated;
+      long reused = target.bufferPoolReused;
+      if (allocated == previousBufferAllocated && reused == previousBufferReused) {
+        return;
+      }
+      target.statsd.gauge("buffer.pool.in_use", target.bufferPoolInUse, NO_TAGS);
+      target.statsd.gauge("buffer.pool.pooled", target.bufferPoolPooled, NO_TAGS);
+      target.statsd.count("buffer.pool.allocated", allocated - previousBufferAllocated, NO_TAGS);
+      target.statsd.count("buffer.pool.reused", reused - previousBufferReused, NO_TAGS);
+      target.statsd.gauge(
+          "buffer.pool.reuse_ratio", (double) reused / (allocated + reused), NO_TAGS);
+      previousBufferAllocated = allocated;
+      previousBufferReused = reused;
+    }
+
+    private void reportInternTable(TracerHealthMetrics target) {
+      UTF8BytesStringTable table = UTF8BytesStringTable.SHARED;
+      long hits = table.hits();
+      long misses = table.misses();
+      long evictions = table.evictions();
+      if (hits > previousInternHits) {
+        target.statsd.count("intern.hits", hits - previousInternHits, NO_TAGS);
+        previousInternHits = hits;
+      }
+      if (misses > previousInternMisses) {
+        target.statsd.count("intern.misses", misses - previousInternMisses, NO_TAGS);
+        previousInternMisses = misses;
+      }
+      if (evictions > previousInternEvictions) {
+        target.statsd.count("intern.evictions", evictions - previousInternEvictions, NO_TAGS);
+        previousInternEvictions = evictions;
+      }
+    }
+
+    private void reportLoadShedding(TracerHealthMetrics target) {
+      double keepRatio = target.loadSheddingKeepRatio;
+      // keep reporting while shedding, and once more when it stops
+      if (keepRatio < 1 || previousKeepRatio < 1) {
+        target.statsd.gauge("load_shedding.keep_ratio", keepRatio, NO_TAGS);
+        target.statsd.gauge("load_shedding.pressure", target.loadSheddingPressure, NO_TAGS);
+      }
+      previousKeepRatio = keepRatio;
+    }
+
+    private void reportShardIfChanged(
+        StatsDClient statsDClient,
+        String aspect,
+        AtomicLongArray counters,
+        long[] previous,
+        int shard) {
+      long count = counters.get(shard);
+      long delta = count - previous[shard];
+      if (delta > 0) {
+        String[] tags = shardTags[shard];
+        if (null == tags) {
+          tags = shardTags[shard] = new String[] {"shard:" + shard};
+        }
+        statsDClient.count(aspect, delta, tags);
+        previous[shard] = count;
+      }
+    }
   }
 
   @Override
@@ -607,6 +794,56 @@ public class TracerHealthMetrics extends HealthMetrics implements AutoCloseable
         + "\nlongRunningTracesDropped="
         + longRunningTracesDropped.get()
         + "\nlongRunningTracesExpired="
-        + longRunningTracesExpired.get();
+        + longRunningTracesExpired.get()
+        + "\nlongRunningTracesTracked="
+        + longRunningTracesTracked
+        + "\n"
+        + shardSummary()
+        + "\nbufferPoolInUse="
+        + bufferPoolInUse
+        + "\nbufferPoolPooled="
+        + bufferPoolPooled
+        + "\nbufferPoolAllocated="
+        + bufferPoolAllocated
+        + "\nbufferPoolReused="
+        + bufferPoolReused
+        + "\ninternHits="
+        + UTF8BytesStringTable.SHARED.hits()
+        + "\ninternMisses="
+        + UTF8BytesStringTable.SHARED.misses()
+        + "\ninternEvictions="
+        + UTF8BytesStringTable.SHARED.evictions()
+        + "\n"
+        + "\nloadSheddingKeepRatio="
+        + loadSheddingKeepRatio
+        + "\nloadSheddingPressure="
+        + loadSheddingPressure
+        + "\nloadShedTraces="
+        + loadShedTraces.get()
+        + "\nclockDriftNanos="
+        + clockDriftNanos;
+  }
+
+  /** Shard counters are only recorded when serialization is sharded */
+  private String shardSummary() {
+    if (serializationShards <= 1) {
+      return "";
+    }
+    return "\nshardSerializedTraces="
+        + shardCounts(shardSerializedTraces)
+        + "\nshardOverflowedTraces="
+        + shardCounts(shardOverflowedTraces)
+        + "\n";
+  }
+
+  private String shardCounts(AtomicLongArray counters) {
+    StringBuilder counts = new StringBuilder("[");
+    for (int shard = 0; shard < serializationShards; shard++) {
+      if (shard > 0) {
+        counts.append(", ");
+      }
+      counts.append(counters.get(shard));
+    }
+    return counts.append(']').toString();
   }
 }
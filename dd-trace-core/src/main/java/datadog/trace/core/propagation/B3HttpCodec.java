@@ -30,9 +30,9 @@ class B3HttpCodec {
   private static final String B3_SPAN_ID = "b3.spanid";
   static final String TRACE_ID_KEY = "X-B3-TraceId";
   static final String SPAN_ID_KEY = "X-B3-SpanId";
-  private static final String SAMPLING_PRIORITY_KEY = "X-B3-Sampled";
+  static final String SAMPLING_PRIORITY_KEY = "X-B3-Sampled";
   // See https://github.com/openzipkin/b3-propagation#single-header for b3 header documentation
-  private static final String B3_KEY = "b3";
+  static final String B3_KEY = "b3";
   private static final String SAMPLING_PRIORITY_ACCEPT = String.valueOf(1);
   private static final String SAMPLING_PRIORITY_DROP = String.valueOf(0);
 
@@ -80,7 +80,12 @@ class B3HttpCodec {
       } else if (traceId instanceof B3TraceId) {
         return ((B3TraceId) traceId).getOriginal();
       } else {
-        return DDSpanId.toHexString(traceId.toLong());
+        InjectionCache cache = context.getInjectionCache();
+        String injectedTraceId = cache.b3TraceId;
+        if (injectedTraceId == null) {
+          cache.b3TraceId = injectedTraceId = DDSpanId.toHexString(traceId.toLong());
+        }
+        return injectedTraceId;
       }
     }
 
@@ -96,12 +101,41 @@ class B3HttpCodec {
      * @return The SpanId {@link String} representation to inject.
      */
     protected final String getInjectedSpanId(DDSpanContext context) {
-      long spanId = context.getSpanId();
+      InjectionCache cache = context.getInjectionCache();
+      String injectedSpanId;
       if (this.paddingEnabled) {
-        return DDSpanId.toHexStringPadded(spanId);
+        injectedSpanId = cache.b3PaddedSpanId;
+        if (injectedSpanId == null) {
+          cache.b3PaddedSpanId =
+              injectedSpanId = DDSpanId.toHexStringPadded(context.getSpanId());
+        }
       } else {
-        return DDSpanId.toHexString(spanId);
+        injectedSpanId = cache.b3SpanId;
+        if (injectedSpanId == null) {
+          cache.b3SpanId = injectedSpanId = DDSpanId.toHexString(context.getSpanId());
+        }
+      }
+      return injectedSpanId;
+    }
+
+    /**
+     * Get the trace and span ids joined as in the single B3 header.
+     *
+     * @param context The context to get the ids from.
+     * @return The {@code TraceId-SpanId} {@link String} to inject.
+     */
+    protected final String getInjectedIds(DDSpanContext context) {
+      InjectionCache cache = context.getInjectionCache();
+      String injectedIds = this.paddingEnabled ? cache.b3PaddedIds : cache.b3Ids;
+      if (injectedIds == null) {
+        injectedIds = getInjectedTraceId(context) + '-' + getInjectedSpanId(context);
+        if (this.paddingEnabled) {
+          cache.b3PaddedIds = injectedIds;
+        } else {
+          cache.b3Ids = injectedIds;
+        }
       }
+      return injectedIds;
     }
   }
 
@@ -138,17 +172,12 @@ class B3HttpCodec {
     @Override
     public <C> void inject(
         final DDSpanContext context, final C carrier, final AgentPropagation.Setter<C> setter) {
-      final String injectedTraceId = getInjectedTraceId(context);
-      final String injectedSpanId = getInjectedSpanId(context);
-      final StringBuilder injectedB3IdBuilder = new StringBuilder(100);
-      injectedB3IdBuilder.append(injectedTraceId).append('-').append(injectedSpanId);
-
+      String injectedB3Id = getInjectedIds(context);
       if (context.lockSamplingPriority()) {
         final String injectedSamplingPriority =
             convertSamplingPriority(context.getSamplingPriority());
-        injectedB3IdBuilder.append('-').append(injectedSamplingPriority);
+        injectedB3Id = injectedB3Id + '-' + injectedSamplingPriority;
       }
-      String injectedB3Id = injectedB3IdBuilder.toString();
       setter.set(carrier, B3_KEY, injectedB3Id);
       log.debug("{} - B3 parent context injected - {}", context.getTraceId(), injectedB3Id);
     }
@@ -14,6 +14,7 @@ import datadog.trace.api.DDTags;
 import datadog.trace.api.DDTraceId;
 import datadog.trace.api.TraceConfig;
 import datadog.trace.api.TracePropagationStyle;
+import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
 import datadog.trace.bootstrap.instrumentation.api.TagContext;
 import datadog.trace.core.DDSpanContext;
@@ -36,6 +37,11 @@ class DatadogHttpCodec {
   private static final String E2E_START_KEY = OT_BAGGAGE_PREFIX + DDTags.TRACE_START_TIME;
   static final String DATADOG_TAGS_KEY = "x-datadog-tags";
 
+  private static final String USER_DROP = String.valueOf(PrioritySampling.USER_DROP);
+  private static final String SAMPLER_DROP = String.valueOf(PrioritySampling.SAMPLER_DROP);
+  private static final String SAMPLER_KEEP = String.valueOf(PrioritySampling.SAMPLER_KEEP);
+  private static final String USER_KEEP = String.valueOf(PrioritySampling.USER_KEEP);
+
   private DatadogHttpCodec() {
     // This class should not be created. This also makes code coverage checks happy.
   }
@@ -58,9 +64,14 @@ class DatadogHttpCodec {
         final DDSpanContext context, final C carrier, final AgentPropagation.Setter<C> setter) {
 
       setter.set(carrier, TRACE_ID_KEY, context.getTraceId().toString());
-      setter.set(carrier, SPAN_ID_KEY, DDSpanId.toString(context.getSpanId()));
+      InjectionCache cache = context.getInjectionCache();
+      String spanId = cache.datadogSpanId;
+      if (spanId == null) {
+        cache.datadogSpanId = spanId = DDSpanId.toString(context.getSpanId());
+      }
+      setter.set(carrier, SPAN_ID_KEY, spanId);
       if (context.lockSamplingPriority()) {
-        setter.set(carrier, SAMPLING_PRIORITY_KEY, String.valueOf(context.getSamplingPriority()));
+        setter.set(carrier, SAMPLING_PRIORITY_KEY, samplingPriority(context.getSamplingPriority()));
       }
       final CharSequence origin = context.getOrigin();
       if (origin != null) {
@@ -85,6 +96,21 @@ class DatadogHttpCodec {
     }
   }
 
+  private static String samplingPriority(int samplingPriority) {
+    switch (samplingPriority) {
+      case PrioritySampling.USER_DROP:
+        return USER_DROP;
+      case PrioritySampling.SAMPLER_DROP:
+        return SAMPLER_DROP;
+      case PrioritySampling.SAMPLER_KEEP:
+        return SAMPLER_KEEP;
+      case PrioritySampling.USER_KEEP:
+        return USER_KEEP;
+      default:
+        return String.valueOf(samplingPriority);
+    }
+  }
+
   public static HttpCodec.Extractor newExtractor(
       Config config, Supplier<TraceConfig> traceConfigSupplier) {
     return new TagContextExtractor(
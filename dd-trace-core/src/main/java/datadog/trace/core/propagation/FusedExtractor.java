@@ -0,0 +1,245 @@
+package datadog.trace.core.propagation;
+
+import static datadog.trace.core.propagation.HttpCodec.CF_CONNECTING_IP_KEY;
+import static datadog.trace.core.propagation.HttpCodec.CF_CONNECTING_IP_V6_KEY;
+import static datadog.trace.core.propagation.HttpCodec.FASTLY_CLIENT_IP_KEY;
+import static datadog.trace.core.propagation.HttpCodec.FORWARDED_FOR_KEY;
+import static datadog.trace.core.propagation.HttpCodec.FORWARDED_KEY;
+import static datadog.trace.core.propagation.HttpCodec.TRUE_CLIENT_IP_KEY;
+import static datadog.trace.core.propagation.HttpCodec.USER_AGENT_KEY;
+import static datadog.trace.core.propagation.HttpCodec.X_CLIENT_IP_KEY;
+import static datadog.trace.core.propagation.HttpCodec.X_CLUSTER_CLIENT_IP_KEY;
+import static datadog.trace.core.propagation.HttpCodec.X_FORWARDED_FOR_KEY;
+import static datadog.trace.core.propagation.HttpCodec.X_FORWARDED_HOST_KEY;
+import static datadog.trace.core.propagation.HttpCodec.X_FORWARDED_KEY;
+import static datadog.trace.core.propagation.HttpCodec.X_FORWARDED_PORT_KEY;
+import static datadog.trace.core.propagation.HttpCodec.X_FORWARDED_PROTO_KEY;
+import static datadog.trace.core.propagation.HttpCodec.X_REAL_IP_KEY;
+
+import datadog.trace.api.Config;
+import datadog.trace.api.TraceConfig;
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.bootstrap.instrumentation.api.TagContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Extracts several propagation styles in a single pass over the carrier, instead of buffering the
+ * headers and replaying them to each style like {@link HttpCodec.CompoundExtractor} does.
+ *
+ * <p>Each header is classified once against a perfect hash table of the header names understood by
+ * any style, plus the prefixes of baggage headers and the headers mapped to tags or baggage by the
+ * current {@link TraceConfig}. Only headers which some style may use are offered to the context
+ * interpreters, which see them in the same order as before. The contexts are then built and
+ * combined in style order.
+ */
+final class FusedExtractor implements HttpCodec.Extractor {
+
+  private static final String[] PREFIXES = {
+    DatadogHttpCodec.OT_BAGGAGE_PREFIX, HaystackHttpCodec.OT_BAGGAGE_PREFIX
+  };
+
+  private final Supplier<TraceConfig> traceConfigSupplier;
+  private final boolean extractFirst;
+  private final ThreadLocal<Interpreters> interpreters;
+
+  FusedExtractor(
+      Config config,
+      Supplier<TraceConfig> traceConfigSupplier,
+      List<HttpCodec.Extractor> extractors,
+      boolean extractFirst) {
+    this.traceConfigSupplier = traceConfigSupplier;
+    this.extractFirst = extractFirst;
+    ContextInterpreter.Factory[] factories = new ContextInterpreter.Factory[extractors.size()];
+    for (int i = 0; i < factories.length; i++) {
+      factories[i] = ((TagContextExtractor) extractors.get(i)).factory();
+    }
+    HeaderTable knownHeaders = new HeaderTable(knownHeaderNames(config));
+    this.interpreters = ThreadLocal.withInitial(() -> new Interpreters(factories, knownHeaders));
+  }
+
+  /** @return the names of all the headers any propagation style handles, except by prefix */
+  static List<String> knownHeaderNames(Config config) {
+    List<String> names =
+        new ArrayList<>(
+            Arrays.asList(
+                DatadogHttpCodec.TRACE_ID_KEY,
+                DatadogHttpCodec.SPAN_ID_KEY,
+                DatadogHttpCodec.SAMPLING_PRIORITY_KEY,
+                DatadogHttpCodec.ORIGIN_KEY,
+                DatadogHttpCodec.DATADOG_TAGS_KEY,
+                B3HttpCodec.TRACE_ID_KEY,
+                B3HttpCodec.SPAN_ID_KEY,
+                B3HttpCodec.SAMPLING_PRIORITY_KEY,
+                B3HttpCodec.B3_KEY,
+                HaystackHttpCodec.TRACE_ID_KEY,
+                HaystackHttpCodec.SPAN_ID_KEY,
+                HaystackHttpCodec.PARENT_ID_KEY,
+                W3CHttpCodec.TRACE_PARENT_KEY,
+                W3CHttpCodec.TRACE_STATE_KEY,
+                XRayHttpCodec.X_AMZN_TRACE_ID,
+                FORWARDED_KEY,
+                FORWARDED_FOR_KEY,
+                X_FORWARDED_PROTO_KEY,
+                X_FORWARDED_HOST_KEY,
+                X_FORWARDED_KEY,
+                X_FORWARDED_FOR_KEY,
+                X_FORWARDED_PORT_KEY,
+                X_CLIENT_IP_KEY,
+                TRUE_CLIENT_IP_KEY,
+                X_CLUSTER_CLIENT_IP_KEY,
+                X_REAL_IP_KEY,
+                USER_AGENT_KEY,
+                FASTLY_CLIENT_IP_KEY,
+                CF_CONNECTING_IP_KEY,
+                CF_CONNECTING_IP_V6_KEY));
+    String customIpHeaderName = config.getTraceClientIpHeader();
+    if (customIpHeaderName != null && !customIpHeaderName.isEmpty()) {
+      names.add(customIpHeaderName);
+    }
+    return names;
+  }
+
+  @Override
+  public <C> TagContext extract(C carrier, AgentPropagation.ContextVisitor<C> getter) {
+    Interpreters interpreters = this.interpreters.get().reset(traceConfigSupplier.get());
+    getter.forEachKey(carrier, interpreters);
+    HttpCodec.ExtractionResult result = new HttpCodec.ExtractionResult(extractFirst);
+    for (ContextInterpreter interpreter : interpreters.interpreters) {
+      if (result.add(interpreter.build())) {
+        break;
+      }
+    }
+    return result.get();
+  }
+
+  @Override
+  public void cleanup() {
+    interpreters.remove();
+  }
+
+  private static final class Interpreters implements AgentPropagation.KeyClassifier {
+    private final ContextInterpreter[] interpreters;
+    private final HeaderTable knownHeaders;
+    private Map<String, String> headerTags;
+    private Map<String, String> baggageMapping;
+
+    Interpreters(ContextInterpreter.Factory[] factories, HeaderTable knownHeaders) {
+      this.interpreters = new ContextInterpreter[factories.length];
+      for (int i = 0; i < factories.length; i++) {
+        interpreters[i] = factories[i].create();
+      }
+      this.knownHeaders = knownHeaders;
+    }
+
+    Interpreters reset(TraceConfig traceConfig) {
+      for (ContextInterpreter interpreter : interpreters) {
+        interpreter.reset(traceConfig);
+      }
+      headerTags = traceConfig.getRequestHeaderTags();
+      baggageMapping = traceConfig.getBaggageMapping();
+      return this;
+    }
+
+    @Override
+    public boolean accept(String key, String value) {
+      // interpreters ignore empty keys, and log every header when asked to
+      if (null == key
+          || key.isEmpty()
+          || !ContextInterpreter.LOG_EXTRACT_HEADER_NAMES && !mayBeUsed(key)) {
+        return true;
+      }
+      for (ContextInterpreter interpreter : interpreters) {
+        // like the compound extractor, keep offering headers after a style fails to parse one
+        interpreter.accept(key, value);
+      }
+      return true;
+    }
+
+    private boolean mayBeUsed(String key) {
+      if (knownHeaders.contains(key)) {
+        return true;
+      }
+      for (String prefix : PREFIXES) {
+        if (key.regionMatches(true, 0, prefix, 0, prefix.length())) {
+          return true;
+        }
+      }
+      if (headerTags.isEmpty() && baggageMapping.isEmpty()) {
+        return false;
+      }
+      String lowerCaseKey = ContextInterpreter.toLowerCase(key);
+      return headerTags.containsKey(lowerCaseKey) || baggageMapping.containsKey(lowerCaseKey);
+    }
+  }
+
+  /**
+   * A case-insensitive set of header names, where a seed is searched for at construction so that
+   * every name hashes to its own slot and a lookup is a single hash and comparison.
+   */
+  static final class HeaderTable {
+    private final String[] slots;
+    private final int mask;
+    private final int seed;
+
+    HeaderTable(Collection<String> names) {
+      Set<String> unique = new LinkedHashSet<>();
+      for (String name : names) {
+        unique.add(name.toLowerCase(Locale.ROOT));
+      }
+      int size = Integer.highestOneBit(Math.max(1, unique.size())) << 2;
+      while (true) {
+        for (int seed = 1; seed <= 64; seed++) {
+          String[] slots = new String[size];
+          if (place(unique, slots, seed)) {
+            this.slots = slots;
+            this.mask = size - 1;
+            this.seed = seed;
+            return;
+          }
+        }
+        size <<= 1;
+      }
+    }
+
+    private static boolean place(Set<String> names, String[] slots, int seed) {
+      for (String name : names) {
+        int slot = hash(name, seed) & (slots.length - 1);
+        if (slots[slot] != null) {
+          return false;
+        }
+        slots[slot] = name;
+      }
+      return true;
+    }
+
+    boolean contains(String key) {
+      String name = slots[hash(key, seed) & mask];
+      return name != null && name.equalsIgnoreCase(key);
+    }
+
+    private static int hash(String key, int seed) {
+      int h = seed;
+      for (int i = 0; i < key.length(); i++) {
+        h = 31 * h + fold(key.charAt(i));
+      }
+      h *= 0x9E3779B9;
+      return h ^ (h >>> 16);
+    }
+
+    /** Maps characters which are equal ignoring case, as defined by String, to the same value. */
+    private static char fold(char c) {
+      if (c < 128) {
+        return c >= 'A' && c <= 'Z' ? (char) (c | 0x20) : c;
+      }
+      return Character.toLowerCase(Character.toUpperCase(c));
+    }
+  }
+}
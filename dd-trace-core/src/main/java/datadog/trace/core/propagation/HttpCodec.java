@@ -167,7 +167,13 @@ public class HttpCodec {
       case 1:
         return extractors.get(0);
       default:
-        return new CompoundExtractor(extractors, config.isTracePropagationExtractFirst());
+        for (Extractor extractor : extractors) {
+          if (!(extractor instanceof TagContextExtractor)) {
+            return new CompoundExtractor(extractors, config.isTracePropagationExtractFirst());
+          }
+        }
+        return new FusedExtractor(
+            config, traceConfigSupplier, extractors, config.isTracePropagationExtractFirst());
     }
   }
 
@@ -210,47 +216,64 @@ public class HttpCodec {
     @Override
     public <C> TagContext extract(
         final C carrier, final AgentPropagation.ContextVisitor<C> getter) {
-      ExtractedContext context = null;
-      TagContext partialContext = null;
       // Extract and cache all headers in advance
       ExtractionCache<C> extractionCache = new ExtractionCache<>(carrier, getter);
-
+      ExtractionResult result = new ExtractionResult(this.extractFirst);
       for (final Extractor extractor : this.extractors) {
-        TagContext extracted = extractor.extract(extractionCache, extractionCache);
-        // Check if context is valid
-        if (extracted instanceof ExtractedContext) {
-          ExtractedContext extractedContext = (ExtractedContext) extracted;
-          // If no prior valid context, store it as first valid context
-          if (context == null) {
-            context = extractedContext;
-            // Stop extraction if only extracting first valid context and drop everything else
-            if (this.extractFirst) {
-              break;
-            }
-          }
-          // If another valid context is extracted
-          else {
-            if (traceIdMatch(context.getTraceId(), extractedContext.getTraceId())) {
-              boolean comingFromTraceContext = extracted.getPropagationStyle() == TRACECONTEXT;
-              if (comingFromTraceContext) {
-                // Propagate newly extracted W3C tracestate to first valid context
-                String extractedTracestate =
-                    extractedContext.getPropagationTags().getW3CTracestate();
-                context.getPropagationTags().updateW3CTracestate(extractedTracestate);
-              }
-            } else {
-              // Terminate extracted context and add it as span link
-              context.addTerminatedContextLink(DDSpanLink.from((ExtractedContext) extracted));
-              // TODO Note: Other vendor tracestate will be lost here
-            }
-          }
+        if (result.add(extractor.extract(extractionCache, extractionCache))) {
+          break;
         }
-        // Check if context is at least partial to keep it as first valid partial context found
-        else if (extracted != null && partialContext == null) {
-          partialContext = extracted;
+      }
+      return result.get();
+    }
+  }
+
+  /** Combines the contexts extracted by each propagation style, in order of preference. */
+  static final class ExtractionResult {
+    private final boolean extractFirst;
+    private ExtractedContext context;
+    private TagContext partialContext;
+
+    ExtractionResult(boolean extractFirst) {
+      this.extractFirst = extractFirst;
+    }
+
+    /**
+     * @param extracted the context extracted by the next propagation style, if any
+     * @return {@code true} if no further propagation styles need to be extracted
+     */
+    boolean add(TagContext extracted) {
+      // Check if context is valid
+      if (extracted instanceof ExtractedContext) {
+        ExtractedContext extractedContext = (ExtractedContext) extracted;
+        // If no prior valid context, store it as first valid context
+        if (context == null) {
+          context = extractedContext;
+          // Stop extraction if only extracting first valid context and drop everything else
+          return this.extractFirst;
+        }
+        // If another valid context is extracted
+        if (traceIdMatch(context.getTraceId(), extractedContext.getTraceId())) {
+          boolean comingFromTraceContext = extracted.getPropagationStyle() == TRACECONTEXT;
+          if (comingFromTraceContext) {
+            // Propagate newly extracted W3C tracestate to first valid context
+            String extractedTracestate = extractedContext.getPropagationTags().getW3CTracestate();
+            context.getPropagationTags().updateW3CTracestate(extractedTracestate);
+          }
+        } else {
+          // Terminate extracted context and add it as span link
+          context.addTerminatedContextLink(DDSpanLink.from(extractedContext));
+          // TODO Note: Other vendor tracestate will be lost here
         }
       }
+      // Check if context is at least partial to keep it as first valid partial context found
+      else if (extracted != null && partialContext == null) {
+        partialContext = extracted;
+      }
+      return false;
+    }
 
+    TagContext get() {
       if (context != null) {
         log.debug("Extract complete context {}", context);
         return context;
@@ -0,0 +1,26 @@
+package datadog.trace.core.propagation;
+
+/**
+ * The encodings of a span's ids used by the injectors, computed the first time the span is
+ * injected and reused by later injections, so that a service making many downstream calls from the
+ * same span only encodes them once.
+ *
+ * <p>Headers which also depend on the sampling decision are cached once per decision, so a change
+ * of sampling priority selects another entry instead of invalidating them. Propagation tags cache
+ * their own header values, and trace ids their own string representations, for the whole trace.
+ *
+ * <p>The race conditions are intentional and benign: the worst that can happen is that an identical
+ * value is produced and written into a field.
+ */
+public final class InjectionCache {
+  String datadogSpanId;
+
+  String b3TraceId;
+  String b3SpanId;
+  String b3PaddedSpanId;
+  String b3Ids;
+  String b3PaddedIds;
+
+  String traceParentSampled;
+  String traceParentNotSampled;
+}
@@ -8,11 +8,13 @@ import java.util.function.Supplier;
 public class TagContextExtractor implements HttpCodec.Extractor {
 
   private final Supplier<TraceConfig> traceConfigSupplier;
+  private final ContextInterpreter.Factory factory;
   private final ThreadLocal<ContextInterpreter> ctxInterpreter;
 
   public TagContextExtractor(
       final Supplier<TraceConfig> traceConfigSupplier, final ContextInterpreter.Factory factory) {
     this.traceConfigSupplier = traceConfigSupplier;
+    this.factory = factory;
     this.ctxInterpreter = ThreadLocal.withInitial(factory::create);
   }
 
@@ -23,6 +25,10 @@ public class TagContextExtractor implements HttpCodec.Extractor {
     return interpreter.build();
   }
 
+  ContextInterpreter.Factory factory() {
+    return factory;
+  }
+
   @Override
   public void cleanup() {
     ctxInterpreter.remove();
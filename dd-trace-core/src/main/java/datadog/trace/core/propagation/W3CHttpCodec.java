@@ -71,13 +71,28 @@ class W3CHttpCodec {
 
     private <C> void injectTraceParent(
         DDSpanContext context, C carrier, AgentPropagation.Setter<C> setter) {
+      InjectionCache cache = context.getInjectionCache();
+      boolean sampled = context.getSamplingPriority() > 0;
+      String traceParent = sampled ? cache.traceParentSampled : cache.traceParentNotSampled;
+      if (traceParent == null) {
+        traceParent = traceParent(context, sampled);
+        if (sampled) {
+          cache.traceParentSampled = traceParent;
+        } else {
+          cache.traceParentNotSampled = traceParent;
+        }
+      }
+      setter.set(carrier, TRACE_PARENT_KEY, traceParent);
+    }
+
+    private static String traceParent(DDSpanContext context, boolean sampled) {
       StringBuilder sb = new StringBuilder(TRACE_PARENT_LENGTH);
       sb.append("00-");
       sb.append(context.getTraceId().toHexString());
       sb.append("-");
       sb.append(DDSpanId.toHexStringPadded(context.getSpanId()));
-      sb.append(context.getSamplingPriority() > 0 ? "-01" : "-00");
-      setter.set(carrier, TRACE_PARENT_KEY, sb.toString());
+      sb.append(sampled ? "-01" : "-00");
+      return sb.toString();
     }
 
     private <C> void injectTraceState(
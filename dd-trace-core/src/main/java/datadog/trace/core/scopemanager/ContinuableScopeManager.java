@@ -46,7 +46,10 @@ public final class ContinuableScopeManager implements AgentScopeManager {
   final List<ScopeListener> scopeListeners;
   final List<ExtendedScopeListener> extendedScopeListeners;
   final boolean strictMode;
-  private final ScopeStackThreadLocal tlsScopeStack;
+  // only holds a stack once a scope has been activated on the thread, so that threads which only
+  // look for an active scope, like most short-lived virtual threads, don't allocate a ScopeStack
+  // (looking it up still creates the thread local entry, holding null)
+  private final ThreadLocal<ScopeStack> tlsScopeStack = new ThreadLocal<>();
   private final int depthLimit;
   private final boolean inheritAsyncPropagation;
   final HealthMetrics healthMetrics;
@@ -90,7 +93,6 @@ public final class ContinuableScopeManager implements AgentScopeManager {
     this.scopeListeners = new CopyOnWriteArrayList<>();
     this.extendedScopeListeners = new CopyOnWriteArrayList<>();
     this.healthMetrics = healthMetrics;
-    this.tlsScopeStack = new ScopeStackThreadLocal(profilingContextIntegration);
     this.profilingContextIntegration = profilingContextIntegration;
   }
 
@@ -187,7 +189,10 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
   @Override
   public void closePrevious(final boolean finishSpan) {
-    ScopeStack scopeStack = scopeStack();
+    ScopeStack scopeStack = tlsScopeStack.get();
+    if (scopeStack == null) {
+      return;
+    }
 
     // close any immediately previous iteration scope
     final ContinuableScope top = scopeStack.top;
@@ -240,15 +245,20 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
   @Override
   public AgentScope active() {
-    return scopeStack().active();
+    return activeScope();
   }
 
   @Override
   public AgentSpan activeSpan() {
-    final ContinuableScope active = scopeStack().active();
+    final ContinuableScope active = activeScope();
     return active == null ? null : active.span;
   }
 
+  private ContinuableScope activeScope() {
+    final ScopeStack scopeStack = tlsScopeStack.get();
+    return scopeStack == null ? null : scopeStack.active();
+  }
+
   /** Attach a listener to scope activation events */
   public void addScopeListener(final ScopeListener listener) {
     if (listener instanceof ExtendedScopeListener) {
@@ -289,7 +299,12 @@ public final class ContinuableScopeManager implements AgentScopeManager {
   }
 
   ScopeStack scopeStack() {
-    return this.tlsScopeStack.get();
+    ScopeStack scopeStack = tlsScopeStack.get();
+    if (scopeStack == null) {
+      scopeStack = new ScopeStack(profilingContextIntegration);
+      tlsScopeStack.set(scopeStack);
+    }
+    return scopeStack;
   }
 
   @Override
@@ -299,30 +314,20 @@ public final class ContinuableScopeManager implements AgentScopeManager {
 
   private class ContinuableScopeState implements ScopeState {
 
-    private ScopeStack localScopeStack = tlsScopeStack.initialValue();
+    // created on first activation, then owned by this state for as long as it is used
+    private ScopeStack localScopeStack;
 
     @Override
     public void activate() {
+      if (localScopeStack == null) {
+        localScopeStack = new ScopeStack(profilingContextIntegration);
+      }
       tlsScopeStack.set(localScopeStack);
     }
 
     @Override
     public void fetchFromActive() {
-      localScopeStack = tlsScopeStack.get();
-    }
-  }
-
-  static final class ScopeStackThreadLocal extends ThreadLocal<ScopeStack> {
-
-    private final ProfilingContextIntegration profilingContextIntegration;
-
-    ScopeStackThreadLocal(ProfilingContextIntegration profilingContextIntegration) {
-      this.profilingContextIntegration = profilingContextIntegration;
-    }
-
-    @Override
-    protected ScopeStack initialValue() {
-      return new ScopeStack(profilingContextIntegration);
+      localScopeStack = scopeStack();
     }
   }
 
@@ -78,6 +78,35 @@ public class TagInterceptor {
     shouldSetUrlResourceAsName = ruleFlags.isEnabled(URL_AS_RESOURCE_NAME);
   }
 
+  /**
+   * @return whether {@link #interceptTag} may consume or rewrite the tag, callers can store tags
+   *     which don't need interception directly without boxing their values
+   */
+  public boolean needsIntercept(String tag) {
+    switch (tag) {
+      case DDTags.RESOURCE_NAME:
+      case Tags.DB_STATEMENT:
+      case DDTags.SERVICE_NAME:
+      case "service":
+      case Tags.PEER_SERVICE:
+      case DDTags.MANUAL_KEEP:
+      case DDTags.MANUAL_DROP:
+      case Tags.SAMPLING_PRIORITY:
+      case InstrumentationTags.SERVLET_CONTEXT:
+      case SPAN_TYPE:
+      case ANALYTICS_SAMPLE_RATE:
+      case Tags.ERROR:
+      case HTTP_STATUS:
+      case HTTP_METHOD:
+      case HTTP_URL:
+      case ORIGIN_KEY:
+      case MEASURED:
+        return true;
+      default:
+        return splitServiceTags.contains(tag);
+    }
+  }
+
   public boolean interceptTag(DDSpanContext span, String tag, Object value) {
     switch (tag) {
       case DDTags.RESOURCE_NAME:
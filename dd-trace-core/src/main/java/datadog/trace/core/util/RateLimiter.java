@@ -0,0 +1,9 @@
+package datadog.trace.core.util;
+
+/** Rate limiter that only supports non-blocking retrieval of a single token. */
+public interface RateLimiter {
+  boolean tryAcquire();
+
+  /** @return the number of tokens available each second */
+  int getCapacity();
+}
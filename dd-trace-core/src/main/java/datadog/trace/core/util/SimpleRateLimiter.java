@@ -9,7 +9,7 @@ import java.util.concurrent.atomic.AtomicLong;
  * Rate limiter that only supports non-blocking retrieval of a single token at a minimum rate of 1
  * per second. Tokens are not smoothed across the second.
  */
-public class SimpleRateLimiter {
+public class SimpleRateLimiter implements RateLimiter {
   private final TimeSource timeSource;
   private final int capacity;
   private final long startNanos;
@@ -26,6 +26,7 @@ public class SimpleRateLimiter {
     secondsAndCount = new AtomicLong(0);
   }
 
+  @Override
   public boolean tryAcquire() {
     long storedSecondsAndCount;
     long newSecondsAndCount;
@@ -63,6 +64,7 @@ public class SimpleRateLimiter {
     return true;
   }
 
+  @Override
   public int getCapacity() {
     return capacity;
   }
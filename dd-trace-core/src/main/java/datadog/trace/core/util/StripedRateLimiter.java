@@ -0,0 +1,174 @@
+package datadog.trace.core.util;
+
+import datadog.trace.api.time.SystemTimeSource;
+import datadog.trace.api.time.TimeSource;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rate limiter like {@link SimpleRateLimiter} for limiters shared by many threads. Instead of every
+ * acquisition updating one shared counter, threads acquire tokens from one of several stripes, each
+ * on its own cache line, and a stripe only goes to the shared counter to lease a small batch of the
+ * second's tokens when it runs out.
+ *
+ * <p>No more than the rate is ever granted in a second. Tokens leased by a stripe but not used
+ * before the second ends are lost, which bounds the error below the rate to a sixteenth of it.
+ * Once the shared counter is exhausted, each stripe remembers it until the second ends, so threads
+ * turned away don't touch any shared state but the clock.
+ */
+public final class StripedRateLimiter implements RateLimiter {
+  private static final int MAX_STRIPES = 64;
+  // one stripe per 64 byte cache line
+  private static final int PADDING = 8;
+  private static final int LEASES_PER_STRIPE = 16;
+  private static final int EXHAUSTED = -1;
+
+  private final TimeSource timeSource;
+  private final int capacity;
+  private final int batch;
+  private final int mask;
+  private final long startNanos;
+  // seconds and remaining tokens, or EXHAUSTED, of each stripe
+  private final AtomicLongArray stripes;
+  // seconds and tokens leased to the stripes
+  private final AtomicLong leased = new AtomicLong();
+  private final LongAdder attempts = new LongAdder();
+  private final LongAdder acquired = new LongAdder();
+  private volatile double effectiveRate = 1;
+
+  public StripedRateLimiter(int rate) {
+    this(rate, Runtime.getRuntime().availableProcessors(), SystemTimeSource.INSTANCE);
+  }
+
+  StripedRateLimiter(int rate, int concurrency, TimeSource timeSource) {
+    this.timeSource = timeSource;
+    this.startNanos = timeSource.getNanoTicks();
+    this.capacity = Math.max(1, rate);
+    int stripeCount =
+        Math.min(MAX_STRIPES, Integer.highestOneBit(Math.max(1, concurrency) * 2 - 1));
+    this.mask = stripeCount - 1;
+    this.batch = Math.max(1, capacity / (stripeCount * LEASES_PER_STRIPE));
+    this.stripes = new AtomicLongArray(stripeCount * PADDING);
+  }
+
+  @Override
+  public boolean tryAcquire() {
+    // There will be an issue when the application has been running for more than 2^31 seconds,
+    // roughly 68 years, so that is an acceptable trade off
+    int seconds = (int) TimeUnit.NANOSECONDS.toSeconds(timeSource.getNanoTicks() - startNanos);
+    boolean success = tryAcquire(seconds);
+    attempts.increment();
+    if (success) {
+      acquired.increment();
+    }
+    return success;
+  }
+
+  @Override
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @return the fraction of acquisitions which succeeded during the last second in which tokens
+   *     were leased, or 1 before the first second has ended
+   */
+  public double getEffectiveRate() {
+    return effectiveRate;
+  }
+
+  private boolean tryAcquire(int seconds) {
+    int index = stripeIndex();
+    while (true) {
+      long state = stripes.get(index);
+      int stripeSeconds = getSeconds(state);
+      int remaining = getTokens(state);
+      if (stripeSeconds - seconds < 0 || remaining == 0) {
+        return acquireLeased(index, seconds);
+      }
+      if (remaining == EXHAUSTED) {
+        return false;
+      }
+      if (stripes.compareAndSet(index, state, combine(stripeSeconds, remaining - 1))) {
+        return true;
+      }
+    }
+  }
+
+  private boolean acquireLeased(int index, int seconds) {
+    int tokens = lease(seconds);
+    while (true) {
+      long state = stripes.get(index);
+      int stripeSeconds = getSeconds(state);
+      int remaining = getTokens(state);
+      long next;
+      if (stripeSeconds - seconds > 0) {
+        // another thread has already moved the stripe to a later second, so drop the tokens
+        // leased for this one rather than carry them over
+        if (remaining == EXHAUSTED || remaining == 0) {
+          return false;
+        }
+        next = combine(stripeSeconds, remaining - 1);
+      } else {
+        int available = tokens;
+        if (stripeSeconds == seconds && remaining != EXHAUSTED) {
+          available += remaining;
+        }
+        next = combine(seconds, available == 0 ? EXHAUSTED : available - 1);
+      }
+      if (stripes.compareAndSet(index, state, next)) {
+        return getTokens(next) != EXHAUSTED;
+      }
+    }
+  }
+
+  private int lease(int seconds) {
+    while (true) {
+      long state = leased.get();
+      int leasedSeconds = getSeconds(state);
+      int count = getTokens(state);
+      if (seconds - leasedSeconds > 0) {
+        int tokens = Math.min(batch, capacity);
+        if (leased.compareAndSet(state, combine(seconds, tokens))) {
+          updateEffectiveRate();
+          return tokens;
+        }
+      } else {
+        int tokens = Math.min(batch, capacity - count);
+        if (tokens <= 0) {
+          return 0;
+        }
+        if (leased.compareAndSet(state, combine(leasedSeconds, count + tokens))) {
+          return tokens;
+        }
+      }
+    }
+  }
+
+  private void updateEffectiveRate() {
+    long attempted = attempts.sumThenReset();
+    long succeeded = acquired.sumThenReset();
+    if (attempted > 0) {
+      effectiveRate = Math.min(1, (double) succeeded / attempted);
+    }
+  }
+
+  private int stripeIndex() {
+    long hash = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+    return ((int) (hash >>> 32) & mask) * PADDING;
+  }
+
+  private static int getSeconds(long secondsAndTokens) {
+    return (int) (secondsAndTokens >> 32);
+  }
+
+  private static int getTokens(long secondsAndTokens) {
+    return (int) secondsAndTokens;
+  }
+
+  private static long combine(int seconds, int tokens) {
+    return ((long) seconds << 32) | (tokens & 0xFFFFFFFFL);
+  }
+}
@@ -482,6 +482,54 @@ class ConflatingMetricAggregatorTest extends DDSpecification {
     flushed
   }
 
+  def "sharded aggregators report a single merged payload"() {
+    setup:
+    MetricWriter writer = Mock(MetricWriter)
+    Sink sink = Stub(Sink)
+    DDAgentFeaturesDiscovery features = Mock(DDAgentFeaturesDiscovery)
+    features.supportsMetrics() >> true
+    ConflatingMetricsAggregator aggregator = new ConflatingMetricsAggregator(empty,
+      features, sink, writer, 64, queueSize, reportingInterval, SECONDS, shards)
+    long duration = 100
+    aggregator.start()
+
+    when:
+    for (int i = 0; i < 10; ++i) {
+      for (int j = 0; j < count; ++j) {
+        aggregator.publish([
+          new SimpleSpan("service" + i, "operation", "resource", "type", false, true, false, 0, duration, HTTP_OK)
+        ])
+      }
+    }
+    def flushed = aggregator.forceReport().get(2, SECONDS)
+
+    then: "every shard's aggregates should be written in one bucket"
+    flushed
+    1 * writer.startBucket(10, _, SECONDS.toNanos(reportingInterval))
+    for (int i = 0; i < 10; ++i) {
+      1 * writer.add(new MetricKey("resource", "service" + i, "operation", "type", HTTP_OK, false), _) >> { MetricKey key, AggregateMetric value ->
+        value.getHitCount() == count && value.getDuration() == count * duration
+      }
+    }
+    1 * writer.finishBucket()
+
+    when: "nothing is published in the next interval"
+    flushed = aggregator.forceReport().get(2, SECONDS)
+
+    then: "nothing is reported"
+    flushed
+    0 * writer.startBucket(_, _, _)
+    0 * writer.finishBucket()
+
+    cleanup:
+    aggregator.close()
+
+    where:
+    shards | count
+    2      | 1
+    4      | 10
+  }
+
   def reportAndWaitUntilEmpty(ConflatingMetricsAggregator aggregator) {
     waitUntilEmpty(aggregator)
     aggregator.report()
@@ -491,7 +539,7 @@ class ConflatingMetricAggregatorTest extends DDSpecification {
 
   def waitUntilEmpty(ConflatingMetricsAggregator aggregator) {
     int i = 0
-    while (!aggregator.inbox.isEmpty() && i++ < 100) {
+    while (aggregator.inboxes.any { !it.isEmpty() } && i++ < 100) {
       Thread.sleep(10)
     }
   }
@@ -3,12 +3,16 @@ package datadog.trace.common.sampling
 import datadog.trace.api.DDTags
 import datadog.trace.api.sampling.PrioritySampling
 import datadog.trace.common.writer.ListWriter
+import datadog.trace.common.writer.LoadSheddingController
 import datadog.trace.common.writer.LoggingWriter
 import datadog.trace.common.writer.ddagent.DDAgentApi
 import datadog.trace.core.DDSpan
 import datadog.trace.core.DDSpanContext
+import datadog.trace.core.monitor.HealthMetrics
 import datadog.trace.core.test.DDCoreSpecification
 
+import java.util.concurrent.TimeUnit
+
 class RateByServiceTraceSamplerTest extends DDCoreSpecification {
   static serializer = DDAgentApi.RESPONSE_ADAPTER
 
@@ -166,6 +170,37 @@ class RateByServiceTraceSamplerTest extends DDCoreSpecification {
     tracer.close()
   }
 
+  def "load shedding lowers the agent rate"() {
+    setup:
+    RateByServiceTraceSampler serviceSampler = new RateByServiceTraceSampler()
+    def loadShedding = new LoadSheddingController(HealthMetrics.NO_OP, 0.1)
+    serviceSampler.setLoadShedding(loadShedding)
+    def tracer = tracerBuilder().writer(new ListWriter()).build()
+    String response = '{"rate_by_service": {"service:,env:":1.0}}'
+    serviceSampler.onResponse("traces", serializer.fromJson(response))
+
+    when: "the pipeline is under pressure"
+    loadShedding.onSerialize(TimeUnit.MILLISECONDS.toNanos(10))
+    loadShedding.update()
+    int kept = 0
+    for (int i = 0; i < 1000; ++i) {
+      DDSpan span = tracer.buildSpan("fakeOperation").ignoreActiveSpan().start()
+      serviceSampler.setSamplingPriority(span)
+      if (span.getSamplingPriority() == PrioritySampling.SAMPLER_KEEP) {
+        kept++
+      }
+      assert span.getTag(RateByServiceTraceSampler.SAMPLING_AGENT_RATE) == 0.5
+      assert span.isLoadShed() == (span.getSamplingPriority() == PrioritySampling.SAMPLER_DROP)
+    }
+
+    then:
+    loadShedding.keepRatio() == 0.5
+    kept > 400 && kept < 600
+
+    cleanup:
+    tracer.close()
+  }
+
   def "sampling priority set when service later"() {
     def sampler = new RateByServiceTraceSampler()
     def writer = new ListWriter()
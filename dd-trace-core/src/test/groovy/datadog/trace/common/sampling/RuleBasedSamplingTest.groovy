@@ -1,9 +1,13 @@
 package datadog.trace.common.sampling
 
 import datadog.trace.common.writer.ListWriter
+import datadog.trace.common.writer.LoadSheddingController
 import datadog.trace.core.DDSpan
+import datadog.trace.core.monitor.HealthMetrics
 import datadog.trace.core.test.DDCoreSpecification
 
+import java.util.concurrent.TimeUnit
+
 import static datadog.trace.api.config.TracerConfig.TRACE_RATE_LIMIT
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLE_RATE
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_RULES
@@ -32,6 +36,32 @@ class RuleBasedSamplingTest extends DDCoreSpecification {
     !(sampler instanceof RuleBasedTraceSampler)
   }
 
+  def "load shedding only lowers the fallback sampler's rate"() {
+    given:
+    Properties properties = new Properties()
+    properties.setProperty(TRACE_SAMPLING_SERVICE_RULES, "ruled:1")
+    def sampler = (RuleBasedTraceSampler) Sampler.Builder.forConfig(properties)
+    def loadShedding = new LoadSheddingController(HealthMetrics.NO_OP, 0.1)
+    sampler.setLoadShedding(loadShedding)
+    def tracer = tracerBuilder().writer(new ListWriter()).build()
+
+    when: "the pipeline is under pressure"
+    loadShedding.onSerialize(TimeUnit.MILLISECONDS.toNanos(10))
+    loadShedding.update()
+    DDSpan ruled = tracer.buildSpan("operation").withServiceName("ruled").ignoreActiveSpan().start()
+    DDSpan fallback = tracer.buildSpan("operation").withServiceName("other").ignoreActiveSpan().start()
+    sampler.setSamplingPriority(ruled)
+    sampler.setSamplingPriority(fallback)
+
+    then:
+    ruled.getSamplingPriority() == USER_KEEP
+    !ruled.isLoadShed()
+    fallback.getTag(RateByServiceTraceSampler.SAMPLING_AGENT_RATE) == 0.5
+
+    cleanup:
+    tracer.close()
+  }
+
   def "sampling config combinations"() {
     given:
     Properties properties = new Properties()
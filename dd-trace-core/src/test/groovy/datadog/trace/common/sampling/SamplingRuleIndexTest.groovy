@@ -0,0 +1,95 @@
+package datadog.trace.common.sampling
+
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.core.CoreSpan
+import datadog.trace.core.DDSpan
+import datadog.trace.core.test.DDCoreSpecification
+
+class SamplingRuleIndexTest extends DDCoreSpecification {
+
+  def "first matching rule wins like a linear scan"() {
+    setup:
+    def tracer = tracerBuilder().writer(new ListWriter()).build()
+    List<SamplingRule> rules = [
+      rule("service-a", "op-a", null, [:]),
+      rule("service-?", "op-b", "GET /*", [:]),
+      rule("SERVICE-A", "*", null, ["env": "prod"]),
+      rule("*", "op-c", null, [:]),
+      new SamplingRule.ServiceSamplingRule("service-[bc]", new DeterministicSampler.TraceSampler(1)),
+      new SamplingRule.OperationSamplingRule("op-.*", new DeterministicSampler.TraceSampler(1)),
+      new SamplingRule.AlwaysMatchesSamplingRule(new DeterministicSampler.TraceSampler(1)),
+    ]
+    def index = new SamplingRuleIndex<>(rules)
+
+    when:
+    DDSpan span = tracer.buildSpan(operation).withServiceName(service).withResourceName(resource).withTag("env", env).start()
+
+    then:
+    // twice, to also hit the cached candidates
+    index.firstMatch(span).is(rules[expected])
+    index.firstMatch(span).is(rules[expected])
+    rules.find { it.matches(span) }.is(rules[expected])
+
+    cleanup:
+    span.finish()
+    tracer.close()
+
+    where:
+    service     | operation | resource  | env    | expected
+    "service-a" | "op-a"    | "/"       | "dev"  | 0
+    "Service-A" | "OP-A"    | "/"       | "dev"  | 0
+    "service-b" | "op-b"    | "GET /x"  | "dev"  | 1
+    "service-b" | "op-b"    | "POST /x" | "dev"  | 4
+    "service-a" | "op-b"    | "POST /x" | "prod" | 2
+    "service-a" | "op-b"    | "POST /x" | "dev"  | 5
+    "service-z" | "op-c"    | "/"       | "dev"  | 3
+    "service-z" | "other"   | "/"       | "dev"  | 6
+  }
+
+  def "no rule matches"() {
+    setup:
+    def tracer = tracerBuilder().writer(new ListWriter()).build()
+    def index = new SamplingRuleIndex<>([rule("service-a", "op-a", null, [:])])
+
+    when:
+    DDSpan span = tracer.buildSpan("op-b").withServiceName("service-a").start()
+
+    then:
+    index.firstMatch(span) == null
+
+    cleanup:
+    span.finish()
+    tracer.close()
+  }
+
+  def "rules which only implement matches are tested against the whole span"() {
+    setup:
+    def tracer = tracerBuilder().writer(new ListWriter()).build()
+    def resourceRule = new SamplingRule.PatternMatchSamplingRule("GET .*", new DeterministicSampler.TraceSampler(1)) {
+        @Override
+        protected CharSequence getRelevantString(CoreSpan span) {
+          return span.getResourceName()
+        }
+      }
+    def index = new SamplingRuleIndex<>([resourceRule])
+
+    when:
+    DDSpan span = tracer.buildSpan("op").withServiceName("service").withResourceName(resource).start()
+
+    then:
+    (index.firstMatch(span) != null) == matches
+
+    cleanup:
+    span.finish()
+    tracer.close()
+
+    where:
+    resource | matches
+    "GET /"  | true
+    "POST /" | false
+  }
+
+  static SamplingRule rule(String service, String operation, String resource, Map<String, String> tags) {
+    new SamplingRule.TraceSamplingRule(service, operation, resource, tags, new DeterministicSampler.TraceSampler(1))
+  }
+}
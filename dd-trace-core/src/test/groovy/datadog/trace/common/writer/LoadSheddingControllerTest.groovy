@@ -0,0 +1,135 @@
+package datadog.trace.common.writer
+
+import datadog.trace.core.DDSpan
+import datadog.trace.core.monitor.HealthMetrics
+import datadog.trace.test.util.DDSpecification
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_KEEP
+import static datadog.trace.common.writer.ddagent.Prioritization.FAST_LANE
+import static datadog.trace.common.writer.ddagent.PrioritizationStrategy.PublishResult.ENQUEUED_FOR_SERIALIZATION
+
+class LoadSheddingControllerTest extends DDSpecification {
+
+  def "keep ratio is cut while serialization is slow and recovers after"() {
+    setup:
+    def healthMetrics = Mock(HealthMetrics)
+    def controller = new LoadSheddingController(healthMetrics, 0.1)
+
+    when:
+    controller.onSerialize(TimeUnit.MICROSECONDS.toNanos(600))
+    controller.onSerialize(TimeUnit.MICROSECONDS.toNanos(600))
+    controller.update()
+
+    then: "slightly over target cuts the ratio by 10%"
+    controller.keepRatio() == 0.9
+    1 * healthMetrics.onLoadSheddingUpdate(0.9, { Math.abs(it - 1.2) < 1e-9 })
+
+    when:
+    controller.onSerialize(TimeUnit.MILLISECONDS.toNanos(10))
+    controller.update()
+
+    then: "far over target halves it"
+    controller.keepRatio() == 0.45
+    1 * healthMetrics.onLoadSheddingUpdate(0.45, 20)
+
+    when:
+    10.times {
+      controller.onSerialize(TimeUnit.MILLISECONDS.toNanos(10))
+      controller.update()
+    }
+
+    then: "but never below the minimum"
+    controller.keepRatio() == 0.1
+
+    when: "there is no more pressure"
+    controller.update()
+
+    then:
+    Math.abs(controller.keepRatio() - 0.15) < 1e-9
+    controller.pressure() == 0
+
+    when:
+    20.times {
+      controller.update()
+    }
+
+    then:
+    controller.keepRatio() == 1
+  }
+
+  def "slow agent responses cut the keep ratio"() {
+    setup:
+    def controller = new LoadSheddingController(HealthMetrics.NO_OP, 0.1)
+
+    when:
+    controller.onSend(TimeUnit.SECONDS.toNanos(3))
+    controller.onSend(TimeUnit.SECONDS.toNanos(1))
+    controller.update()
+
+    then:
+    controller.pressure() == 2
+    controller.keepRatio() == 0.5
+  }
+
+  def "keep ratio is cut before the serializer queue overflows"() {
+    setup:
+    def controller = new LoadSheddingController(HealthMetrics.NO_OP, 0.1)
+    // not started, so nothing drains the queue
+    def worker = new TraceProcessingWorker(8, HealthMetrics.NO_OP,
+      [Mock(PayloadDispatcherImpl)] as PayloadDispatcher[], { false }, FAST_LANE,
+      1, TimeUnit.SECONDS, null, null, controller)
+
+    when: "the queue is below the high watermark"
+    publish(worker, 3)
+    controller.update()
+
+    then:
+    controller.keepRatio() == 1
+
+    when: "the queue is three quarters full"
+    publish(worker, 3)
+    controller.update()
+
+    then:
+    controller.pressure() == 1.5
+    Math.abs(controller.keepRatio() - 1 / 1.5) < 1e-9
+
+    cleanup:
+    worker.close()
+  }
+
+  def "shedding is deterministic by trace id and counted"() {
+    setup:
+    def counted = new AtomicInteger()
+    def healthMetrics = new HealthMetrics() {
+        @Override
+        void onLoadShed() {
+          counted.incrementAndGet()
+        }
+      }
+    def controller = new LoadSheddingController(healthMetrics, 0.1)
+
+    when:
+    int shed = 0
+    for (long traceId = 1; traceId <= 10000; ++traceId) {
+      if (controller.shed(traceId, 0.25)) {
+        shed++
+      }
+    }
+
+    then:
+    counted.get() == shed
+    shed > 7000 && shed < 8000
+    (1..100).every { controller.shed(it, 0.25) == controller.shed(it, 0.25) }
+  }
+
+  void publish(TraceProcessingWorker worker, int traces) {
+    for (int i = 0; i < traces; ++i) {
+      DDSpan root = Stub(DDSpan)
+      assert worker.publish(root, SAMPLER_KEEP, [root]) == ENQUEUED_FOR_SERIALIZATION
+    }
+  }
+}
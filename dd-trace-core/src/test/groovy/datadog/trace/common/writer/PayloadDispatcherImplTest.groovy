@@ -1,6 +1,7 @@
 package datadog.trace.common.writer
 
 import datadog.communication.ddagent.DDAgentFeaturesDiscovery
+import datadog.communication.serialization.DirectBufferPool
 import datadog.trace.api.DDSpanId
 import datadog.trace.api.DDTraceId
 import datadog.trace.api.StatsDClient
@@ -81,6 +82,23 @@ class PayloadDispatcherImplTest extends DDSpecification {
     "v0.5/traces" | 100
   }
 
+  def "buffer pool stats are reported once the segments are back in the pool"() {
+    setup:
+    HealthMetrics healthMetrics = Mock(HealthMetrics)
+    DDAgentFeaturesDiscovery discovery = Stub(DDAgentFeaturesDiscovery)
+    discovery.getTraceEndpoint() >> "v0.4/traces"
+    DDAgentApi api = Stub(DDAgentApi)
+    api.sendSerializedTraces(_) >> RemoteApi.Response.success(200)
+    DirectBufferPool bufferPool = new DirectBufferPool(1024, 4)
+    PayloadDispatcherImpl dispatcher = new PayloadDispatcherImpl(new DDAgentMapperDiscovery(discovery), api, healthMetrics, monitoring, bufferPool)
+    List<DDSpan> trace = [realSpan()]
+    when:
+    dispatcher.addTrace(trace)
+    dispatcher.flush()
+    then:
+    1 * healthMetrics.onBufferPoolStats(0, { it > 0 }, { it > 0 }, _)
+  }
+
   def "should report failed request to monitor"() {
     setup:
     HealthMetrics healthMetrics = Mock(HealthMetrics)
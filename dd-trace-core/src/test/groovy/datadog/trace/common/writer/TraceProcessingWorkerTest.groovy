@@ -1,5 +1,6 @@
 package datadog.trace.common.writer
 
+import datadog.trace.api.DDTraceId
 import datadog.trace.common.sampling.SingleSpanSampler
 import datadog.trace.common.writer.ddagent.PrioritizationStrategy.PublishResult
 import datadog.trace.core.CoreSpan
@@ -102,14 +103,14 @@ class TraceProcessingWorkerTest extends DDSpecification {
     when: "there is pending work it is completed before a flush"
     // processing this span will throw an exception, but it should be caught
     // and not disrupt the flush
-    worker.primaryQueue.offer([Mock(DDSpan)])
+    worker.shards[0].primaryQueue.offer([Mock(DDSpan)])
     worker.start()
     boolean flushed = worker.flush(10, TimeUnit.SECONDS)
 
     then: "the flush succeeds, triggers a dispatch, and the queue is empty"
     flushed
     flushCount.get() == 1
-    worker.primaryQueue.isEmpty()
+    worker.shards[0].primaryQueue.isEmpty()
 
     cleanup:
     worker.close()
@@ -272,7 +273,7 @@ class TraceProcessingWorkerTest extends DDSpecification {
     worker.start()
     worker.close()
     int queueSize = 0
-    while (worker.primaryQueue.offer([Mock(DDSpan)])) {
+    while (worker.shards[0].primaryQueue.offer([Mock(DDSpan)])) {
       queueSize++
     }
 
@@ -282,6 +283,96 @@ class TraceProcessingWorkerTest extends DDSpecification {
     !flushed
   }
 
+  def "sharded worker routes traces by trace id and flushes every shard"() {
+    setup:
+    AtomicInteger flushCount = new AtomicInteger()
+    AtomicInteger[] acceptedCounts = (0..<shardCount).collect { new AtomicInteger() } as AtomicInteger[]
+    PayloadDispatcher[] dispatchers = (0..<shardCount).collect { int shard ->
+      PayloadDispatcherImpl dispatcher = Mock(PayloadDispatcherImpl)
+      dispatcher.addTrace(_) >> {
+        acceptedCounts[shard].incrementAndGet()
+      }
+      dispatcher.flush() >> {
+        flushCount.incrementAndGet()
+      }
+      return dispatcher
+    } as PayloadDispatcher[]
+    HealthMetrics healthMetrics = Mock(HealthMetrics)
+    TraceProcessingWorker worker = new TraceProcessingWorker(10, healthMetrics,
+      dispatchers, {
+        false
+      }, FAST_LANE, 100, TimeUnit.SECONDS, null, null)
+    worker.start()
+
+    when: "traces are submitted"
+    for (int i = 0; i < traceCount; ++i) {
+      DDSpan root = Stub(DDSpan) {
+        getTraceId() >> DDTraceId.from(i)
+      }
+      assert worker.publish(root, SAMPLER_KEEP, [root]) == ENQUEUED_FOR_SERIALIZATION
+    }
+    boolean flushed = worker.flush(10, TimeUnit.SECONDS)
+
+    then: "each trace is serialized by the shard owning its trace id"
+    flushed
+    flushCount.get() == shardCount
+    worker.getShardCount() == shardCount
+    worker.getCapacity() == 10 * shardCount
+    for (int shard = 0; shard < shardCount; ++shard) {
+      int expected = (0..<traceCount).count { TraceProcessingWorker.shardFor(it, shardCount) == shard }
+      assert acceptedCounts[shard].get() == expected
+    }
+    traceCount * healthMetrics.onShardSerialize(_)
+
+    cleanup:
+    worker.close()
+
+    where:
+    shardCount | traceCount
+    2          | 8
+    3          | 9
+    4          | 8
+  }
+
+  def "sharded worker reports overflow per shard"() {
+    setup:
+    HealthMetrics healthMetrics = Mock(HealthMetrics)
+    PayloadDispatcher[] dispatchers = [Mock(PayloadDispatcherImpl), Mock(PayloadDispatcherImpl)] as PayloadDispatcher[]
+    // not started, so the queues fill up
+    TraceProcessingWorker worker = new TraceProcessingWorker(2, healthMetrics,
+      dispatchers, {
+        false
+      }, FAST_LANE, 100, TimeUnit.SECONDS, null, null)
+    DDSpan root = Stub(DDSpan) {
+      getTraceId() >> DDTraceId.from(1)
+    }
+    int shard = TraceProcessingWorker.shardFor(1, 2)
+
+    when:
+    while (worker.publish(root, SAMPLER_KEEP, [root]) == ENQUEUED_FOR_SERIALIZATION) {
+    }
+
+    then:
+    1 * healthMetrics.onShardOverflow(shard)
+    0 * healthMetrics.onShardOverflow(1 - shard)
+  }
+
+  def "shard routing is stable and within bounds"() {
+    expect:
+    int shard = TraceProcessingWorker.shardFor(traceId, shardCount)
+    shard >= 0
+    shard < shardCount
+    shard == TraceProcessingWorker.shardFor(traceId, shardCount)
+
+    where:
+    traceId        | shardCount
+    0L             | 4
+    1L             | 4
+    -1L            | 4
+    Long.MIN_VALUE | 7
+    Long.MAX_VALUE | 64
+  }
+
   def "send unsampled traces to the SpanProcessingWorker and expect only sampled spans dispatched when dropping policy is active"() {
     setup:
     HealthMetrics healthMetrics = Mock(HealthMetrics)
@@ -0,0 +1,49 @@
+package datadog.trace.core
+
+import datadog.trace.api.time.CoarseTimeSource
+import datadog.trace.api.time.ControllableTimeSource
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.core.test.DDCoreSpecification
+import spock.util.concurrent.PollingConditions
+
+import static datadog.trace.api.config.TracerConfig.TRACE_CLOCK_RESOLUTION_MICROS
+
+class CoarseClockSpanTest extends DDCoreSpecification {
+
+  def conditions = new PollingConditions(timeout: 5)
+
+  def "spans are timed with the coarse clock"() {
+    setup:
+    injectSysConfig(TRACE_CLOCK_RESOLUTION_MICROS, "1000")
+    def timeSource = new ControllableTimeSource()
+    timeSource.set(1_000_000_000L)
+    def tracer = tracerBuilder().writer(new ListWriter()).timeSource(timeSource).build()
+
+    expect:
+    tracer.timeSource instanceof CoarseTimeSource
+
+    when: "a span is shorter than the resolution"
+    def span = tracer.buildSpan("short").start()
+    timeSource.advance(10_000)
+    span.finish()
+
+    then: "it falls back to the precise clock"
+    span.durationNano == 10_000
+
+    when: "a span is longer than the resolution"
+    span = tracer.buildSpan("long").start()
+    timeSource.advance(5_000_000)
+    conditions.eventually {
+      assert tracer.timeSource.getNanoTicks() == timeSource.getNanoTicks()
+    }
+    timeSource.advance(10_000)
+    span.finish()
+
+    then: "it may be off by up to the resolution"
+    span.durationNano >= 5_000_000
+    span.durationNano <= 5_010_000
+
+    cleanup:
+    tracer?.close()
+  }
+}
@@ -298,6 +298,24 @@ class CoreTracerTest extends DDCoreSpecification {
     tracer.close()
   }
 
+  def "load shed traces are not written"() {
+    given:
+    def writer = new ListWriter()
+    def tracer = tracerBuilder().writer(writer).sampler(new LoadSheddingSampler()).build()
+
+    when:
+    tracer.buildSpan("shed").start().finish()
+    tracer.buildSpan("kept").start().finish()
+    writer.waitForTraces(1)
+
+    then:
+    writer.size() == 1
+    writer[0][0].operationName.toString() == "kept"
+
+    cleanup:
+    tracer.close()
+  }
+
   def "priority sampling set when child span complete"() {
     given:
     def writer = new ListWriter()
@@ -685,3 +703,15 @@ class ControllableSampler implements Sampler, PrioritySampler {
     return true
   }
 }
+
+class LoadSheddingSampler extends ControllableSampler {
+  @Override
+  <T extends CoreSpan<T>> void setSamplingPriority(T span) {
+    if (span.getOperationName().toString() == "shed") {
+      span.setSamplingPriority(PrioritySampling.SAMPLER_DROP, SamplingMechanism.AGENT_RATE)
+      span.setLoadShed()
+    } else {
+      super.setSamplingPriority(span)
+    }
+  }
+}
@@ -0,0 +1,180 @@
+package datadog.trace.core
+
+import datadog.trace.api.Config
+import datadog.trace.api.time.ControllableTimeSource
+import datadog.trace.api.time.SystemTimeSource
+import datadog.trace.test.util.DDSpecification
+import spock.lang.Subject
+import spock.lang.Timeout
+import spock.util.concurrent.PollingConditions
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.concurrent.atomic.AtomicInteger
+
+@Timeout(5)
+class DeadlinePendingTraceBufferTest extends DDSpecification {
+  static final int CAPACITY = 4
+
+  def config = Mock(Config) {
+    isPendingTraceBufferDeadlineEnabled() >> true
+    getPendingTraceBufferDeadlineCapacity() >> CAPACITY
+  }
+
+  @Subject
+  def buffer = PendingTraceBuffer.delaying(SystemTimeSource.INSTANCE, config, null, null)
+
+  def conditions = new PollingConditions(timeout: 3, initialDelay: 0, factor: 1.25)
+
+  def cleanup() {
+    buffer.close()
+    buffer.worker.join(1000)
+  }
+
+  def "trace is written once it has been quiet"() {
+    setup:
+    buffer.start()
+    def element = new TestElement()
+
+    when:
+    buffer.enqueue(element)
+    buffer.enqueue(element)
+
+    then:
+    conditions.eventually {
+      assert buffer.queue.isEmpty()
+    }
+    element.enqueued.get()
+    element.writes.get() == 0
+
+    when:
+    element.quiet = true
+
+    then:
+    conditions.eventually {
+      assert element.writes.get() == 1
+    }
+    !element.enqueued.get()
+  }
+
+  def "quiet trace is written as soon as it is handed over"() {
+    setup:
+    def frozenBuffer = PendingTraceBuffer.delaying(new ControllableTimeSource(), config, null, null)
+    frozenBuffer.start()
+    def element = new TestElement()
+    element.quiet = true
+
+    when: "time doesn't move, so only the first check can write the trace"
+    frozenBuffer.enqueue(element)
+
+    then:
+    conditions.eventually {
+      assert element.writes.get() == 1
+    }
+    !element.enqueued.get()
+
+    cleanup:
+    frozenBuffer.close()
+    frozenBuffer.worker.join(1000)
+  }
+
+  def "old trace is written even if it is still referenced"() {
+    setup:
+    buffer.start()
+    def element = new TestElement()
+    element.oldestFinished = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - 10_000)
+
+    when:
+    buffer.enqueue(element)
+
+    then:
+    conditions.eventually {
+      assert element.writes.get() == 1
+    }
+    !element.enqueued.get()
+  }
+
+  def "buffer full yields immediate write"() {
+    setup:
+    buffer.start()
+    def elements = (1..CAPACITY).collect { new TestElement() }
+
+    when:
+    elements.each { buffer.enqueue(it) }
+
+    then:
+    conditions.eventually {
+      assert buffer.queue.isEmpty()
+    }
+    elements.every { it.writes.get() == 0 }
+
+    when:
+    def overflow = new TestElement()
+    buffer.enqueue(overflow)
+
+    then:
+    conditions.eventually {
+      assert overflow.writes.get() == 1
+    }
+    !overflow.enqueued.get()
+    elements.every { it.writes.get() == 0 }
+  }
+
+  def "flush writes pending traces"() {
+    setup:
+    buffer.start()
+    def elements = (1..3).collect { new TestElement() }
+
+    when:
+    elements.each { buffer.enqueue(it) }
+    conditions.eventually {
+      assert buffer.queue.isEmpty()
+    }
+
+    then:
+    elements.every { it.writes.get() == 0 }
+
+    when:
+    buffer.flush()
+
+    then:
+    elements.every { it.writes.get() == 1 && !it.enqueued.get() }
+  }
+
+  static class TestElement implements PendingTraceBuffer.Element {
+    final AtomicBoolean enqueued = new AtomicBoolean()
+    final AtomicInteger writes = new AtomicInteger()
+    volatile boolean quiet = false
+    volatile long oldestFinished = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis())
+
+    @Override
+    long oldestFinishedTime() {
+      return oldestFinished
+    }
+
+    @Override
+    boolean lastReferencedNanosAgo(long nanos) {
+      return quiet
+    }
+
+    @Override
+    void write() {
+      writes.incrementAndGet()
+    }
+
+    @Override
+    DDSpan getRootSpan() {
+      return null
+    }
+
+    @Override
+    boolean setEnqueued(boolean enqueued) {
+      return this.enqueued.compareAndSet(!enqueued, enqueued)
+    }
+
+    @Override
+    boolean writeOnBufferFull() {
+      return true
+    }
+  }
+}
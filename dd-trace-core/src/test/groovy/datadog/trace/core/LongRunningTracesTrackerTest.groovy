@@ -32,9 +32,10 @@ class LongRunningTracesTrackerTest extends DDSpecification {
     traceConfig.getServiceMapping() >> [:]
     config.getLongRunningTraceInitialFlushInterval() >> 10
     config.getLongRunningTraceFlushInterval() >> 20
+    config.getLongRunningTraceMaxTrackedTraces() >> maxTrackedTraces
     config.longRunningTraceEnabled >> true
     sharedCommunicationObjects.featuresDiscovery(_) >> features
-    buffer = new PendingTraceBuffer.DelayingPendingTraceBuffer(maxTrackedTraces, timeSource, config, sharedCommunicationObjects, HealthMetrics.NO_OP)
+    buffer = new PendingTraceBuffer.DelayingPendingTraceBuffer(maxTrackedTraces, false, timeSource, config, sharedCommunicationObjects, HealthMetrics.NO_OP)
     tracker = buffer.runningTracesTracker
     factory = new PendingTrace.Factory(tracer, buffer, timeSource, false, HealthMetrics.NO_OP)
   }
@@ -44,7 +45,7 @@ class LongRunningTracesTrackerTest extends DDSpecification {
     tracker.add(null)
 
     then:
-    tracker.traceArray.size() == 0
+    tracker.trackedTraces == 0
   }
 
   def "trace with no span is not added"() {
@@ -52,7 +53,7 @@ class LongRunningTracesTrackerTest extends DDSpecification {
     tracker.add(factory.create(DDTraceId.ONE))
 
     then:
-    tracker.traceArray.size() == 0
+    tracker.trackedTraces == 0
   }
 
   def "trace without the right state are not tracked"() {
@@ -71,12 +72,12 @@ class LongRunningTracesTrackerTest extends DDSpecification {
       tracker.add(trace)
     }
     then:
-    tracker.traceArray.size() == 0
+    tracker.trackedTraces == 0
 
     when:
     tracker.add(newTraceToTrack())
     then:
-    tracker.traceArray.size() == 1
+    tracker.trackedTraces == 1
   }
 
 
@@ -90,7 +91,7 @@ class LongRunningTracesTrackerTest extends DDSpecification {
     tracker.add(newTraceToTrack())
 
     then:
-    tracker.traceArray.size() == maxTrackedTraces
+    tracker.trackedTraces == maxTrackedTraces
     tracker.dropped == 1
   }
 
@@ -103,14 +104,14 @@ class LongRunningTracesTrackerTest extends DDSpecification {
     tracker.flushAndCompact(tracker.maxTrackedDurationMilli - 1000)
 
     then:
-    tracker.traceArray.size() == 1
+    tracker.trackedTraces == 1
     trace.longRunningTrackedState == LongRunningTracesTracker.WRITE_RUNNING_SPANS
 
     when:
     tracker.flushAndCompact(1 + tracker.maxTrackedDurationMilli)
 
     then:
-    tracker.traceArray.size() == 0
+    tracker.trackedTraces == 0
 
     trace.longRunningTrackedState == LongRunningTracesTracker.EXPIRED
   }
@@ -125,7 +126,7 @@ class LongRunningTracesTrackerTest extends DDSpecification {
     tracker.flushAndCompact(tracker.flushPeriodMilli - 1000)
 
     then:
-    tracker.traceArray.size() == 0
+    tracker.trackedTraces == 0
   }
 
   def flushAt(long timeMilli) {
@@ -166,6 +167,73 @@ class LongRunningTracesTrackerTest extends DDSpecification {
     trace.getLastWriteTime() == TimeUnit.MILLISECONDS.toNanos(tracker.initialFlushPeriodMilli + tracker.flushPeriodMilli + 2000)
   }
 
+  def "only traces due are checked"() {
+    given:
+    def early = newTraceToTrack()
+    tracker.add(early)
+    timeSource.set(TimeUnit.SECONDS.toNanos(5))
+    def late = newTraceToTrack()
+    tracker.add(late)
+
+    when: // after the initial flush of the early trace only
+    flushAt(tracker.initialFlushPeriodMilli + 1000)
+
+    then:
+    1 * tracer.write(_)
+    early.getLastWriteTime() == TimeUnit.MILLISECONDS.toNanos(tracker.initialFlushPeriodMilli + 1000)
+    late.getLastWriteTime() <= late.getRunningTraceStartTime()
+
+    when: // after the initial flush of the late trace
+    flushAt(tracker.initialFlushPeriodMilli + 6000)
+
+    then:
+    1 * tracer.write(_)
+    late.getLastWriteTime() == TimeUnit.MILLISECONDS.toNanos(tracker.initialFlushPeriodMilli + 6000)
+    tracker.trackedTraces == 2
+  }
+
+  def "written traces are untracked before they are due"() {
+    given:
+    def written = newTraceToTrack()
+    def running = newTraceToTrack()
+    tracker.add(written)
+    tracker.add(running)
+
+    when: // all the spans of the trace were written, long before its initial flush
+    written.pendingReferenceCount = 0
+    flushAt(1000)
+
+    then:
+    0 * tracer.write(_)
+    tracker.trackedTraces == 1
+    tracker.wheel.every { slot -> !slot.contains(written) }
+  }
+
+  def "flushes after more than a turn of the wheel"() {
+    given:
+    def trace = newTraceToTrack()
+    tracker.add(trace)
+
+    when:
+    flushAt(TimeUnit.HOURS.toMillis(1))
+
+    then:
+    1 * tracer.write(_)
+
+    when: // the next flush is still one flush period after the last write
+    flushAt(TimeUnit.HOURS.toMillis(1) + tracker.flushPeriodMilli - 1000)
+
+    then:
+    0 * tracer.write(_)
+
+    when:
+    flushAt(TimeUnit.HOURS.toMillis(1) + tracker.flushPeriodMilli + 1000)
+
+    then:
+    1 * tracer.write(_)
+    tracker.trackedTraces == 1
+  }
+
   PendingTrace newTraceToTrack() {
     PendingTrace trace = factory.create(DDTraceId.ONE)
     PendingTraceBufferTest::newSpanOf(trace, PrioritySampling.SAMPLER_KEEP)
@@ -183,7 +251,7 @@ class LongRunningTracesTrackerTest extends DDSpecification {
     tracker.flushAndCompact(tracker.maxTrackedDurationMilli - 1000)
 
     then:
-    tracker.traceArray.size() == trackerExpectedSize
+    tracker.trackedTraces == trackerExpectedSize
     trace.longRunningTrackedState == traceExpectedState
 
     where:
@@ -2,6 +2,8 @@ package datadog.trace.core
 
 import ch.qos.logback.classic.Level
 import ch.qos.logback.classic.Logger
+import datadog.trace.api.gateway.RequestContextSlot
+import datadog.trace.api.sampling.PrioritySampling
 import datadog.trace.common.writer.ListWriter
 import datadog.trace.core.test.DDCoreSpecification
 import org.slf4j.LoggerFactory
@@ -10,6 +12,8 @@ import java.util.concurrent.CountDownLatch
 import java.util.concurrent.TimeUnit
 
 import static datadog.trace.api.config.TracerConfig.PARTIAL_FLUSH_MIN_SPANS
+import static datadog.trace.api.config.TracerConfig.TRACE_SPAN_STREAMING_CHUNK_SIZE
+import static datadog.trace.api.config.TracerConfig.TRACE_SPAN_STREAMING_ENABLED
 
 abstract class PendingTraceTestBase extends DDCoreSpecification {
 
@@ -204,6 +208,70 @@ abstract class PendingTraceTestBase extends DDCoreSpecification {
     quickTracer.close()
   }
 
+  def "span streaming writes bounded chunks as spans finish"() {
+    when:
+    injectSysConfig(TRACE_SPAN_STREAMING_ENABLED, "true")
+    injectSysConfig(TRACE_SPAN_STREAMING_CHUNK_SIZE, "2")
+    def quickTracer = tracerBuilder().writer(writer).build()
+    def requestData = Mock(Closeable)
+    def rootSpan = quickTracer.buildSpan("root")
+      .withRequestContextData(RequestContextSlot.APPSEC, requestData)
+      .start()
+    def trace = rootSpan.context().trace
+    def child1 = quickTracer.buildSpan("child1").asChildOf(rootSpan).start()
+    def child2 = quickTracer.buildSpan("child2").asChildOf(rootSpan).start()
+    def child3 = quickTracer.buildSpan("child3").asChildOf(rootSpan).start()
+
+    then:
+    trace.pendingReferenceCount == 4
+
+    when:
+    child1.finish()
+
+    then:
+    trace.spans.asList() == [child1]
+    writer == []
+
+    when:
+    child2.finish()
+    writer.waitForTraces(1)
+
+    then: "the chunk is written while the root is still running, with the sampling decision made"
+    trace.spans.isEmpty()
+    writer == [[child2, child1]]
+    rootSpan.context().samplingPriority != PrioritySampling.UNSET
+
+    and: "the request context stays open until the root is written"
+    0 * requestData.close()
+
+    when: "the first span of the chunk is mapped"
+    Metadata metadata = null
+    child2.processTagsAndBaggage({ metadata = it } as MetadataConsumer, true)
+
+    then: "it carries the trace level tags of the root"
+    metadata.baggage["_dd.p.dm"] != null
+
+    when:
+    child3.finish()
+
+    then:
+    trace.spans.asList() == [child3]
+    writer.traceCount.get() == 1
+
+    when:
+    rootSpan.finish()
+    writer.waitForTraces(2)
+
+    then:
+    1 * requestData.close()
+    trace.pendingReferenceCount == 0
+    trace.spans.isEmpty()
+    writer == [[child2, child1], [rootSpan, child3]]
+
+    cleanup:
+    quickTracer.close()
+  }
+
   def "partial flush concurrency test"() {
     // reduce logging noise
     def logger = (Logger) LoggerFactory.getLogger("datadog.trace")
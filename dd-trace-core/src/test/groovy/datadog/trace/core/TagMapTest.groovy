@@ -0,0 +1,115 @@
+package datadog.trace.core
+
+import datadog.trace.test.util.DDSpecification
+
+class TagMapTest extends DDSpecification {
+
+  def "primitive values are boxed to their own type when read"() {
+    setup:
+    def map = new TagMap()
+
+    when:
+    map.putInt("int", 1)
+    map.putLong("long", 2L)
+    map.putFloat("float", 3.5f)
+    map.putDouble("double", 4.5d)
+    map.putBoolean("boolean", true)
+    map.put("string", "value")
+
+    then:
+    map.size() == 6
+    map.get("int") == 1
+    map.get("int") instanceof Integer
+    map.get("long") == 2L
+    map.get("long") instanceof Long
+    map.get("float") == 3.5f
+    map.get("float") instanceof Float
+    map.get("double") == 4.5d
+    map.get("double") instanceof Double
+    map.get("boolean") == true
+    map.get("string") == "value"
+    map == [int: 1, long: 2L, float: 3.5f, double: 4.5d, boolean: true, string: "value"]
+  }
+
+  def "overwriting a key replaces its value and type"() {
+    setup:
+    def map = new TagMap()
+    map.putLong("key", 42L)
+
+    when:
+    def previous = map.put("key", "value")
+
+    then:
+    previous == 42L
+    map.size() == 1
+    map.get("key") == "value"
+
+    when:
+    map.putDouble("key", 0.5d)
+
+    then:
+    map.size() == 1
+    map.get("key") == 0.5d
+  }
+
+  def "map behaves like a HashMap across growth and removals"() {
+    setup:
+    def map = new TagMap(2)
+    def expected = new HashMap<String, Object>()
+
+    when:
+    for (int i = 0; i < 200; i++) {
+      map.putLong("key" + i, i)
+      expected.put("key" + i, (long) i)
+      if (i % 3 == 0) {
+        map.remove("key" + i.intdiv(2))
+        expected.remove("key" + i.intdiv(2))
+      }
+    }
+
+    then:
+    map == expected
+    map.size() == expected.size()
+    expected.keySet().every { map.containsKey(it) }
+    !map.containsKey("key0")
+    map.get("missing") == null
+  }
+
+  def "slots can be iterated without boxing"() {
+    setup:
+    def map = new TagMap()
+    map.putLong("long", 7L)
+    map.putBoolean("boolean", false)
+    map.put("number", 1.5f)
+    map.put("string", "value")
+    map.remove("string")
+    def numbers = [:]
+    def others = [:]
+
+    when:
+    for (int i = map.first(); i >= 0; i = map.next(i)) {
+      if (map.isNumberAt(i)) {
+        numbers.put(map.keyAt(i), map.valueAt(i))
+      } else {
+        others.put(map.keyAt(i), map.valueAt(i))
+      }
+    }
+
+    then:
+    numbers == [long: 7L, number: 1.5f]
+    others == [boolean: false]
+  }
+
+  def "entry iterator supports removal"() {
+    setup:
+    def map = new TagMap()
+    (0..<20).each { map.putInt("key" + it, it) }
+
+    when:
+    map.entrySet().removeIf { (it.value as int) % 2 == 0 }
+
+    then:
+    map.size() == 10
+    map.keySet() == (0..<20).findAll { it % 2 != 0 }.collect { "key" + it } as Set
+  }
+}
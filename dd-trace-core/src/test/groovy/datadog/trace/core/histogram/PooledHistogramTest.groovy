@@ -0,0 +1,184 @@
+package datadog.trace.core.histogram
+
+import com.datadoghq.sketch.ddsketch.DDSketchProtoBinding
+import com.datadoghq.sketch.ddsketch.proto.DDSketch
+import com.datadoghq.sketch.ddsketch.store.CollapsingLowestDenseStore
+import datadog.trace.test.util.DDSpecification
+
+import java.nio.ByteBuffer
+
+class PooledHistogramTest extends DDSpecification {
+
+  def "quantiles are accurate before and after serialization"() {
+    setup:
+    def histogram = new PooledHistogram(relativeAccuracy, new BinCountsPool(1024, 4))
+    SplittableRandom random = new SplittableRandom(0)
+    double[] data = new double[10000]
+    for (int i = 0; i < data.length; ++i) {
+      data[i] = min + random.nextDouble() * (max - min)
+    }
+    Arrays.sort(data)
+
+    when:
+    for (double value : data) {
+      histogram.accept(value)
+    }
+
+    then:
+    validateQuantiles(histogram, data, relativeAccuracy)
+
+    when:
+    def sketch = DDSketchProtoBinding.fromProto({
+      new CollapsingLowestDenseStore(1024)
+    }, DDSketch.parseFrom(histogram.serialize().array()))
+
+    then:
+    sketch.getCount() == data.length
+    validateQuantiles(sketch, data, relativeAccuracy)
+
+    where:
+    min     | max     | relativeAccuracy
+    1D      | 200D    | 0.01
+    1000D   | 2000D   | 0.01
+    0.001D  | 10D     | 1 / 128D
+    -100D   | 100D    | 0.02
+  }
+
+  def "pooled histograms have the same bins as the library sketch"() {
+    setup:
+    def pooled = Histograms.newPooledHistogram()
+    def histogram = Histograms.newHistogram()
+    SplittableRandom random = new SplittableRandom(0)
+    for (int i = 0; i < 10000; ++i) {
+      double value = random.nextDouble() * 2000 - 1000
+      pooled.accept(value)
+      histogram.accept(value)
+    }
+
+    when:
+    def pooledProto = DDSketch.parseFrom(pooled.serialize().array())
+    def proto = DDSketch.parseFrom(histogram.serialize().array())
+
+    then:
+    pooledProto.getMapping() == proto.getMapping()
+    pooled.getCount() == histogram.getCount()
+    pooled.getMinValue() == histogram.getMinValue()
+    pooled.getMaxValue() == histogram.getMaxValue()
+    for (double quantile : [0D, 0.25D, 0.5D, 0.75D, 0.9D, 0.99D, 1D]) {
+      assert pooled.getValueAtQuantile(quantile) == histogram.getValueAtQuantile(quantile)
+    }
+  }
+
+  def "serializing into a caller provided buffer"() {
+    setup:
+    def histogram = Histograms.newPooledHistogram()
+    histogram.accept(0)
+    histogram.accept(-1)
+    histogram.accept(10)
+    histogram.accept(1000)
+    ByteBuffer buffer = ByteBuffer.allocate(histogram.serializedSize() + 10)
+    buffer.position(10)
+
+    when:
+    histogram.serialize(buffer)
+
+    then:
+    buffer.position() == buffer.capacity()
+    ByteBuffer.wrap(buffer.array(), 10, histogram.serializedSize()) == histogram.serialize()
+  }
+
+  def "merging in place"() {
+    setup:
+    def pool = new BinCountsPool(1024, 4)
+    def left = new PooledHistogram(0.01, pool)
+    def right = new PooledHistogram(0.01, pool)
+    def both = new PooledHistogram(0.01, pool)
+    for (int i = 1; i <= 100; ++i) {
+      left.accept(i)
+      both.accept(i)
+    }
+    for (int i = 1; i <= 1000; i += 7) {
+      right.accept(-i)
+      right.accept(i * 100)
+      both.accept(-i)
+      both.accept(i * 100)
+    }
+
+    when:
+    left.mergeWith(right)
+
+    then:
+    left.getCount() == both.getCount()
+    left.getMinValue() == both.getMinValue()
+    left.getMaxValue() == both.getMaxValue()
+    left.serialize() == both.serialize()
+    right.getCount() == 286
+
+    when:
+    left.mergeWith(new PooledHistogram(0.02, pool))
+
+    then:
+    thrown(IllegalArgumentException)
+  }
+
+  def "values beyond the maximum number of bins collapse into the lowest bin"() {
+    setup:
+    def histogram = new PooledHistogram(0.01, new BinCountsPool(64, 4))
+
+    when:
+    histogram.accept(1)
+    histogram.accept(1000000)
+
+    then:
+    histogram.getCount() == 2
+    histogram.getMaxValue() >= 1000000 * 0.99
+    histogram.getMinValue() > 1
+  }
+
+  def "bins are returned to the pool when cleared"() {
+    setup:
+    def pool = new BinCountsPool(1024, 4)
+    def histogram = new PooledHistogram(0.01, pool)
+
+    when:
+    for (int i = 1; i < 100000; i *= 2) {
+      histogram.accept(i)
+    }
+    histogram.clear()
+
+    then:
+    histogram.isEmpty()
+    histogram.serialize() == new PooledHistogram(0.01, pool).serialize()
+  }
+
+  def "bins are reused by the next interval"() {
+    setup:
+    def pool = new BinCountsPool(1024, 4)
+    def histogram = new PooledHistogram(0.01, pool)
+    histogram.accept(10)
+    histogram.clear()
+
+    when:
+    double[] counts = pool.acquire(BinCountsPool.MIN_LENGTH)
+
+    then: "the released bins were zeroed"
+    counts.every { it == 0 }
+
+    when:
+    pool.release(counts)
+    histogram.accept(5)
+    histogram.accept(5)
+
+    then:
+    counts.sum() == 2
+  }
+
+  def validateQuantiles(def histogram, double[] sortedData, double relativeAccuracy) {
+    for (double quantile : [0.5D, 0.75D, 0.9D, 0.95D, 0.99D]) {
+      double expected = sortedData[(int) (quantile * (sortedData.length - 1))]
+      double actual = histogram.getValueAtQuantile(quantile)
+      assert Math.abs(actual - expected) <= Math.abs(expected) * relativeAccuracy + 1E-12
+    }
+    true
+  }
+}
@@ -1,6 +1,7 @@
 package datadog.trace.core.monitor
 
 import datadog.trace.api.StatsDClient
+import datadog.trace.api.cache.UTF8BytesStringTable
 import datadog.trace.api.sampling.PrioritySampling
 import datadog.trace.bootstrap.instrumentation.api.ScopeSource
 import datadog.trace.common.writer.RemoteApi
@@ -415,6 +416,52 @@ class HealthMetricsTest extends DDSpecification {
     healthMetrics.close()
   }
 
+  def "test onLongRunningTracked"() {
+    setup:
+    def latch = new CountDownLatch(1)
+    def healthMetrics = new TracerHealthMetrics(new Latched(statsD, latch), 100, TimeUnit.MILLISECONDS)
+    healthMetrics.start()
+    when:
+    healthMetrics.onLongRunningTracked(42)
+    latch.await(10, TimeUnit.SECONDS)
+    then:
+    (1.._) * statsD.gauge("long-running.tracked", 42, _)
+    cleanup:
+    healthMetrics.close()
+  }
+
+  def "test intern table counts"() {
+    setup:
+    def latch = new CountDownLatch(2)
+    def healthMetrics = new TracerHealthMetrics(new Latched(statsD, latch), 100, TimeUnit.MILLISECONDS)
+    healthMetrics.start()
+    when:
+    def name = "intern-" + UUID.randomUUID()
+    UTF8BytesStringTable.SHARED.intern(name)
+    UTF8BytesStringTable.SHARED.intern(name)
+    latch.await(10, TimeUnit.SECONDS)
+    then:
+    (1.._) * statsD.count("intern.hits", { it > 0 }, _)
+    (1.._) * statsD.count("intern.misses", { it > 0 }, _)
+    cleanup:
+    healthMetrics.close()
+  }
+
+  def "summary only lists the configured shards"() {
+    setup:
+    def sharded = new TracerHealthMetrics(statsD, 2)
+    def unsharded = new TracerHealthMetrics(statsD)
+    when:
+    sharded.onShardSerialize(0)
+    sharded.onShardSerialize(1)
+    sharded.onShardSerialize(1)
+    sharded.onShardOverflow(1)
+    then:
+    sharded.summary().contains("\nshardSerializedTraces=[1, 2]\nshardOverflowedTraces=[0, 1]\n")
+    !unsharded.summary().contains("shard")
+    !unsharded.summary().contains("\n\n\n")
+  }
+
   private static class Latched implements StatsDClient {
     final StatsDClient delegate
     final CountDownLatch latch
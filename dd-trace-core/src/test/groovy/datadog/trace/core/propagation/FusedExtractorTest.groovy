@@ -0,0 +1,132 @@
+package datadog.trace.core.propagation
+
+import datadog.trace.api.Config
+import datadog.trace.api.DynamicConfig
+import datadog.trace.api.TracePropagationStyle
+import datadog.trace.bootstrap.instrumentation.api.ContextVisitors
+import datadog.trace.bootstrap.instrumentation.api.TagContext
+import datadog.trace.test.util.DDSpecification
+
+import static datadog.trace.api.TracePropagationStyle.B3MULTI
+import static datadog.trace.api.TracePropagationStyle.B3SINGLE
+import static datadog.trace.api.TracePropagationStyle.DATADOG
+import static datadog.trace.api.TracePropagationStyle.HAYSTACK
+import static datadog.trace.api.TracePropagationStyle.TRACECONTEXT
+import static datadog.trace.api.TracePropagationStyle.XRAY
+
+class FusedExtractorTest extends DDSpecification {
+
+  static final Map<String, String> HEADERS = [
+    "X-Datadog-Trace-Id"         : "1",
+    "x-datadog-parent-id"        : "2",
+    "x-datadog-sampling-priority": "1",
+    "x-datadog-origin"           : "synthetics",
+    "x-datadog-tags"             : "_dd.p.dm=-4",
+    "X-B3-TraceId"               : "a",
+    "X-B3-SpanId"                : "b",
+    "b3"                         : "0000000000000001-0000000000000003-1",
+    "traceparent"                : "00-00000000000000000000000000000001-0000000000000004-01",
+    "tracestate"                 : "dd=s:1,foo=bar",
+    "Trace-ID"                   : "1",
+    "Span-ID"                    : "5",
+    "Baggage-Item"               : "haystack",
+    "ot-baggage-item"            : "datadog",
+    "X-Amzn-Trace-Id"            : "Root=1-00000000-000000000000000000000002;Parent=0000000000000006",
+    "User-Agent"                 : "agent",
+    "X-Forwarded-For"            : "1.2.3.4",
+    "Some-Header"                : "tagged",
+    "Mapped-Baggage"             : "mapped",
+    "Accept"                     : "ignored",
+    "x-data-header"              : "ignored",
+  ]
+
+  def "fused extraction matches compound extraction for #styles"() {
+    setup:
+    Config config = Mock(Config) {
+      isTracePropagationExtractFirst() >> extractFirst
+    }
+    DynamicConfig dynamicConfig = DynamicConfig.create()
+      .setHeaderTags(["some-header": "some-tag"])
+      .setBaggageMapping(["mapped-baggage": "mapped"])
+      .apply()
+    def compound = new HttpCodec.CompoundExtractor(extractors(config, styles, dynamicConfig), extractFirst)
+    def fused = new FusedExtractor(config, { dynamicConfig.captureTraceConfig() }, extractors(config, styles, dynamicConfig), extractFirst)
+
+    when:
+    TagContext expected = compound.extract(HEADERS, ContextVisitors.stringValuesMap())
+    TagContext actual = fused.extract(HEADERS, ContextVisitors.stringValuesMap())
+
+    then:
+    actual.class == expected.class
+    actual.propagationStyle == expected.propagationStyle
+    actual.traceId == expected.traceId
+    actual.spanId == expected.spanId
+    actual.samplingPriority == expected.samplingPriority
+    actual.origin == expected.origin
+    actual.tags == expected.tags
+    actual.baggage == expected.baggage
+    actual.XForwardedFor == expected.XForwardedFor
+    actual.userAgent == expected.userAgent
+    if (expected instanceof ExtractedContext) {
+      assert actual.terminatedContextLinks.size() == expected.terminatedContextLinks.size()
+      assert actual.propagationTags.headerValue(PropagationTags.HeaderType.W3C) ==
+      expected.propagationTags.headerValue(PropagationTags.HeaderType.W3C)
+    }
+
+    cleanup:
+    fused.cleanup()
+
+    where:
+    styles                                             | extractFirst
+    [DATADOG, B3MULTI]                                 | false
+    [B3SINGLE, B3MULTI]                                | false
+    [DATADOG, TRACECONTEXT]                            | false
+    [TRACECONTEXT, DATADOG]                            | false
+    [HAYSTACK, XRAY]                                   | false
+    [DATADOG, B3SINGLE, B3MULTI, TRACECONTEXT, HAYSTACK, XRAY] | false
+    [DATADOG, B3SINGLE, B3MULTI, TRACECONTEXT, HAYSTACK, XRAY] | true
+  }
+
+  def "createExtractor fuses several styles"() {
+    setup:
+    Config config = Mock(Config) {
+      getTracePropagationStylesToExtract() >> [DATADOG, TRACECONTEXT]
+    }
+
+    expect:
+    HttpCodec.createExtractor(config, { DynamicConfig.create().apply().captureTraceConfig() }) instanceof FusedExtractor
+  }
+
+  def "header table is case insensitive"() {
+    setup:
+    def table = new FusedExtractor.HeaderTable(FusedExtractor.knownHeaderNames(Mock(Config)))
+
+    expect:
+    FusedExtractor.knownHeaderNames(Mock(Config)).every {
+      table.contains(it) && table.contains(it.toUpperCase()) && table.contains(it.toLowerCase())
+    }
+    !table.contains("accept")
+    !table.contains("x-datadog-trace")
+    !table.contains("x-datadog-trace-idx")
+  }
+
+  static List<HttpCodec.Extractor> extractors(Config config, List<TracePropagationStyle> styles, DynamicConfig dynamicConfig) {
+    def supplier = { dynamicConfig.captureTraceConfig() }
+    styles.collect {
+      switch (it) {
+        case DATADOG:
+          return DatadogHttpCodec.newExtractor(config, supplier)
+        case B3SINGLE:
+          return B3HttpCodec.newSingleExtractor(config, supplier)
+        case B3MULTI:
+          return B3HttpCodec.newMultiExtractor(config, supplier)
+        case TRACECONTEXT:
+          return W3CHttpCodec.newExtractor(config, supplier)
+        case HAYSTACK:
+          return HaystackHttpCodec.newExtractor(config, supplier)
+        case XRAY:
+          return XRayHttpCodec.newExtractor(config, supplier)
+      }
+    }
+  }
+}
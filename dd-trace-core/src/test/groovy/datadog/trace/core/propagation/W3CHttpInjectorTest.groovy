@@ -10,6 +10,7 @@ import datadog.trace.core.test.DDCoreSpecification
 import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_KEEP
 import static datadog.trace.api.sampling.PrioritySampling.SAMPLER_DROP
 import static datadog.trace.api.sampling.PrioritySampling.UNSET
+import static datadog.trace.api.sampling.PrioritySampling.USER_DROP
 import static datadog.trace.api.sampling.PrioritySampling.USER_KEEP
 import static datadog.trace.api.sampling.SamplingMechanism.MANUAL
 import static datadog.trace.core.CoreTracer.TRACE_ID_MAX
@@ -168,6 +169,37 @@ class W3CHttpInjectorTest extends DDCoreSpecification {
     tracer.close()
   }
 
+  def "repeated injection reuses the encoded traceparent until the sampling decision changes"() {
+    setup:
+    def writer = new ListWriter()
+    def tracer = tracerBuilder().writer(writer).build()
+    def span = tracer.buildSpan("fakeOperation").start()
+    final DDSpanContext context = span.context() as DDSpanContext
+    context.setSamplingPriority(USER_KEEP, MANUAL)
+    final Map<String, String> first = [:]
+    final Map<String, String> second = [:]
+    final Map<String, String> dropped = [:]
+
+    when:
+    injector.inject(context, first, MapSetter.INSTANCE)
+    injector.inject(context, second, MapSetter.INSTANCE)
+
+    then:
+    first[TRACE_PARENT_KEY].is(second[TRACE_PARENT_KEY])
+    first[TRACE_PARENT_KEY].endsWith("-01")
+
+    when:
+    context.setSamplingPriority(USER_DROP, MANUAL)
+    injector.inject(context, dropped, MapSetter.INSTANCE)
+
+    then:
+    dropped[TRACE_PARENT_KEY] == first[TRACE_PARENT_KEY].replaceAll('-01$', '-00')
+
+    cleanup:
+    span.finish()
+    tracer.close()
+  }
+
   static String buildTraceParent(String traceId, String spanId, int samplingPriority) {
     return "00-${DDTraceId.from(traceId).toHexString()}-${DDSpanId.toHexStringPadded(DDSpanId.from(spanId))}-${samplingPriority > 0 ? '01': '00'}"
   }
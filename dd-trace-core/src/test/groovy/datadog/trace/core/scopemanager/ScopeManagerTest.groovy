@@ -179,6 +179,58 @@ class ScopeManagerTest extends DDCoreSpecification {
     writer.empty
   }
 
+  def "scope stack is only allocated once a scope is activated on the thread"() {
+    setup:
+    def stacks = []
+
+    when:
+    def thread = Thread.start {
+      assert scopeManager.active() == null
+      assert scopeManager.activeSpan() == null
+      scopeManager.closePrevious(true)
+      stacks << scopeManager.tlsScopeStack.get()
+      def span = tracer.buildSpan("test").start()
+      def scope = tracer.activateSpan(span)
+      stacks << scopeManager.tlsScopeStack.get()
+      scope.close()
+      span.finish()
+    }
+    thread.join()
+
+    then:
+    stacks[0] == null
+    stacks[1] != null
+    stacks[1].depth() == 0
+  }
+
+  def "scope state owns the scopes activated in it on a thread without a scope stack"() {
+    setup:
+    def actives = []
+
+    when: 'a state is activated before any scope, like when a coroutine or fiber resumes'
+    def thread = Thread.start {
+      def state = scopeManager.newScopeState()
+      state.activate()
+      def span = tracer.buildSpan("test").start()
+      def scope = tracer.activateSpan(span)
+      actives << scope
+
+      scopeManager.newScopeState().activate()
+      actives << scopeManager.active()
+
+      state.activate()
+      actives << scopeManager.active()
+      scope.close()
+      span.finish()
+    }
+    thread.join()
+
+    then:
+    actives[0] != null
+    actives[1] == null
+    actives[2] == actives[0]
+  }
+
   def "simple scope and span lifecycle"() {
     when:
     def span = tracer.buildSpan("test").start()
@@ -0,0 +1,110 @@
+package datadog.trace.core.util
+
+import datadog.trace.api.time.ControllableTimeSource
+import datadog.trace.test.util.DDSpecification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+
+class StripedRateLimiterTest extends DDSpecification {
+  def "initial rate available at creation"() {
+    setup:
+    def timeSource = new ControllableTimeSource()
+    def limiter = new StripedRateLimiter(rate, concurrency, timeSource)
+
+    when:
+    rate.times {
+      assert limiter.tryAcquire(): "failed for $it"
+    }
+
+    then:
+    assert !limiter.tryAcquire()
+    assert !limiter.tryAcquire()
+
+    where:
+    rate | concurrency
+    10   | 1
+    100  | 4
+    1000 | 64
+  }
+
+  def "tokens are consumed and replenished"() {
+    setup:
+    def timeSource = new ControllableTimeSource()
+    def limiter = new StripedRateLimiter(rate, 8, timeSource)
+    long nanosIncrement = (long) (TimeUnit.SECONDS.toNanos(1) / (rate + 1)) + 1
+
+    when:
+    rate.times {
+      timeSource.advance(nanosIncrement)
+      assert limiter.tryAcquire(): "failed for $it"
+    }
+
+    then:
+    assert !limiter.tryAcquire()
+
+    when:
+    rate.times {
+      timeSource.advance(nanosIncrement)
+      assert limiter.tryAcquire(): "failed for $it"
+    }
+
+    then:
+    assert !limiter.tryAcquire()
+
+    where:
+    rate << [10, 100, 1000]
+  }
+
+  def "threads never acquire more than the rate"() {
+    setup:
+    def timeSource = new ControllableTimeSource()
+    def limiter = new StripedRateLimiter(rate, threads, timeSource)
+    def acquired = new AtomicInteger()
+    def start = new CountDownLatch(1)
+    def workers = (1..threads).collect {
+      Thread.start {
+        start.await()
+        rate.times {
+          if (limiter.tryAcquire()) {
+            acquired.incrementAndGet()
+          }
+        }
+      }
+    }
+
+    when:
+    start.countDown()
+    workers*.join()
+
+    then:
+    // a thread only stops with tokens left in its stripe after acquiring the whole rate
+    acquired.get() == rate
+
+    where:
+    rate | threads
+    10   | 8
+    500  | 8
+    5000 | 16
+  }
+
+  def "effective rate reports the fraction acquired over the last second"() {
+    setup:
+    def timeSource = new ControllableTimeSource()
+    def limiter = new StripedRateLimiter(10, 1, timeSource)
+
+    expect:
+    limiter.effectiveRate == 1
+
+    when:
+    40.times {
+      limiter.tryAcquire()
+    }
+    timeSource.advance(TimeUnit.SECONDS.toNanos(1))
+    limiter.tryAcquire()
+
+    then:
+    limiter.effectiveRate == 0.25
+  }
+}
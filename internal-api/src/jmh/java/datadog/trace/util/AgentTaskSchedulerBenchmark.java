@@ -0,0 +1,101 @@
+package datadog.trace.util;
+
+import static datadog.trace.util.AgentThreadFactory.AgentThread.TASK_SCHEDULER;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Schedules and cancels tasks from several threads while hundreds of periodic tasks are firing in
+ * the background, comparing the delay queue with the timer wheel. The {@code workerCpuMillis}
+ * counter reports how much CPU the worker thread used during each iteration.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5, timeUnit = SECONDS)
+@Measurement(iterations = 3, time = 5, timeUnit = SECONDS)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(MICROSECONDS)
+@Threads(4)
+@Fork(value = 1)
+public class AgentTaskSchedulerBenchmark {
+
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+  @Param({"false", "true"})
+  boolean timerWheel;
+
+  @Param({"100", "500"})
+  int periodicTasks;
+
+  AgentTaskScheduler scheduler;
+  long workerThreadId;
+
+  private static final AgentTaskScheduler.Task<Object> NOOP =
+      new AgentTaskScheduler.Task<Object>() {
+        @Override
+        public void run(Object target) {}
+      };
+
+  @Setup(Level.Trial)
+  public void setup() {
+    scheduler = new AgentTaskScheduler(TASK_SCHEDULER, timerWheel);
+    for (int i = 0; i < periodicTasks; ++i) {
+      // periods typical of the agent's own reporting and polling tasks
+      long period = ThreadLocalRandom.current().nextLong(10, 1000);
+      scheduler.scheduleAtFixedRate(NOOP, new Object(), period, period, MILLISECONDS);
+    }
+    for (Thread thread : Thread.getAllStackTraces().keySet()) {
+      if (TASK_SCHEDULER.threadName.equals(thread.getName())) {
+        workerThreadId = thread.getId();
+      }
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    scheduler.shutdown(1, SECONDS);
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class WorkerCounters {
+    public long workerCpuMillis;
+
+    private long startCpuNanos;
+
+    @Setup(Level.Iteration)
+    public void start(AgentTaskSchedulerBenchmark benchmark) {
+      startCpuNanos = THREADS.getThreadCpuTime(benchmark.workerThreadId);
+    }
+
+    @TearDown(Level.Iteration)
+    public void stop(AgentTaskSchedulerBenchmark benchmark) {
+      workerCpuMillis =
+          (THREADS.getThreadCpuTime(benchmark.workerThreadId) - startCpuNanos) / 1_000_000;
+    }
+  }
+
+  @Benchmark
+  public void scheduleAndCancel(WorkerCounters counters) {
+    scheduler.schedule(NOOP, counters, 10, MILLISECONDS).cancel();
+  }
+}
@@ -8,6 +8,8 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_API_SECURITY_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_API_SECURITY_REQUEST_SAMPLE_RATE;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_APPSEC_REPORTING_INBAND;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_APPSEC_TRACE_RATE_LIMIT;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_APPSEC_WAF_ASYNC_ENABLED;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_APPSEC_WAF_ASYNC_THREADS;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_APPSEC_WAF_METRICS;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_APPSEC_WAF_TIMEOUT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_CIVISIBILITY_AGENTLESS_ENABLED;
@@ -69,6 +71,7 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_SERVER_ERROR_STATUSE
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_SERVER_ROUTE_BASED_NAMING;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_HTTP_SERVER_TAG_QUERY_STRING;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_ANONYMOUS_CLASSES_ENABLED;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_CONCURRENT_TAINTED_MAP_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_DEBUG_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_HARDCODED_SECRET_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_IAST_REDACTION_ENABLED;
@@ -83,6 +86,8 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_JMX_FETCH_MULTIPLE_RUNTIM
 import static datadog.trace.api.ConfigDefaults.DEFAULT_JMX_FETCH_MULTIPLE_RUNTIME_SERVICES_LIMIT;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_LOGS_INJECTION_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PARTIAL_FLUSH_MIN_SPANS;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_PENDING_TRACE_BUFFER_DEADLINE_CAPACITY;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_PENDING_TRACE_BUFFER_DEADLINE_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PERF_METRICS_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PRIORITY_SAMPLING_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_PRIORITY_SAMPLING_FORCE;
@@ -115,9 +120,11 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_ANALYTICS_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_HTTP_RESOURCE_REMOVE_TRAILING_SLASH;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_LONG_RUNNING_FLUSH_INTERVAL;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_LONG_RUNNING_INITIAL_FLUSH_INTERVAL;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_LONG_RUNNING_MAX_TRACKED_TRACES;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_PROPAGATION_EXTRACT_FIRST;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_PROPAGATION_STYLE;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_RATE_LIMIT;
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_RATE_LIMIT_STRIPED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_REPORT_HOSTNAME;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_RESOLVER_ENABLED;
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_X_DATADOG_TAGS_MAX_LENGTH;
@@ -150,6 +157,8 @@ import static datadog.trace.api.config.AppSecConfig.APPSEC_REPORT_TIMEOUT_SEC;
 import static datadog.trace.api.config.AppSecConfig.APPSEC_RULES_FILE;
 import static datadog.trace.api.config.AppSecConfig.APPSEC_SCA_ENABLED;
 import static datadog.trace.api.config.AppSecConfig.APPSEC_TRACE_RATE_LIMIT;
+import static datadog.trace.api.config.AppSecConfig.APPSEC_WAF_ASYNC_ENABLED;
+import static datadog.trace.api.config.AppSecConfig.APPSEC_WAF_ASYNC_THREADS;
 import static datadog.trace.api.config.AppSecConfig.APPSEC_WAF_METRICS;
 import static datadog.trace.api.config.AppSecConfig.APPSEC_WAF_TIMEOUT;
 import static datadog.trace.api.config.CiVisibilityConfig.CIVISIBILITY_ADDITIONAL_CHILD_PROCESS_JVM_ARGS;
@@ -263,6 +272,7 @@ import static datadog.trace.api.config.GeneralConfig.TELEMETRY_EXTENDED_HEARTBEA
 import static datadog.trace.api.config.GeneralConfig.TELEMETRY_HEARTBEAT_INTERVAL;
 import static datadog.trace.api.config.GeneralConfig.TELEMETRY_LOG_COLLECTION_ENABLED;
 import static datadog.trace.api.config.GeneralConfig.TELEMETRY_METRICS_INTERVAL;
+import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_AGGREGATOR_SHARDS;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_BUFFERING_ENABLED;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_ENABLED;
 import static datadog.trace.api.config.GeneralConfig.TRACER_METRICS_IGNORED_RESOURCES;
@@ -275,6 +285,7 @@ import static datadog.trace.api.config.GeneralConfig.TRIAGE_REPORT_DIR;
 import static datadog.trace.api.config.GeneralConfig.TRIAGE_REPORT_TRIGGER;
 import static datadog.trace.api.config.GeneralConfig.VERSION;
 import static datadog.trace.api.config.IastConfig.IAST_ANONYMOUS_CLASSES_ENABLED;
+import static datadog.trace.api.config.IastConfig.IAST_CONCURRENT_TAINTED_MAP_ENABLED;
 import static datadog.trace.api.config.IastConfig.IAST_CONTEXT_MODE;
 import static datadog.trace.api.config.IastConfig.IAST_DEBUG_ENABLED;
 import static datadog.trace.api.config.IastConfig.IAST_DETECTION_MODE;
@@ -409,6 +420,8 @@ import static datadog.trace.api.config.TracerConfig.HTTP_SERVER_ERROR_STATUSES;
 import static datadog.trace.api.config.TracerConfig.ID_GENERATION_STRATEGY;
 import static datadog.trace.api.config.TracerConfig.PARTIAL_FLUSH_ENABLED;
 import static datadog.trace.api.config.TracerConfig.PARTIAL_FLUSH_MIN_SPANS;
+import static datadog.trace.api.config.TracerConfig.PENDING_TRACE_BUFFER_DEADLINE_CAPACITY;
+import static datadog.trace.api.config.TracerConfig.PENDING_TRACE_BUFFER_DEADLINE_ENABLED;
 import static datadog.trace.api.config.TracerConfig.PRIORITY_SAMPLING;
 import static datadog.trace.api.config.TracerConfig.PRIORITY_SAMPLING_FORCE;
 import static datadog.trace.api.config.TracerConfig.PROPAGATION_EXTRACT_LOG_HEADER_NAMES_ENABLED;
@@ -449,6 +462,7 @@ import static datadog.trace.api.config.TracerConfig.TRACE_PROPAGATION_STYLE;
 import static datadog.trace.api.config.TracerConfig.TRACE_PROPAGATION_STYLE_EXTRACT;
 import static datadog.trace.api.config.TracerConfig.TRACE_PROPAGATION_STYLE_INJECT;
 import static datadog.trace.api.config.TracerConfig.TRACE_RATE_LIMIT;
+import static datadog.trace.api.config.TracerConfig.TRACE_RATE_LIMIT_STRIPED;
 import static datadog.trace.api.config.TracerConfig.TRACE_REMOVE_INTEGRATION_SERVICE_NAMES_ENABLED;
 import static datadog.trace.api.config.TracerConfig.TRACE_REPORT_HOSTNAME;
 import static datadog.trace.api.config.TracerConfig.TRACE_RESOLVER_ENABLED;
@@ -630,6 +644,8 @@ public class Config {
   private final boolean scopeInheritAsyncPropagation;
   private final int scopeIterationKeepAlive;
   private final int partialFlushMinSpans;
+  private final boolean pendingTraceBufferDeadlineEnabled;
+  private final int pendingTraceBufferDeadlineCapacity;
   private final boolean traceStrictWritesEnabled;
   private final boolean logExtractHeaderNames;
   private final Set<PropagationStyle> propagationStylesToExtract;
@@ -671,6 +687,7 @@ public class Config {
   private final boolean tracerMetricsBufferingEnabled;
   private final int tracerMetricsMaxAggregates;
   private final int tracerMetricsMaxPending;
+  private final int tracerMetricsAggregatorShards;
 
   private final boolean reportHostName;
 
@@ -685,6 +702,7 @@ public class Config {
   private final String traceSamplingRules;
   private final Double traceSampleRate;
   private final int traceRateLimit;
+  private final boolean traceRateLimitStriped;
   private final String spanSamplingRules;
   private final String spanSamplingRulesFile;
 
@@ -723,6 +741,8 @@ public class Config {
   private final int appSecTraceRateLimit;
   private final boolean appSecWafMetrics;
   private final int appSecWafTimeout;
+  private final boolean appSecWafAsyncEnabled;
+  private final int appSecWafAsyncThreads;
   private final String appSecObfuscationParameterKeyRegexp;
   private final String appSecObfuscationParameterValueRegexp;
   private final String appSecHttpBlockedTemplateHtml;
@@ -747,6 +767,7 @@ public class Config {
   private final IastContext.Mode iastContextMode;
   private final boolean iastHardcodedSecretEnabled;
   private final boolean iastAnonymousClassesEnabled;
+  private final boolean iastConcurrentTaintedMapEnabled;
 
   private final boolean ciVisibilityTraceSanitationEnabled;
   private final boolean ciVisibilityAgentlessEnabled;
@@ -932,6 +953,8 @@ public class Config {
   private final boolean longRunningTraceEnabled;
   private final long longRunningTraceInitialFlushInterval;
   private final long longRunningTraceFlushInterval;
+  private final int longRunningTraceMaxTrackedTraces;
+  private final int spanStreamingChunkSize;
   private final boolean couchbaseInternalSpansEnabled;
   private final boolean elasticsearchBodyEnabled;
   private final boolean elasticsearchParamsEnabled;
@@ -943,6 +966,11 @@ public class Config {
   private final boolean axisPromoteResourceName;
   private final float traceFlushIntervalSeconds;
   private final long tracePostProcessingTimeout;
+  private final int traceSerializationShards;
+  private final boolean traceSerializationDirectBuffersEnabled;
+  private final boolean traceLoadSheddingEnabled;
+  private final double traceLoadSheddingMinKeepRatio;
+  private final int traceClockResolutionMicros;
 
   private final boolean telemetryDebugRequestsEnabled;
 
@@ -1266,6 +1294,12 @@ public class Config {
         !partialFlushEnabled
             ? 0
             : configProvider.getInteger(PARTIAL_FLUSH_MIN_SPANS, DEFAULT_PARTIAL_FLUSH_MIN_SPANS);
+    pendingTraceBufferDeadlineEnabled =
+        configProvider.getBoolean(
+            PENDING_TRACE_BUFFER_DEADLINE_ENABLED, DEFAULT_PENDING_TRACE_BUFFER_DEADLINE_ENABLED);
+    pendingTraceBufferDeadlineCapacity =
+        configProvider.getInteger(
+            PENDING_TRACE_BUFFER_DEADLINE_CAPACITY, DEFAULT_PENDING_TRACE_BUFFER_DEADLINE_CAPACITY);
 
     traceStrictWritesEnabled = configProvider.getBoolean(TRACE_STRICT_WRITES_ENABLED, false);
 
@@ -1424,6 +1458,8 @@ public class Config {
         configProvider.getBoolean(TRACER_METRICS_BUFFERING_ENABLED, false);
     tracerMetricsMaxAggregates = configProvider.getInteger(TRACER_METRICS_MAX_AGGREGATES, 2048);
     tracerMetricsMaxPending = configProvider.getInteger(TRACER_METRICS_MAX_PENDING, 2048);
+    tracerMetricsAggregatorShards =
+        Math.max(1, configProvider.getInteger(TRACER_METRICS_AGGREGATOR_SHARDS, 1));
 
     reportHostName =
         configProvider.getBoolean(TRACE_REPORT_HOSTNAME, DEFAULT_TRACE_REPORT_HOSTNAME);
@@ -1453,6 +1489,8 @@ public class Config {
     traceSamplingRules = configProvider.getString(TRACE_SAMPLING_RULES);
     traceSampleRate = configProvider.getDouble(TRACE_SAMPLE_RATE);
     traceRateLimit = configProvider.getInteger(TRACE_RATE_LIMIT, DEFAULT_TRACE_RATE_LIMIT);
+    traceRateLimitStriped =
+        configProvider.getBoolean(TRACE_RATE_LIMIT_STRIPED, DEFAULT_TRACE_RATE_LIMIT_STRIPED);
     spanSamplingRules = configProvider.getString(SPAN_SAMPLING_RULES);
     spanSamplingRulesFile = configProvider.getString(SPAN_SAMPLING_RULES_FILE);
 
@@ -1608,6 +1646,13 @@ public class Config {
 
     appSecWafTimeout = configProvider.getInteger(APPSEC_WAF_TIMEOUT, DEFAULT_APPSEC_WAF_TIMEOUT);
 
+    appSecWafAsyncEnabled =
+        configProvider.getBoolean(APPSEC_WAF_ASYNC_ENABLED, DEFAULT_APPSEC_WAF_ASYNC_ENABLED);
+    appSecWafAsyncThreads =
+        Math.max(
+            1,
+            configProvider.getInteger(APPSEC_WAF_ASYNC_THREADS, DEFAULT_APPSEC_WAF_ASYNC_THREADS));
+
     appSecObfuscationParameterKeyRegexp =
         configProvider.getString(APPSEC_OBFUSCATION_PARAMETER_KEY_REGEXP, null);
     appSecObfuscationParameterValueRegexp =
@@ -1669,6 +1714,9 @@ public class Config {
     iastAnonymousClassesEnabled =
         configProvider.getBoolean(
             IAST_ANONYMOUS_CLASSES_ENABLED, DEFAULT_IAST_ANONYMOUS_CLASSES_ENABLED);
+    iastConcurrentTaintedMapEnabled =
+        configProvider.getBoolean(
+            IAST_CONCURRENT_TAINTED_MAP_ENABLED, DEFAULT_IAST_CONCURRENT_TAINTED_MAP_ENABLED);
 
     ciVisibilityTraceSanitationEnabled =
         configProvider.getBoolean(CIVISIBILITY_TRACE_SANITATION_ENABLED, true);
@@ -2040,6 +2088,31 @@ public class Config {
     this.longRunningTraceEnabled = longRunningEnabled;
     this.longRunningTraceInitialFlushInterval = longRunningTraceInitialFlushInterval;
     this.longRunningTraceFlushInterval = longRunningTraceFlushInterval;
+    this.longRunningTraceMaxTrackedTraces =
+        configProvider.getInteger(
+            TracerConfig.TRACE_LONG_RUNNING_MAX_TRACKED_TRACES,
+            DEFAULT_TRACE_LONG_RUNNING_MAX_TRACKED_TRACES);
+
+    boolean spanStreamingEnabled =
+        configProvider.getBoolean(
+            TracerConfig.TRACE_SPAN_STREAMING_ENABLED,
+            ConfigDefaults.DEFAULT_TRACE_SPAN_STREAMING_ENABLED);
+    int spanStreamingChunkSize =
+        spanStreamingEnabled
+            ? configProvider.getInteger(
+                TracerConfig.TRACE_SPAN_STREAMING_CHUNK_SIZE,
+                ConfigDefaults.DEFAULT_TRACE_SPAN_STREAMING_CHUNK_SIZE)
+            : 0;
+    // a chunk size of 0 would silently disable the streaming which was asked for
+    if (spanStreamingEnabled && spanStreamingChunkSize <= 0) {
+      log.warn(
+          "Provided span streaming chunk size of {}. It should be positive. "
+              + "Setting the chunk size to the default value of {}.",
+          spanStreamingChunkSize,
+          ConfigDefaults.DEFAULT_TRACE_SPAN_STREAMING_CHUNK_SIZE);
+      spanStreamingChunkSize = ConfigDefaults.DEFAULT_TRACE_SPAN_STREAMING_CHUNK_SIZE;
+    }
+    this.spanStreamingChunkSize = spanStreamingChunkSize;
 
     this.sparkTaskHistogramEnabled =
         configProvider.getBoolean(
@@ -2068,6 +2141,42 @@ public class Config {
         configProvider.getLong(
             TRACE_POST_PROCESSING_TIMEOUT, ConfigDefaults.DEFAULT_TRACE_POST_PROCESSING_TIMEOUT);
 
+    int traceSerializationShards =
+        configProvider.getInteger(
+            TracerConfig.TRACE_SERIALIZATION_SHARDS,
+            ConfigDefaults.DEFAULT_TRACE_SERIALIZATION_SHARDS);
+    if (traceSerializationShards < 1 || traceSerializationShards > 64) {
+      log.warn(
+          "Provided trace serialization shard count of {}. It should be between 1 and 64. "
+              + "Setting the shard count to the default value of {}.",
+          traceSerializationShards,
+          ConfigDefaults.DEFAULT_TRACE_SERIALIZATION_SHARDS);
+      traceSerializationShards = ConfigDefaults.DEFAULT_TRACE_SERIALIZATION_SHARDS;
+    }
+    this.traceSerializationShards = traceSerializationShards;
+    this.traceSerializationDirectBuffersEnabled =
+        configProvider.getBoolean(
+            TracerConfig.TRACE_SERIALIZATION_DIRECT_BUFFERS_ENABLED,
+            ConfigDefaults.DEFAULT_TRACE_SERIALIZATION_DIRECT_BUFFERS_ENABLED);
+    this.traceLoadSheddingEnabled =
+        configProvider.getBoolean(
+            TracerConfig.TRACE_LOAD_SHEDDING_ENABLED,
+            ConfigDefaults.DEFAULT_TRACE_LOAD_SHEDDING_ENABLED);
+    this.traceLoadSheddingMinKeepRatio =
+        Math.min(
+            1,
+            Math.max(
+                0,
+                configProvider.getDouble(
+                    TracerConfig.TRACE_LOAD_SHEDDING_MIN_KEEP_RATIO,
+                    ConfigDefaults.DEFAULT_TRACE_LOAD_SHEDDING_MIN_KEEP_RATIO)));
+    this.traceClockResolutionMicros =
+        Math.max(
+            0,
+            configProvider.getInteger(
+                TracerConfig.TRACE_CLOCK_RESOLUTION_MICROS,
+                ConfigDefaults.DEFAULT_TRACE_CLOCK_RESOLUTION_MICROS));
+
     if (isCiVisibilityEnabled()
         && ciVisibilityAgentlessEnabled
         && (apiKey == null || apiKey.isEmpty())) {
@@ -2172,6 +2281,19 @@ public class Config {
     return longRunningTraceFlushInterval;
   }
 
+  public int getLongRunningTraceMaxTrackedTraces() {
+    return longRunningTraceMaxTrackedTraces;
+  }
+
+  public boolean isSpanStreamingEnabled() {
+    return spanStreamingChunkSize > 0;
+  }
+
+  /** @return the maximum number of spans per streamed chunk, or 0 if streaming is disabled. */
+  public int getSpanStreamingChunkSize() {
+    return spanStreamingChunkSize;
+  }
+
   public float getTraceFlushIntervalSeconds() {
     return traceFlushIntervalSeconds;
   }
@@ -2180,6 +2302,26 @@ public class Config {
     return tracePostProcessingTimeout;
   }
 
+  public int getTraceSerializationShards() {
+    return traceSerializationShards;
+  }
+
+  public boolean isTraceSerializationDirectBuffersEnabled() {
+    return traceSerializationDirectBuffersEnabled;
+  }
+
+  public boolean isTraceLoadSheddingEnabled() {
+    return traceLoadSheddingEnabled;
+  }
+
+  public double getTraceLoadSheddingMinKeepRatio() {
+    return traceLoadSheddingMinKeepRatio;
+  }
+
+  public int getTraceClockResolutionMicros() {
+    return traceClockResolutionMicros;
+  }
+
   public boolean isIntegrationSynapseLegacyOperationName() {
     return integrationSynapseLegacyOperationName;
   }
@@ -2376,6 +2518,14 @@ public class Config {
     return partialFlushMinSpans;
   }
 
+  public boolean isPendingTraceBufferDeadlineEnabled() {
+    return pendingTraceBufferDeadlineEnabled;
+  }
+
+  public int getPendingTraceBufferDeadlineCapacity() {
+    return pendingTraceBufferDeadlineCapacity;
+  }
+
   public boolean isTraceStrictWritesEnabled() {
     return traceStrictWritesEnabled;
   }
@@ -2514,6 +2664,10 @@ public class Config {
     return tracerMetricsMaxPending;
   }
 
+  public int getTracerMetricsAggregatorShards() {
+    return tracerMetricsAggregatorShards;
+  }
+
   public boolean isLogsInjectionEnabled() {
     return logsInjectionEnabled;
   }
@@ -2560,6 +2714,10 @@ public class Config {
     return traceRateLimit;
   }
 
+  public boolean isTraceRateLimitStriped() {
+    return traceRateLimitStriped;
+  }
+
   public String getSpanSamplingRules() {
     return spanSamplingRules;
   }
@@ -2774,6 +2932,14 @@ public class Config {
     return appSecWafTimeout;
   }
 
+  public boolean isAppSecWafAsyncEnabled() {
+    return appSecWafAsyncEnabled;
+  }
+
+  public int getAppSecWafAsyncThreads() {
+    return appSecWafAsyncThreads;
+  }
+
   public String getAppSecObfuscationParameterKeyRegexp() {
     return appSecObfuscationParameterKeyRegexp;
   }
@@ -2862,6 +3028,10 @@ public class Config {
     return iastAnonymousClassesEnabled;
   }
 
+  public boolean isIastConcurrentTaintedMapEnabled() {
+    return iastConcurrentTaintedMapEnabled;
+  }
+
   public boolean isCiVisibilityEnabled() {
     return instrumenterConfig.isCiVisibilityEnabled();
   }
@@ -4278,6 +4448,10 @@ public class Config {
         + scopeIterationKeepAlive
         + ", partialFlushMinSpans="
         + partialFlushMinSpans
+        + ", pendingTraceBufferDeadlineEnabled="
+        + pendingTraceBufferDeadlineEnabled
+        + ", pendingTraceBufferDeadlineCapacity="
+        + pendingTraceBufferDeadlineCapacity
         + ", traceStrictWritesEnabled="
         + traceStrictWritesEnabled
         + ", tracePropagationStylesToExtract="
@@ -4331,6 +4505,8 @@ public class Config {
         + tracerMetricsMaxAggregates
         + ", tracerMetricsMaxPending="
         + tracerMetricsMaxPending
+        + ", tracerMetricsAggregatorShards="
+        + tracerMetricsAggregatorShards
         + ", reportHostName="
         + reportHostName
         + ", traceAnalyticsEnabled="
@@ -4345,6 +4521,8 @@ public class Config {
         + traceSampleRate
         + ", traceRateLimit="
         + traceRateLimit
+        + ", traceRateLimitStriped="
+        + traceRateLimitStriped
         + ", spanSamplingRules="
         + spanSamplingRules
         + ", spanSamplingRulesFile="
@@ -4516,7 +4694,11 @@ public class Config {
         + appSecHttpBlockedTemplateHtml
         + ", appSecWafTimeout="
         + appSecWafTimeout
-        + " us, appSecHttpBlockedTemplateJson="
+        + " us, appSecWafAsyncEnabled="
+        + appSecWafAsyncEnabled
+        + ", appSecWafAsyncThreads="
+        + appSecWafAsyncThreads
+        + ", appSecHttpBlockedTemplateJson="
         + appSecHttpBlockedTemplateJson
         + ", apiSecurityEnabled="
         + apiSecurityEnabled
@@ -4532,6 +4714,10 @@ public class Config {
         + longRunningTraceInitialFlushInterval
         + ", longRunningTraceFlushInterval="
         + longRunningTraceFlushInterval
+        + ", longRunningTraceMaxTrackedTraces="
+        + longRunningTraceMaxTrackedTraces
+        + ", spanStreamingChunkSize="
+        + spanStreamingChunkSize
         + ", couchbaseInternalSpansEnabled="
         + couchbaseInternalSpansEnabled
         + ", elasticsearchBodyEnabled="
@@ -4542,6 +4728,16 @@ public class Config {
         + elasticsearchBodyAndParamsEnabled
         + ", traceFlushInterval="
         + traceFlushIntervalSeconds
+        + ", traceSerializationShards="
+        + traceSerializationShards
+        + ", traceSerializationDirectBuffersEnabled="
+        + traceSerializationDirectBuffersEnabled
+        + ", traceLoadSheddingEnabled="
+        + traceLoadSheddingEnabled
+        + ", traceLoadSheddingMinKeepRatio="
+        + traceLoadSheddingMinKeepRatio
+        + ", traceClockResolutionMicros="
+        + traceClockResolutionMicros
         + ", injectBaggageAsTagsEnabled="
         + injectBaggageAsTagsEnabled
         + ", logsInjectionEnabled="
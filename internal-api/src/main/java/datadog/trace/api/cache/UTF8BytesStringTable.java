@@ -0,0 +1,179 @@
+package datadog.trace.api.cache;
+
+import static datadog.trace.api.cache.FixedSizeCache.calculateSize;
+import static datadog.trace.api.cache.FixedSizeCache.rehash;
+
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interning table for {@link UTF8BytesString}s shared by the tracer's subsystems, so that a string
+ * like a service, thread or operation name seen by several of them maps to the same instance and is
+ * only encoded to UTF-8 once. Serializers which cache encodings by identity, like the msgpack
+ * writer's string table, then find interned strings without comparing their contents.
+ *
+ * <p>The table is laid out like the {@link DDCaches#newFixedSizeWeightedCache weighted cache}:
+ * lookups read a plain array without locking, using double hashing two more times on collisions,
+ * and the total UTF-8 length of interned strings is kept under a limit by sweeping the table when
+ * it is exceeded. Strings longer than the maximum length are never interned.
+ *
+ * <p>All race conditions are benign: the worst that can happen is that two instances of the same
+ * string are handed out, or that a string is interned again after being overwritten.
+ */
+public final class UTF8BytesStringTable {
+
+  /** Table shared by the tracer's subsystems */
+  public static final UTF8BytesStringTable SHARED = new UTF8BytesStringTable(4096, 1 << 20, 1024);
+
+  private static final AtomicIntegerFieldUpdater<UTF8BytesStringTable>
+      TOTAL_WEIGHT_ESTIMATE_UPDATER =
+          AtomicIntegerFieldUpdater.newUpdater(UTF8BytesStringTable.class, "totalWeightEstimate");
+
+  // identity only, never handed out
+  private static final UTF8BytesString EVICTED = UTF8BytesString.create(new byte[0]);
+
+  private final int mask;
+  // no need for volatile, elements are immutable once encoded
+  private final UTF8BytesString[] elements;
+  private final int maxLength;
+  private final int totalWeightLimit;
+  private final int totalWeightTarget;
+
+  // only used as a hint, so it doesn't need to be 100% accurate
+  private volatile int totalWeightEstimate;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  /**
+   * @param capacity the maximum number of strings that the table can hold
+   * @param totalWeightLimit the maximum combined UTF-8 length of the strings in the table
+   * @param maxLength strings longer than this are never interned
+   */
+  public UTF8BytesStringTable(int capacity, int totalWeightLimit, int maxLength) {
+    int size = calculateSize(capacity);
+    this.elements = new UTF8BytesString[size];
+    this.mask = size - 1;
+    this.maxLength = maxLength;
+    this.totalWeightLimit = totalWeightLimit;
+    this.totalWeightTarget = (int) (0.5 + totalWeightLimit * 0.9); // target 90% of limit
+  }
+
+  /**
+   * @return the interned instance equal to {@code sequence}, which is {@code sequence} itself if it
+   *     is a {@link UTF8BytesString} seen for the first time, or null if {@code sequence} is null
+   */
+  public UTF8BytesString intern(CharSequence sequence) {
+    if (null == sequence) {
+      return null;
+    }
+    String string = sequence.toString();
+    // avoid copying a string out of other kinds of sequences again
+    CharSequence source = sequence instanceof UTF8BytesString ? sequence : string;
+    if (string.length() > maxLength) {
+      misses.increment();
+      return UTF8BytesString.create(source);
+    }
+
+    int h = string.hashCode();
+    int oldPos = h & mask;
+    UTF8BytesString old = elements[oldPos];
+
+    int pos = oldPos;
+    UTF8BytesString current = old;
+
+    // try to find a slot or a match 3 times
+    for (int i = 1; true; i++) {
+      if (current == null) {
+        // we found an empty slot, so store the string there
+        return store(source, pos, null);
+      } else if (current == EVICTED) {
+        // use evicted slot instead of first if we can't find a match
+        if (old != EVICTED) {
+          oldPos = pos;
+          old = current;
+        }
+        // continue search in case our string appears in a later slot
+      } else if (string.equals(current.toString())) {
+        hits.increment();
+        return current;
+      }
+      if (i == 3) {
+        // we've searched all 3 slots, overwrite the first/evicted slot
+        return store(source, oldPos, old);
+      }
+      // try another slot
+      h = rehash(h);
+      pos = h & mask;
+      current = elements[pos];
+    }
+  }
+
+  /** @return the number of lookups which found an interned instance */
+  public long hits() {
+    return hits.sum();
+  }
+
+  /** @return the number of lookups which didn't find an interned instance */
+  public long misses() {
+    return misses.sum();
+  }
+
+  /** @return the number of interned instances which were evicted to make space */
+  public long evictions() {
+    return evictions.sum();
+  }
+
+  private UTF8BytesString store(CharSequence source, int pos, UTF8BytesString old) {
+    misses.increment();
+    UTF8BytesString value = UTF8BytesString.create(source);
+    // encode up front, so the instance is only ever encoded once
+    int weight = value.encodedLength();
+    boolean evicting = null != old && old != EVICTED;
+    int oldWeight = evicting ? old.encodedLength() : 0;
+    if (weight > totalWeightLimit) {
+      return value; // too big to intern
+    }
+    int oldEstimate;
+    while ((oldEstimate = totalWeightEstimate) <= totalWeightLimit) {
+      int newEstimate = oldEstimate + (weight - oldWeight); // estimate may go up or down
+      if (TOTAL_WEIGHT_ESTIMATE_UPDATER.compareAndSet(this, oldEstimate, newEstimate)) {
+        elements[pos] = value;
+        if (evicting) {
+          evictions.increment();
+        }
+        if (newEstimate > totalWeightLimit) {
+          // totalWeightEstimate is now above the limit, making the table read-only to others.
+          // As we sweep the table we evict strings to move the estimate back below the limit.
+          // When we publish the reduced estimate, the table becomes writable again.
+          sweep(pos, weight);
+        }
+        break;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Sweeps the table re-calculating the total weight, evicting any strings that would tip it over.
+   */
+  private void sweep(int startPos, int startWeight) {
+    // sweep forward from updated position, wrapping round to cover all other slots in the table
+    int totalWeight = startWeight;
+    for (int i = (startPos + 1) & mask; i != startPos; i = (i + 1) & mask) {
+      UTF8BytesString element = elements[i];
+      if (element != null && element != EVICTED) {
+        int weight = element.encodedLength();
+        totalWeight += weight;
+        if (totalWeight > totalWeightTarget) {
+          totalWeight -= weight;
+          elements[i] = EVICTED;
+          evictions.increment();
+        }
+      }
+    }
+    totalWeightEstimate = totalWeight;
+  }
+}
@@ -10,12 +10,15 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import datadog.trace.util.AgentThreadFactory.AgentThread;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,8 +73,24 @@ public class AgentTaskScheduler implements Executor {
   private volatile Thread worker;
   private volatile boolean shutdown;
 
+  // only used when the tasks are kept in a timer wheel
+  private final boolean timerWheel;
+  private final ConcurrentLinkedQueue<PeriodicTask<?>> submissions = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger wheelTaskCount = new AtomicInteger();
+  private volatile long plannedWakeup = Long.MIN_VALUE;
+
   public AgentTaskScheduler(final AgentThread agentThread) {
+    this(agentThread, false);
+  }
+
+  /**
+   * @param timerWheel whether to keep the tasks in a hierarchical timer wheel rather than a delay
+   *     queue. Tasks are submitted to the wheel without locking, and the worker only wakes up when
+   *     a task is due, at the expense of firing on millisecond ticks.
+   */
+  public AgentTaskScheduler(final AgentThread agentThread, final boolean timerWheel) {
     this.agentThread = agentThread;
+    this.timerWheel = timerWheel;
   }
 
   @Override
@@ -176,9 +195,11 @@ public class AgentTaskScheduler implements Executor {
     if (!shutdown && worker == null) {
       synchronized (workQueue) {
         if (!shutdown && worker == null) {
-          prepareWorkQueue();
+          if (!timerWheel) {
+            prepareWorkQueue();
+          }
           try {
-            worker = newAgentThread(agentThread, new Worker());
+            worker = newAgentThread(agentThread, timerWheel ? new WheelWorker() : new Worker());
             // register hook after worker is assigned, but before we start it
             Runtime.getRuntime().addShutdownHook(new ShutdownHook());
             worker.start();
@@ -190,7 +211,11 @@ public class AgentTaskScheduler implements Executor {
     }
 
     if (!shutdown) {
-      workQueue.offer(new PeriodicTask<>(task, target, initialDelay, period, unit));
+      if (timerWheel) {
+        submit(new PeriodicTask<>(task, target, initialDelay, period, unit));
+      } else {
+        workQueue.offer(new PeriodicTask<>(task, target, initialDelay, period, unit));
+      }
     } else {
       log.debug("Agent task scheduler is shutdown. Will not run {}", describeTask(task, target));
     }
@@ -206,9 +231,21 @@ public class AgentTaskScheduler implements Executor {
     }
   }
 
+  private void submit(final PeriodicTask<?> task) {
+    wheelTaskCount.incrementAndGet();
+    submissions.offer(task);
+    // only wake the worker if it's going to sleep past the new task
+    if (task.nextFireTime - plannedWakeup < 0) {
+      final Thread t = worker;
+      if (t != null) {
+        LockSupport.unpark(t);
+      }
+    }
+  }
+
   // for testing
   int taskCount() {
-    return workQueue.size();
+    return timerWheel ? wheelTaskCount.get() : workQueue.size();
   }
 
   public boolean isShutdown() {
@@ -279,6 +316,166 @@ public class AgentTaskScheduler implements Executor {
     }
   }
 
+  private static final int WHEEL_BITS = 6;
+  private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+  private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+  private static final int WHEEL_LEVELS = 4;
+  private static final long TICK_NANOS = MILLISECONDS.toNanos(1);
+
+  /**
+   * Keeps the tasks in a hashed hierarchical timer wheel which is only touched by the worker
+   * thread. Each level has 64 slots, so the levels span 64ms, 4s, 4min and 4.6h of 1ms ticks; tasks
+   * further away than that wait in the last slot of the top level and are reinserted when it
+   * cascades. Scheduling is constant time, and cancelled or collected targets are dropped the next
+   * time their task fires.
+   */
+  private final class WheelWorker implements Runnable {
+    private final PeriodicTask<?>[][] slots = new PeriodicTask<?>[WHEEL_LEVELS][WHEEL_SIZE];
+    private final ArrayDeque<PeriodicTask<?>> due = new ArrayDeque<>();
+    private final long startNanos = System.nanoTime();
+    private long currentTick;
+
+    @Override
+    public void run() {
+      while (!shutdown) {
+        PeriodicTask<?> submitted;
+        while ((submitted = submissions.poll()) != null) {
+          insert(submitted);
+        }
+        runDueTasks();
+        final long nowTick = elapsedTicks(System.nanoTime());
+        long nextTick;
+        while ((nextTick = nextEventTick()) <= nowTick) {
+          // nothing happens in between, so skip straight to the next event
+          currentTick = nextTick - 1;
+          advance();
+          runDueTasks();
+        }
+        currentTick = nowTick;
+        if (nextTick == Long.MAX_VALUE) {
+          plannedWakeup = Long.MAX_VALUE;
+          if (submissions.isEmpty() && !shutdown) {
+            LockSupport.park(this);
+          }
+        } else {
+          final long wakeup = startNanos + nextTick * TICK_NANOS;
+          plannedWakeup = wakeup;
+          if (submissions.isEmpty() && !shutdown) {
+            LockSupport.parkNanos(this, wakeup - System.nanoTime());
+          }
+        }
+        plannedWakeup = Long.MIN_VALUE;
+        if (!shutdown) {
+          // interrupts are only meaningful on shutdown, don't let one turn parking into spinning
+          Thread.interrupted();
+        }
+      }
+      submissions.clear();
+      wheelTaskCount.set(0);
+      worker = null;
+    }
+
+    /** @return the number of ticks which have fully elapsed by the given time */
+    private long elapsedTicks(final long nanos) {
+      final long elapsed = nanos - startNanos;
+      return elapsed <= 0 ? 0 : elapsed / TICK_NANOS;
+    }
+
+    /** @return the first tick at or after the given time */
+    private long deadlineTick(final long nanos) {
+      final long elapsed = nanos - startNanos;
+      return elapsed <= 0 ? 0 : (elapsed + TICK_NANOS - 1) / TICK_NANOS;
+    }
+
+    private void insert(final PeriodicTask<?> task) {
+      final long deadline = deadlineTick(task.nextFireTime);
+      if (deadline <= currentTick) {
+        due.offer(task);
+        return;
+      }
+      int level = 0;
+      int shift = 0;
+      while ((deadline >> shift) - (currentTick >> shift) >= WHEEL_SIZE) {
+        if (++level == WHEEL_LEVELS) {
+          // beyond the wheel, park the task in the furthest slot until it cascades
+          level = WHEEL_LEVELS - 1;
+          shift = WHEEL_BITS * level;
+          link(task, level, (int) (((currentTick >> shift) + WHEEL_MASK) & WHEEL_MASK));
+          return;
+        }
+        shift += WHEEL_BITS;
+      }
+      link(task, level, (int) ((deadline >> shift) & WHEEL_MASK));
+    }
+
+    private void link(final PeriodicTask<?> task, final int level, final int slot) {
+      task.nextInSlot = slots[level][slot];
+      slots[level][slot] = task;
+    }
+
+    /** Moves to the next tick, cascading higher levels on the way and collecting due tasks. */
+    private void advance() {
+      final long tick = ++currentTick;
+      for (int level = 1; level < WHEEL_LEVELS; ++level) {
+        final int shift = WHEEL_BITS * level;
+        if ((tick & ((1L << shift) - 1)) != 0) {
+          break;
+        }
+        final int slot = (int) ((tick >> shift) & WHEEL_MASK);
+        PeriodicTask<?> task = slots[level][slot];
+        slots[level][slot] = null;
+        while (task != null) {
+          final PeriodicTask<?> next = task.nextInSlot;
+          task.nextInSlot = null;
+          insert(task);
+          task = next;
+        }
+      }
+      final int slot = (int) (tick & WHEEL_MASK);
+      PeriodicTask<?> task = slots[0][slot];
+      slots[0][slot] = null;
+      while (task != null) {
+        final PeriodicTask<?> next = task.nextInSlot;
+        task.nextInSlot = null;
+        due.offer(task);
+        task = next;
+      }
+    }
+
+    /** @return the first tick after the current one where a slot needs processing */
+    private long nextEventTick() {
+      long next = Long.MAX_VALUE;
+      for (int level = 0; level < WHEEL_LEVELS; ++level) {
+        final int shift = WHEEL_BITS * level;
+        final long base = currentTick >> shift;
+        for (int i = 1; i < WHEEL_SIZE; ++i) {
+          if (slots[level][(int) ((base + i) & WHEEL_MASK)] != null) {
+            next = Math.min(next, (base + i) << shift);
+            break;
+          }
+        }
+      }
+      return next;
+    }
+
+    private void runDueTasks() {
+      PeriodicTask<?> work;
+      while (!shutdown && (work = due.poll()) != null) {
+        // like the delay queue, only count the task while it's waiting
+        wheelTaskCount.decrementAndGet();
+        try {
+          work.run();
+        } catch (final Throwable e) {
+          log.debug("Uncaught exception from {}", work, e);
+        }
+        if (!shutdown && work.reschedule()) {
+          wheelTaskCount.incrementAndGet();
+          insert(work);
+        }
+      }
+    }
+  }
+
   private static final AtomicInteger TASK_SEQUENCE_GENERATOR = new AtomicInteger();
 
   private static final class PeriodicTask<T> implements Delayed {
@@ -290,6 +487,9 @@ public class AgentTaskScheduler implements Executor {
 
     private long nextFireTime;
 
+    // only used by the timer wheel
+    private PeriodicTask<?> nextInSlot;
+
     public PeriodicTask(
         final Task<T> task,
         final Target<T> target,
@@ -16,6 +16,7 @@ public final class AgentThreadFactory implements ThreadFactory {
     TRACE_STARTUP("dd-agent-startup-datadog-tracer"),
     TRACE_MONITOR("dd-trace-monitor"),
     TRACE_PROCESSOR("dd-trace-processor"),
+    COARSE_CLOCK("dd-coarse-clock"),
     SPAN_SAMPLING_PROCESSOR("dd-span-sampling-processor"),
     TRACE_CASSANDRA_ASYNC_SESSION("dd-cassandra-session-executor"),
 
@@ -30,6 +31,7 @@ public final class AgentThreadFactory implements ThreadFactory {
     PROFILER_HTTP_DISPATCHER("dd-profiler-http-dispatcher"),
 
     APPSEC_HTTP_DISPATCHER("dd-appsec-http-dispatcher"),
+    APPSEC_WAF_WORKER("dd-appsec-waf-worker"),
 
     TELEMETRY("dd-telemetry"),
 
@@ -14,6 +14,7 @@ import static datadog.trace.api.ConfigDefaults.DEFAULT_PARTIAL_FLUSH_MIN_SPANS
 import static datadog.trace.api.ConfigDefaults.DEFAULT_SERVICE_NAME
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_LONG_RUNNING_FLUSH_INTERVAL
 import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_LONG_RUNNING_INITIAL_FLUSH_INTERVAL
+import static datadog.trace.api.ConfigDefaults.DEFAULT_TRACE_SPAN_STREAMING_CHUNK_SIZE
 import static datadog.trace.api.DDTags.HOST_TAG
 import static datadog.trace.api.DDTags.LANGUAGE_TAG_KEY
 import static datadog.trace.api.DDTags.LANGUAGE_TAG_VALUE
@@ -122,6 +123,8 @@ import static datadog.trace.api.config.TracerConfig.TRACE_RESOLVER_ENABLED
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLE_RATE
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_OPERATION_RULES
 import static datadog.trace.api.config.TracerConfig.TRACE_SAMPLING_SERVICE_RULES
+import static datadog.trace.api.config.TracerConfig.TRACE_SPAN_STREAMING_CHUNK_SIZE
+import static datadog.trace.api.config.TracerConfig.TRACE_SPAN_STREAMING_ENABLED
 import static datadog.trace.api.config.TracerConfig.TRACE_X_DATADOG_TAGS_MAX_LENGTH
 import static datadog.trace.api.config.TracerConfig.WRITER_TYPE
 
@@ -2377,6 +2380,25 @@ class ConfigTest extends DDSpecification {
     "450"         | 450
   }
 
+  def "span streaming chunk size: enabled=#enabled chunkSize=#configuredChunkSize"() {
+    when:
+    def prop = new Properties()
+    prop.setProperty(TRACE_SPAN_STREAMING_ENABLED, enabled)
+    prop.setProperty(TRACE_SPAN_STREAMING_CHUNK_SIZE, configuredChunkSize)
+    Config config = Config.get(prop)
+
+    then:
+    config.spanStreamingEnabled == (chunkSize > 0)
+    config.spanStreamingChunkSize == chunkSize
+
+    where:
+    enabled | configuredChunkSize | chunkSize
+    "false" | "10"                | 0
+    "true"  | "10"                | 10
+    "true"  | "0"                 | DEFAULT_TRACE_SPAN_STREAMING_CHUNK_SIZE
+    "true"  | "-1"                | DEFAULT_TRACE_SPAN_STREAMING_CHUNK_SIZE
+  }
+
   def "partial flush and min spans interaction"() {
     when:
     def prop = new Properties()
@@ -0,0 +1,92 @@
+package datadog.trace.api.cache
+
+import datadog.trace.bootstrap.instrumentation.api.UTF8BytesString
+import datadog.trace.test.util.DDSpecification
+
+class UTF8BytesStringTableTest extends DDSpecification {
+
+  def "equal strings are interned to the same instance"() {
+    setup:
+    def table = new UTF8BytesStringTable(16, 1024, 64)
+
+    when:
+    def first = table.intern("service")
+    def second = table.intern(new StringBuilder("serv").append("ice"))
+    def third = table.intern(UTF8BytesString.create("service"))
+
+    then:
+    first.toString() == "service"
+    second.is(first)
+    third.is(first)
+    table.hits() == 2
+    table.misses() == 1
+    table.evictions() == 0
+  }
+
+  def "a UTF8BytesString seen first is interned itself"() {
+    setup:
+    def table = new UTF8BytesStringTable(16, 1024, 64)
+    def original = UTF8BytesString.create("operation")
+
+    expect:
+    table.intern(original).is(original)
+    table.intern("operation").is(original)
+  }
+
+  def "null is not interned"() {
+    setup:
+    def table = new UTF8BytesStringTable(16, 1024, 64)
+
+    expect:
+    table.intern(null) == null
+    table.hits() == 0
+    table.misses() == 0
+  }
+
+  def "long strings are never interned"() {
+    setup:
+    def table = new UTF8BytesStringTable(16, 1024, 4)
+
+    when:
+    def first = table.intern("too long")
+    def second = table.intern("too long")
+
+    then:
+    first == second
+    !first.is(second)
+    table.misses() == 2
+  }
+
+  def "strings are evicted to stay under the weight limit"() {
+    setup:
+    def table = new UTF8BytesStringTable(64, 20, 64)
+
+    when:
+    (0..<10).each { table.intern("string-" + it) }
+
+    then:
+    table.misses() == 10
+    table.evictions() > 0
+
+    when:
+    def hitsBefore = table.hits()
+    (0..<10).each { table.intern("string-" + it) }
+
+    then:
+    // at most two 8 byte strings fit within the weight limit
+    table.hits() - hitsBefore <= 2
+  }
+
+  def "strings are evicted on collisions"() {
+    setup:
+    def table = new UTF8BytesStringTable(1, 1024, 64)
+
+    when:
+    def first = table.intern("first")
+    table.intern("second")
+
+    then:
+    table.evictions() == 1
+    !table.intern("first").is(first)
+  }
+}
@@ -17,7 +17,11 @@ class AgentTaskSchedulerTest extends DDSpecification {
   AgentTaskScheduler scheduler
 
   def setup() {
-    scheduler = new AgentTaskScheduler(TASK_SCHEDULER)
+    scheduler = newScheduler()
+  }
+
+  AgentTaskScheduler newScheduler() {
+    return new AgentTaskScheduler(TASK_SCHEDULER)
   }
 
   def cleanup() {
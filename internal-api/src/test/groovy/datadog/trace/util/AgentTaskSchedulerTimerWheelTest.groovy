@@ -0,0 +1,58 @@
+package datadog.trace.util
+
+import java.util.concurrent.CountDownLatch
+
+import static datadog.trace.util.AgentThreadFactory.AgentThread.TASK_SCHEDULER
+import static java.util.concurrent.TimeUnit.HOURS
+import static java.util.concurrent.TimeUnit.MILLISECONDS
+
+/** Runs the scheduler tests against the timer wheel. */
+class AgentTaskSchedulerTimerWheelTest extends AgentTaskSchedulerTest {
+
+  @Override
+  AgentTaskScheduler newScheduler() {
+    return new AgentTaskScheduler(TASK_SCHEDULER, true)
+  }
+
+  def "test tasks beyond the wheel don't delay earlier tasks"() {
+    setup:
+    def latch = new CountDownLatch(1)
+    def task = new AgentTaskScheduler.Task<CountDownLatch>() {
+        @Override
+        void run(CountDownLatch target) {
+          target.countDown()
+        }
+      }
+
+    when:
+    scheduler.schedule(task, new CountDownLatch(1), 10, HOURS)
+    scheduler.schedule(task, latch, 10, MILLISECONDS)
+
+    then:
+    latch.await(500, MILLISECONDS)
+    scheduler.taskCount() == 1
+  }
+
+  def "test many tasks fire in order of their delay"() {
+    setup:
+    def fired = Collections.synchronizedList([])
+    def latch = new CountDownLatch(100)
+    def task = new AgentTaskScheduler.Task<Integer>() {
+        @Override
+        void run(Integer target) {
+          fired.add(target)
+          latch.countDown()
+        }
+      }
+
+    when:
+    (100..1).each {
+      scheduler.schedule(task, it, it * 3, MILLISECONDS)
+    }
+
+    then:
+    latch.await(2000, MILLISECONDS)
+    fired == (1..100).toList()
+    scheduler.taskCount() == 0
+  }
+}
@@ -0,0 +1,107 @@
+package datadog.trace.api.time;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * A time source whose nano ticks are refreshed by a background thread every {@code resolution}
+ * nanoseconds, so reading them is a volatile read instead of a call to a clock source which may be
+ * slow on virtualized hosts. Wall clock time is still read from the underlying source.
+ *
+ * <p>The caller provides the background thread by running this source until it's closed. Each
+ * refresh measures how much later than the resolution it ran, and the largest delay seen over a
+ * calibration period is reported to the drift listener because it bounds how stale the ticks get.
+ */
+public final class CoarseTimeSource implements TimeSource, Runnable, AutoCloseable {
+
+  private final TimeSource precise;
+  private final long resolutionNanos;
+  private final long calibrationPeriodNanos;
+  private final LongConsumer driftListener;
+
+  private volatile long nanoTicks;
+  private volatile long driftNanos;
+  private volatile boolean closed;
+
+  /**
+   * @param precise the source to refresh the ticks from, and to read wall clock time from
+   * @param resolutionNanos how often the ticks are refreshed
+   * @param calibrationPeriodNanos how often the drift is reported
+   * @param driftListener told the largest delay of a refresh over each calibration period
+   */
+  public CoarseTimeSource(
+      TimeSource precise,
+      long resolutionNanos,
+      long calibrationPeriodNanos,
+      LongConsumer driftListener) {
+    this.precise = precise;
+    this.resolutionNanos = Math.max(1, resolutionNanos);
+    this.calibrationPeriodNanos = calibrationPeriodNanos;
+    this.driftListener = driftListener;
+    this.nanoTicks = precise.getNanoTicks();
+  }
+
+  @Override
+  public void run() {
+    long previous = nanoTicks;
+    long calibrationStart = previous;
+    long maxDrift = 0;
+    while (!closed) {
+      LockSupport.parkNanos(resolutionNanos);
+      long now = refresh();
+      maxDrift = Math.max(maxDrift, now - previous - resolutionNanos);
+      previous = now;
+      if (now - calibrationStart >= calibrationPeriodNanos) {
+        driftNanos = maxDrift;
+        driftListener.accept(maxDrift);
+        maxDrift = 0;
+        calibrationStart = now;
+      }
+    }
+  }
+
+  /** Reads the underlying source now, rather than waiting for the next refresh. */
+  public long refresh() {
+    return nanoTicks = precise.getNanoTicks();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+  }
+
+  /** @return the ticks as of the last refresh */
+  @Override
+  public long getNanoTicks() {
+    return nanoTicks;
+  }
+
+  /** @return the ticks of the underlying source, for when the resolution isn't good enough */
+  public long getPreciseNanoTicks() {
+    return precise.getNanoTicks();
+  }
+
+  public long getResolutionNanos() {
+    return resolutionNanos;
+  }
+
+  /** @return the largest delay of a refresh over the last calibration period */
+  public long getDriftNanos() {
+    return driftNanos;
+  }
+
+  @Override
+  public long getCurrentTimeMillis() {
+    return precise.getCurrentTimeMillis();
+  }
+
+  @Override
+  public long getCurrentTimeMicros() {
+    return precise.getCurrentTimeMicros();
+  }
+
+  @Override
+  public long getCurrentTimeNanos() {
+    return precise.getCurrentTimeNanos();
+  }
+}
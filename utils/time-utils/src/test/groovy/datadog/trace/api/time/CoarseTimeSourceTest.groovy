@@ -0,0 +1,64 @@
+package datadog.trace.api.time
+
+import datadog.trace.test.util.DDSpecification
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicLong
+
+class CoarseTimeSourceTest extends DDSpecification {
+
+  def "ticks only move when refreshed"() {
+    setup:
+    def precise = new ControllableTimeSource()
+    precise.set(1000)
+    def coarse = new CoarseTimeSource(precise, 100, 1000, {})
+
+    expect:
+    coarse.getNanoTicks() == 1000
+    coarse.getResolutionNanos() == 100
+
+    when:
+    precise.advance(50)
+
+    then:
+    coarse.getNanoTicks() == 1000
+    coarse.getPreciseNanoTicks() == 1050
+    coarse.getCurrentTimeNanos() == 1050
+
+    when:
+    coarse.refresh()
+
+    then:
+    coarse.getNanoTicks() == 1050
+  }
+
+  def "background refresh reports drift until closed"() {
+    setup:
+    def drift = new AtomicLong(-1)
+    def reported = new CountDownLatch(1)
+    def coarse = new CoarseTimeSource(SystemTimeSource.INSTANCE,
+      TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(20), {
+        drift.set(it)
+        reported.countDown()
+      })
+    def thread = new Thread(coarse)
+
+    when:
+    long before = coarse.getNanoTicks()
+    thread.start()
+
+    then:
+    reported.await(5, TimeUnit.SECONDS)
+    coarse.getNanoTicks() > before
+    drift.get() >= 0
+    coarse.getDriftNanos() >= 0
+
+    when:
+    coarse.close()
+    thread.join(1000)
+
+    then:
+    !thread.isAlive()
+  }
+}